@@ -0,0 +1,177 @@
+package tetrix.benchmarks;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tetrix.assets.Asset;
+import tetrix.assets.AssetLoader;
+import tetrix.assets.AssetPack;
+import tetrix.assets.AssetPackBuilder;
+import tetrix.assets.AssetUploader;
+import tetrix.datastructures.ByteBufferPool;
+
+import de.matthiasmann.twl.utils.PNGDecoder;
+import de.matthiasmann.twl.utils.PNGDecoder.Format;
+
+/**
+ * Time to load every texture of resources/textures and every block shader two
+ * ways: one after another on a single thread, as TextureUtils.loadPNGTexture and
+ * ShaderUtils.loadShader do, and with an {@link AssetLoader} decoding on worker
+ * threads while the benchmark thread uploads bounded batches.  Uploads only read
+ * the decoded bytes, so no OpenGL context is needed.  Teardown prints the
+ * AssetLoader's per-asset timings of the last load.
+ * @author Dustin Biser
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AssetLoaderBenchmark {
+	
+	// Benchmarks run from the jmh directory.
+	@Param({"../" + AssetPack.DEFAULT_TEXTURE_DIRECTORY})
+	public String textureDirectory;
+	
+	@Param({"../source/tetrix/shaders"})
+	public String shaderDirectory;
+	
+	@Param({"4"})
+	public int threads;
+	
+	private List<Path> images;
+	private String[] shaders;
+	private ExecutorService workers;
+	private ByteBufferPool pool;
+	private AssetUploader uploader;
+	private AssetLoader loader;
+	
+	@Setup
+	public void setUp() throws IOException {
+		images = AssetPackBuilder.listImages(Paths.get(textureDirectory));
+		shaders = Paths.get(shaderDirectory).toFile().list();
+		workers = Executors.newFixedThreadPool(threads);
+		pool = new ByteBufferPool();
+		uploader = new AssetUploader() {
+			@Override
+			public int uploadTexture(Asset asset, ByteBuffer texels) {
+				return (int)checksum(texels);
+			}
+			
+			@Override
+			public int uploadShader(Asset asset, ByteBuffer source) {
+				return (int)checksum(source);
+			}
+		};
+		
+		System.out.printf("%d textures and %d shaders%n", images.size(), shaders.length);
+	}
+	
+	@TearDown
+	public void tearDown(){
+		workers.shutdown();
+		
+		System.out.printf("%d direct buffers allocated, %d reused%n",
+				pool.getAllocations(), pool.getReuses());
+		if (loader != null){
+			System.out.println("Per-asset timings of the last load:");
+			loader.printTimings(System.out);
+		}
+	}
+	
+	@Benchmark
+	public long singleThread() throws IOException {
+		long sink = 0;
+		
+		for(Path image : images){
+			sink += checksum(decodePNG(image));
+		}
+		for(String shader : shaders){
+			sink += readShader(shaderDirectory + "/" + shader).length();
+		}
+		
+		return sink;
+	}
+	
+	@Benchmark
+	public int assetLoader() throws IOException {
+		loader = new AssetLoader(workers, pool);
+		for(Path image : images){
+			loader.addTexture(AssetPackBuilder.getTextureName(image), image);
+		}
+		for(String shader : shaders){
+			loader.addShader(shader, Paths.get(shaderDirectory, shader), 0);
+		}
+		
+		loader.start();
+		int uploaded = 0;
+		while (!loader.isDone()){
+			int count = loader.update(uploader);
+			if (count == 0){
+				Thread.yield();
+			}
+			uploaded += count;
+		}
+		
+		return uploaded;
+	}
+	
+	private static ByteBuffer decodePNG(Path image) throws IOException {
+		InputStream in = new FileInputStream(image.toFile());
+		PNGDecoder decoder = new PNGDecoder(in);
+		
+		ByteBuffer buf = ByteBuffer.allocateDirect(4 * decoder.getWidth() *
+				decoder.getHeight());
+		decoder.decode(buf, decoder.getWidth() * 4, Format.RGBA);
+		buf.flip();
+		in.close();
+		
+		return buf;
+	}
+	
+	private static StringBuilder readShader(String filename) throws IOException {
+		StringBuilder shaderSource = new StringBuilder();
+		BufferedReader reader = new BufferedReader(new FileReader(filename));
+		String line;
+		while ((line = reader.readLine()) != null) {
+			shaderSource.append(line).append("\n");
+		}
+		reader.close();
+		
+		return shaderSource;
+	}
+	
+	private static long checksum(ByteBuffer data){
+		long sum = 0;
+		for(int i = data.position(); i < data.limit(); i += 64){
+			sum += data.get(i);
+		}
+		
+		return sum;
+	}
+}
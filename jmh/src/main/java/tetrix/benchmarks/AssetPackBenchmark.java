@@ -0,0 +1,121 @@
+package tetrix.benchmarks;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tetrix.assets.AssetPack;
+import tetrix.assets.AssetPackBuilder;
+
+import de.matthiasmann.twl.utils.PNGDecoder;
+import de.matthiasmann.twl.utils.PNGDecoder.Format;
+
+/**
+ * Time to load every texture at startup along two paths: decoding every PNG
+ * image into a new direct buffer, as TextureUtils.loadPNGTexture does, and opening
+ * an {@link AssetPack} and slicing its mapped texels.  Both paths end by reading
+ * every texel, standing in for the copy glTexImage2D makes, so no OpenGL context
+ * is needed.  Startup happens once per process, so run with
+ * <code>-bm ss -f 10</code> as well to see the cold first load.
+ * @author Dustin Biser
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AssetPackBenchmark {
+	
+	// Benchmarks run from the jmh directory.
+	@Param({"../" + AssetPack.DEFAULT_TEXTURE_DIRECTORY})
+	public String textureDirectory;
+	
+	private List<Path> images;
+	private Path pack;
+	
+	@Setup
+	public void setUp() throws IOException {
+		Path directory = Paths.get(textureDirectory);
+		images = AssetPackBuilder.listImages(directory);
+		pack = Files.createTempFile("AssetPackBenchmark", AssetPack.FILE_EXTENSION);
+		AssetPackBuilder.build(directory, pack);
+		
+		System.out.printf("Pack of %d textures, %,d bytes%n", images.size(),
+				Files.size(pack));
+	}
+	
+	@TearDown
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(pack);
+	}
+	
+	@Benchmark
+	public long decodePNGs() throws IOException {
+		long sink = 0;
+		
+		for(Path image : images){
+			InputStream in = new FileInputStream(image.toFile());
+			PNGDecoder decoder = new PNGDecoder(in);
+			
+			ByteBuffer buf = ByteBuffer.allocateDirect(4 * decoder.getWidth() *
+					decoder.getHeight());
+			decoder.decode(buf, decoder.getWidth() * 4, Format.RGBA);
+			buf.flip();
+			in.close();
+			
+			sink += upload(buf);
+		}
+		
+		return sink;
+	}
+	
+	@Benchmark
+	public long openPack() throws IOException {
+		AssetPack assets = AssetPack.open(pack);
+		long sink = 0;
+		
+		for(int i = 0; i < assets.getTextureCount(); i++){
+			sink += upload(assets.getPixels(i));
+		}
+		
+		return sink;
+	}
+	
+	/**
+	 * Reads every byte of <code>texels</code>, as an upload would.
+	 */
+	private static long upload(ByteBuffer texels){
+		long sum = 0;
+		int end = texels.limit() & ~7;
+		
+		for(int i = 0; i < end; i += 8){
+			sum += texels.getLong(i);
+		}
+		for(int i = end; i < texels.limit(); i++){
+			sum += texels.get(i);
+		}
+		
+		return sum;
+	}
+}
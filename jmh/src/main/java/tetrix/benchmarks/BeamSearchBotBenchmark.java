@@ -0,0 +1,119 @@
+package tetrix.benchmarks;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tetrix.bots.BeamSearchBot;
+import tetrix.bots.EvaluationWeights;
+import tetrix.entities.Playfield;
+import tetrix.entities.rotations.SuperRotationSystem;
+import tetrix.entities.shapes.PackedShape;
+import tetrix.entities.shapes.ShapeType;
+import tetrix.randomizers.MemorylessGenerator;
+import tetrix.randomizers.PieceGenerator;
+
+/**
+ * Time per Shape for a {@link BeamSearchBot} playing a game, placing each Shape
+ * where the bot chooses and starting a new game when it tops out.  The nodes
+ * searched, transposition table hits and lines cleared are reported as
+ * secondary results, so nodes per second and the table hit rate can be read
+ * off next to the time per Shape.
+ * @author Dustin Biser
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BeamSearchBotBenchmark {
+	
+	private static final long TIME_BUDGET_NANOS = 1000000000L;
+	private static final int PREVIEW_LENGTH = 3;
+	
+	@Param({"1", "4"})
+	public int threads;
+	
+	private ForkJoinPool pool;
+	private BeamSearchBot bot;
+	private PieceGenerator generator;
+	private Playfield playfield;
+	
+	// The active ShapeType followed by the preview.
+	private ShapeType[] queue;
+	private ShapeType[] preview;
+	
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class Counters {
+		public long nodes;
+		public long tableHits;
+		public long lines;
+		
+		@Setup(Level.Iteration)
+		public void clear(){
+			nodes = 0;
+			tableHits = 0;
+			lines = 0;
+		}
+	}
+	
+	@Setup
+	public void setUp(){
+		pool = new ForkJoinPool(threads);
+		bot = new BeamSearchBot(BeamSearchBot.DEFAULT_BEAM_WIDTH,
+				EvaluationWeights.DEFAULT, new SuperRotationSystem(), pool);
+		generator = new MemorylessGenerator(0);
+		playfield = new Playfield();
+		
+		queue = new ShapeType[PREVIEW_LENGTH + 1];
+		preview = new ShapeType[PREVIEW_LENGTH];
+		for(int i = 0; i < queue.length; i++){
+			queue[i] = generator.next();
+		}
+	}
+	
+	@TearDown
+	public void tearDown(){
+		pool.shutdown();
+	}
+	
+	@Benchmark
+	public long place(Counters counters){
+		System.arraycopy(queue, 1, preview, 0, PREVIEW_LENGTH);
+		
+		long placement = bot.findBestPlacement(playfield, PackedShape.spawn(queue[0]),
+				preview, TIME_BUDGET_NANOS);
+		counters.nodes += bot.getNodes();
+		counters.tableHits += bot.getTableHits();
+		
+		if (placement == PackedShape.INVALID){
+			playfield = new Playfield();
+		}
+		else {
+			playfield.lock(placement);
+			counters.lines += playfield.clearFullRows();
+		}
+		
+		System.arraycopy(queue, 1, queue, 0, PREVIEW_LENGTH);
+		queue[PREVIEW_LENGTH] = generator.next();
+		
+		return placement;
+	}
+}
@@ -0,0 +1,81 @@
+package tetrix.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tetrix.entities.Playfield;
+import tetrix.entities.shapes.PackedShape;
+import tetrix.entities.shapes.ShapeType;
+import tetrix.rendering.BlockInstancePacker;
+
+/**
+ * Frames per millisecond a {@link BlockInstancePacker} packs for a half filled
+ * Playfield with an active Shape, its ghost and a preview queue.  Setup prints
+ * the instances packed per frame, so instances per second can be read off the
+ * score.  No OpenGL context is needed.
+ * @author Dustin Biser
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BlockInstancePackerBenchmark {
+	
+	private static final int VISIBLE_ROWS = 22;
+	private static final int PREVIEW_LENGTH = 5;
+	
+	private BlockInstancePacker packer;
+	private Playfield playfield;
+	private ShapeType[] preview;
+	private long activeShape;
+	
+	@Setup
+	public void setUp(){
+		Random random = new Random(0);
+		packer = new BlockInstancePacker();
+		playfield = new Playfield();
+		preview = new ShapeType[PREVIEW_LENGTH];
+		activeShape = PackedShape.spawn(ShapeType.T);
+		
+		// Fill the lower half of the visible rows, leaving a hole in each row.
+		for(int row = 0; row < VISIBLE_ROWS / 2; row++){
+			playfield.setRowMask(row, playfield.getFullRowMask() &
+					~(1 << random.nextInt(playfield.getColumns())));
+		}
+		
+		for(int i = 0; i < PREVIEW_LENGTH; i++){
+			preview[i] = ShapeType.values()[random.nextInt(ShapeType.values().length)];
+		}
+		
+		int instances = packFrame();
+		System.out.printf("%d instances (%d bytes) per frame%n", instances,
+				instances * BlockInstancePacker.BYTES_PER_INSTANCE);
+	}
+	
+	@Benchmark
+	public int packFrame(){
+		packer.clear();
+		packer.putPlayfield(playfield, VISIBLE_ROWS, BlockInstancePacker.BLUE_LAYER,
+				BlockInstancePacker.OPAQUE_WHITE);
+		packer.putGhost(playfield, activeShape, BlockInstancePacker.DEFAULT_GHOST_TINT);
+		packer.putShape(activeShape, BlockInstancePacker.OPAQUE_WHITE);
+		packer.putPreview(preview, PREVIEW_LENGTH, 13, 18, 3,
+				BlockInstancePacker.OPAQUE_WHITE);
+		
+		return packer.getInstanceCount();
+	}
+}
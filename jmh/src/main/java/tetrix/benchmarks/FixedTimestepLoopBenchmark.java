@@ -0,0 +1,63 @@
+package tetrix.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tetrix.simulation.FixedTimestepLoop;
+import tetrix.simulation.Tickable;
+
+/**
+ * Overhead of {@link FixedTimestepLoop#advance} per frame, for frames at 60 Hz
+ * driving 240 ticks per second of an empty Tickable, so each frame runs 4 ticks.
+ * How game speed holds up as render cost grows is checked in
+ * FixedTimestepLoop_Test, since it depends only on simulated time.
+ * @author Dustin Biser
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FixedTimestepLoopBenchmark {
+	
+	private static final int TICKS_PER_SECOND = 240;
+	private static final long FRAME_NANOS = 1000000000L / 60;
+	
+	private FixedTimestepLoop loop;
+	private Tickable tickable;
+	private long nowNanos;
+	private long ticks;
+	
+	@Setup
+	public void setUp(){
+		loop = new FixedTimestepLoop(TICKS_PER_SECOND,
+				FixedTimestepLoop.DEFAULT_MAX_TICKS_PER_FRAME);
+		tickable = new Tickable() {
+			@Override
+			public void tick(long tick) {
+				ticks += tick;
+			}
+		};
+		loop.reset(0);
+	}
+	
+	@Benchmark
+	public long advance(){
+		nowNanos += FRAME_NANOS;
+		loop.advance(nowNanos, tickable);
+		
+		return ticks;
+	}
+}
@@ -0,0 +1,147 @@
+package tetrix.benchmarks;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tetrix.assets.AssetPack;
+import tetrix.assets.AssetPackBuilder;
+import tetrix.entities.Playfield;
+import tetrix.rendering.BlockInstancePacker;
+import tetrix.rendering.BlockRenderer;
+import tetrix.rendering.CachingRenderBackend;
+import tetrix.rendering.NullRenderBackend;
+import tetrix.rendering.PlayfieldRenderData;
+import tetrix.rendering.RecordingRenderBackend;
+import tetrix.simulation.GameSimulator;
+import tetrix.simulation.RandomInputSource;
+
+/**
+ * CPU time of a frame of a game played with random inputs, drawn with a
+ * {@link BlockRenderer} through a {@link RecordingRenderBackend} wrapping a
+ * {@link NullRenderBackend}, directly or through a {@link CachingRenderBackend}.
+ * No OpenGL context is needed and the renderer is given in-memory textures and
+ * shader sources, so the cost of preparing a frame is measured apart from the
+ * driver, the GPU and the file system.  The calls, state changes, redundant
+ * state changes skipped, draw calls and bytes uploaded are reported as secondary
+ * results; divide them by the frames of an iteration for per-frame figures.
+ * @author Dustin Biser
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FrameCpuBenchmark {
+	
+	private static final int VISIBLE_ROWS = 22;
+	private static final int LOCKED_TINT = 0xC0C0C0FF;
+	private static final int TEXTURE_SIZE = 24;
+	private static final String SHADER_SOURCE = "void main(){}\n";
+	
+	@Param({"false", "true"})
+	public boolean cached;
+	
+	private RecordingRenderBackend recorder;
+	private CachingRenderBackend cache;
+	private BlockRenderer renderer;
+	private GameSimulator simulator;
+	private PlayfieldRenderData board;
+	private BlockInstancePacker packer;
+	private RandomInputSource inputs;
+	private long seed;
+	
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class Counters {
+		public long calls;
+		public long stateChanges;
+		public long skipped;
+		public long drawCalls;
+		public long bytesUploaded;
+		
+		@Setup(Level.Iteration)
+		public void clear(){
+			calls = 0;
+			stateChanges = 0;
+			skipped = 0;
+			drawCalls = 0;
+			bytesUploaded = 0;
+		}
+	}
+	
+	@Setup
+	public void setUp(){
+		recorder = new RecordingRenderBackend(new NullRenderBackend());
+		cache = new CachingRenderBackend(recorder);
+		renderer = new BlockRenderer(cached ? cache : recorder, createBlockTextures(),
+				SHADER_SOURCE, SHADER_SOURCE);
+		
+		simulator = new GameSimulator();
+		board = new PlayfieldRenderData(Playfield.DEFAULT_COLUMNS, VISIBLE_ROWS);
+		packer = new BlockInstancePacker();
+		inputs = new RandomInputSource(0, 8);
+	}
+	
+	/**
+	 * @return AssetPack of block textures of one shade each, built in memory.
+	 */
+	private static AssetPack createBlockTextures(){
+		String[] names = BlockRenderer.BLOCK_TEXTURE_NAMES;
+		int[] sizes = new int[names.length];
+		ByteBuffer[] texels = new ByteBuffer[names.length];
+		
+		for(int i = 0; i < names.length; i++){
+			sizes[i] = TEXTURE_SIZE;
+			texels[i] = ByteBuffer.allocate(TEXTURE_SIZE * TEXTURE_SIZE *
+					AssetPack.BYTES_PER_TEXEL);
+			while (texels[i].hasRemaining()){
+				texels[i].putInt(i << 24 | 0xFF);
+			}
+			texels[i].flip();
+		}
+		
+		return AssetPackBuilder.build(names, sizes, sizes, texels);
+	}
+	
+	@Benchmark
+	public int frame(Counters counters){
+		if (simulator.isGameOver()){
+			simulator.reset(++seed);
+		}
+		simulator.step(inputs.getInputs(simulator.getFrame()));
+		
+		recorder.reset();
+		cache.reset();
+		board.update(simulator.getPlayfield(), BlockInstancePacker.BLUE_LAYER,
+				LOCKED_TINT);
+		packer.clear();
+		packer.putGhost(simulator.getPlayfield(), simulator.getActiveShape(),
+				BlockInstancePacker.DEFAULT_GHOST_TINT);
+		packer.putShape(simulator.getActiveShape(), BlockInstancePacker.OPAQUE_WHITE);
+		renderer.render(board, packer);
+		
+		counters.calls += recorder.getCalls();
+		counters.stateChanges += recorder.getStateChanges();
+		counters.skipped += cache.getSkipped();
+		counters.drawCalls += recorder.getDrawCalls();
+		counters.bytesUploaded += recorder.getBytesUploaded();
+		
+		return renderer.getBytesUploaded();
+	}
+}
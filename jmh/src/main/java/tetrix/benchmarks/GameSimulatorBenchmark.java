@@ -0,0 +1,54 @@
+package tetrix.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tetrix.simulation.GameSimulator;
+import tetrix.simulation.RandomInputSource;
+
+/**
+ * Frames per millisecond a headless {@link GameSimulator} simulates.  Games are
+ * played from a fixed seed with a {@link RandomInputSource}, and restarted with
+ * the next seed whenever they end, so every run simulates the same frames.
+ * @author Dustin Biser
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GameSimulatorBenchmark {
+	
+	private GameSimulator simulator;
+	private RandomInputSource inputSource;
+	private long seed;
+	
+	@Setup
+	public void setUp(){
+		simulator = new GameSimulator();
+		inputSource = new RandomInputSource(0, 4);
+		simulator.reset(0);
+	}
+	
+	@Benchmark
+	public long step(){
+		if (simulator.isGameOver()){
+			simulator.reset(++seed);
+		}
+		simulator.step(inputSource.getInputs(simulator.getFrame()));
+		
+		return simulator.getScore();
+	}
+}
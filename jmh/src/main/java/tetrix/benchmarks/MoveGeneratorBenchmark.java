@@ -0,0 +1,71 @@
+package tetrix.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tetrix.bots.MoveGenerator;
+import tetrix.bots.PlacementList;
+import tetrix.entities.Playfield;
+import tetrix.entities.shapes.PackedShape;
+import tetrix.entities.shapes.ShapeType;
+
+/**
+ * Throughput of {@link MoveGenerator#generate} for every ShapeType, on an empty
+ * Playfield and on a ragged stack with overhangs.  Run with <code>-prof gc</code>
+ * to confirm that generating placements does not allocate.
+ * @author Dustin Biser
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MoveGeneratorBenchmark {
+	
+	// Bottom rows of the ragged stack, from row 0 upwards.
+	private static final int[] STACK_ROWS = { 0x1FB, 0x3BE, 0x37C, 0x130, 0x010,
+		0x018, 0x008 };
+	
+	@Param({"I", "J", "L", "O", "S", "T", "Z"})
+	public ShapeType shapeType;
+	
+	@Param({"empty", "stack"})
+	public String board;
+	
+	private MoveGenerator moveGenerator;
+	private PlacementList placements;
+	private Playfield playfield;
+	private long spawn;
+	
+	@Setup
+	public void setUp(){
+		moveGenerator = new MoveGenerator();
+		placements = new PlacementList();
+		playfield = new Playfield();
+		spawn = PackedShape.spawn(shapeType);
+		
+		if (board.equals("stack")){
+			for(int row = 0; row < STACK_ROWS.length; row++){
+				playfield.setRowMask(row, STACK_ROWS[row]);
+			}
+		}
+	}
+	
+	@Benchmark
+	public int generate(){
+		return moveGenerator.generate(playfield, spawn, placements);
+	}
+}
@@ -0,0 +1,78 @@
+package tetrix.benchmarks;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tetrix.bots.Perft;
+import tetrix.entities.Playfield;
+import tetrix.entities.shapes.ShapeType;
+
+/**
+ * Time to count every placement sequence of an empty Playfield to a given depth
+ * with {@link Perft}, counting sequentially and counting in parallel on a
+ * {@link ForkJoinPool} with one thread per processor.  Nodes per second are the
+ * node count, printed during setup, divided by the time per count.
+ * @author Dustin Biser
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PerftBenchmark {
+	
+	private static final ShapeType[] SEQUENCE = { ShapeType.T, ShapeType.I,
+		ShapeType.O, ShapeType.L, ShapeType.S, ShapeType.Z, ShapeType.J };
+	
+	@Param({"2", "3"})
+	public int depth;
+	
+	private Perft perft;
+	private Playfield playfield;
+	private ForkJoinPool pool;
+	
+	@Setup
+	public void setUp(){
+		perft = new Perft();
+		playfield = new Playfield();
+		pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+		
+		long nodes = perft.count(playfield, SEQUENCE, depth);
+		long parallelNodes = perft.count(playfield, SEQUENCE, depth, pool);
+		if (parallelNodes != nodes){
+			throw new IllegalStateException("Parallel count " + parallelNodes +
+					" differs from sequential count " + nodes + ".");
+		}
+		System.out.println("Depth " + depth + ": " + nodes + " nodes");
+	}
+	
+	@TearDown
+	public void tearDown(){
+		pool.shutdown();
+	}
+	
+	@Benchmark
+	public long count_sequential(){
+		return perft.count(playfield, SEQUENCE, depth);
+	}
+	
+	@Benchmark
+	public long count_parallel(){
+		return perft.count(playfield, SEQUENCE, depth, pool);
+	}
+}
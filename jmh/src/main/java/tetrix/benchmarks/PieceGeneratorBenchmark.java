@@ -0,0 +1,54 @@
+package tetrix.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tetrix.randomizers.GeneratorType;
+import tetrix.randomizers.PieceGenerator;
+
+/**
+ * ShapeTypes per microsecond each {@link PieceGenerator} generates in bulk into a
+ * <code>byte[]</code>, the way simulators pre-roll the queue of a whole match.
+ * @author Dustin Biser
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PieceGeneratorBenchmark {
+	
+	private static final int QUEUE_LENGTH = 1 << 16;
+	
+	@Param({"MEMORYLESS", "BAG", "HISTORY"})
+	public GeneratorType generatorType;
+	
+	private PieceGenerator generator;
+	private final byte[] queue = new byte[QUEUE_LENGTH];
+	
+	@Setup
+	public void setUp(){
+		generator = generatorType.create(0);
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(QUEUE_LENGTH)
+	public byte[] fill(){
+		generator.fill(queue, 0, QUEUE_LENGTH);
+		return queue;
+	}
+}
@@ -0,0 +1,94 @@
+package tetrix.benchmarks;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tetrix.entities.Playfield;
+import tetrix.rendering.BlockInstancePacker;
+import tetrix.rendering.BufferUploader;
+import tetrix.rendering.PlayfieldRenderData;
+import tetrix.simulation.GameSimulator;
+import tetrix.simulation.RandomInputSource;
+
+/**
+ * Frames per millisecond of a game played with random inputs, updating a
+ * {@link PlayfieldRenderData} every frame and uploading the rows that changed to
+ * a no-op BufferUploader, so no OpenGL context is needed.  The bytes uploaded
+ * and the glBufferSubData calls they would take are reported as secondary
+ * results; setup prints the bytes a full re-upload of the board would send.
+ * @author Dustin Biser
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PlayfieldRenderDataBenchmark {
+	
+	private static final int VISIBLE_ROWS = 22;
+	
+	private GameSimulator simulator;
+	private PlayfieldRenderData board;
+	private RandomInputSource inputs;
+	private BufferUploader uploader;
+	private long seed;
+	
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class Counters {
+		public long bytesUploaded;
+		public long uploads;
+		
+		@Setup(Level.Iteration)
+		public void clear(){
+			bytesUploaded = 0;
+			uploads = 0;
+		}
+	}
+	
+	@Setup
+	public void setUp(){
+		simulator = new GameSimulator();
+		board = new PlayfieldRenderData(Playfield.DEFAULT_COLUMNS, VISIBLE_ROWS);
+		inputs = new RandomInputSource(0, 8);
+		uploader = new BufferUploader() {
+			@Override
+			public void upload(long offset, ByteBuffer data) {
+			
+			}
+		};
+		
+		System.out.printf("%d bytes/frame for a full upload%n", board.getByteCount());
+	}
+	
+	@Benchmark
+	public int frame(Counters counters){
+		if (simulator.isGameOver()){
+			simulator.reset(++seed);
+		}
+		simulator.step(inputs.getInputs(simulator.getFrame()));
+		
+		board.update(simulator.getPlayfield(), BlockInstancePacker.BLUE_LAYER,
+				BlockInstancePacker.OPAQUE_WHITE);
+		int bytes = board.upload(uploader);
+		counters.bytesUploaded += bytes;
+		counters.uploads += board.getTracker().getRangesUploaded();
+		
+		return bytes;
+	}
+}
@@ -0,0 +1,122 @@
+package tetrix.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tetrix.entities.Playfield;
+import tetrix.entities.rotations.SuperRotationSystem;
+import tetrix.randomizers.BagGenerator;
+import tetrix.replays.ReplayFormat;
+import tetrix.replays.ReplayReader;
+import tetrix.replays.ReplayWriter;
+import tetrix.simulation.GameSimulator;
+import tetrix.simulation.RandomInputSource;
+
+/**
+ * Time to replay a recorded game through a memory mapped {@link ReplayReader} on
+ * a single thread.  Games played with random inputs are recorded to replay files
+ * during setup, which prints the size of the encoded inputs, and are replayed in
+ * turn.  The inputs replayed are reported as a secondary result, so inputs per
+ * second can be read off next to the time per game.
+ * @author Dustin Biser
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ReplayBenchmark {
+	
+	private static final int NUM_GAMES = 200;
+	private static final int FRAMES_PER_INPUT = 4;
+	private static final long MAX_FRAMES = 1L << 18;
+	
+	private Path directory;
+	private Path[] paths;
+	private GameSimulator simulator;
+	private int game;
+	
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class Counters {
+		public long inputs;
+		
+		@Setup(Level.Iteration)
+		public void clear(){
+			inputs = 0;
+		}
+	}
+	
+	@Setup
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("replays");
+		paths = new Path[NUM_GAMES];
+		simulator = new GameSimulator(new Playfield(), new SuperRotationSystem(),
+				new BagGenerator(0));
+		
+		long events = 0;
+		long bytes = 0;
+		for(int i = 0; i < NUM_GAMES; i++){
+			paths[i] = directory.resolve("game" + i + ".txr");
+			record(paths[i], i);
+			
+			events += ReplayReader.open(paths[i]).getEvents();
+			bytes += Files.size(paths[i]) - ReplayFormat.HEADER_BYTES;
+		}
+		
+		System.out.printf("Recorded %d games, %,d inputs, %.3f bytes/input%n",
+				NUM_GAMES, events, bytes / (double)events);
+	}
+	
+	private void record(Path path, long seed) throws IOException {
+		RandomInputSource inputSource = new RandomInputSource(seed, FRAMES_PER_INPUT);
+		ReplayWriter writer = new ReplayWriter(path, simulator, seed);
+		
+		simulator.reset(seed);
+		while (!simulator.isGameOver() && simulator.getFrame() < MAX_FRAMES){
+			int inputs = inputSource.getInputs(simulator.getFrame());
+			writer.record(simulator.getFrame(), inputs);
+			simulator.step(inputs);
+		}
+		
+		writer.finish(simulator);
+		writer.close();
+	}
+	
+	@TearDown
+	public void tearDown() throws IOException {
+		for(Path path : paths){
+			Files.deleteIfExists(path);
+		}
+		Files.delete(directory);
+	}
+	
+	@Benchmark
+	public long replay(Counters counters) throws IOException {
+		ReplayReader reader = ReplayReader.open(paths[game]);
+		game = (game + 1) % NUM_GAMES;
+		
+		reader.replay(simulator);
+		counters.inputs += reader.getEvents();
+		
+		return simulator.getScore() - reader.getScore();
+	}
+}
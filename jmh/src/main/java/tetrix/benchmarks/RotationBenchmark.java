@@ -0,0 +1,80 @@
+package tetrix.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tetrix.entities.Direction;
+import tetrix.entities.Playfield;
+import tetrix.entities.rotations.SuperRotationSystem;
+import tetrix.entities.rotations.TranslationResponse;
+import tetrix.entities.shapes.Shape;
+import tetrix.entities.shapes.ShapeType;
+
+/**
+ * Throughput of {@link SuperRotationSystem#rotate} for every ShapeType, for both
+ * Shape objects and packed Shapes, with and without wall kicks against an empty
+ * Playfield, next to the original {@link TranslationResponse} map lookup that
+ * the compiled rotation tables replaced.  SuperRotationSystem_Test checks that
+ * both paths agree.
+ * @author Dustin Biser
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RotationBenchmark {
+	
+	@Param({"I", "J", "L", "O", "S", "T", "Z"})
+	public ShapeType shapeType;
+	
+	private SuperRotationSystem rotationSystem;
+	private Playfield playfield;
+	private Shape shape;
+	private long packedShape;
+	
+	@Setup
+	public void setUp(){
+		rotationSystem = new SuperRotationSystem();
+		playfield = new Playfield();
+		shape = Shapes.create(shapeType);
+		packedShape = shape.getPackedShape();
+	}
+	
+	@Benchmark
+	public Shape rotate_Shape(){
+		rotationSystem.rotate(shape, Direction.RIGHT);
+		return shape;
+	}
+	
+	@Benchmark
+	public Shape rotate_Shape_responseMap(){
+		rotationSystem.rotateUsingResponseMap(shape, Direction.RIGHT);
+		return shape;
+	}
+	
+	@Benchmark
+	public long rotate_packedShape(){
+		packedShape = rotationSystem.rotate(packedShape, Direction.RIGHT);
+		return packedShape;
+	}
+	
+	@Benchmark
+	public long rotate_packedShape_withKicks(){
+		packedShape = rotationSystem.rotate(packedShape, Direction.RIGHT, playfield);
+		return packedShape;
+	}
+}
@@ -0,0 +1,72 @@
+package tetrix.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tetrix.entities.shapes.Shape;
+import tetrix.entities.shapes.ShapeType;
+
+/**
+ * Throughput of the {@link Shape} operations performed every frame:
+ * translate(), reset() and getBlockPositions().
+ * @author Dustin Biser
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ShapeBenchmark {
+	
+	@Param({"I", "J", "L", "O", "S", "T", "Z"})
+	public ShapeType shapeType;
+	
+	private Shape shape;
+	private int[] positions;
+	
+	// Alternates between 1 and -1, so translated Shapes stay in place.
+	private int offset = 1;
+	
+	@Setup
+	public void setUp(){
+		shape = Shapes.create(shapeType);
+		positions = new int[8];
+	}
+	
+	@Benchmark
+	public Shape translate(){
+		offset = -offset;
+		shape.translate(offset, offset);
+		return shape;
+	}
+	
+	@Benchmark
+	public Shape reset(){
+		shape.reset();
+		return shape;
+	}
+	
+	@Benchmark
+	public int[] getBlockPositions(){
+		return shape.getBlockPositions();
+	}
+	
+	@Benchmark
+	public int[] getBlockPositions_intoArray(){
+		shape.getBlockPositions(positions);
+		return positions;
+	}
+}
@@ -0,0 +1,78 @@
+package tetrix.benchmarks;
+
+import java.nio.FloatBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.lwjgl.BufferUtils;
+import org.lwjgl.util.vector.Vector3f;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tetrix.entities.shapes.Shape;
+import tetrix.entities.shapes.ShapeType;
+import tetrix.utilities.ShapeUtils;
+
+/**
+ * Throughput of building the vertex data of a Shape with {@link ShapeUtils}.
+ * @author Dustin Biser
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ShapeUtilsBenchmark {
+	private static final float BLOCK_HALF_WIDTH = 0.5f;
+	
+	@Param({"I", "J", "L", "O", "S", "T", "Z"})
+	public ShapeType shapeType;
+	
+	private Shape shape;
+	private long packedShape;
+	private FloatBuffer vertexBuffer;
+	
+	@Setup
+	public void setUp(){
+		shape = Shapes.create(shapeType);
+		packedShape = shape.getPackedShape();
+		vertexBuffer = BufferUtils.createFloatBuffer(ShapeUtils.FLOATS_PER_SHAPE);
+	}
+	
+	@Benchmark
+	public Vector3f[] createBlockVertices(){
+		return ShapeUtils.createBlockVertices(shape, BLOCK_HALF_WIDTH);
+	}
+	
+	@Benchmark
+	public FloatBuffer createVertexFloatBuffer(){
+		return ShapeUtils.createVertexFloatBuffer(shape, BLOCK_HALF_WIDTH);
+	}
+	
+	@Benchmark
+	public FloatBuffer createVertexFloatBuffer_packedShape(){
+		return ShapeUtils.createVertexFloatBuffer(packedShape, BLOCK_HALF_WIDTH);
+	}
+	
+	@Benchmark
+	public FloatBuffer putVertices(){
+		ShapeUtils.putVertices(shape, BLOCK_HALF_WIDTH, vertexBuffer, 0);
+		return vertexBuffer;
+	}
+	
+	@Benchmark
+	public FloatBuffer putVertices_packedShape(){
+		ShapeUtils.putVertices(packedShape, BLOCK_HALF_WIDTH, vertexBuffer, 0);
+		return vertexBuffer;
+	}
+}
@@ -0,0 +1,37 @@
+package tetrix.benchmarks;
+
+import tetrix.entities.shapes.IShape;
+import tetrix.entities.shapes.JShape;
+import tetrix.entities.shapes.LShape;
+import tetrix.entities.shapes.OShape;
+import tetrix.entities.shapes.SShape;
+import tetrix.entities.shapes.Shape;
+import tetrix.entities.shapes.ShapeType;
+import tetrix.entities.shapes.TShape;
+import tetrix.entities.shapes.ZShape;
+
+/**
+ * Creates Shapes from their ShapeType, so that benchmarks can be parameterized
+ * over every ShapeType.
+ * @author Dustin Biser
+ *
+ */
+final class Shapes {
+	
+	private Shapes(){
+		
+	}
+	
+	static Shape create(ShapeType shapeType){
+		switch (shapeType) {
+		case I: return new IShape();
+		case J: return new JShape();
+		case L: return new LShape();
+		case O: return new OShape();
+		case S: return new SShape();
+		case T: return new TShape();
+		case Z: return new ZShape();
+		default: throw new IllegalArgumentException("Unknown ShapeType " + shapeType);
+		}
+	}
+}
@@ -0,0 +1,46 @@
+package tetrix.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tetrix.entities.rotations.TranslationResponse;
+
+/**
+ * Throughput of {@link TranslationResponse#getInverse()}.
+ * @author Dustin Biser
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TranslationResponseBenchmark {
+	
+	private TranslationResponse response;
+	
+	@Setup
+	public void setUp(){
+		// The I Shape's SPAWN_STATE to RIGHT_OF_SPAWN response.
+		response = new TranslationResponse().translateA( 2,  1)
+		                                    .translateB( 1,  0)
+		                                    .translateC( 0, -1)
+		                                    .translateD(-1, -2);
+	}
+	
+	@Benchmark
+	public TranslationResponse getInverse(){
+		return response.getInverse();
+	}
+}
@@ -0,0 +1,133 @@
+package tetrix.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tetrix.datastructures.TexturedVertex;
+import tetrix.datastructures.VertexStreamWriter;
+import tetrix.entities.Playfield;
+import tetrix.rendering.BlockInstancePacker;
+import tetrix.rendering.CompactBlockGeometry;
+import tetrix.utilities.ShapeUtils;
+
+/**
+ * CPU time per frame to write many boards at once in each Block vertex format:
+ * TexturedVertex quads, {@link CompactBlockGeometry} and
+ * {@link BlockInstancePacker} instances.  Setup prints the bytes uploaded per
+ * Block and per frame of every format, including ShapeUtils position only quads.
+ * Index buffers of the indexed formats are static, so they are not uploaded per
+ * frame, and are reported separately at 16 bits per index.
+ * @author Dustin Biser
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class VertexFormatBenchmark {
+	
+	private static final int VISIBLE_ROWS = 20;
+	private static final int INDEX_BYTES_PER_QUAD =
+		CompactBlockGeometry.INDICES_PER_BLOCK * 2;
+	
+	@Param({"256"})
+	public int numBoards;
+	
+	private Playfield[] boards;
+	private VertexStreamWriter vertexWriter;
+	private BlockInstancePacker packer;
+	private CompactBlockGeometry geometry;
+	
+	@Setup
+	public void setUp(){
+		Random random = new Random(0);
+		boards = new Playfield[numBoards];
+		packer = new BlockInstancePacker();
+		geometry = new CompactBlockGeometry();
+		
+		// Boards filled to random heights, leaving a hole in each row.
+		int blocks = 0;
+		for(int i = 0; i < numBoards; i++){
+			boards[i] = new Playfield();
+			int height = random.nextInt(VISIBLE_ROWS);
+			for(int row = 0; row < height; row++){
+				int rowMask = boards[i].getFullRowMask() &
+						~(1 << random.nextInt(boards[i].getColumns()));
+				boards[i].setRowMask(row, rowMask);
+				blocks += Integer.bitCount(rowMask);
+			}
+		}
+		
+		vertexWriter = new VertexStreamWriter(4 * blocks);
+		
+		System.out.printf("%d boards, %,d blocks%n", numBoards, blocks);
+		System.out.printf("Static index buffers: %d bytes/block for indexed formats%n",
+				INDEX_BYTES_PER_QUAD);
+		report("TexturedVertex", 4 * TexturedVertex.stride, blocks);
+		report("ShapeUtils", ShapeUtils.FLOATS_PER_BLOCK * 4, blocks);
+		report("CompactBlockGeometry", CompactBlockGeometry.BYTES_PER_BLOCK, blocks);
+		report("BlockInstancePacker", BlockInstancePacker.BYTES_PER_INSTANCE, blocks);
+	}
+	
+	private static void report(String name, int bytesPerBlock, int blocks){
+		double ratio = 4.0 * TexturedVertex.stride / bytesPerBlock;
+		System.out.printf("%-22s %4d bytes/block %,12d bytes/frame %5.1fx smaller%n",
+				name, bytesPerBlock, (long)bytesPerBlock * blocks, ratio);
+	}
+	
+	@Benchmark
+	public int texturedVertices(){
+		vertexWriter.clear();
+		for(int i = 0; i < boards.length; i++){
+			int columnOffset = (i % 16) * 12;
+			int rowOffset = (i / 16) * 22;
+			for(int row = 0; row < VISIBLE_ROWS; row++){
+				int rowMask = boards[i].getRowMask(row);
+				while (rowMask != 0){
+					int column = Integer.numberOfTrailingZeros(rowMask);
+					rowMask &= rowMask - 1;
+					float x = columnOffset + column;
+					float y = rowOffset + row;
+					vertexWriter.quad(x, y, x + 1, y + 1, 0);
+				}
+			}
+		}
+		
+		return vertexWriter.getVertexCount();
+	}
+	
+	@Benchmark
+	public int compactGeometry(){
+		geometry.clear();
+		for(int i = 0; i < boards.length; i++){
+			geometry.putPlayfield(boards[i], VISIBLE_ROWS, (i % 16) * 12,
+					(i / 16) * 22, 0, 0);
+		}
+		
+		return geometry.getBlockCount();
+	}
+	
+	@Benchmark
+	public int instances(){
+		packer.clear();
+		for(int i = 0; i < boards.length; i++){
+			packer.putPlayfield(boards[i], VISIBLE_ROWS, 0, 0);
+		}
+		
+		return packer.getInstanceCount();
+	}
+}
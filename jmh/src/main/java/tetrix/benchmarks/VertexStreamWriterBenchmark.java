@@ -0,0 +1,94 @@
+package tetrix.benchmarks;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tetrix.datastructures.TexturedVertex;
+import tetrix.datastructures.VertexStreamWriter;
+
+/**
+ * Time to build a scene of 100,000 textured quads, once through TexturedVertex
+ * objects copied into a FloatBuffer the way the quad demos used to, and once
+ * through a {@link VertexStreamWriter}.  Run with <code>-prof gc</code> to compare
+ * the heap bytes allocated per scene.
+ * @author Dustin Biser
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class VertexStreamWriterBenchmark {
+	
+	private static final int QUADS = 100000;
+	
+	private FloatBuffer floats;
+	private VertexStreamWriter writer;
+	
+	@Setup
+	public void setUp(){
+		ByteBuffer bytes = ByteBuffer.allocateDirect(4 * QUADS *
+				TexturedVertex.stride).order(ByteOrder.nativeOrder());
+		floats = bytes.asFloatBuffer();
+		writer = new VertexStreamWriter(bytes);
+	}
+	
+	@Benchmark
+	public float texturedVertices(){
+		floats.clear();
+		
+		for(int i = 0; i < QUADS; i++){
+			float x = i % 1000;
+			float y = i / 1000;
+			
+			TexturedVertex topLeft = new TexturedVertex();
+			topLeft.setXYZ(x, y + 1, 0);
+			topLeft.setST(0, 0);
+			TexturedVertex bottomLeft = new TexturedVertex();
+			bottomLeft.setXYZ(x, y, 0);
+			bottomLeft.setST(0, 1);
+			TexturedVertex bottomRight = new TexturedVertex();
+			bottomRight.setXYZ(x + 1, y, 0);
+			bottomRight.setST(1, 1);
+			TexturedVertex topRight = new TexturedVertex();
+			topRight.setXYZ(x + 1, y + 1, 0);
+			topRight.setST(1, 0);
+			
+			TexturedVertex[] vertices = {topLeft, bottomLeft, bottomRight, topRight};
+			for(int j = 0; j < vertices.length; j++){
+				floats.put(vertices[j].getElements());
+			}
+		}
+		
+		return floats.get(floats.position() - 1);
+	}
+	
+	@Benchmark
+	public int vertexStreamWriter(){
+		writer.clear();
+		
+		for(int i = 0; i < QUADS; i++){
+			float x = i % 1000;
+			float y = i / 1000;
+			
+			writer.quad(x, y, x + 1, y + 1, 0);
+		}
+		
+		return writer.getVertexCount();
+	}
+}
@@ -0,0 +1,265 @@
+package demos;
+
+import org.lwjgl.LWJGLException;
+import org.lwjgl.input.Keyboard;
+import org.lwjgl.opengl.ContextAttribs;
+import org.lwjgl.opengl.Display;
+import org.lwjgl.opengl.DisplayMode;
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.PixelFormat;
+
+import tetrix.datastructures.TripleBuffer;
+import tetrix.entities.Playfield;
+import tetrix.entities.rotations.SuperRotationSystem;
+import tetrix.randomizers.BagGenerator;
+import tetrix.rendering.BlockInstancePacker;
+import tetrix.rendering.BlockRenderer;
+import tetrix.rendering.CachingRenderBackend;
+import tetrix.rendering.LwjglRenderBackend;
+import tetrix.rendering.PlayfieldRenderData;
+import tetrix.rendering.RecordingRenderBackend;
+import tetrix.simulation.BoardSnapshot;
+import tetrix.simulation.EventClock;
+import tetrix.simulation.GameLogicRunner;
+import tetrix.simulation.GameSimulator;
+import tetrix.simulation.Input;
+import tetrix.simulation.InputEvent;
+import tetrix.simulation.InputEventProcessor;
+import tetrix.utilities.GLUtils;
+
+/**
+ * Plays a game with a {@link GameSimulator}, drawing the locked cells, the ghost
+ * and the active Shape with a single instanced draw call per frame.  Locked cells
+ * are kept on the GPU, and only rows that changed are uploaded.  The window title
+ * shows the bytes uploaded, draw calls and state changes for the last frame,
+ * counted by a {@link RecordingRenderBackend}, and the redundant state changes
+ * skipped by a {@link CachingRenderBackend} in front of it.
+ *
+ * <p>
+ * Game logic runs on its own thread in a {@link GameLogicRunner}, at 240 ticks per
+ * second, and publishes a {@link BoardSnapshot} after every tick.  This thread,
+ * which owns the OpenGL context, draws the newest snapshot each frame, with the
+ * falling Shape interpolated between the last two ticks, so neither rendering nor
+ * OpenGL stalls can hold up the game.  The window title also shows how many
+ * snapshots were dropped, never drawn, and how many frames duplicated the
+ * snapshot of the frame before.
+ *
+ * <p>
+ * Key presses and releases are queued for the logic thread with the time they
+ * happened, taken from the keyboard event and converted by an {@link EventClock},
+ * and DAS and ARR auto repeat is timed from the press.  Keyboard events are only
+ * polled once a frame, after the ticks they happened in have run, so the logic
+ * thread applies them an input delay of one 60 Hz frame behind real time.  Each
+ * press then lands exactly that long after it happened, rather than whenever the
+ * next frame polls it.  The window title shows how many key events still came
+ * too late for their tick.
+ *
+ * <p>
+ * Left and right arrows move, up arrow and Z rotate, down arrow soft drops, space
+ * hard drops, and R starts a new game.
+ *
+ * @author Dustin Biser
+ *
+ */
+public class InstancedBlocksDemo {
+	
+	public static void main(String[] args) {
+		new InstancedBlocksDemo();
+	}
+	
+	// Setup variables
+	private final String WINDOW_TITLE = "Instanced Blocks Demo";
+	private final int WINDOW_WIDTH = 600;
+	private final int WINDOW_HEIGHT = 800;
+	
+	// Number of Playfield rows drawn, counted from the bottom.
+	private final int VISIBLE_ROWS = 22;
+	
+	// Tint of locked cells.
+	private final int LOCKED_TINT = 0xC0C0C0FF;
+	
+	// Rate game logic runs at.
+	private final int TICKS_PER_SECOND = 240;
+	
+	// Time key events are applied after they happen, at least the time between
+	// polls, a frame with vsync at 60 Hz.
+	private final long INPUT_DELAY_NANOS = 1000000000L / 60;
+	
+	// Frames between window title updates.
+	private final int TITLE_UPDATE_FRAMES = 30;
+	
+	// Longest wait for the logic thread to finish its tick on exit.
+	private final long LOGIC_JOIN_MILLIS = 1000;
+	
+	private GameLogicRunner logic;
+	private EventClock inputClock = new EventClock();
+	private Thread logicThread;
+	private TripleBuffer<BoardSnapshot> snapshots;
+	private PlayfieldRenderData board;
+	private BlockInstancePacker packer;
+	private RecordingRenderBackend recorder;
+	private CachingRenderBackend backend;
+	private BlockRenderer renderer;
+	private long seed;
+	private long frames;
+	
+	boolean escKeyPressed = false;
+	
+	public InstancedBlocksDemo() {
+		this.setupOpenGL();
+		
+		GameSimulator simulator = new GameSimulator(new Playfield(),
+				new SuperRotationSystem(), new BagGenerator(seed));
+		logic = new GameLogicRunner(simulator, TICKS_PER_SECOND,
+				new InputEventProcessor(), INPUT_DELAY_NANOS);
+		snapshots = logic.getSnapshots();
+		
+		board = new PlayfieldRenderData(Playfield.DEFAULT_COLUMNS, VISIBLE_ROWS);
+		packer = new BlockInstancePacker();
+		recorder = new RecordingRenderBackend(LwjglRenderBackend.INSTANCE);
+		backend = new CachingRenderBackend(recorder);
+		renderer = new BlockRenderer(backend);
+		
+		// Columns and rows in cell units, with a one cell border.
+		renderer.setMvpMatrix(GLUtils.createOrthoProjectionMatrix(-1f,
+				Playfield.DEFAULT_COLUMNS + 1, -1f, VISIBLE_ROWS + 1, -1f, 1f));
+		
+		// From here on only the logic thread uses the simulator.
+		logicThread = new Thread(logic, "Game logic");
+		logicThread.setDaemon(true);
+		logicThread.start();
+		
+		while (!Display.isCloseRequested() && !escKeyPressed) {
+			this.processUserInputs();
+			this.renderCycle();
+			
+			// Update window by swapping buffers and polling input devices.  Frames
+			// are paced by vsync.
+			Display.update();
+		}
+		
+		logic.stop();
+		try {
+			logicThread.join(LOGIC_JOIN_MILLIS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		
+		renderer.destroy();
+		Display.destroy();
+	}
+	
+	private void setupOpenGL() {
+		// Instancing and attribute divisors require an OpenGL 3.3 context.
+		try {
+			PixelFormat pixelFormat = new PixelFormat();
+			ContextAttribs contextAtrributes = new ContextAttribs(3, 3)
+				.withProfileCore(true)
+				.withForwardCompatible(true);
+			
+			Display.setDisplayMode(new DisplayMode(WINDOW_WIDTH, WINDOW_HEIGHT));
+			Display.setTitle(WINDOW_TITLE);
+			Display.create(pixelFormat, contextAtrributes);
+			Display.setVSyncEnabled(true);
+		} catch (LWJGLException e) {
+			e.printStackTrace();
+			System.exit(-1);
+		}
+		
+		GL11.glClearColor(0.1f, 0.1f, 0.15f, 0f);
+		GL11.glViewport(0, 0, WINDOW_WIDTH, WINDOW_HEIGHT);
+		
+		GLUtils.exitOnGLError("setupOpenGL");
+	}
+	
+	private void processUserInputs() {
+		inputClock.beginPoll(System.nanoTime());
+		
+		while(Keyboard.next()) {
+			// Auto repeat is done by the logic thread, timed from the first press.
+			if (Keyboard.isRepeatEvent()) continue;
+			
+			boolean pressed = Keyboard.getEventKeyState();
+			int input = getInput(Keyboard.getEventKey());
+			
+			if (input != Input.NONE){
+				long nanos = inputClock.toLocalNanos(Keyboard.getEventNanoseconds());
+				logic.postKeyEvent(nanos, pressed ? InputEvent.pressed(input) :
+					InputEvent.released(input));
+				continue;
+			}
+			
+			// Only listen to events where the key was pressed (down event)
+			if (!pressed) continue;
+			
+			switch (Keyboard.getEventKey()) {
+			case Keyboard.KEY_ESCAPE:
+				escKeyPressed = true;
+				break;
+			case Keyboard.KEY_R:
+				logic.requestReset(++seed);
+				break;
+			}
+		}
+	}
+	
+	/**
+	 * @return Input flag bound to <code>key</code>, or Input.NONE.
+	 */
+	private static int getInput(int key) {
+		switch (key) {
+		case Keyboard.KEY_LEFT:
+			return Input.MOVE_LEFT;
+		case Keyboard.KEY_RIGHT:
+			return Input.MOVE_RIGHT;
+		case Keyboard.KEY_DOWN:
+			return Input.SOFT_DROP;
+		case Keyboard.KEY_UP:
+			return Input.ROTATE_RIGHT;
+		case Keyboard.KEY_Z:
+			return Input.ROTATE_LEFT;
+		case Keyboard.KEY_SPACE:
+			return Input.HARD_DROP;
+		default:
+			return Input.NONE;
+		}
+	}
+	
+	private void renderCycle() {
+		recorder.reset();
+		backend.reset();
+		backend.clear(GL11.GL_COLOR_BUFFER_BIT);
+		
+		BoardSnapshot snapshot = snapshots.acquire();
+		
+		// Only rows that changed are repacked.  Ghost goes before the active Shape,
+		// so the active Shape is drawn over it.
+		board.update(snapshot.getRowMasks(), BlockInstancePacker.BLUE_LAYER,
+				LOCKED_TINT);
+		packer.clear();
+		
+		if (!snapshot.isGameOver()){
+			// Interpolate by how long ago the snapshot's tick was simulated.
+			long tickNanos = logic.getLoop().getTickNanos();
+			float alpha = (float)(System.nanoTime() - snapshot.getTickNanos()) /
+					tickNanos;
+			
+			packer.putShape(snapshot.getGhostShape(),
+					BlockInstancePacker.DEFAULT_GHOST_TINT);
+			packer.putInterpolatedShape(snapshot.getPreviousActiveShape(),
+					snapshot.getActiveShape(), alpha, BlockInstancePacker.OPAQUE_WHITE);
+		}
+		
+		renderer.render(board, packer);
+		
+		if (++frames % TITLE_UPDATE_FRAMES == 0){
+			Display.setTitle(WINDOW_TITLE + " - " + renderer.getBytesUploaded() +
+					" bytes uploaded, " + recorder.getDrawCalls() + " draw calls, " +
+					recorder.getStateChanges() + " state changes, " +
+					backend.getSkipped() + " skipped, " +
+					snapshots.getDropped() + " dropped, " +
+					snapshots.getDuplicated() + " duplicated, " +
+					logic.getLateKeyEvents() + " late keys");
+		}
+	}
+}
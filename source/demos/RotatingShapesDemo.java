@@ -22,14 +22,11 @@ import org.lwjgl.util.vector.Vector3f;
 import tetrix.entities.Direction;
 import tetrix.entities.rotations.RotationSystem;
 import tetrix.entities.rotations.SuperRotationSystem;
-import tetrix.entities.shapes.IShape;
-import tetrix.entities.shapes.JShape;
-import tetrix.entities.shapes.LShape;
-import tetrix.entities.shapes.OShape;
-import tetrix.entities.shapes.SShape;
 import tetrix.entities.shapes.Shape;
-import tetrix.entities.shapes.TShape;
-import tetrix.entities.shapes.ZShape;
+import tetrix.entities.shapes.ShapePool;
+import tetrix.entities.shapes.ShapeType;
+import tetrix.randomizers.BagGenerator;
+import tetrix.randomizers.PieceGenerator;
 import tetrix.utilities.GLUtils;
 import tetrix.utilities.ShaderUtils;
 import tetrix.utilities.ShapeUtils;
@@ -74,6 +71,8 @@ public class RotatingShapesDemo {
 	
 	// Tetrix related variables.
 	private Shape currentShape = null;
+	private ShapePool shapePool = null;
+	private PieceGenerator pieceGenerator = null;
 	private RotationSystem rotationSystem = null; 
 	private float blockHalfWidth = 1f;
 	private FloatBuffer verticesBuffer = null;
@@ -206,7 +205,9 @@ public class RotatingShapesDemo {
 	}
 	
 	private void setupShapes() {
-		currentShape = new IShape();
+		shapePool = new ShapePool();
+		pieceGenerator = new BagGenerator(System.nanoTime());
+		currentShape = shapePool.get(ShapeType.I);
 		rotationSystem = new SuperRotationSystem();
 		
 		// Create FloatBuffer to hold vertex data.
@@ -394,37 +395,44 @@ public class RotatingShapesDemo {
 			//-- Change Shape Type.
 			else if(Keyboard.getEventKey() == Keyboard.KEY_1){
 				if(Keyboard.getEventKeyState()){
-					currentShape = new IShape();
+					currentShape = shapePool.get(ShapeType.I);
 				}
 			}
 			else if(Keyboard.getEventKey() == Keyboard.KEY_2){
 				if(Keyboard.getEventKeyState()){
-					currentShape = new JShape();
+					currentShape = shapePool.get(ShapeType.J);
 				}
 			}
 			else if(Keyboard.getEventKey() == Keyboard.KEY_3){
 				if(Keyboard.getEventKeyState()){
-					currentShape = new LShape();
+					currentShape = shapePool.get(ShapeType.L);
 				}
 			}
 			else if(Keyboard.getEventKey() == Keyboard.KEY_4){
 				if(Keyboard.getEventKeyState()){
-					currentShape = new OShape();
+					currentShape = shapePool.get(ShapeType.O);
 				}
 			}
 			else if(Keyboard.getEventKey() == Keyboard.KEY_5){
 				if(Keyboard.getEventKeyState()){
-					currentShape = new SShape();
+					currentShape = shapePool.get(ShapeType.S);
 				}
 			}
 			else if(Keyboard.getEventKey() == Keyboard.KEY_6){
 				if(Keyboard.getEventKeyState()){
-					currentShape = new TShape();
+					currentShape = shapePool.get(ShapeType.T);
 				}
 			}
 			else if(Keyboard.getEventKey() == Keyboard.KEY_7){
 				if(Keyboard.getEventKeyState()){
-					currentShape = new ZShape();
+					currentShape = shapePool.get(ShapeType.Z);
+				}
+			}
+			
+			//-- Next Shape from the 7-bag.
+			else if(Keyboard.getEventKey() == Keyboard.KEY_N){
+				if(Keyboard.getEventKeyState()){
+					currentShape = shapePool.get(pieceGenerator.next());
 				}
 			}
 		}
@@ -432,8 +440,8 @@ public class RotatingShapesDemo {
 	
 	private void logicCycle(){
 		// -- Update Vertices
-		// Update Shape vertex locations within the VBO.
-		verticesBuffer = ShapeUtils.createVertexFloatBuffer(currentShape, blockHalfWidth);
+		// Update Shape vertex locations within the VBO, reusing verticesBuffer.
+		ShapeUtils.putVertices(currentShape, blockHalfWidth, verticesBuffer, 0);
 		glBindBuffer(GL_ARRAY_BUFFER, vboShapeVerticesId);
 		glBufferSubData(GL_ARRAY_BUFFER, 0, verticesBuffer);
 		
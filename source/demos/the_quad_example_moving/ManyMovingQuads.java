@@ -1,8 +1,6 @@
 package demos.the_quad_example_moving;
 
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.nio.FloatBuffer;
 
@@ -20,15 +18,14 @@ import org.lwjgl.opengl.GL30;
 import org.lwjgl.opengl.PixelFormat;
 import org.lwjgl.util.glu.GLU;
 import org.lwjgl.util.vector.Matrix4f;
-import org.lwjgl.util.vector.Vector2f;
 import org.lwjgl.util.vector.Vector3f;
 
+import tetrix.assets.AssetPack;
 import tetrix.datastructures.TexturedVertex;
+import tetrix.datastructures.VertexStreamWriter;
 import tetrix.utilities.GLUtils;
 import tetrix.utilities.ShaderUtils;
-
-import de.matthiasmann.twl.utils.PNGDecoder;
-import de.matthiasmann.twl.utils.PNGDecoder.Format;
+import tetrix.utilities.TextureUtils;
 
 
 /**
@@ -117,19 +114,22 @@ public class ManyMovingQuads {
 	private void setupTextures() {
 		// Load PNG images to specific texture objects, and associate each texture
 		// with a specific Texture Image Unit.
-		texIds[0] = this.loadPNGTexture("resources/textures/blue-block.png");
-		
-		texIds[1] = this.loadPNGTexture("resources/textures/cyan-block.png");
-		
-		texIds[2] = this.loadPNGTexture("resources/textures/green-block.png");
-		
-		texIds[3] = this.loadPNGTexture("resources/textures/orange-block.png");
-		
-		texIds[4] = this.loadPNGTexture("resources/textures/purple-block.png");
-		
-		texIds[5] = this.loadPNGTexture("resources/textures/red-block.png");
+		AssetPack pack = null;
+		try {
+			pack = AssetPack.openDefault();
+		} catch (IOException e) {
+			e.printStackTrace();
+			System.exit(-1);
+		}
 		
-		texIds[6] = this.loadPNGTexture("resources/textures/yellow-block.png");
+		String[] textureNames = new String[] {
+				"blue-block", "cyan-block", "green-block", "orange-block",
+				"purple-block", "red-block", "yellow-block" };
+		for(int i = 0; i < textureNames.length; i++){
+			texIds[i] = TextureUtils.loadTexture(pack, textureNames[i],
+					GL13.GL_TEXTURE0);
+		}
+		GL11.glBindTexture(GL11.GL_TEXTURE_2D, 0);
 		
 		// Set texture sampler to use Texture Image Unit Index 0.
 		int textureSamplerLoc = GL20.glGetUniformLocation(programId, "texture_diffuse");
@@ -170,9 +170,9 @@ public class ManyMovingQuads {
 	}
 	
 	private void setupQuads() {
-		// Create an array of FloatBuffers, where each FloatBuffer contains the
-		// vertices for one quad.
-		FloatBuffer[] vertexBufferArray = createQuadVertexBuffers();
+		// Write the vertices of every quad into one buffer, 4 vertices per quad.
+		ByteBuffer vertices = createQuadVertices();
+		int quadBytes = 4 * TexturedVertex.stride;
 		
 		// Generate 4 VAOs, one for each Quad.  Load vertex data into a separate VBO
 		// for each Quad.
@@ -184,7 +184,9 @@ public class ManyMovingQuads {
 			// Create a new Vertex Buffer Object in memory and select it (bind)
 			vboList[i] = GL15.glGenBuffers();
 			GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, vboList[i]);
-			GL15.glBufferData(GL15.GL_ARRAY_BUFFER, vertexBufferArray[i], GL15.GL_STREAM_DRAW);
+			vertices.limit((i + 1) * quadBytes);
+			vertices.position(i * quadBytes);
+			GL15.glBufferData(GL15.GL_ARRAY_BUFFER, vertices, GL15.GL_STREAM_DRAW);
 			
 			// Put the position coordinates in attribute list 0
 			GL20.glVertexAttribPointer(0, TexturedVertex.positionElementCount, GL11.GL_FLOAT, 
@@ -229,71 +231,20 @@ public class ManyMovingQuads {
 		this.exitOnGLError("setupQuad");
 	}
 	
-	private FloatBuffer[] createQuadVertexBuffers(){
-		FloatBuffer[] result = new FloatBuffer[numQuads];
-		ByteBuffer verticesByteBuffer;
-		FloatBuffer verticesFloatBuffer;
-		
-		TexturedVertex[] vertices;
-		TexturedVertex topLeft = new TexturedVertex();
-		TexturedVertex bottomLeft = new TexturedVertex();
-		TexturedVertex bottomRight = new TexturedVertex();
-		TexturedVertex topRight = new TexturedVertex();
-		
-		Vector3f topLeft_xyz;
-		Vector3f bottomLeft_xyz;
-		Vector3f bottomRight_xyz;
-		Vector3f topRight_xyz;
-		
-		Vector2f delta;
+	private ByteBuffer createQuadVertices(){
+		VertexStreamWriter vertexWriter = new VertexStreamWriter(4 * numQuads);
 		double w = 2*Math.PI / 7D; // angular frequency
 		
 		for(int i = 0; i < numQuads; i++){
-			topLeft_xyz = new Vector3f(-1, 1, 0);
-			bottomLeft_xyz = new Vector3f(-1, -1, 0);
-			bottomRight_xyz = new Vector3f(1, -1, 0);
-			topRight_xyz = new Vector3f(1, 1, 0);
-			
 			//-- Each quad starts out at the origin, and then we translate each around
 			//   circumference of circle.
-			delta = new Vector2f((float)Math.cos(w * i), (float)Math.sin(w *i));
-			delta.scale(4f);
-			
-			topLeft_xyz.translate(delta.x, delta.y, 0);
-			bottomLeft_xyz.translate(delta.x, delta.y, 0);
-			bottomRight_xyz.translate(delta.x, delta.y, 0);
-			topRight_xyz.translate(delta.x, delta.y, 0);
-			
-			topLeft.setXYZ(topLeft_xyz.x, topLeft_xyz.y, topLeft_xyz.z);
-			topLeft.setST(0, 0);
-			
-			bottomLeft.setXYZ(bottomLeft_xyz.x, bottomLeft_xyz.y, bottomLeft_xyz.z);
-			bottomLeft.setST(0, 1);
-			
-			bottomRight.setXYZ(bottomRight_xyz.x, bottomRight_xyz.y, bottomRight_xyz.z);
-			bottomRight.setST(1, 1);
-			
-			topRight.setXYZ(topRight_xyz.x, topRight_xyz.y, topRight_xyz.z);
-			topRight.setST(1, 0);
-			
-			vertices = new TexturedVertex[] {topLeft, bottomLeft, bottomRight, topRight};
-		
-			// Put each 'Vertex' in one FloatBuffer
-			verticesByteBuffer = BufferUtils.createByteBuffer(vertices.length * 
-					TexturedVertex.stride);				
-			
-			verticesFloatBuffer = verticesByteBuffer.asFloatBuffer();
-			
-			for (int j = 0; j < vertices.length; j++) {
-				// Add position, color and texture floats to the buffer
-				verticesFloatBuffer.put(vertices[j].getElements());
-			}
-			verticesFloatBuffer.flip();
+			float deltaX = 4f * (float)Math.cos(w * i);
+			float deltaY = 4f * (float)Math.sin(w * i);
 			
-			result[i] = verticesFloatBuffer;
+			vertexWriter.quad(-1 + deltaX, -1 + deltaY, 1 + deltaX, 1 + deltaY, 0);
 		}
 		
-		return result;
+		return vertexWriter.getBuffer();
 	}
 	
 	
@@ -499,67 +450,6 @@ public class ManyMovingQuads {
 		Display.destroy();
 	}
 	
-	private int loadPNGTexture(String filename) {
-		ByteBuffer buf = null;
-		int tWidth = 0;
-		int tHeight = 0;
-		
-		try {
-			// Open the PNG file as an InputStream
-			InputStream in = new FileInputStream(filename);
-			// Link the PNG decoder to this stream
-			PNGDecoder decoder = new PNGDecoder(in);
-			
-			// Get the width and height of the texture
-			tWidth = decoder.getWidth();
-			tHeight = decoder.getHeight();
-			
-			
-			// Decode the PNG file in a ByteBuffer.  Each image texel has 4 components,
-			// RGBA, where each component uses 1 bytes.
-			buf = ByteBuffer.allocateDirect(
-					4 * decoder.getWidth() * decoder.getHeight());
-			decoder.decode(buf, decoder.getWidth() * 4, Format.RGBA);
-			buf.flip();
-			
-			in.close();
-		} catch (IOException e) {
-			e.printStackTrace();
-			System.exit(-1);
-		}
-		
-		// Create a new texture object in memory and bind it
-		int texId = GL11.glGenTextures();
-		GL11.glBindTexture(GL11.GL_TEXTURE_2D, texId);
-		
-		// All RGB bytes are aligned to each other and each component is 1 byte.
-		// Alignment setting used for sending data to OpenGL.
-		GL11.glPixelStorei(GL11.GL_UNPACK_ALIGNMENT, 1);
-		
-		// Upload the texture data and generate mip maps (for scaling)
-		GL11.glTexImage2D(GL11.GL_TEXTURE_2D, 0, GL11.GL_RGB, tWidth, tHeight, 0, 
-				GL11.GL_RGBA, GL11.GL_UNSIGNED_BYTE, buf);
-		GL30.glGenerateMipmap(GL11.GL_TEXTURE_2D);
-		
-		// Setup the ST coordinate system
-		GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_WRAP_S, GL11.GL_REPEAT);
-		GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_WRAP_T, GL11.GL_REPEAT);
-		
-		// Setup what to do when the texture has to be scaled
-		GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MAG_FILTER, 
-				GL11.GL_LINEAR);
-		GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MIN_FILTER, 
-				GL11.GL_LINEAR_MIPMAP_LINEAR);
-		
-		
-		// Restore defaults.
-		GL11.glBindTexture(GL11.GL_TEXTURE_2D, 0);
-		
-		this.exitOnGLError("loadPNGTexture");
-		
-		return texId;
-	}
-	
 	private float degreesToRadians(float degrees) {
 		return degrees * (float)(PI / 180d);
 	}
@@ -1,8 +1,5 @@
 package demos.the_quad_example_moving;
 
-import java.io.FileInputStream;
-import java.io.IOException;
-import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.nio.FloatBuffer;
 
@@ -13,7 +10,6 @@ import org.lwjgl.opengl.ContextAttribs;
 import org.lwjgl.opengl.Display;
 import org.lwjgl.opengl.DisplayMode;
 import org.lwjgl.opengl.GL11;
-import org.lwjgl.opengl.GL12;
 import org.lwjgl.opengl.GL13;
 import org.lwjgl.opengl.GL15;
 import org.lwjgl.opengl.GL20;
@@ -26,9 +22,7 @@ import org.lwjgl.util.vector.Vector3f;
 import tetrix.datastructures.TexturedVertex;
 import tetrix.utilities.GLUtils;
 import tetrix.utilities.ShaderUtils;
-
-import de.matthiasmann.twl.utils.PNGDecoder;
-import de.matthiasmann.twl.utils.PNGDecoder.Format;
+import tetrix.utilities.TextureUtils;
 
 
 /**
@@ -500,17 +494,6 @@ public class ManyQuads2DTextureArray {
 	}
 	
 	private void loadPNGTextures() {
-		ByteBuffer buf = null;
-		int textureWidth = 0;
-		int textureHeight = 0;
-		
-		texId = GL11.glGenTextures();
-		GL11.glBindTexture(GL30.GL_TEXTURE_2D_ARRAY, texId);
-		
-		// All RGB bytes are aligned to each other and each component is 1 byte.
-		// Alignment setting used for sending data to OpenGL.
-		GL11.glPixelStorei(GL11.GL_UNPACK_ALIGNMENT, 1);
-		
 		String[] textureFileStrings = new String[] {
 				"resources/textures/blue-block.png",
 				"resources/textures/purple-block.png",
@@ -520,66 +503,10 @@ public class ManyQuads2DTextureArray {
 				"resources/textures/red-block.png",
 				"resources/textures/yellow-block.png" };
 		
-		InputStream in;
-		PNGDecoder decoder;
-		
-		try {
-			in = new FileInputStream(textureFileStrings[0]);
-			decoder = new PNGDecoder(in);
-			
-			textureWidth = decoder.getWidth();
-			textureHeight = decoder.getHeight();
-		} catch (IOException e1) {
-			e1.printStackTrace();
-			System.exit(-1);
-		}
-		
-		GL12.glTexImage3D(GL30.GL_TEXTURE_2D_ARRAY, 0, GL11.GL_RGB, textureWidth,
-				textureHeight, numQuads, 0, GL11.GL_RGBA, GL11.GL_UNSIGNED_BYTE,
-				(ByteBuffer)null);
-		
-		for(int textureDepth = 0; textureDepth < textureFileStrings.length; textureDepth++){
-			try {
-				// Open the PNG file as an InputStream
-				in = new FileInputStream(textureFileStrings[textureDepth]);
-				// Link the PNG decoder to this stream
-				decoder = new PNGDecoder(in);
-				
-				
-				// Decode the PNG file in a ByteBuffer.  Each image texel has 4 components,
-				// RGBA, where each component uses 1 bytes.
-				buf = ByteBuffer.allocateDirect(
-						4 * decoder.getWidth() * decoder.getHeight());
-				decoder.decode(buf, decoder.getWidth() * 4, Format.RGBA);
-				buf.flip();
-				
-				in.close();
-			} catch (IOException e) {
-				e.printStackTrace();
-				System.exit(-1);
-			}
-			
-			GL12.glTexSubImage3D(GL30.GL_TEXTURE_2D_ARRAY, 0, 0, 0, textureDepth,
-					textureWidth, textureHeight, 1, GL11.GL_RGBA,
-					GL11.GL_UNSIGNED_BYTE, buf);
-		}
-		
-		GL30.glGenerateMipmap(GL30.GL_TEXTURE_2D_ARRAY);
-		
-		// Setup the ST coordinate system
-		GL11.glTexParameteri(GL30.GL_TEXTURE_2D_ARRAY, GL11.GL_TEXTURE_WRAP_S, GL11.GL_REPEAT);
-		GL11.glTexParameteri(GL30.GL_TEXTURE_2D_ARRAY, GL11.GL_TEXTURE_WRAP_T, GL11.GL_REPEAT);
-		
-		// Setup what to do when the texture has to be scaled
-		GL11.glTexParameteri(GL30.GL_TEXTURE_2D_ARRAY, GL11.GL_TEXTURE_MAG_FILTER, 
-				GL11.GL_LINEAR);
-		GL11.glTexParameteri(GL30.GL_TEXTURE_2D_ARRAY, GL11.GL_TEXTURE_MIN_FILTER, 
-				GL11.GL_LINEAR_MIPMAP_LINEAR);
+		texId = TextureUtils.loadPNGTextureArray(textureFileStrings, GL13.GL_TEXTURE0);
 		
 		// Reset defaults.
 		GL11.glBindTexture(GL30.GL_TEXTURE_2D_ARRAY, 0);
-		
-		GLUtils.exitOnGLError("loadPNGTexture");
 	}
 	
 	private float degreesToRadians(float degrees) {
@@ -1,10 +1,11 @@
 package demos.the_quad_example_moving;
 
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.nio.FloatBuffer;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.lwjgl.BufferUtils;
 import org.lwjgl.LWJGLException;
@@ -22,12 +23,13 @@ import org.lwjgl.util.glu.GLU;
 import org.lwjgl.util.vector.Matrix4f;
 import org.lwjgl.util.vector.Vector3f;
 
+import tetrix.assets.AssetLoader;
+import tetrix.assets.AssetUploader;
+import tetrix.assets.GLAssetUploader;
+import tetrix.datastructures.ByteBufferPool;
 import tetrix.datastructures.TexturedVertex;
+import tetrix.datastructures.VertexStreamWriter;
 import tetrix.utilities.GLUtils;
-import tetrix.utilities.ShaderUtils;
-
-import de.matthiasmann.twl.utils.PNGDecoder;
-import de.matthiasmann.twl.utils.PNGDecoder.Format;
 
 public class TheQuadExampleMoving {
 	// Entry point for the application
@@ -46,7 +48,6 @@ public class TheQuadExampleMoving {
 	private int vboId = 0;
 	private int vboiId = 0;
 	private int indicesCount = 0;
-	private TexturedVertex[] vertices = null;
 	private ByteBuffer verticesByteBuffer = null;
 	
 	// Shader variables
@@ -59,6 +60,11 @@ public class TheQuadExampleMoving {
 	private int[] texIds = new int[] {0, 0};
 	private int textureSelector = 0;
 	
+	// Asset loading variables
+	private ExecutorService assetWorkers = null;
+	private AssetLoader assetLoader = null;
+	private AssetUploader assetUploader = null;
+	
 	// Moving variables
 	private int projectionMatrixLocation = 0;
 	private int viewMatrixLocation = 0;
@@ -77,13 +83,17 @@ public class TheQuadExampleMoving {
 		this.setupOpenGL();
 		
 		this.setupQuad();
-		this.setupShaders();
-		this.setupTextures();
 		this.setupMatrices();
+		this.startLoadingAssets();
 		
 		while (!Display.isCloseRequested()) {
-			// Do a single loop (logic/render)
-			this.loopCycle();
+			if (assetLoader.isDone()) {
+				// Do a single loop (logic/render)
+				this.loopCycle();
+			} else {
+				// Upload a batch of decoded assets, and show a blank frame meanwhile
+				this.loadingCycle();
+			}
 			
 			// Force a maximum FPS of about 60
 			Display.sync(60);
@@ -115,12 +125,49 @@ public class TheQuadExampleMoving {
 		matrix44Buffer = BufferUtils.createFloatBuffer(16);
 	}
 
+	private void startLoadingAssets() {
+		// Decode textures and read shaders on worker threads, leaving only the
+		// uploads to this thread.
+		assetWorkers = Executors.newFixedThreadPool(
+				Runtime.getRuntime().availableProcessors());
+		assetLoader = new AssetLoader(assetWorkers, ByteBufferPool.getShared());
+		assetUploader = new GLAssetUploader(GL13.GL_TEXTURE0);
+		
+		assetLoader.addTexture("stGrid1", Paths.get("resources/textures/stGrid1.png"));
+		assetLoader.addTexture("stGrid2", Paths.get("resources/textures/stGrid2.png"));
+		assetLoader.addShader("vertex",
+				Paths.get("source/demos/the_quad_example_moving/vertex.glsl"),
+				GL20.GL_VERTEX_SHADER);
+		assetLoader.addShader("fragment",
+				Paths.get("source/demos/the_quad_example_moving/fragment.glsl"),
+				GL20.GL_FRAGMENT_SHADER);
+		
+		assetLoader.start();
+	}
+	
+	private void loadingCycle() {
+		GL11.glClear(GL11.GL_COLOR_BUFFER_BIT);
+		
+		try {
+			assetLoader.update(assetUploader);
+		} catch (IOException e) {
+			e.printStackTrace();
+			System.exit(-1);
+		}
+		
+		if (assetLoader.isDone()) {
+			assetWorkers.shutdown();
+			assetLoader.printTimings(System.out);
+			
+			this.setupShaders();
+			this.setupTextures();
+		}
+	}
+	
 	private void setupTextures() {
-		texIds[0] = this.loadPNGTexture("resources/textures/stGrid1.png",
-				GL13.GL_TEXTURE0);
+		texIds[0] = assetLoader.getAsset("stGrid1").getHandle();
 		
-		texIds[1] = this.loadPNGTexture("resources/textures/stGrid2.png",
-				GL13.GL_TEXTURE0);
+		texIds[1] = assetLoader.getAsset("stGrid2").getHandle();
 		
 		// Set texture sampler to use Texture Image Unit Index 0.
 		baseImageLoc = GL20.glGetUniformLocation(pId, "texture_diffuse");
@@ -161,27 +208,14 @@ public class TheQuadExampleMoving {
 	}
 	
 	private void setupQuad() {
-		// We'll define our quad using 4 vertices of the custom 'TexturedVertex' class
-		TexturedVertex v0 = new TexturedVertex(); 
-		v0.setXYZ(-0.5f, 0.5f, 0); v0.setRGB(1, 0, 0); v0.setST(0, 0);
-		TexturedVertex v1 = new TexturedVertex(); 
-		v1.setXYZ(-0.5f, -0.5f, 0); v1.setRGB(0, 1, 0); v1.setST(0, 1);
-		TexturedVertex v2 = new TexturedVertex(); 
-		v2.setXYZ(0.5f, -0.5f, 0); v2.setRGB(0, 0, 1); v2.setST(1, 1);
-		TexturedVertex v3 = new TexturedVertex(); 
-		v3.setXYZ(0.5f, 0.5f, 0); v3.setRGB(1, 1, 1); v3.setST(1, 0);
-		
-		vertices = new TexturedVertex[] {v0, v1, v2, v3};
-		
-		// Put each 'Vertex' in one FloatBuffer
-		verticesByteBuffer = BufferUtils.createByteBuffer(vertices.length * 
-				TexturedVertex.stride);				
-		FloatBuffer verticesFloatBuffer = verticesByteBuffer.asFloatBuffer();
-		for (int i = 0; i < vertices.length; i++) {
-			// Add position, color and texture floats to the buffer
-			verticesFloatBuffer.put(vertices[i].getElements());
-		}
-		verticesFloatBuffer.flip();
+		// Write the 4 vertices of our quad straight into one direct buffer, in the
+		// 'TexturedVertex' layout
+		VertexStreamWriter vertexWriter = new VertexStreamWriter(4);
+		vertexWriter.vertex(-0.5f, 0.5f, 0).color(1, 0, 0).st(0, 0);
+		vertexWriter.vertex(-0.5f, -0.5f, 0).color(0, 1, 0).st(0, 1);
+		vertexWriter.vertex(0.5f, -0.5f, 0).color(0, 0, 1).st(1, 1);
+		vertexWriter.vertex(0.5f, 0.5f, 0).color(1, 1, 1).st(1, 0);
+		verticesByteBuffer = vertexWriter.getBuffer();
 		
 		
 		// OpenGL expects to draw vertices in counter clockwise order by default
@@ -201,7 +235,7 @@ public class TheQuadExampleMoving {
 		// Create a new Vertex Buffer Object in memory and select it (bind)
 		vboId = GL15.glGenBuffers();
 		GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, vboId);
-		GL15.glBufferData(GL15.GL_ARRAY_BUFFER, verticesFloatBuffer, GL15.GL_STREAM_DRAW);
+		GL15.glBufferData(GL15.GL_ARRAY_BUFFER, verticesByteBuffer, GL15.GL_STREAM_DRAW);
 		
 		// Put the position coordinates in attribute list 0
 		GL20.glVertexAttribPointer(0, TexturedVertex.positionElementCount, GL11.GL_FLOAT, 
@@ -235,13 +269,9 @@ public class TheQuadExampleMoving {
 	}
 	
 	private void setupShaders() {		
-		// Load the vertex shader
-		vsId = ShaderUtils.loadShader("source/demos/the_quad_example_moving/vertex.glsl", 
-				GL20.GL_VERTEX_SHADER);
-		
-		// Load the fragment shader
-		fsId = ShaderUtils.loadShader("source/demos/the_quad_example_moving/fragment.glsl", 
-				GL20.GL_FRAGMENT_SHADER);
+		// The vertex and fragment shaders were compiled by the AssetLoader
+		vsId = assetLoader.getAsset("vertex").getHandle();
+		fsId = assetLoader.getAsset("fragment").getHandle();
 		
 		// Create a new shader program that links both shaders
 		pId = GL20.glCreateProgram();
@@ -391,6 +421,9 @@ public class TheQuadExampleMoving {
 	}
 	
 	private void destroyOpenGL() {	
+		// Stop the asset workers, in case the window closed while loading
+		assetWorkers.shutdown();
+		
 		// Delete the texture
 		GL11.glDeleteTextures(texIds[0]);
 		GL11.glDeleteTextures(texIds[1]);
@@ -428,66 +461,6 @@ public class TheQuadExampleMoving {
 		Display.destroy();
 	}
 	
-	private int loadPNGTexture(String filename, int textureUnit) {
-		ByteBuffer buf = null;
-		int tWidth = 0;
-		int tHeight = 0;
-		
-		try {
-			// Open the PNG file as an InputStream
-			InputStream in = new FileInputStream(filename);
-			// Link the PNG decoder to this stream
-			PNGDecoder decoder = new PNGDecoder(in);
-			
-			// Get the width and height of the texture
-			tWidth = decoder.getWidth();
-			tHeight = decoder.getHeight();
-			
-			
-			// Decode the PNG file in a ByteBuffer
-			buf = ByteBuffer.allocateDirect(
-					4 * decoder.getWidth() * decoder.getHeight());
-			decoder.decode(buf, decoder.getWidth() * 4, Format.RGBA);
-			buf.flip();
-			
-			in.close();
-		} catch (IOException e) {
-			e.printStackTrace();
-			System.exit(-1);
-		}
-		
-		// Create a new texture object in memory and bind it
-		int texId = GL11.glGenTextures();
-		GL11.glBindTexture(GL11.GL_TEXTURE_2D, texId);
-		
-		// All RGB bytes are aligned to each other and each component is 1 byte.
-		// Alignment setting used for sending data to OpenGL.
-		GL11.glPixelStorei(GL11.GL_UNPACK_ALIGNMENT, 1);
-		
-		// Upload the texture data and generate mip maps (for scaling)
-		GL11.glTexImage2D(GL11.GL_TEXTURE_2D, 0, GL11.GL_RGB, tWidth, tHeight, 0, 
-				GL11.GL_RGBA, GL11.GL_UNSIGNED_BYTE, buf);
-		GL30.glGenerateMipmap(GL11.GL_TEXTURE_2D);
-		
-		// Setup the ST coordinate system
-		GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_WRAP_S, GL11.GL_REPEAT);
-		GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_WRAP_T, GL11.GL_REPEAT);
-		
-		// Setup what to do when the texture has to be scaled
-		GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MAG_FILTER, 
-				GL11.GL_LINEAR);
-		GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MIN_FILTER, 
-				GL11.GL_LINEAR_MIPMAP_LINEAR);
-		
-		
-		// Restore defaults.
-		GL11.glBindTexture(GL11.GL_TEXTURE_2D, 0);
-		
-		this.exitOnGLError("loadPNGTexture");
-		
-		return texId;
-	}
-	
 	private float degreesToRadians(float degrees) {
 		return degrees * (float)(PI / 180d);
 	}
@@ -0,0 +1,137 @@
+package tetrix.assets;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+/**
+ * An asset loaded by an {@link AssetLoader}: a texture decoded to RGBA texels, or
+ * the source of a shader, along with the time each stage of its loading took.
+ *
+ * <p>
+ * The loader fills in an Asset on a worker thread, and then uploads it on the
+ * thread calling {@link AssetLoader#update(AssetUploader, int, long)}, after which
+ * {@link #getHandle()} holds the handle returned by the {@link AssetUploader},
+ * such as an OpenGL texture or shader ID.
+ *
+ * @author Dustin Biser
+ *
+ */
+public class Asset {
+	
+	public enum Type {
+		TEXTURE, SHADER
+	}
+	
+	private final String name;
+	private final Type type;
+	private final Path path;
+	private final int shaderType;
+	
+	// Written by a worker thread before the Asset is handed to the uploading thread.
+	ByteBuffer data;
+	int width;
+	int height;
+	int byteCount;
+	long decodeNanos;
+	long readyNanos;
+	IOException error;
+	
+	// Written by the uploading thread.
+	volatile int handle;
+	volatile long uploadNanos;
+	volatile long uploadedNanos = -1;
+	
+	Asset(String name, Type type, Path path, int shaderType){
+		this.name = name;
+		this.type = type;
+		this.path = path;
+		this.shaderType = shaderType;
+	}
+	
+	public String getName(){
+		return name;
+	}
+	
+	public Type getType(){
+		return type;
+	}
+	
+	public Path getPath(){
+		return path;
+	}
+	
+	/**
+	 * @return the shader type given when the shader was added, such as
+	 * GL_VERTEX_SHADER, or 0 for textures.
+	 */
+	public int getShaderType(){
+		return shaderType;
+	}
+	
+	/**
+	 * @return texture width in texels, or 0 for shaders.
+	 */
+	public int getWidth(){
+		return width;
+	}
+	
+	/**
+	 * @return texture height in texels, or 0 for shaders.
+	 */
+	public int getHeight(){
+		return height;
+	}
+	
+	/**
+	 * @return number of bytes of decoded texels or shader source.
+	 */
+	public int getByteCount(){
+		return byteCount;
+	}
+	
+	/**
+	 * @return handle returned by the AssetUploader, or 0 until the Asset is
+	 * uploaded.
+	 */
+	public int getHandle(){
+		return handle;
+	}
+	
+	/**
+	 * @return true once the Asset has been uploaded.
+	 */
+	public boolean isUploaded(){
+		return uploadedNanos >= 0;
+	}
+	
+	/**
+	 * @return time spent reading and decoding the Asset on a worker thread.
+	 */
+	public long getDecodeNanos(){
+		return decodeNanos;
+	}
+	
+	/**
+	 * @return time from {@link AssetLoader#start()} until the Asset was decoded and
+	 * ready to upload.
+	 */
+	public long getReadyNanos(){
+		return readyNanos;
+	}
+	
+	/**
+	 * @return time the AssetUploader spent uploading the Asset.
+	 */
+	public long getUploadNanos(){
+		return uploadNanos;
+	}
+	
+	/**
+	 * @return time from {@link AssetLoader#start()} until the Asset was uploaded,
+	 * or -1 until it is.
+	 */
+	public long getUploadedNanos(){
+		return uploadedNanos;
+	}
+}
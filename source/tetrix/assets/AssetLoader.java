@@ -0,0 +1,335 @@
+package tetrix.assets;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+
+import tetrix.datastructures.ByteBufferPool;
+
+import de.matthiasmann.twl.utils.PNGDecoder;
+import de.matthiasmann.twl.utils.PNGDecoder.Format;
+
+/**
+ * Loads textures and shaders in two stages, so that startup does not decode one
+ * asset after another on the thread owning the OpenGL context.
+ *
+ * <p>
+ * {@link #start()} submits one task per asset to an Executor.  Each task decodes
+ * a PNG image to RGBA texels, or reads a shader source file, into a buffer from a
+ * {@link ByteBufferPool}, then queues the {@link Asset} as ready.  The context
+ * thread calls {@link #update(AssetUploader, int, long)} once per frame, which
+ * hands ready assets to an {@link AssetUploader} in a batch bounded by a number of
+ * assets and of bytes, so that uploads never stall a frame for long, and returns
+ * each buffer to the pool.  Frames can be drawn while assets are still loading.
+ *
+ * <p>
+ * Every Asset records how long it took to decode, when it became ready, and how
+ * long its upload took; {@link #printTimings(PrintStream)} reports them.
+ *
+ * @author Dustin Biser
+ *
+ */
+public class AssetLoader {
+	public static final int DEFAULT_MAX_UPLOADS_PER_FRAME = 4;
+	public static final long DEFAULT_MAX_UPLOAD_BYTES_PER_FRAME = 4L << 20;
+	
+	private final Executor executor;
+	private final ByteBufferPool pool;
+	
+	private final List<Asset> assets = new ArrayList<Asset>();
+	private final ConcurrentLinkedQueue<Asset> ready = new ConcurrentLinkedQueue<Asset>();
+	
+	private long startNanos = -1;
+	private long doneNanos = -1;
+	private int uploaded;
+	
+	/**
+	 * @param executor - runs the decoding tasks, typically a pool of worker threads.
+	 * @param pool - ByteBufferPool that decoded assets are stored in.
+	 */
+	public AssetLoader(Executor executor, ByteBufferPool pool){
+		this.executor = executor;
+		this.pool = pool;
+	}
+	
+	/**
+	 * Adds a PNG image to load as a texture.
+	 * @return the Asset, which holds the texture handle once uploaded.
+	 * @throws IllegalStateException if the loader has been started.
+	 */
+	public Asset addTexture(String name, Path image) throws IllegalStateException {
+		return add(new Asset(name, Asset.Type.TEXTURE, image, 0));
+	}
+	
+	/**
+	 * Adds a shader source file to load.
+	 * @param shaderType - type of shader, such as GL_VERTEX_SHADER, passed on to the
+	 * AssetUploader.
+	 * @return the Asset, which holds the shader handle once uploaded.
+	 * @throws IllegalStateException if the loader has been started.
+	 */
+	public Asset addShader(String name, Path source, int shaderType)
+			throws IllegalStateException {
+		return add(new Asset(name, Asset.Type.SHADER, source, shaderType));
+	}
+	
+	private Asset add(Asset asset){
+		if (isStarted()){
+			throw new IllegalStateException("Assets can not be added once loading " +
+					"has started.");
+		}
+		
+		assets.add(asset);
+		return asset;
+	}
+	
+	/**
+	 * Submits a decoding task for every asset added.
+	 * @throws IllegalStateException if the loader has already been started.
+	 */
+	public void start() throws IllegalStateException {
+		if (isStarted()){
+			throw new IllegalStateException("AssetLoader already started.");
+		}
+		startNanos = System.nanoTime();
+		
+		for(final Asset asset : assets){
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					decode(asset);
+				}
+			});
+		}
+		
+		if (assets.isEmpty()){
+			doneNanos = startNanos;
+		}
+	}
+	
+	public boolean isStarted(){
+		return startNanos >= 0;
+	}
+	
+	/**
+	 * Runs on a worker thread.
+	 */
+	private void decode(Asset asset){
+		long start = System.nanoTime();
+		
+		try {
+			if (asset.getType() == Asset.Type.TEXTURE){
+				decodeTexture(asset);
+			}
+			else {
+				readShader(asset);
+			}
+		}
+		catch (IOException e){
+			asset.error = e;
+		}
+		catch (RuntimeException e){
+			asset.error = new IOException(e);
+		}
+		
+		if (asset.error != null && asset.data != null){
+			pool.release(asset.data);
+			asset.data = null;
+		}
+		
+		long end = System.nanoTime();
+		asset.decodeNanos = end - start;
+		asset.readyNanos = end - startNanos;
+		
+		// Publishes the fields written above to the uploading thread.
+		ready.offer(asset);
+	}
+	
+	private void decodeTexture(Asset asset) throws IOException {
+		InputStream in = Files.newInputStream(asset.getPath());
+		
+		try {
+			PNGDecoder decoder = new PNGDecoder(in);
+			asset.width = decoder.getWidth();
+			asset.height = decoder.getHeight();
+			asset.byteCount = 4 * asset.width * asset.height;
+			
+			asset.data = pool.acquire(asset.byteCount);
+			decoder.decode(asset.data, 4 * asset.width, Format.RGBA);
+			asset.data.flip();
+		}
+		finally {
+			in.close();
+		}
+	}
+	
+	private void readShader(Asset asset) throws IOException {
+		FileChannel channel = FileChannel.open(asset.getPath(), StandardOpenOption.READ);
+		
+		try {
+			long size = channel.size();
+			if (size > ByteBufferPool.MAX_CAPACITY){
+				throw new IOException("Shader " + asset.getPath() + " is too large.");
+			}
+			asset.byteCount = (int)size;
+			
+			asset.data = pool.acquire(asset.byteCount);
+			while (asset.data.hasRemaining()){
+				if (channel.read(asset.data) < 0){
+					throw new IOException("Shader " + asset.getPath() + " was truncated " +
+							"while read.");
+				}
+			}
+			asset.data.flip();
+		}
+		finally {
+			channel.close();
+		}
+	}
+	
+	/**
+	 * Uploads ready assets with the default batch bounds.
+	 * @see #update(AssetUploader, int, long)
+	 */
+	public int update(AssetUploader uploader) throws IOException {
+		return update(uploader, DEFAULT_MAX_UPLOADS_PER_FRAME,
+				DEFAULT_MAX_UPLOAD_BYTES_PER_FRAME);
+	}
+	
+	/**
+	 * Uploads assets that are ready, in the order they finished decoding, until
+	 * <code>maxUploads</code> assets or <code>maxBytes</code> bytes have been
+	 * uploaded.  At least one ready asset is uploaded, however large, so that every
+	 * asset is eventually loaded.  Must be called on the thread the AssetUploader
+	 * may be used on, typically once per frame.
+	 * @return number of assets uploaded.
+	 * @throws IOException if an asset ready in this batch could not be read or
+	 * decoded.  Later calls continue with the remaining assets.
+	 * @throws InvalidParameterException if maxUploads is less than 1.
+	 * @throws IllegalStateException if the loader has not been started.
+	 */
+	public int update(AssetUploader uploader, int maxUploads, long maxBytes)
+			throws IOException, InvalidParameterException, IllegalStateException {
+		if (maxUploads < 1){
+			throw new InvalidParameterException("maxUploads must be at least 1.\n");
+		}
+		if (!isStarted()){
+			throw new IllegalStateException("AssetLoader not started.");
+		}
+		
+		int count = 0;
+		long bytes = 0;
+		
+		while (count < maxUploads && (count == 0 || bytes < maxBytes)){
+			Asset asset = ready.poll();
+			if (asset == null) break;
+			
+			uploaded++;
+			count++;
+			if (uploaded == assets.size()){
+				doneNanos = System.nanoTime();
+			}
+			
+			if (asset.error != null){
+				throw new IOException("Could not load " + asset.getName() + " from " +
+						asset.getPath() + ".", asset.error);
+			}
+			
+			upload(uploader, asset);
+			bytes += asset.getByteCount();
+		}
+		
+		return count;
+	}
+	
+	private void upload(AssetUploader uploader, Asset asset){
+		long start = System.nanoTime();
+		
+		try {
+			if (asset.getType() == Asset.Type.TEXTURE){
+				asset.handle = uploader.uploadTexture(asset, asset.data);
+			}
+			else {
+				asset.handle = uploader.uploadShader(asset, asset.data);
+			}
+		}
+		finally {
+			pool.release(asset.data);
+			asset.data = null;
+		}
+		
+		long end = System.nanoTime();
+		asset.uploadNanos = end - start;
+		asset.uploadedNanos = end - startNanos;
+	}
+	
+	/**
+	 * @return true once every asset has been handed to update, whether or not it
+	 * loaded.
+	 */
+	public boolean isDone(){
+		return doneNanos >= 0;
+	}
+	
+	/**
+	 * @return number of assets not yet handed to update.
+	 */
+	public int getPendingCount(){
+		return assets.size() - uploaded;
+	}
+	
+	/**
+	 * @return the assets added, in the order they were added.
+	 */
+	public List<Asset> getAssets(){
+		return Collections.unmodifiableList(assets);
+	}
+	
+	/**
+	 * @return the asset called <code>name</code>.
+	 * @throws InvalidParameterException if no asset of that name was added.
+	 */
+	public Asset getAsset(String name) throws InvalidParameterException {
+		for(Asset asset : assets){
+			if (asset.getName().equals(name)) return asset;
+		}
+		
+		throw new InvalidParameterException("No asset " + name + " was added.\n");
+	}
+	
+	/**
+	 * @return time from start until every asset was handed to update, or -1 until
+	 * then.
+	 */
+	public long getElapsedNanos(){
+		return isDone() ? doneNanos - startNanos : -1;
+	}
+	
+	/**
+	 * Prints a line of timings for each asset, followed by the total load time.
+	 */
+	public void printTimings(PrintStream out){
+		out.printf("%-28s %-8s %12s %10s %10s %10s%n", "asset", "type", "bytes",
+				"decode ms", "ready ms", "upload ms");
+		
+		for(Asset asset : assets){
+			out.printf("%-28s %-8s %,12d %10.2f %10.2f %10.2f%n", asset.getName(),
+					asset.getType(), asset.getByteCount(), asset.getDecodeNanos() * 1e-6,
+					asset.getReadyNanos() * 1e-6, asset.getUploadNanos() * 1e-6);
+		}
+		
+		out.printf("%d assets loaded in %.2f ms%n", assets.size(),
+				getElapsedNanos() * 1e-6);
+	}
+}
@@ -0,0 +1,208 @@
+package tetrix.assets;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.InvalidParameterException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A pack of textures decoded ahead of time by {@link AssetPackBuilder}, so that
+ * startup uploads texture data straight from a memory mapped file instead of
+ * inflating PNG images.  All header and index values are big endian.
+ *
+ * <p>
+ * A pack begins with a {@link #HEADER_BYTES} byte header:
+ * <pre>
+ * offset  size  field
+ *  0      4     magic number 'TXAP'
+ *  4      2     format version
+ *  6      2     reserved, 0
+ *  8      4     number of textures
+ * 12      4     size of the index, in bytes
+ * </pre>
+ * followed by an index entry for each texture:
+ * <pre>
+ * size  field
+ *  2    length of the name, in bytes
+ *  n    name, UTF-8
+ *  4    width, in texels
+ *  4    height, in texels
+ *  8    offset of the texel data from the start of the pack
+ * </pre>
+ * Texel data is tightly packed RGBA, 1 byte per component, rows from top to
+ * bottom: the layout glTexImage2D and glTexSubImage3D take with an unpack
+ * alignment of 1.  Each texture's data starts on a {@link #DATA_ALIGNMENT} byte
+ * boundary, so it can be uploaded as a texture, or as a layer of a texture array,
+ * directly from the mapped pack.
+ *
+ * @author Dustin Biser
+ *
+ */
+public class AssetPack {
+	public static final int MAGIC = 0x54584150;
+	public static final short VERSION = 1;
+	public static final int HEADER_BYTES = 16;
+	public static final int DATA_ALIGNMENT = 16;
+	public static final int BYTES_PER_TEXEL = 4;
+	
+	// File name extension of asset packs.
+	public static final String FILE_EXTENSION = ".txap";
+	
+	// Source textures, and the pack built from them, relative to the Tetrix folder.
+	public static final String DEFAULT_TEXTURE_DIRECTORY = "resources/textures";
+	public static final String DEFAULT_PACK_FILE = "resources/textures" + FILE_EXTENSION;
+	
+	private final ByteBuffer data;
+	private final String[] names;
+	private final int[] widths;
+	private final int[] heights;
+	private final int[] offsets;
+	private final Map<String, Integer> indices;
+	
+	/**
+	 * Opens the default pack, first rebuilding it from the default texture
+	 * directory if any texture changed since it was built.
+	 * @throws IOException if the pack can not be built or read.
+	 */
+	public static AssetPack openDefault() throws IOException {
+		Path pack = Paths.get(DEFAULT_PACK_FILE);
+		AssetPackBuilder.buildIfStale(Paths.get(DEFAULT_TEXTURE_DIRECTORY), pack);
+		
+		return open(pack);
+	}
+	
+	/**
+	 * Memory maps an asset pack.  The file is closed once mapped; the mapping stays
+	 * valid until the AssetPack is garbage collected.
+	 * @throws IOException if the file can not be read or is not a valid pack.
+	 */
+	public static AssetPack open(Path path) throws IOException {
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+		
+		try {
+			return new AssetPack(channel.map(FileChannel.MapMode.READ_ONLY, 0,
+					channel.size()));
+		}
+		finally {
+			channel.close();
+		}
+	}
+	
+	/**
+	 * Reads an asset pack held in <code>data</code>, from index 0 up to its limit.
+	 * @throws IOException if data does not hold a valid pack.
+	 */
+	public AssetPack(ByteBuffer data) throws IOException {
+		this.data = data;
+		
+		if (data.limit() < HEADER_BYTES || data.getInt(0) != MAGIC){
+			throw new IOException("Not an asset pack.");
+		}
+		short version = data.getShort(4);
+		if (version != VERSION){
+			throw new IOException("Unsupported asset pack version " + version + ".");
+		}
+		
+		int count = data.getInt(8);
+		int indexBytes = data.getInt(12);
+		if (count < 0 || indexBytes < 0 || HEADER_BYTES + indexBytes > data.limit()){
+			throw new IOException("Corrupt asset pack index.");
+		}
+		
+		names = new String[count];
+		widths = new int[count];
+		heights = new int[count];
+		offsets = new int[count];
+		indices = new HashMap<String, Integer>(2 * count);
+		
+		ByteBuffer index = data.duplicate();
+		index.position(HEADER_BYTES);
+		index.limit(HEADER_BYTES + indexBytes);
+		
+		try {
+			for(int i = 0; i < count; i++){
+				byte[] name = new byte[index.getShort() & 0xFFFF];
+				index.get(name);
+				names[i] = new String(name, StandardCharsets.UTF_8);
+				widths[i] = index.getInt();
+				heights[i] = index.getInt();
+				long offset = index.getLong();
+				
+				long end = offset + (long)widths[i] * heights[i] * BYTES_PER_TEXEL;
+				if (widths[i] < 0 || heights[i] < 0 || offset < 0 || end > data.limit()){
+					throw new IOException("Texture " + names[i] + " lies outside of " +
+							"the asset pack.");
+				}
+				offsets[i] = (int)offset;
+				indices.put(names[i], i);
+			}
+		}
+		catch (java.nio.BufferUnderflowException e){
+			throw new IOException("Corrupt asset pack index.");
+		}
+	}
+	
+	/**
+	 * @return number of textures in the pack.
+	 */
+	public int getTextureCount(){
+		return names.length;
+	}
+	
+	/**
+	 * @return index of the texture called <code>name</code>, or -1 if the pack has
+	 * no such texture.
+	 */
+	public int indexOf(String name){
+		Integer index = indices.get(name);
+		return index == null ? -1 : index;
+	}
+	
+	/**
+	 * @return index of the texture called <code>name</code>.
+	 * @throws InvalidParameterException if the pack has no such texture.
+	 */
+	public int getIndex(String name) throws InvalidParameterException {
+		int index = indexOf(name);
+		if (index < 0){
+			throw new InvalidParameterException("No texture " + name + " in asset pack.\n");
+		}
+		
+		return index;
+	}
+	
+	/**
+	 * @return name of the texture at <code>index</code>, its source file name
+	 * without extension.
+	 */
+	public String getName(int index){
+		return names[index];
+	}
+	
+	public int getWidth(int index){
+		return widths[index];
+	}
+	
+	public int getHeight(int index){
+		return heights[index];
+	}
+	
+	/**
+	 * @return the RGBA texels of the texture at <code>index</code>, as a new buffer
+	 * sharing the mapped pack's memory, with position 0 and limit
+	 * <code>width * height * BYTES_PER_TEXEL</code>.
+	 */
+	public ByteBuffer getPixels(int index){
+		ByteBuffer pixels = data.duplicate();
+		pixels.limit(offsets[index] + widths[index] * heights[index] * BYTES_PER_TEXEL);
+		pixels.position(offsets[index]);
+		
+		return pixels.slice();
+	}
+}
@@ -0,0 +1,307 @@
+package tetrix.assets;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import de.matthiasmann.twl.utils.PNGDecoder;
+import de.matthiasmann.twl.utils.PNGDecoder.Format;
+
+/**
+ * Asset build step: decodes every PNG image of a directory once, and writes the
+ * texels into a single {@link AssetPack}, indexed by file name without extension.
+ * Textures are stored in file name order.
+ *
+ * <p>
+ * The pack is written to a temporary file and moved into place, so readers never
+ * see a partially written pack.  {@link #buildIfStale(Path, Path)} only rebuilds
+ * when an image is newer than the pack, so the pack acts as a cache of the decoded
+ * images.
+ *
+ * <p>
+ * Usage: <code>AssetPackBuilder [textureDirectory] [packFile]</code>, defaulting to
+ * {@link AssetPack#DEFAULT_TEXTURE_DIRECTORY} and
+ * {@link AssetPack#DEFAULT_PACK_FILE}.
+ *
+ * @author Dustin Biser
+ *
+ */
+public class AssetPackBuilder {
+	public static final String IMAGE_EXTENSION = ".png";
+	
+	public static void main(String[] args) throws IOException {
+		Path textureDirectory = Paths.get(args.length > 0 ? args[0] :
+			AssetPack.DEFAULT_TEXTURE_DIRECTORY);
+		Path pack = Paths.get(args.length > 1 ? args[1] : AssetPack.DEFAULT_PACK_FILE);
+		
+		long start = System.nanoTime();
+		int count = build(textureDirectory, pack);
+		
+		System.out.printf("Packed %d textures into %s (%,d bytes) in %.1f ms%n", count,
+				pack, Files.size(pack), (System.nanoTime() - start) * 1e-6);
+	}
+	
+	/**
+	 * @return the PNG images of <code>textureDirectory</code>, sorted by file name.
+	 * @throws IOException if the directory can not be listed.
+	 */
+	public static List<Path> listImages(Path textureDirectory) throws IOException {
+		List<Path> images = new ArrayList<Path>();
+		DirectoryStream<Path> stream = Files.newDirectoryStream(textureDirectory,
+				"*" + IMAGE_EXTENSION);
+		
+		try {
+			for(Path image : stream){
+				images.add(image);
+			}
+		}
+		finally {
+			stream.close();
+		}
+		
+		Collections.sort(images);
+		return images;
+	}
+	
+	/**
+	 * @return name of the texture decoded from <code>image</code>: its file name
+	 * without extension.
+	 */
+	public static String getTextureName(Path image){
+		String fileName = image.getFileName().toString();
+		return fileName.substring(0, fileName.length() - IMAGE_EXTENSION.length());
+	}
+	
+	/**
+	 * @return true if <code>pack</code> does not exist, or is older than any image
+	 * in <code>textureDirectory</code> or the directory itself, which changes when
+	 * images are added or removed.
+	 * @throws IOException if the directory can not be listed.
+	 */
+	public static boolean isStale(Path textureDirectory, Path pack) throws IOException {
+		if (!Files.exists(pack)) return true;
+		
+		FileTime built = Files.getLastModifiedTime(pack);
+		if (Files.getLastModifiedTime(textureDirectory).compareTo(built) > 0){
+			return true;
+		}
+		
+		for(Path image : listImages(textureDirectory)){
+			if (Files.getLastModifiedTime(image).compareTo(built) > 0) return true;
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * Builds <code>pack</code> if it is stale.  See
+	 * {@link #isStale(Path, Path)}.
+	 * @return true if the pack was built.
+	 * @throws IOException if an image can not be decoded or the pack written.
+	 */
+	public static boolean buildIfStale(Path textureDirectory, Path pack)
+			throws IOException {
+		if (!isStale(textureDirectory, pack)) return false;
+		
+		build(textureDirectory, pack);
+		return true;
+	}
+	
+	/**
+	 * Decodes every PNG image of <code>textureDirectory</code> and writes them into
+	 * <code>pack</code>, replacing it.
+	 * @return number of textures packed.
+	 * @throws IOException if an image can not be decoded or the pack written.
+	 */
+	public static int build(Path textureDirectory, Path pack) throws IOException {
+		List<Path> images = listImages(textureDirectory);
+		int count = images.size();
+		
+		String[] names = new String[count];
+		int[] widths = new int[count];
+		int[] heights = new int[count];
+		
+		// Read image sizes first, since the index precedes the texel data.
+		for(int i = 0; i < count; i++){
+			names[i] = getTextureName(images.get(i));
+			
+			InputStream in = Files.newInputStream(images.get(i));
+			try {
+				PNGDecoder decoder = new PNGDecoder(in);
+				widths[i] = decoder.getWidth();
+				heights[i] = decoder.getHeight();
+			}
+			finally {
+				in.close();
+			}
+		}
+		
+		long[] offsets = new long[count + 1];
+		ByteBuffer header = createHeader(names, widths, heights, offsets);
+		long offset = offsets[count];
+		
+		Path parent = pack.toAbsolutePath().getParent();
+		Path temporary = Files.createTempFile(parent, "pack", ".tmp");
+		boolean moved = false;
+		
+		// PNGDecoder also throws unchecked exceptions, so clean up on any failure.
+		try {
+			FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE);
+			try {
+				writeFully(channel, header, 0);
+				
+				for(int i = 0; i < count; i++){
+					writeFully(channel, decode(images.get(i), widths[i], heights[i]),
+							offsets[i]);
+				}
+				
+				// Pad the last texture out to the alignment.
+				if (channel.size() < offset){
+					writeFully(channel, ByteBuffer.allocate((int)(offset -
+							channel.size())), channel.size());
+				}
+			}
+			finally {
+				channel.close();
+			}
+			
+			Files.move(temporary, pack, StandardCopyOption.REPLACE_EXISTING);
+			moved = true;
+		}
+		finally {
+			if (!moved) Files.deleteIfExists(temporary);
+		}
+		
+		return count;
+	}
+	
+	/**
+	 * Packs textures already held in memory into an AssetPack backed by a direct
+	 * buffer, without reading or writing any file, for drawing without the default
+	 * pack.  Its texels are direct buffers like those of a mapped pack, as the
+	 * OpenGL texture uploads require.
+	 * @param names - name of each texture.
+	 * @param widths - width of each texture, in texels.
+	 * @param heights - height of each texture, in texels.
+	 * @param texels - tightly packed RGBA rows of each texture, from position to
+	 * limit.
+	 * @throws InvalidParameterException if the texels of a texture do not match its
+	 * size.
+	 */
+	public static AssetPack build(String[] names, int[] widths, int[] heights,
+			ByteBuffer[] texels) throws InvalidParameterException {
+		int count = names.length;
+		long[] offsets = new long[count + 1];
+		ByteBuffer header = createHeader(names, widths, heights, offsets);
+		
+		ByteBuffer data = ByteBuffer.allocateDirect((int)offsets[count]);
+		data.put(header);
+		for(int i = 0; i < count; i++){
+			if (texels[i].remaining() != widths[i] * heights[i] *
+					AssetPack.BYTES_PER_TEXEL){
+				throw new InvalidParameterException("Texels of texture " + names[i] +
+						" do not match its size.\n");
+			}
+			
+			data.position((int)offsets[i]);
+			data.put(texels[i].duplicate());
+		}
+		data.clear();
+		
+		try {
+			return new AssetPack(data);
+		}
+		catch (IOException e){
+			// The pack was written just above, so it is always readable.
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	/**
+	 * Writes the header and index of a pack of textures of the given sizes, and
+	 * fills <code>offsets</code> with the offset of each texture's texels, followed
+	 * by the size of the whole pack.
+	 * @return header and index, ready to be written.
+	 */
+	private static ByteBuffer createHeader(String[] names, int[] widths, int[] heights,
+			long[] offsets){
+		int count = names.length;
+		byte[][] nameBytes = new byte[count][];
+		int indexBytes = 0;
+		
+		for(int i = 0; i < count; i++){
+			nameBytes[i] = names[i].getBytes(StandardCharsets.UTF_8);
+			indexBytes += 2 + nameBytes[i].length + 4 + 4 + 8;
+		}
+		
+		ByteBuffer header = ByteBuffer.allocate(AssetPack.HEADER_BYTES + indexBytes);
+		header.putInt(AssetPack.MAGIC);
+		header.putShort(AssetPack.VERSION);
+		header.putShort((short)0);
+		header.putInt(count);
+		header.putInt(indexBytes);
+		
+		long offset = align(header.capacity());
+		for(int i = 0; i < count; i++){
+			offsets[i] = offset;
+			
+			header.putShort((short)nameBytes[i].length);
+			header.put(nameBytes[i]);
+			header.putInt(widths[i]);
+			header.putInt(heights[i]);
+			header.putLong(offset);
+			
+			offset = align(offset + (long)widths[i] * heights[i] *
+					AssetPack.BYTES_PER_TEXEL);
+		}
+		offsets[count] = offset;
+		header.flip();
+		
+		return header;
+	}
+	
+	private static long align(long offset){
+		return (offset + AssetPack.DATA_ALIGNMENT - 1) & -AssetPack.DATA_ALIGNMENT;
+	}
+	
+	/**
+	 * @return texels of <code>image</code>, as tightly packed RGBA rows.
+	 */
+	private static ByteBuffer decode(Path image, int width, int height)
+			throws IOException {
+		ByteBuffer texels = ByteBuffer.allocateDirect(width * height *
+				AssetPack.BYTES_PER_TEXEL);
+		
+		InputStream in = Files.newInputStream(image);
+		try {
+			new PNGDecoder(in).decode(texels, width * AssetPack.BYTES_PER_TEXEL,
+					Format.RGBA);
+		}
+		finally {
+			in.close();
+		}
+		texels.flip();
+		
+		return texels;
+	}
+	
+	private static void writeFully(FileChannel channel, ByteBuffer buffer, long position)
+			throws IOException {
+		while (buffer.hasRemaining()){
+			position += channel.write(buffer, position);
+		}
+	}
+}
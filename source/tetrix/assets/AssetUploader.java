@@ -0,0 +1,33 @@
+package tetrix.assets;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Destination of the assets decoded by an {@link AssetLoader}, called only on the
+ * thread that calls {@link AssetLoader#update(AssetUploader, int, long)}.
+ * {@link GLAssetUploader} creates OpenGL textures and shaders; other
+ * implementations let the loader run without an OpenGL context.
+ *
+ * <p>
+ * The buffers passed in are returned to the loader's pool once a call returns, so
+ * they must not be kept.
+ *
+ * @author Dustin Biser
+ *
+ */
+public interface AssetUploader {
+	
+	/**
+	 * @param asset - texture being uploaded.
+	 * @param texels - tightly packed RGBA texels, rows from top to bottom.
+	 * @return handle of the uploaded texture.
+	 */
+	public int uploadTexture(Asset asset, ByteBuffer texels);
+	
+	/**
+	 * @param asset - shader being uploaded, of type {@link Asset#getShaderType()}.
+	 * @param source - shader source, in UTF-8.
+	 * @return handle of the uploaded shader.
+	 */
+	public int uploadShader(Asset asset, ByteBuffer source);
+}
@@ -0,0 +1,56 @@
+package tetrix.assets;
+
+import java.nio.ByteBuffer;
+
+import org.lwjgl.opengl.GL11;
+
+import tetrix.rendering.LwjglRenderBackend;
+import tetrix.rendering.RenderBackend;
+import tetrix.utilities.ShaderUtils;
+import tetrix.utilities.TextureUtils;
+
+/**
+ * AssetUploader that creates an OpenGL texture or shader for each asset through a
+ * {@link RenderBackend}.  Must be used on the thread owning the OpenGL context.
+ *
+ * @author Dustin Biser
+ *
+ */
+public class GLAssetUploader implements AssetUploader {
+	private final RenderBackend backend;
+	private final int textureUnit;
+	
+	/**
+	 * Constructs a GLAssetUploader that uploads through LWJGL.
+	 * @param textureUnit - texture unit textures are bound to while uploaded, such
+	 * as GL_TEXTURE0.
+	 */
+	public GLAssetUploader(int textureUnit){
+		this(LwjglRenderBackend.INSTANCE, textureUnit);
+	}
+	
+	/**
+	 * @param backend - RenderBackend to upload through.
+	 * @param textureUnit - texture unit textures are bound to while uploaded, such
+	 * as GL_TEXTURE0.
+	 */
+	public GLAssetUploader(RenderBackend backend, int textureUnit){
+		this.backend = backend;
+		this.textureUnit = textureUnit;
+	}
+	
+	@Override
+	public int uploadTexture(Asset asset, ByteBuffer texels) {
+		int texId = TextureUtils.loadTexture(backend, texels, asset.getWidth(),
+				asset.getHeight(), textureUnit);
+		backend.bindTexture(GL11.GL_TEXTURE_2D, 0);
+		
+		return texId;
+	}
+	
+	@Override
+	public int uploadShader(Asset asset, ByteBuffer source) {
+		return ShaderUtils.compileShader(backend, source, asset.getShaderType(),
+				asset.getName());
+	}
+}
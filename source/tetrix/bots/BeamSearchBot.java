@@ -0,0 +1,598 @@
+package tetrix.bots;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import tetrix.entities.Playfield;
+import tetrix.entities.rotations.RotationSystem;
+import tetrix.entities.rotations.SuperRotationSystem;
+import tetrix.entities.shapes.PackedShape;
+import tetrix.entities.shapes.ShapeType;
+
+/**
+ * Bot that chooses where to place the active Shape with a beam search over the
+ * placements of the active Shape and the Shapes in the preview queue.
+ *
+ * <p>
+ * The search starts from a beam holding only the current Playfield.  At each depth,
+ * every Playfield in the beam is expanded by locking each placement found by a
+ * {@link MoveGenerator} for the next Shape, the resulting Playfields are scored by
+ * a {@link BoardEvaluator}, and the <code>beamWidth</code> best of them form the
+ * next beam.  The best placement is the first placement on the path to the best
+ * Playfield of the deepest fully expanded beam.
+ *
+ * <p>
+ * Beam nodes are expanded in parallel on a {@link ForkJoinPool}.  Expanding only
+ * scores candidate placements on a per-thread scratch Playfield; Playfields are
+ * copied only for the candidates kept in the next beam.  The search stops early,
+ * keeping the result of the last completed depth, once its time budget runs out.
+ * The number of candidate placements scored during the last search and the rate
+ * at which they were scored are available to size hardware.
+ *
+ * <p>
+ * Every node and candidate carries the {@link ZobristHash} of its Playfield,
+ * updated incrementally as placements are locked.  Playfield scores are cached in
+ * a {@link TranspositionTable} shared by the expanding threads, so a Playfield
+ * reached by several orders of placements is only evaluated once, and only the
+ * best candidate reaching each Playfield is kept in the next beam.  Scores are
+ * cached as floats, and are always rounded to float, so results do not depend on
+ * which thread evaluated a Playfield first.
+ *
+ * <p>
+ * A BeamSearchBot runs one search at a time, and is not safe to use from several
+ * threads at once.
+ *
+ * @author Dustin Biser
+ *
+ */
+public class BeamSearchBot {
+	public static final int DEFAULT_BEAM_WIDTH = 64;
+
+	// Base 2 logarithm of the number of buckets of the default TranspositionTable,
+	// which uses 4MB.
+	public static final int DEFAULT_TABLE_LOG2_BUCKETS = 16;
+
+	private final int beamWidth;
+	private final EvaluationWeights weights;
+	private final RotationSystem rotationSystem;
+	private final ForkJoinPool pool;
+	private final TranspositionTable table;
+
+	// Keys of the Playfield size currently searched.
+	private ZobristHash zobrist = new ZobristHash();
+
+	// Per thread MoveGenerator, BoardEvaluator and scratch storage.
+	private final ThreadLocal<Expander> expanders;
+
+	// Current and next beams, each holding up to beamWidth nodes.
+	private Beam beam;
+	private Beam nextBeam;
+
+	// Candidate placements of each node of the current beam.
+	private final CandidateList[] candidates;
+
+	// Indices of the candidates selected for the next beam, as node << 32 | index.
+	private final long[] selected;
+
+	// Open addressing set from candidate hashes to the key of the best candidate
+	// with that hash, used to drop candidates that reach the same Playfield.
+	private long[] dedupeHashes = new long[0];
+	private long[] dedupeKeys = new long[0];
+
+	// Statistics of the last search.
+	private long nodes;
+	private long tableHits;
+	private long elapsedNanos;
+	private int depthReached;
+
+	/**
+	 * Constructs a BeamSearchBot with the default beam width, evaluation weights
+	 * and the SuperRotationSystem, expanding nodes on the common ForkJoinPool.
+	 */
+	public BeamSearchBot(){
+		this(DEFAULT_BEAM_WIDTH, EvaluationWeights.DEFAULT, new SuperRotationSystem(),
+				ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * @param beamWidth - number of Playfields kept at each depth of the search.
+	 * @param weights - weights used to score Playfields.
+	 * @param rotationSystem - RotationSystem used to rotate and kick Shapes.
+	 * @param pool - ForkJoinPool that beam nodes are expanded on.
+	 */
+	public BeamSearchBot(int beamWidth, EvaluationWeights weights,
+			RotationSystem rotationSystem, ForkJoinPool pool){
+		this(beamWidth, weights, rotationSystem, pool,
+				new TranspositionTable(DEFAULT_TABLE_LOG2_BUCKETS));
+	}
+
+	/**
+	 * @param beamWidth - number of Playfields kept at each depth of the search.
+	 * @param weights - weights used to score Playfields.
+	 * @param rotationSystem - RotationSystem used to rotate and kick Shapes.
+	 * @param pool - ForkJoinPool that beam nodes are expanded on.
+	 * @param table - TranspositionTable that Playfield scores are cached in.  It can
+	 * be shared by BeamSearchBots with equal weights.
+	 */
+	public BeamSearchBot(int beamWidth, EvaluationWeights weights,
+			RotationSystem rotationSystem, ForkJoinPool pool, TranspositionTable table){
+		this.beamWidth = Math.max(1, beamWidth);
+		this.weights = weights;
+		this.rotationSystem = rotationSystem;
+		this.pool = pool;
+		this.table = table;
+
+		this.expanders = new ThreadLocal<Expander>() {
+			@Override
+			protected Expander initialValue(){
+				return new Expander(rotationSystem, weights);
+			}
+		};
+
+		this.candidates = new CandidateList[this.beamWidth];
+		for(int i = 0; i < this.beamWidth; i++){
+			candidates[i] = new CandidateList();
+		}
+		this.selected = new long[this.beamWidth];
+	}
+
+	/**
+	 * Searches for the best placement of <code>activeShape</code>.
+	 * @param playfield - current Playfield.  It is not modified.
+	 * @param activeShape - the active Shape, as a packed Shape at its current position.
+	 * @param preview - ShapeTypes that follow the active Shape, in order.
+	 * @param timeBudgetNanos - time after which the search stops deepening.  The
+	 * placements of the active Shape are always fully searched.
+	 * @return the best placement of the active Shape as a packed Shape, or
+	 * {@link PackedShape#INVALID} if the active Shape has no placements.
+	 */
+	public long findBestPlacement(Playfield playfield, long activeShape,
+			ShapeType[] preview, long timeBudgetNanos){
+		long start = System.nanoTime();
+		long deadline = start + Math.min(timeBudgetNanos, Long.MAX_VALUE / 2);
+
+		prepareBeams(playfield);
+		beam.size = 1;
+		beam.playfields[0].copyFrom(playfield);
+		beam.firstPlacements[0] = PackedShape.INVALID;
+		beam.linesCleared[0] = 0;
+		beam.hashes[0] = zobrist.hash(playfield);
+
+		nodes = 0;
+		long hitsBefore = table.getHits();
+		depthReached = 0;
+
+		for(int depth = 0; depth <= preview.length; depth++){
+			long spawn = depth == 0 ? activeShape : PackedShape.spawn(preview[depth - 1]);
+
+			// The first depth ignores the deadline, so there is always a result.
+			ExpandTask task = new ExpandTask(spawn, 0, beam.size,
+					depth == 0 ? Long.MAX_VALUE : deadline);
+			pool.invoke(task);
+
+			nodes += task.nodes;
+			if (task.timedOut) break;
+
+			int numSelected = selectBest();
+			if (numSelected == 0) break;
+
+			fillNextBeam(numSelected, depth == 0);
+
+			Beam swap = beam;
+			beam = nextBeam;
+			nextBeam = swap;
+			depthReached = depth + 1;
+
+			if (System.nanoTime() - deadline > 0) break;
+		}
+
+		elapsedNanos = System.nanoTime() - start;
+		tableHits = table.getHits() - hitsBefore;
+
+		// The beam is sorted best first.
+		return depthReached == 0 ? PackedShape.INVALID : beam.firstPlacements[0];
+	}
+
+	private void prepareBeams(Playfield playfield){
+		if (!zobrist.fits(playfield)){
+			zobrist = new ZobristHash(playfield.getColumns(), playfield.getRows(),
+					ZobristHash.DEFAULT_MAX_QUEUE_LENGTH, ZobristHash.DEFAULT_SEED);
+		}
+
+		if (beam == null || beam.playfields[0].getColumns() != playfield.getColumns() ||
+				beam.playfields[0].getRows() != playfield.getRows()){
+			beam = new Beam(beamWidth, playfield);
+			nextBeam = new Beam(beamWidth, playfield);
+		}
+	}
+
+	/**
+	 * Selects the best candidates over all nodes of the beam into
+	 * <code>selected</code>, best first.  Ties are broken in favour of the
+	 * candidate found first, so results do not depend on how nodes were split
+	 * between threads.  Of the candidates reaching the same Playfield, only the best
+	 * is selected.
+	 * @return number of candidates selected.
+	 */
+	private int selectBest(){
+		int mask = prepareDedupe();
+
+		// Keep the best candidate of each hash.
+		for(int node = 0; node < beam.size; node++){
+			CandidateList list = candidates[node];
+
+			for(int i = 0; i < list.size; i++){
+				long key = ((long)node << 32) | i;
+				int slot = findDedupeSlot(list.hashes[i], mask);
+
+				if (dedupeKeys[slot] == -1 || isBetter(key, dedupeKeys[slot])){
+					dedupeHashes[slot] = list.hashes[i];
+					dedupeKeys[slot] = key;
+				}
+			}
+		}
+
+		// Min-heap of the best candidates found so far, worst at the root.
+		int heapSize = 0;
+
+		for(int node = 0; node < beam.size; node++){
+			CandidateList list = candidates[node];
+
+			for(int i = 0; i < list.size; i++){
+				long key = ((long)node << 32) | i;
+				if (dedupeKeys[findDedupeSlot(list.hashes[i], mask)] != key) continue;
+
+				if (heapSize < beamWidth){
+					selected[heapSize] = key;
+					siftUp(heapSize++);
+				}
+				else if (isBetter(key, selected[0])){
+					selected[0] = key;
+					siftDown(0, heapSize);
+				}
+			}
+		}
+
+		// Heap sort, leaving the best candidate first.
+		for(int end = heapSize - 1; end > 0; end--){
+			long root = selected[0];
+			selected[0] = selected[end];
+			selected[end] = root;
+			siftDown(0, end);
+		}
+
+		return heapSize;
+	}
+
+	/**
+	 * Sizes the dedupe set to at most half full for the current candidates, and
+	 * clears it.
+	 * @return mask of the dedupe set indices.
+	 */
+	private int prepareDedupe(){
+		int numCandidates = 0;
+		for(int node = 0; node < beam.size; node++){
+			numCandidates += candidates[node].size;
+		}
+
+		int capacity = Integer.highestOneBit(Math.max(1, numCandidates)) << 2;
+		if (dedupeKeys.length < capacity){
+			dedupeHashes = new long[capacity];
+			dedupeKeys = new long[capacity];
+		}
+
+		Arrays.fill(dedupeKeys, -1L);
+		return dedupeKeys.length - 1;
+	}
+
+	/**
+	 * @return index of the dedupe set slot holding <code>hash</code>, or of the
+	 * empty slot it would be added to.
+	 */
+	private int findDedupeSlot(long hash, int mask){
+		int slot = (int)(hash ^ (hash >>> 32)) & mask;
+
+		while (dedupeKeys[slot] != -1 && dedupeHashes[slot] != hash){
+			slot = (slot + 1) & mask;
+		}
+
+		return slot;
+	}
+
+	private double getScore(long key){
+		return candidates[(int)(key >>> 32)].scores[(int)key];
+	}
+
+	private boolean isBetter(long key, long otherKey){
+		double score = getScore(key);
+		double otherScore = getScore(otherKey);
+
+		if (score != otherScore) return score > otherScore;
+
+		return key < otherKey;
+	}
+
+	private void siftUp(int index){
+		long key = selected[index];
+
+		while (index > 0){
+			int parent = (index - 1) >>> 1;
+			if (!isBetter(selected[parent], key)) break;
+
+			selected[index] = selected[parent];
+			index = parent;
+		}
+
+		selected[index] = key;
+	}
+
+	private void siftDown(int index, int heapSize){
+		long key = selected[index];
+
+		while (true){
+			int child = 2 * index + 1;
+			if (child >= heapSize) break;
+
+			if (child + 1 < heapSize && isBetter(selected[child], selected[child + 1])){
+				child++;
+			}
+			if (!isBetter(key, selected[child])) break;
+
+			selected[index] = selected[child];
+			index = child;
+		}
+
+		selected[index] = key;
+	}
+
+	/**
+	 * Copies the Playfields of the selected candidates into the next beam, with
+	 * their placements locked and full rows cleared.
+	 */
+	private void fillNextBeam(int numSelected, boolean firstDepth){
+		for(int i = 0; i < numSelected; i++){
+			int node = (int)(selected[i] >>> 32);
+			int index = (int)selected[i];
+			long placement = candidates[node].placements[index];
+
+			Playfield next = nextBeam.playfields[i];
+			next.copyFrom(beam.playfields[node]);
+			next.lock(placement);
+
+			nextBeam.linesCleared[i] = beam.linesCleared[node] + next.clearFullRows();
+			nextBeam.hashes[i] = candidates[node].hashes[index];
+			nextBeam.firstPlacements[i] = firstDepth ? placement :
+				beam.firstPlacements[node];
+		}
+
+		nextBeam.size = numSelected;
+	}
+
+	/**
+	 * @return number of candidate placements scored during the last search.
+	 */
+	public long getNodes(){
+		return nodes;
+	}
+
+	/**
+	 * @return number of candidate Playfields whose score was found in the
+	 * TranspositionTable during the last search, rather than evaluated.
+	 */
+	public long getTableHits(){
+		return tableHits;
+	}
+
+	public TranspositionTable getTranspositionTable(){
+		return table;
+	}
+
+	/**
+	 * @return duration of the last search in nanoseconds.
+	 */
+	public long getElapsedNanos(){
+		return elapsedNanos;
+	}
+
+	/**
+	 * @return candidate placements scored per second during the last search.
+	 */
+	public double getNodesPerSecond(){
+		return elapsedNanos == 0 ? 0 : nodes / (elapsedNanos * 1e-9);
+	}
+
+	/**
+	 * @return number of Shapes, starting with the active Shape, whose placements
+	 * were fully searched during the last search.
+	 */
+	public int getDepthReached(){
+		return depthReached;
+	}
+
+	public int getBeamWidth(){
+		return beamWidth;
+	}
+
+	/**
+	 * Nodes of one depth of the search, stored in parallel arrays.
+	 */
+	private static class Beam {
+		final Playfield[] playfields;
+		final long[] firstPlacements;
+		final int[] linesCleared;
+		final long[] hashes;
+		int size;
+
+		Beam(int beamWidth, Playfield playfield){
+			playfields = new Playfield[beamWidth];
+			for(int i = 0; i < beamWidth; i++){
+				playfields[i] = new Playfield(playfield);
+			}
+			firstPlacements = new long[beamWidth];
+			linesCleared = new int[beamWidth];
+			hashes = new long[beamWidth];
+		}
+	}
+
+	/**
+	 * Reusable list of scored candidate placements of one beam node.
+	 */
+	private static class CandidateList {
+		long[] placements = new long[64];
+		double[] scores = new double[64];
+		long[] hashes = new long[64];
+		int size;
+
+		void add(long placement, double score, long hash){
+			if (size == placements.length){
+				placements = Arrays.copyOf(placements, 2 * size);
+				scores = Arrays.copyOf(scores, 2 * size);
+				hashes = Arrays.copyOf(hashes, 2 * size);
+			}
+
+			placements[size] = placement;
+			scores[size] = score;
+			hashes[size] = hash;
+			size++;
+		}
+	}
+
+	/**
+	 * Per thread state used to expand beam nodes without allocating.  It is static,
+	 * and is handed the beam, its candidates and the shared tables for each node, so
+	 * the Expanders left in the thread locals of pool threads do not keep a
+	 * BeamSearchBot and its TranspositionTable reachable.
+	 */
+	private static class Expander {
+		final EvaluationWeights weights;
+		final MoveGenerator moveGenerator;
+		final BoardEvaluator evaluator;
+		final PlacementList placements = new PlacementList();
+		Playfield scratch;
+
+		Expander(RotationSystem rotationSystem, EvaluationWeights weights){
+			this.weights = weights;
+			moveGenerator = new MoveGenerator(rotationSystem);
+			evaluator = new BoardEvaluator(weights);
+		}
+
+		/**
+		 * Scores every placement of <code>spawn</code> on the Playfield of the given
+		 * beam node into <code>list</code>.
+		 * @return number of placements scored.
+		 */
+		int expand(Beam beam, int node, long spawn, CandidateList list,
+				ZobristHash zobrist, TranspositionTable table){
+			Playfield playfield = beam.playfields[node];
+			if (scratch == null || scratch.getColumns() != playfield.getColumns() ||
+					scratch.getRows() != playfield.getRows()){
+				scratch = new Playfield(playfield);
+			}
+
+			list.size = 0;
+
+			long hash = beam.hashes[node];
+			double lineScore = weights.getLinesCleared();
+
+			int numPlacements = moveGenerator.generate(playfield, spawn, placements);
+			for(int i = 0; i < numPlacements; i++){
+				long placement = placements.get(i);
+
+				scratch.copyFrom(playfield);
+				scratch.lock(placement);
+				int lines = beam.linesCleared[node] + countFullRows(placement);
+				long nextHash = zobrist.clearFullRows(scratch,
+						zobrist.toggleCells(hash, placement), placement);
+
+				list.add(placement, getBoardScore(table, nextHash) + lineScore * lines,
+						nextHash);
+			}
+
+			return numPlacements;
+		}
+
+		/**
+		 * @return number of full rows of the scratch Playfield that
+		 * <code>placement</code> has Blocks in.
+		 */
+		private int countFullRows(long placement){
+			int counted = 0;
+			int lines = 0;
+
+			for(int i = 0; i < 4; i++){
+				int row = PackedShape.getBlockRow(placement, i);
+				int rowBit = 1 << (row & 31);
+
+				if ((counted & rowBit) == 0 && scratch.isRowFull(row)){
+					counted |= rowBit;
+					lines++;
+				}
+			}
+
+			return lines;
+		}
+
+		/**
+		 * Returns the score of the scratch Playfield, without cleared lines, from the
+		 * TranspositionTable, evaluating and storing it on a miss.
+		 */
+		private float getBoardScore(TranspositionTable table, long hash){
+			long data = table.probe(hash);
+			if (data != TranspositionTable.NOT_FOUND){
+				return Float.intBitsToFloat((int)TranspositionTable.getValue(data));
+			}
+
+			float score = (float)evaluator.evaluate(scratch, 0);
+			table.store(hash, 0, Float.floatToRawIntBits(score) & 0xFFFFFFFFL);
+
+			return score;
+		}
+	}
+
+	/**
+	 * Expands the beam nodes in the range [from, to), splitting the range in half
+	 * until one node is left.
+	 */
+	private class ExpandTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final long spawn;
+		private final int from;
+		private final int to;
+		private final long deadline;
+
+		long nodes;
+		boolean timedOut;
+
+		ExpandTask(long spawn, int from, int to, long deadline){
+			this.spawn = spawn;
+			this.from = from;
+			this.to = to;
+			this.deadline = deadline;
+		}
+
+		@Override
+		protected void compute(){
+			if (to - from <= 1){
+				if (from < to){
+					if (deadline != Long.MAX_VALUE && System.nanoTime() - deadline > 0){
+						timedOut = true;
+						return;
+					}
+					nodes = expanders.get().expand(beam, from, spawn, candidates[from],
+							zobrist, table);
+				}
+				return;
+			}
+
+			int middle = (from + to) >>> 1;
+			ExpandTask left = new ExpandTask(spawn, from, middle, deadline);
+			ExpandTask right = new ExpandTask(spawn, middle, to, deadline);
+			invokeAll(left, right);
+
+			nodes = left.nodes + right.nodes;
+			timedOut = left.timedOut || right.timedOut;
+		}
+	}
+}
@@ -0,0 +1,138 @@
+package tetrix.bots;
+
+import tetrix.entities.Playfield;
+
+/**
+ * Scores a {@link Playfield} with a weighted sum of features: aggregate height,
+ * cleared lines, holes, bumpiness and wells.  Features are computed from the row
+ * bitmasks of the Playfield in a single pass over its rows.
+ *
+ * <p>
+ * A BoardEvaluator keeps scratch storage for column heights, so it is not safe to
+ * share one BoardEvaluator between threads.
+ * @author Dustin Biser
+ *
+ */
+public class BoardEvaluator {
+	private final EvaluationWeights weights;
+	private int[] columnHeights = new int[Playfield.DEFAULT_COLUMNS];
+	
+	public BoardEvaluator(){
+		this(EvaluationWeights.DEFAULT);
+	}
+	
+	public BoardEvaluator(EvaluationWeights weights){
+		this.weights = weights;
+	}
+	
+	public EvaluationWeights getWeights(){
+		return weights;
+	}
+	
+	/**
+	 * Returns the score of <code>playfield</code>, where a higher score is better.
+	 * @param playfield - Playfield to score.
+	 * @param linesCleared - number of rows cleared while reaching this Playfield.
+	 * @return weighted sum of the features of <code>playfield</code>.
+	 */
+	public double evaluate(Playfield playfield, int linesCleared){
+		int columns = playfield.getColumns();
+		int holes = computeColumnHeights(playfield);
+		
+		int aggregateHeight = 0;
+		int bumpiness = 0;
+		int wells = 0;
+		
+		for(int column = 0; column < columns; column++){
+			int height = columnHeights[column];
+			aggregateHeight += height;
+			
+			if (column > 0){
+				bumpiness += Math.abs(height - columnHeights[column - 1]);
+			}
+			
+			wells += getWellDepth(column, columns);
+		}
+		
+		return weights.getAggregateHeight() * aggregateHeight +
+				weights.getLinesCleared() * linesCleared +
+				weights.getHoles() * holes +
+				weights.getBumpiness() * bumpiness +
+				weights.getWells() * wells;
+	}
+	
+	/**
+	 * Returns how far the given column is below the lower of its neighbours, where
+	 * a wall counts as a neighbour higher than any column.
+	 */
+	private int getWellDepth(int column, int columns){
+		if (columns < 2) return 0;
+		
+		int height = columnHeights[column];
+		int neighbourHeight;
+		if (column == 0){
+			neighbourHeight = columnHeights[1];
+		}
+		else if (column == columns - 1){
+			neighbourHeight = columnHeights[column - 1];
+		}
+		else {
+			neighbourHeight = Math.min(columnHeights[column - 1],
+					columnHeights[column + 1]);
+		}
+		
+		return Math.max(0, neighbourHeight - height);
+	}
+	
+	/**
+	 * @return number of holes in <code>playfield</code>, the empty cells that have
+	 * an occupied cell somewhere above them in the same column.
+	 */
+	public int countHoles(Playfield playfield){
+		return computeColumnHeights(playfield);
+	}
+	
+	/**
+	 * @return height of the given column of the Playfield last passed to
+	 * {@link #evaluate(Playfield, int)} or {@link #countHoles(Playfield)}.
+	 */
+	public int getColumnHeight(int column){
+		return columnHeights[column];
+	}
+	
+	/**
+	 * Fills columnHeights for <code>playfield</code>, scanning rows from the top
+	 * down.
+	 * @return number of holes.
+	 */
+	private int computeColumnHeights(Playfield playfield){
+		int columns = playfield.getColumns();
+		if (columnHeights.length < columns){
+			columnHeights = new int[columns];
+		}
+		for(int column = 0; column < columns; column++){
+			columnHeights[column] = 0;
+		}
+		
+		// Columns with an occupied cell at or above the current row.
+		int covered = 0;
+		int holes = 0;
+		
+		for(int row = playfield.getRows() - 1; row >= 0; row--){
+			int rowMask = playfield.getRowMask(row);
+			
+			// Columns whose highest occupied cell is in this row.
+			int tops = rowMask & ~covered;
+			while (tops != 0){
+				int column = Integer.numberOfTrailingZeros(tops);
+				columnHeights[column] = row + 1;
+				tops &= tops - 1;
+			}
+			
+			covered |= rowMask;
+			holes += Integer.bitCount(covered & ~rowMask);
+		}
+		
+		return holes;
+	}
+}
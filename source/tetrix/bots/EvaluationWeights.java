@@ -0,0 +1,62 @@
+package tetrix.bots;
+
+/**
+ * Weights of the features a {@link BoardEvaluator} combines into the score of a
+ * Playfield.  Features that make a Playfield worse, such as holes, should have
+ * negative weights, and features that make it better, such as cleared lines,
+ * should have positive weights.
+ * @author Dustin Biser
+ *
+ */
+public final class EvaluationWeights {
+	/**
+	 * Weights tuned by genetic search for clearing as many lines as possible
+	 * without a preview, taken from Yiyuan Lee's near perfect Tetris bot, with a
+	 * small penalty for wells added.
+	 */
+	public static final EvaluationWeights DEFAULT =
+			new EvaluationWeights(-0.510066, 0.760666, -0.35663, -0.184483, -0.1);
+	
+	private final double aggregateHeight;
+	private final double linesCleared;
+	private final double holes;
+	private final double bumpiness;
+	private final double wells;
+	
+	/**
+	 * @param aggregateHeight - weight of the sum of all column heights.
+	 * @param linesCleared - weight of the number of rows cleared.
+	 * @param holes - weight of the number of empty cells below the top of their column.
+	 * @param bumpiness - weight of the sum of height differences of adjacent columns.
+	 * @param wells - weight of the sum of well depths, where a well is a column
+	 * lower than both of its neighbours.
+	 */
+	public EvaluationWeights(double aggregateHeight, double linesCleared, double holes,
+			double bumpiness, double wells){
+		this.aggregateHeight = aggregateHeight;
+		this.linesCleared = linesCleared;
+		this.holes = holes;
+		this.bumpiness = bumpiness;
+		this.wells = wells;
+	}
+	
+	public double getAggregateHeight(){
+		return aggregateHeight;
+	}
+	
+	public double getLinesCleared(){
+		return linesCleared;
+	}
+	
+	public double getHoles(){
+		return holes;
+	}
+	
+	public double getBumpiness(){
+		return bumpiness;
+	}
+	
+	public double getWells(){
+		return wells;
+	}
+}
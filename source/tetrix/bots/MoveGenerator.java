@@ -0,0 +1,300 @@
+package tetrix.bots;
+
+import java.util.Arrays;
+
+import tetrix.entities.Direction;
+import tetrix.entities.Playfield;
+import tetrix.entities.rotations.RotationState;
+import tetrix.entities.rotations.RotationSystem;
+import tetrix.entities.rotations.SuperRotationSystem;
+import tetrix.entities.shapes.PackedShape;
+import tetrix.entities.shapes.ShapeType;
+
+/**
+ * Enumerates every distinct final resting placement a Shape can reach on a
+ * {@link Playfield}, starting from its current position.
+ *
+ * <p>
+ * Placements are found with a breadth first search over (column, row,
+ * RotationState) states of the packed Shape, where each state can move left, move
+ * right, soft drop one row, or rotate left or right with wall kicks.  This finds
+ * every placement that can be reached by tucking the Shape under overhangs or
+ * spinning it into place, not just those reached by a hard drop.  A state is a
+ * final placement when it can not move down any further.
+ *
+ * <p>
+ * Visited states and found placements are tracked in bitsets, and the search
+ * queue is a preallocated array, so {@link #generate(Playfield, long, PlacementList)}
+ * allocates nothing once a MoveGenerator has been used with a Playfield of a given
+ * size.  Placements that cover the same cells are only reported once, which
+ * removes the duplicates created by the symmetry of the O, I, S and Z Shapes.
+ *
+ * @author Dustin Biser
+ *
+ */
+public class MoveGenerator {
+	// Furthest a Block can be from its packed Shape's origin, in columns or rows.
+	private static final int ORIGIN_MARGIN = 8;
+
+	// Rows a rotation can reach below the lowest Block of a Shape, counting both the
+	// rotated Blocks and the downward wall kicks.
+	private static final int ROTATION_REACH = 4;
+
+	private static final int NUM_ROTATION_STATES = RotationState.values().length;
+
+	private final RotationSystem rotationSystem;
+
+	// Smallest RotationState ordinal whose Blocks cover the same cells, up to
+	// translation, indexed by ShapeType ordinal * 4 + RotationState ordinal.
+	private final int[] canonicalRotations;
+
+	// Playfield dimensions the search buffers are currently sized for.
+	private int columns;
+	private int rows;
+
+	// Number of origin columns and rows a packed Shape on the Playfield can have.
+	private int originColumns;
+	private int originRows;
+
+	private long[] visited;
+	private long[] placed;
+	private long[] queue;
+
+	/**
+	 * Constructs a MoveGenerator that rotates Shapes with the SuperRotationSystem.
+	 */
+	public MoveGenerator(){
+		this(new SuperRotationSystem());
+	}
+
+	/**
+	 * @param rotationSystem - RotationSystem used to rotate and kick Shapes.
+	 */
+	public MoveGenerator(RotationSystem rotationSystem){
+		this.rotationSystem = rotationSystem;
+		this.canonicalRotations = computeCanonicalRotations(rotationSystem);
+	}
+
+	/**
+	 * Finds the RotationStates of each ShapeType that cover the same cells as a
+	 * RotationState with a smaller ordinal.
+	 */
+	private static int[] computeCanonicalRotations(RotationSystem rotationSystem){
+		ShapeType[] shapeTypes = ShapeType.values();
+		int[] canonicalRotations = new int[shapeTypes.length * NUM_ROTATION_STATES];
+		int[] footprints = new int[NUM_ROTATION_STATES];
+
+		for(ShapeType shapeType : shapeTypes){
+			long packedShape = PackedShape.spawn(shapeType);
+
+			for(int i = 0; i < NUM_ROTATION_STATES; i++){
+				int rotation = PackedShape.getRotationStateOrdinal(packedShape);
+				footprints[rotation] = getFootprint(packedShape);
+				packedShape = rotationSystem.rotate(packedShape, Direction.RIGHT);
+			}
+
+			int base = shapeType.ordinal() * NUM_ROTATION_STATES;
+			for(int rotation = 0; rotation < NUM_ROTATION_STATES; rotation++){
+				int canonical = rotation;
+				for(int other = 0; other < rotation; other++){
+					if (footprints[other] == footprints[rotation]){
+						canonical = other;
+						break;
+					}
+				}
+				canonicalRotations[base + rotation] = canonical;
+			}
+		}
+
+		return canonicalRotations;
+	}
+
+	/**
+	 * Returns the cells covered by the Blocks of <code>packedShape</code>, relative
+	 * to the lower left corner of their bounding box, as bits of a 4x4 grid.
+	 */
+	private static int getFootprint(long packedShape){
+		int minColumn = getMinColumnOffset(packedShape);
+		int minRow = getMinRowOffset(packedShape);
+		int footprint = 0;
+
+		for(int i = 0; i < 4; i++){
+			int column = PackedShape.getBlockColumnOffset(packedShape, i) - minColumn;
+			int row = PackedShape.getBlockRowOffset(packedShape, i) - minRow;
+			footprint |= 1 << (4 * row + column);
+		}
+
+		return footprint;
+	}
+
+	private static int getMinColumnOffset(long packedShape){
+		int min = PackedShape.getBlockColumnOffset(packedShape, 0);
+		for(int i = 1; i < 4; i++){
+			min = Math.min(min, PackedShape.getBlockColumnOffset(packedShape, i));
+		}
+		return min;
+	}
+
+	private static int getMinRowOffset(long packedShape){
+		int min = PackedShape.getBlockRowOffset(packedShape, 0);
+		for(int i = 1; i < 4; i++){
+			min = Math.min(min, PackedShape.getBlockRowOffset(packedShape, i));
+		}
+		return min;
+	}
+
+	/**
+	 * Clears <code>placements</code> and fills it with every distinct final resting
+	 * placement that <code>packedShape</code> can reach on <code>playfield</code>.
+	 * Placements are given in the order the search finds them.
+	 * @param playfield - Playfield the Shape moves on.  It is not modified.
+	 * @param packedShape - starting position of the Shape, usually its spawn
+	 * position.
+	 * @param placements - list to store the placements in.
+	 * @return number of placements found, which is zero if
+	 * <code>packedShape</code> collides with <code>playfield</code>.
+	 */
+	public int generate(Playfield playfield, long packedShape, PlacementList placements){
+		placements.clear();
+
+		if (playfield.collides(packedShape)){
+			return 0;
+		}
+
+		prepare(playfield);
+
+		packedShape = dropToStack(playfield, packedShape);
+
+		int head = 0;
+		int tail = 0;
+
+		markVisited(packedShape);
+		queue[tail++] = packedShape;
+
+		while (head < tail){
+			long state = queue[head++];
+
+			long moved = PackedShape.translate(state, 0, -1);
+			if (playfield.collides(moved)){
+				addPlacement(state, placements);
+			}
+			else if (markVisited(moved)){
+				queue[tail++] = moved;
+			}
+
+			moved = PackedShape.translate(state, -1, 0);
+			if (!playfield.collides(moved) && markVisited(moved)){
+				queue[tail++] = moved;
+			}
+
+			moved = PackedShape.translate(state, 1, 0);
+			if (!playfield.collides(moved) && markVisited(moved)){
+				queue[tail++] = moved;
+			}
+
+			moved = rotationSystem.rotate(state, Direction.LEFT, playfield);
+			if (moved != PackedShape.INVALID && markVisited(moved)){
+				queue[tail++] = moved;
+			}
+
+			moved = rotationSystem.rotate(state, Direction.RIGHT, playfield);
+			if (moved != PackedShape.INVALID && markVisited(moved)){
+				queue[tail++] = moved;
+			}
+		}
+
+		return placements.size();
+	}
+
+	/**
+	 * Moves <code>packedShape</code> straight down until it is just far enough
+	 * above the highest occupied row that rotations and wall kicks can not reach
+	 * the stack.  Every row above the stack is empty, so there every state can
+	 * reach the same columns and RotationStates one row lower, and skipping those
+	 * rows finds the same placements while searching far fewer states.
+	 */
+	private long dropToStack(Playfield playfield, long packedShape){
+		int lowestRow = PackedShape.getBlockRow(packedShape, 0);
+		for(int i = 1; i < 4; i++){
+			lowestRow = Math.min(lowestRow, PackedShape.getBlockRow(packedShape, i));
+		}
+
+		int stackHeight = rows;
+		while (stackHeight > 0 && playfield.isRowEmpty(stackHeight - 1)){
+			stackHeight--;
+		}
+
+		int dropRows = lowestRow - (stackHeight + ROTATION_REACH);
+		if (dropRows <= 0){
+			return packedShape;
+		}
+
+		return PackedShape.translate(packedShape, 0, -dropRows);
+	}
+
+	/**
+	 * Sizes the search buffers for <code>playfield</code> and clears them.
+	 */
+	private void prepare(Playfield playfield){
+		if (playfield.getColumns() != columns || playfield.getRows() != rows){
+			columns = playfield.getColumns();
+			rows = playfield.getRows();
+			originColumns = columns + 2 * ORIGIN_MARGIN;
+			originRows = rows + 2 * ORIGIN_MARGIN;
+
+			int numStates = NUM_ROTATION_STATES * originColumns * originRows;
+			visited = new long[(numStates + 63) >>> 6];
+			queue = new long[numStates];
+			placed = new long[(NUM_ROTATION_STATES * columns * rows + 63) >>> 6];
+		}
+		else {
+			Arrays.fill(visited, 0L);
+			Arrays.fill(placed, 0L);
+		}
+	}
+
+	/**
+	 * Marks the state of <code>packedShape</code> as visited.
+	 * @return true if the state had not been visited before.
+	 */
+	private boolean markVisited(long packedShape){
+		int column = PackedShape.getOriginColumn(packedShape) + ORIGIN_MARGIN;
+		int row = PackedShape.getOriginRow(packedShape) + ORIGIN_MARGIN;
+		int rotation = PackedShape.getRotationStateOrdinal(packedShape);
+		int index = (rotation * originRows + row) * originColumns + column;
+
+		return setBit(visited, index);
+	}
+
+	/**
+	 * Adds <code>packedShape</code> to <code>placements</code>, unless a placement
+	 * covering the same cells has already been added.
+	 */
+	private void addPlacement(long packedShape, PlacementList placements){
+		int rotation = canonicalRotations[
+				PackedShape.getShapeTypeOrdinal(packedShape) * NUM_ROTATION_STATES +
+				PackedShape.getRotationStateOrdinal(packedShape)];
+		int column = PackedShape.getOriginColumn(packedShape) +
+				getMinColumnOffset(packedShape);
+		int row = PackedShape.getOriginRow(packedShape) + getMinRowOffset(packedShape);
+		int index = (rotation * rows + row) * columns + column;
+
+		if (setBit(placed, index)){
+			placements.add(packedShape);
+		}
+	}
+
+	/**
+	 * Sets bit <code>index</code> of <code>bits</code>.
+	 * @return true if the bit was not already set.
+	 */
+	private static boolean setBit(long[] bits, int index){
+		int word = index >>> 6;
+		long mask = 1L << index;
+
+		if ((bits[word] & mask) != 0) return false;
+
+		bits[word] |= mask;
+		return true;
+	}
+}
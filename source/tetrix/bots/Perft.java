@@ -0,0 +1,279 @@
+package tetrix.bots;
+
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import tetrix.entities.Playfield;
+import tetrix.entities.rotations.RotationSystem;
+import tetrix.entities.rotations.SuperRotationSystem;
+import tetrix.entities.shapes.PackedShape;
+import tetrix.entities.shapes.ShapeType;
+
+/**
+ * Counts the placement sequences reachable from a Playfield, in the manner of the
+ * perft routine chess engines use to validate and time their move generators.
+ *
+ * <p>
+ * Given a starting Playfield and a fixed sequence of ShapeTypes, the perft count
+ * at depth N is the number of ways to place the first N Shapes of the sequence,
+ * one after another, where each Shape is placed at one of the placements found by
+ * a {@link MoveGenerator} from its spawn position, locked, and full rows are
+ * cleared before the next Shape spawns.  A Shape that can not spawn ends that
+ * line of play.  Known counts for reference positions catch regressions in the
+ * RotationSystem, collision detection, and the MoveGenerator.
+ *
+ * <p>
+ * The top level of the count can be split across a {@link ForkJoinPool}, with
+ * one task per placement of the first Shape.
+ *
+ * <p>
+ * Given a {@link TranspositionTable}, counts of subtrees are cached by the
+ * {@link ZobristHash} of their Playfield and remaining sequence, so subtrees
+ * reached by several orders of placements are only counted once.  The table is
+ * shared by the tasks of a parallel count.
+ *
+ * @author Dustin Biser
+ *
+ */
+public class Perft {
+	private final RotationSystem rotationSystem;
+	private final TranspositionTable table;
+
+	/**
+	 * Constructs a Perft that rotates Shapes with the SuperRotationSystem.
+	 */
+	public Perft(){
+		this(new SuperRotationSystem());
+	}
+
+	/**
+	 * @param rotationSystem - RotationSystem used to rotate and kick Shapes.
+	 */
+	public Perft(RotationSystem rotationSystem){
+		this(rotationSystem, null);
+	}
+
+	/**
+	 * @param rotationSystem - RotationSystem used to rotate and kick Shapes.
+	 * @param table - TranspositionTable that subtree counts are cached in, or null
+	 * to count every subtree.
+	 */
+	public Perft(RotationSystem rotationSystem, TranspositionTable table){
+		this.rotationSystem = rotationSystem;
+		this.table = table;
+	}
+
+	/**
+	 * Returns the number of ways the first <code>depth</code> Shapes of
+	 * <code>sequence</code> can be placed, one after another, starting from
+	 * <code>playfield</code>.
+	 * @param playfield - starting Playfield.  It is not modified.
+	 * @param sequence - ShapeTypes to place, in order.
+	 * @param depth - number of Shapes to place.
+	 * @return perft count.
+	 * @throws InvalidParameterException if depth is negative or greater than the
+	 * length of sequence.
+	 */
+	public long count(Playfield playfield, ShapeType[] sequence, int depth)
+			throws InvalidParameterException {
+		checkDepth(sequence, depth);
+
+		Worker worker = new Worker(playfield, depth);
+		return worker.count(playfield, worker.hash(playfield), sequence, 0, depth);
+	}
+
+	/**
+	 * Returns the same count as {@link #count(Playfield, ShapeType[], int)}, with
+	 * the subtree below each placement of the first Shape counted by a separate
+	 * task in <code>pool</code>.
+	 * @throws InvalidParameterException if depth is negative or greater than the
+	 * length of sequence.
+	 */
+	public long count(Playfield playfield, ShapeType[] sequence, int depth,
+			ForkJoinPool pool) throws InvalidParameterException {
+		checkDepth(sequence, depth);
+
+		if (depth <= 1){
+			return count(playfield, sequence, depth);
+		}
+
+		return pool.invoke(new RootTask(playfield, sequence, depth));
+	}
+
+	private static void checkDepth(ShapeType[] sequence, int depth){
+		if (depth < 0 || depth > sequence.length){
+			throw new InvalidParameterException("Depth " + depth + " must be between " +
+					"0 and the sequence length " + sequence.length + ".\n");
+		}
+	}
+
+	private ZobristHash createZobristHash(Playfield playfield){
+		if (table == null) return null;
+
+		return new ZobristHash(playfield.getColumns(), playfield.getRows(),
+				ZobristHash.DEFAULT_MAX_QUEUE_LENGTH, ZobristHash.DEFAULT_SEED);
+	}
+
+	/**
+	 * Places a copy of <code>playfield</code> in <code>result</code> with
+	 * <code>placement</code> locked and full rows cleared.
+	 * @param zobrist - keys to update <code>hash</code> with, or null when counts
+	 * are not cached.
+	 * @return hash of <code>result</code>.
+	 */
+	private static long place(Playfield playfield, long hash, long placement,
+			Playfield result, ZobristHash zobrist){
+		result.copyFrom(playfield);
+
+		if (zobrist != null){
+			return zobrist.lock(result, hash, placement);
+		}
+
+		result.lock(placement);
+		result.clearFullRows();
+		return 0;
+	}
+
+	/**
+	 * Holds the MoveGenerator, PlacementLists and Playfields used at each depth of
+	 * one count, so that counting does not allocate.
+	 */
+	private class Worker {
+		private final MoveGenerator moveGenerator;
+		private final PlacementList[] placements;
+		private final Playfield[] playfields;
+		private final ZobristHash zobrist;
+
+		Worker(Playfield playfield, int depth){
+			moveGenerator = new MoveGenerator(rotationSystem);
+			zobrist = createZobristHash(playfield);
+			placements = new PlacementList[depth];
+			playfields = new Playfield[depth];
+
+			for(int i = 0; i < depth; i++){
+				placements[i] = new PlacementList();
+				playfields[i] = new Playfield(playfield);
+			}
+		}
+
+		long hash(Playfield playfield){
+			return zobrist == null ? 0 : zobrist.hash(playfield);
+		}
+
+		long count(Playfield playfield, long hash, ShapeType[] sequence, int ply,
+				int depth){
+			if (depth == 0) return 1;
+
+			// Subtrees of a single ply are cheaper to count than to cache.
+			long key = 0;
+			boolean cached = zobrist != null && depth > 1 &&
+					depth <= ZobristHash.DEFAULT_MAX_QUEUE_LENGTH;
+			if (cached){
+				key = hash ^ zobrist.hashQueue(sequence, ply, depth);
+
+				long data = table.probe(key);
+				if (data != TranspositionTable.NOT_FOUND){
+					return TranspositionTable.getValue(data);
+				}
+			}
+
+			long nodes = countPlacements(playfield, hash, sequence, ply, depth);
+
+			if (cached && nodes <= TranspositionTable.MAX_VALUE){
+				table.store(key, depth, nodes);
+			}
+
+			return nodes;
+		}
+
+		private long countPlacements(Playfield playfield, long hash, ShapeType[] sequence,
+				int ply, int depth){
+			PlacementList plyPlacements = placements[ply];
+			int numPlacements = moveGenerator.generate(playfield,
+					PackedShape.spawn(sequence[ply]), plyPlacements);
+
+			// Placements at the last depth are counted without being played.
+			if (depth == 1) return numPlacements;
+
+			long nodes = 0;
+			Playfield next = playfields[ply];
+			for(int i = 0; i < numPlacements; i++){
+				long nextHash = place(playfield, hash, plyPlacements.get(i), next, zobrist);
+				nodes += count(next, nextHash, sequence, ply + 1, depth - 1);
+			}
+
+			return nodes;
+		}
+	}
+
+	/**
+	 * Forks one PlacementTask for each placement of the first Shape.
+	 */
+	private class RootTask extends RecursiveTask<Long> {
+		private static final long serialVersionUID = 1L;
+
+		private final Playfield playfield;
+		private final ShapeType[] sequence;
+		private final int depth;
+
+		RootTask(Playfield playfield, ShapeType[] sequence, int depth){
+			this.playfield = playfield;
+			this.sequence = sequence;
+			this.depth = depth;
+		}
+
+		@Override
+		protected Long compute(){
+			PlacementList rootPlacements = new PlacementList();
+			new MoveGenerator(rotationSystem).generate(playfield,
+					PackedShape.spawn(sequence[0]), rootPlacements);
+
+			ZobristHash zobrist = createZobristHash(playfield);
+			long hash = zobrist == null ? 0 : zobrist.hash(playfield);
+
+			List<PlacementTask> tasks = new ArrayList<PlacementTask>(rootPlacements.size());
+			for(int i = 0; i < rootPlacements.size(); i++){
+				Playfield next = new Playfield(playfield);
+				long nextHash = place(playfield, hash, rootPlacements.get(i), next, zobrist);
+				tasks.add(new PlacementTask(next, nextHash, sequence, depth));
+			}
+
+			invokeAll(tasks);
+
+			long nodes = 0;
+			for(PlacementTask task : tasks){
+				nodes += task.join();
+			}
+
+			return nodes;
+		}
+	}
+
+	/**
+	 * Counts the subtree below one placement of the first Shape.
+	 */
+	private class PlacementTask extends RecursiveTask<Long> {
+		private static final long serialVersionUID = 1L;
+
+		private final Playfield playfield;
+		private final long hash;
+		private final ShapeType[] sequence;
+		private final int depth;
+
+		PlacementTask(Playfield playfield, long hash, ShapeType[] sequence, int depth){
+			this.playfield = playfield;
+			this.hash = hash;
+			this.sequence = sequence;
+			this.depth = depth;
+		}
+
+		@Override
+		protected Long compute(){
+			return new Worker(playfield, depth).count(playfield, hash, sequence, 1,
+					depth - 1);
+		}
+	}
+}
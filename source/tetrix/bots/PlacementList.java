@@ -0,0 +1,85 @@
+package tetrix.bots;
+
+import java.util.Arrays;
+
+import tetrix.entities.shapes.PackedShape;
+
+/**
+ * Reusable list of placements, each stored as a packed Shape (see
+ * {@link PackedShape}).  Clearing the list keeps its storage, so a PlacementList
+ * can be refilled over and over without allocating once it has grown to the
+ * largest number of placements it needs to hold.
+ * @author Dustin Biser
+ *
+ */
+public class PlacementList {
+	private static final int DEFAULT_CAPACITY = 64;
+	
+	private long[] placements;
+	private int size;
+	
+	public PlacementList(){
+		this(DEFAULT_CAPACITY);
+	}
+	
+	/**
+	 * @param capacity - number of placements to reserve storage for.
+	 */
+	public PlacementList(int capacity){
+		placements = new long[Math.max(1, capacity)];
+	}
+	
+	/**
+	 * Removes all placements, keeping the list's storage.
+	 */
+	public void clear(){
+		size = 0;
+	}
+	
+	/**
+	 * Appends a placement to the end of the list, growing its storage if needed.
+	 * @param packedShape - placement to add.
+	 */
+	public void add(long packedShape){
+		if (size == placements.length){
+			placements = Arrays.copyOf(placements, 2 * placements.length);
+		}
+		
+		placements[size++] = packedShape;
+	}
+	
+	/**
+	 * @param index - index of the placement, in the range [0, size()).
+	 * @return placement at the given index, as a packed Shape.
+	 */
+	public long get(int index){
+		if (index >= size){
+			throw new IndexOutOfBoundsException("Index " + index + " is not less " +
+					"than size " + size + ".\n");
+		}
+		
+		return placements[index];
+	}
+	
+	/**
+	 * @return number of placements in the list.
+	 */
+	public int size(){
+		return size;
+	}
+	
+	public boolean isEmpty(){
+		return size == 0;
+	}
+	
+	/**
+	 * @return true if the list contains the given placement.
+	 */
+	public boolean contains(long packedShape){
+		for(int i = 0; i < size; i++){
+			if (placements[i] == packedShape) return true;
+		}
+		
+		return false;
+	}
+}
@@ -0,0 +1,196 @@
+package tetrix.bots;
+
+import java.security.InvalidParameterException;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed size, lock-free hash table from 64 bit Zobrist hashes (see
+ * {@link ZobristHash}) to search results, shared by parallel search threads.
+ *
+ * <p>
+ * The table is an array of buckets, each holding {@link #SLOTS_PER_BUCKET} slots.
+ * A slot is two longs in an {@link AtomicLongArray}: a data word packing a 48 bit
+ * value and the search depth it was computed at, and a check word holding
+ * <code>key ^ data</code>.  A slot matches a key only if its check word XOR its data
+ * word equals the key, so a slot torn by two threads writing at once reads as a
+ * miss rather than as a wrong result.  Writers claim a slot by compare-and-set on
+ * its check word, so no locks are taken.
+ *
+ * <p>
+ * When a key is already in its bucket, it is only replaced by a result of equal
+ * or greater depth.  Otherwise the result replaces an empty slot, or the slot of
+ * least depth in the bucket.  Like any transposition table, the table is lossy:
+ * a probe can miss a result that was stored earlier.
+ *
+ * @author Dustin Biser
+ *
+ */
+public class TranspositionTable {
+	public static final int SLOTS_PER_BUCKET = 4;
+
+	// Probe result when no slot matches the key.  Stored data is never zero.
+	public static final long NOT_FOUND = 0L;
+
+	public static final int MAX_DEPTH = 0xFE;
+	public static final long MAX_VALUE = (1L << 48) - 1;
+
+	private static final int DEPTH_SHIFT = 48;
+	private static final long VALUE_MASK = MAX_VALUE;
+
+	private final AtomicLongArray slots;
+	private final int bucketMask;
+
+	// Every probe updates these, so they are LongAdders rather than AtomicLongs that
+	// all search threads would contend on.
+	private final LongAdder probes = new LongAdder();
+	private final LongAdder hits = new LongAdder();
+
+	/**
+	 * @param log2Buckets - base 2 logarithm of the number of buckets.  The table
+	 * uses <code>2^log2Buckets * SLOTS_PER_BUCKET * 16</code> bytes.
+	 * @throws InvalidParameterException if log2Buckets is not in the range [0, 24].
+	 */
+	public TranspositionTable(int log2Buckets) throws InvalidParameterException {
+		if (log2Buckets < 0 || log2Buckets > 24){
+			throw new InvalidParameterException("log2Buckets must be between 0 and 24.\n");
+		}
+
+		int buckets = 1 << log2Buckets;
+		bucketMask = buckets - 1;
+		slots = new AtomicLongArray(2 * SLOTS_PER_BUCKET * buckets);
+	}
+
+	/**
+	 * @return number of results the table can hold.
+	 */
+	public int getCapacity(){
+		return slots.length() / 2;
+	}
+
+	/**
+	 * Packs a value and depth into a data word.
+	 */
+	private static long pack(long value, int depth){
+		// Depth is stored plus one, so that stored data is never NOT_FOUND.
+		return ((long)(depth + 1) << DEPTH_SHIFT) | value;
+	}
+
+	/**
+	 * @return value of data returned by {@link #probe(long)}.
+	 */
+	public static long getValue(long data){
+		return data & VALUE_MASK;
+	}
+
+	/**
+	 * @return depth of data returned by {@link #probe(long)}.
+	 */
+	public static int getDepth(long data){
+		return (int)(data >>> DEPTH_SHIFT) - 1;
+	}
+
+	/**
+	 * @return index of the first slot of the bucket of <code>key</code>.
+	 */
+	private int getBucketStart(long key){
+		// Mix the high bits in, since low key bits may be shared by related states.
+		int hash = (int)(key ^ (key >>> 32));
+		return (hash & bucketMask) * SLOTS_PER_BUCKET * 2;
+	}
+
+	/**
+	 * Looks up the result stored for <code>key</code>.
+	 * @return the stored data, to be read with {@link #getValue(long)} and
+	 * {@link #getDepth(long)}, or {@link #NOT_FOUND}.
+	 */
+	public long probe(long key){
+		probes.increment();
+
+		int start = getBucketStart(key);
+		for(int i = start; i < start + 2 * SLOTS_PER_BUCKET; i += 2){
+			long data = slots.get(i + 1);
+			if (data != NOT_FOUND && (slots.get(i) ^ data) == key){
+				hits.increment();
+				return data;
+			}
+		}
+
+		return NOT_FOUND;
+	}
+
+	/**
+	 * Stores a result for <code>key</code>, following the replacement policy
+	 * described in the class documentation.
+	 * @param key - Zobrist hash of the searched state.
+	 * @param depth - depth the result was computed at, in the range [0, MAX_DEPTH].
+	 * @param value - result, in the range [0, MAX_VALUE].
+	 * @throws InvalidParameterException if depth or value is out of range.
+	 */
+	public void store(long key, int depth, long value) throws InvalidParameterException {
+		if (depth < 0 || depth > MAX_DEPTH || value < 0 || value > MAX_VALUE){
+			throw new InvalidParameterException("Depth " + depth + " or value " +
+					value + " out of range.\n");
+		}
+
+		long data = pack(value, depth);
+		int start = getBucketStart(key);
+
+		int victim = -1;
+		long victimCheck = 0;
+		int victimDepth = Integer.MAX_VALUE;
+
+		for(int i = start; i < start + 2 * SLOTS_PER_BUCKET; i += 2){
+			long slotCheck = slots.get(i);
+			long slotData = slots.get(i + 1);
+
+			if (slotData != NOT_FOUND && (slotCheck ^ slotData) == key){
+				// Same key: keep the deeper result.
+				if (depth < getDepth(slotData)) return;
+
+				victim = i;
+				victimCheck = slotCheck;
+				break;
+			}
+
+			int slotDepth = slotData == NOT_FOUND ? -1 : getDepth(slotData);
+			if (slotDepth < victimDepth){
+				victim = i;
+				victimCheck = slotCheck;
+				victimDepth = slotDepth;
+			}
+		}
+
+		// If another thread claimed the slot first, its result is kept instead.
+		if (slots.compareAndSet(victim, victimCheck, key ^ data)){
+			slots.set(victim + 1, data);
+		}
+	}
+
+	/**
+	 * Removes every result from the table, and resets its statistics.  Must not be
+	 * called while other threads use the table.
+	 */
+	public void clear(){
+		for(int i = 0; i < slots.length(); i++){
+			slots.set(i, 0L);
+		}
+		probes.reset();
+		hits.reset();
+	}
+
+	/**
+	 * @return number of probes since the table was created or cleared.  Probes made
+	 * while the count is taken may or may not be counted.
+	 */
+	public long getProbes(){
+		return probes.sum();
+	}
+
+	/**
+	 * @return number of probes that found a result.
+	 */
+	public long getHits(){
+		return hits.sum();
+	}
+}
@@ -0,0 +1,277 @@
+package tetrix.bots;
+
+import java.security.InvalidParameterException;
+import java.util.SplittableRandom;
+
+import tetrix.entities.Playfield;
+import tetrix.entities.rotations.RotationState;
+import tetrix.entities.shapes.PackedShape;
+import tetrix.entities.shapes.ShapeType;
+
+/**
+ * Zobrist hashing of game states.  A random 64 bit key is assigned to every cell
+ * of a Playfield, to every ShapeType and RotationState combination of the active
+ * Shape, to every ShapeType that can be held, and to every ShapeType at every
+ * position of the preview queue.  The hash of a state is the XOR of the keys of
+ * everything present in it, so the hash can be updated incrementally by XORing in
+ * and out only the keys that change.
+ *
+ * <p>
+ * {@link #lock(Playfield, long, long)} locks a placement into a Playfield and
+ * returns the updated hash by toggling the 4 cells of the placement, and, when
+ * rows are cleared, rehashing only the rows that move down.
+ *
+ * <p>
+ * Keys are generated from a seed, so ZobristHashes constructed with the same
+ * seed and Playfield dimensions produce identical hashes, and can share a
+ * {@link TranspositionTable}.  A ZobristHash is immutable and safe to share
+ * between threads.
+ *
+ * @author Dustin Biser
+ *
+ */
+public class ZobristHash {
+	public static final long DEFAULT_SEED = 0x5A0B815L;
+	public static final int DEFAULT_MAX_QUEUE_LENGTH = 16;
+
+	private static final int NUM_SHAPE_TYPES = ShapeType.values().length;
+	private static final int NUM_ROTATION_STATES = RotationState.values().length;
+
+	private final int columns;
+	private final int rows;
+	private final int maxQueueLength;
+
+	// Indexed by row * columns + column.
+	private final long[] cellKeys;
+
+	// Indexed by ShapeType ordinal * 4 + RotationState ordinal.
+	private final long[] activeShapeKeys;
+
+	// Indexed by ShapeType ordinal, with the last entry for an empty hold.
+	private final long[] holdKeys;
+
+	// Indexed by queue position * 7 + ShapeType ordinal.
+	private final long[] queueKeys;
+
+	/**
+	 * Constructs a ZobristHash for Playfields of the default size, using the
+	 * default seed.
+	 */
+	public ZobristHash(){
+		this(Playfield.DEFAULT_COLUMNS, Playfield.DEFAULT_ROWS, DEFAULT_MAX_QUEUE_LENGTH,
+				DEFAULT_SEED);
+	}
+
+	/**
+	 * @param columns - number of Playfield columns.
+	 * @param rows - number of Playfield rows.
+	 * @param maxQueueLength - number of preview queue positions to generate keys for.
+	 * @param seed - seed of the generated keys.
+	 */
+	public ZobristHash(int columns, int rows, int maxQueueLength, long seed){
+		this.columns = columns;
+		this.rows = rows;
+		this.maxQueueLength = maxQueueLength;
+
+		SplittableRandom random = new SplittableRandom(seed);
+
+		cellKeys = createKeys(random, columns * rows);
+		activeShapeKeys = createKeys(random, NUM_SHAPE_TYPES * NUM_ROTATION_STATES);
+		holdKeys = createKeys(random, NUM_SHAPE_TYPES + 1);
+		queueKeys = createKeys(random, maxQueueLength * NUM_SHAPE_TYPES);
+	}
+
+	private static long[] createKeys(SplittableRandom random, int count){
+		long[] keys = new long[count];
+
+		for(int i = 0; i < count; i++){
+			keys[i] = random.nextLong();
+		}
+
+		return keys;
+	}
+
+	public int getColumns(){
+		return columns;
+	}
+
+	public int getRows(){
+		return rows;
+	}
+
+	/**
+	 * @return true if this ZobristHash has keys for every cell of <code>playfield</code>.
+	 */
+	public boolean fits(Playfield playfield){
+		return playfield.getColumns() == columns && playfield.getRows() == rows;
+	}
+
+	/**
+	 * @return key of the cell at the given column-row position.
+	 */
+	public long getCellKey(int column, int row){
+		return cellKeys[row * columns + column];
+	}
+
+	/**
+	 * @return key of an active Shape of the given ShapeType and RotationState.
+	 */
+	public long getActiveShapeKey(ShapeType shapeType, RotationState rotationState){
+		return activeShapeKeys[shapeType.ordinal() * NUM_ROTATION_STATES +
+		                       rotationState.ordinal()];
+	}
+
+	/**
+	 * @param shapeType - held ShapeType, or null if nothing is held.
+	 * @return key of the hold slot.
+	 */
+	public long getHoldKey(ShapeType shapeType){
+		return holdKeys[shapeType == null ? NUM_SHAPE_TYPES : shapeType.ordinal()];
+	}
+
+	/**
+	 * @return key of <code>shapeType</code> at the given position of the preview queue.
+	 */
+	public long getQueueKey(int position, ShapeType shapeType){
+		return queueKeys[position * NUM_SHAPE_TYPES + shapeType.ordinal()];
+	}
+
+	/**
+	 * Returns the hash of <code>length</code> queued ShapeTypes, starting at
+	 * <code>queue[start]</code>, where <code>queue[start]</code> is at queue
+	 * position 0.
+	 * @throws InvalidParameterException if length is greater than the maximum queue
+	 * length.
+	 */
+	public long hashQueue(ShapeType[] queue, int start, int length)
+			throws InvalidParameterException {
+		if (length > maxQueueLength){
+			throw new InvalidParameterException("Queue length " + length + " exceeds " +
+					"maximum queue length " + maxQueueLength + ".\n");
+		}
+
+		long hash = 0;
+		for(int i = 0; i < length; i++){
+			hash ^= getQueueKey(i, queue[start + i]);
+		}
+
+		return hash;
+	}
+
+	/**
+	 * @return hash of the occupied cells of <code>playfield</code>.
+	 */
+	public long hash(Playfield playfield){
+		long hash = 0;
+
+		for(int row = 0; row < rows; row++){
+			hash ^= hashRow(row, playfield.getRowMask(row));
+		}
+
+		return hash;
+	}
+
+	/**
+	 * Returns the hash of a complete game state.
+	 * @param playfield - Playfield of the state.
+	 * @param activeShape - the active Shape, as a packed Shape.
+	 * @param hold - held ShapeType, or null if nothing is held.
+	 * @param queue - preview queue, with the next ShapeType first.
+	 */
+	public long hash(Playfield playfield, long activeShape, ShapeType hold,
+			ShapeType[] queue){
+		return hash(playfield) ^
+				getActiveShapeKey(PackedShape.getShapeType(activeShape),
+						PackedShape.getRotationState(activeShape)) ^
+				getHoldKey(hold) ^
+				hashQueue(queue, 0, queue.length);
+	}
+
+	/**
+	 * @return hash of a single row, with the occupied columns given by
+	 * <code>rowMask</code>.
+	 */
+	public long hashRow(int row, int rowMask){
+		long hash = 0;
+		int base = row * columns;
+
+		while (rowMask != 0){
+			hash ^= cellKeys[base + Integer.numberOfTrailingZeros(rowMask)];
+			rowMask &= rowMask - 1;
+		}
+
+		return hash;
+	}
+
+	/**
+	 * @return <code>hash</code> with the cells of the 4 Blocks of
+	 * <code>packedShape</code> toggled.
+	 */
+	public long toggleCells(long hash, long packedShape){
+		for(int i = 0; i < 4; i++){
+			hash ^= getCellKey(PackedShape.getBlockColumn(packedShape, i),
+					PackedShape.getBlockRow(packedShape, i));
+		}
+
+		return hash;
+	}
+
+	/**
+	 * Locks <code>placement</code> into <code>playfield</code>, clears any full rows,
+	 * and returns the updated hash of its cells.
+	 * @param playfield - Playfield to modify.
+	 * @param hash - hash of <code>playfield</code> before the placement is locked.
+	 * @param placement - packed Shape to lock.
+	 * @return hash of <code>playfield</code> after locking and clearing rows.
+	 * @throws InvalidParameterException if the placement lies outside of the
+	 * Playfield.
+	 */
+	public long lock(Playfield playfield, long hash, long placement)
+			throws InvalidParameterException {
+		playfield.lock(placement);
+
+		return clearFullRows(playfield, toggleCells(hash, placement), placement);
+	}
+
+	/**
+	 * Clears the full rows of <code>playfield</code> after <code>placement</code>
+	 * has been locked into it, and returns the updated hash of its cells.  Only the
+	 * rows that move down are rehashed.
+	 * @param playfield - Playfield to modify.
+	 * @param hash - hash of <code>playfield</code>, including the locked placement.
+	 * @param placement - packed Shape that was just locked.
+	 * @return hash of <code>playfield</code> after clearing rows.
+	 */
+	public long clearFullRows(Playfield playfield, long hash, long placement){
+		// Only the rows placed into can have become full.
+		int lowestFullRow = rows;
+		for(int i = 0; i < 4; i++){
+			int row = PackedShape.getBlockRow(placement, i);
+			if (row < lowestFullRow && playfield.isRowFull(row)){
+				lowestFullRow = row;
+			}
+		}
+
+		if (lowestFullRow == rows){
+			return hash;
+		}
+
+		// Rows from the lowest full row up to the top of the stack move or vanish.
+		int top = rows;
+		while (top > lowestFullRow && playfield.isRowEmpty(top - 1)){
+			top--;
+		}
+
+		for(int row = lowestFullRow; row < top; row++){
+			hash ^= hashRow(row, playfield.getRowMask(row));
+		}
+
+		playfield.clearFullRows();
+
+		for(int row = lowestFullRow; row < top; row++){
+			hash ^= hashRow(row, playfield.getRowMask(row));
+		}
+
+		return hash;
+	}
+}
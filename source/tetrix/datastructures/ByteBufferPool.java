@@ -0,0 +1,169 @@
+package tetrix.datastructures;
+
+import java.nio.ByteBuffer;
+import java.security.InvalidParameterException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread-safe pool of direct ByteBuffers, so that buffers filled by one thread
+ * and released by another are reused rather than allocated for every use.
+ * Direct buffers are costly to allocate and are only freed by the garbage
+ * collector, so loading many assets into fresh direct buffers both stalls and
+ * holds on to memory.
+ *
+ * <p>
+ * Buffers are pooled in power of two size classes, from {@link #MIN_CAPACITY}
+ * bytes up.  {@link #acquire(int)} returns a buffer of the smallest class that
+ * fits, with position 0 and limit set to the requested size, and
+ * {@link #release(ByteBuffer)} returns it to its class.  Each class is a lock-free
+ * queue, so threads acquiring and releasing buffers never block one another.
+ *
+ * <p>
+ * Each class keeps at most {@link #MAX_RETAINED_PER_CLASS} released buffers.
+ * Buffers released beyond that are dropped and left to the garbage collector, so
+ * that a burst of loads does not pin its peak of direct memory for the rest of
+ * the run.
+ *
+ * <p>
+ * {@link #getShared()} returns a pool shared by the whole application, so that
+ * replay writers and the asset loader draw on the same buffers.
+ *
+ * @author Dustin Biser
+ *
+ */
+public class ByteBufferPool {
+	public static final int MIN_CAPACITY = 4096;
+	public static final int MAX_CAPACITY = 1 << 30;
+	public static final int MAX_RETAINED_PER_CLASS = 4;
+	
+	private static final int MIN_SHIFT = Integer.numberOfTrailingZeros(MIN_CAPACITY);
+	private static final int NUM_CLASSES = Integer.numberOfTrailingZeros(MAX_CAPACITY) -
+			MIN_SHIFT + 1;
+	
+	private static final ByteBufferPool SHARED = new ByteBufferPool();
+	
+	private final ConcurrentLinkedQueue<ByteBuffer>[] classes;
+	private final AtomicIntegerArray retained = new AtomicIntegerArray(NUM_CLASSES);
+	
+	private final AtomicLong allocations = new AtomicLong();
+	private final AtomicLong reuses = new AtomicLong();
+	private final AtomicLong bytesAllocated = new AtomicLong();
+	private final AtomicLong drops = new AtomicLong();
+	
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public ByteBufferPool(){
+		classes = new ConcurrentLinkedQueue[NUM_CLASSES];
+		
+		for(int i = 0; i < NUM_CLASSES; i++){
+			classes[i] = new ConcurrentLinkedQueue<ByteBuffer>();
+		}
+	}
+	
+	/**
+	 * @return ByteBufferPool shared by the whole application.
+	 */
+	public static ByteBufferPool getShared(){
+		return SHARED;
+	}
+	
+	/**
+	 * @return index of the smallest size class holding <code>bytes</code>.
+	 */
+	private static int getSizeClass(int bytes){
+		if (bytes <= MIN_CAPACITY) return 0;
+		
+		return 32 - Integer.numberOfLeadingZeros(bytes - 1) - MIN_SHIFT;
+	}
+	
+	/**
+	 * Returns a direct buffer with position 0 and a limit of <code>bytes</code>,
+	 * reusing a released buffer when one of the right size class is pooled.  Its
+	 * contents are undefined.
+	 * @throws InvalidParameterException if bytes is negative or greater than
+	 * MAX_CAPACITY.
+	 */
+	public ByteBuffer acquire(int bytes) throws InvalidParameterException {
+		if (bytes < 0 || bytes > MAX_CAPACITY){
+			throw new InvalidParameterException("Buffer size " + bytes + " must be " +
+					"between 0 and " + MAX_CAPACITY + ".\n");
+		}
+		
+		int sizeClass = getSizeClass(bytes);
+		ByteBuffer buffer = classes[sizeClass].poll();
+		
+		if (buffer == null){
+			int capacity = MIN_CAPACITY << sizeClass;
+			buffer = ByteBuffer.allocateDirect(capacity);
+			allocations.incrementAndGet();
+			bytesAllocated.addAndGet(capacity);
+		}
+		else {
+			retained.decrementAndGet(sizeClass);
+			reuses.incrementAndGet();
+		}
+		
+		buffer.clear();
+		buffer.limit(bytes);
+		
+		return buffer;
+	}
+	
+	/**
+	 * Returns <code>buffer</code> to the pool.  It must have been acquired from this
+	 * pool, and must not be used after it is released.  The buffer is dropped
+	 * instead if its size class already holds MAX_RETAINED_PER_CLASS buffers.
+	 * @throws InvalidParameterException if buffer could not have been acquired from
+	 * a ByteBufferPool.
+	 */
+	public void release(ByteBuffer buffer) throws InvalidParameterException {
+		int capacity = buffer.capacity();
+		
+		if (!buffer.isDirect() || capacity < MIN_CAPACITY ||
+				Integer.bitCount(capacity) != 1){
+			throw new InvalidParameterException("Buffer was not acquired from a " +
+					"ByteBufferPool.\n");
+		}
+		
+		int sizeClass = getSizeClass(capacity);
+		
+		// Reserve a slot before queueing, so concurrent releases cannot overshoot.
+		if (retained.incrementAndGet(sizeClass) > MAX_RETAINED_PER_CLASS){
+			retained.decrementAndGet(sizeClass);
+			drops.incrementAndGet();
+			return;
+		}
+		
+		classes[sizeClass].offer(buffer);
+	}
+	
+	/**
+	 * @return number of buffers allocated by the pool.
+	 */
+	public long getAllocations(){
+		return allocations.get();
+	}
+	
+	/**
+	 * @return number of acquired buffers that were reused from the pool.
+	 */
+	public long getReuses(){
+		return reuses.get();
+	}
+	
+	/**
+	 * @return total capacity of the buffers allocated by the pool, in bytes.
+	 */
+	public long getBytesAllocated(){
+		return bytesAllocated.get();
+	}
+	
+	/**
+	 * @return number of released buffers dropped because their size class was
+	 * full.
+	 */
+	public long getDrops(){
+		return drops.get();
+	}
+}
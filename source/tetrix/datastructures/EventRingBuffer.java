@@ -0,0 +1,163 @@
+package tetrix.datastructures;
+
+import java.security.InvalidParameterException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free, fixed capacity queue of timestamped events, passed from one producer
+ * thread to one consumer thread, such as key presses from the thread polling the
+ * keyboard to the thread running game logic.  Each event is a 64 bit timestamp
+ * and a 32 bit value, stored in primitive arrays, so that neither side allocates
+ * or blocks.
+ *
+ * <p>
+ * The producer writes an event into the slot at the tail, then publishes it by
+ * advancing the tail.  The consumer reads the event at the head, then frees its
+ * slot by advancing the head.  Head and tail only ever increase, and each is
+ * written by one thread only, so ordered stores suffice and no compare-and-set is
+ * needed.  Each side also caches the other side's index, and only rereads it when
+ * the queue looks full or empty.
+ *
+ * <p>
+ * Events offered while the queue is full are rejected and counted, rather than
+ * overwriting events the consumer has not read yet.
+ *
+ * @author Dustin Biser
+ *
+ */
+public class EventRingBuffer {
+	public static final int DEFAULT_CAPACITY = 256;
+	
+	private final long[] timestamps;
+	private final int[] values;
+	private final int mask;
+	
+	private final AtomicLong head = new AtomicLong();
+	private final AtomicLong tail = new AtomicLong();
+	
+	// Owned by the producer.
+	private long cachedHead;
+	
+	// Owned by the consumer.
+	private long cachedTail;
+	
+	private final AtomicLong rejected = new AtomicLong();
+	
+	/**
+	 * Constructs an EventRingBuffer holding DEFAULT_CAPACITY events.
+	 */
+	public EventRingBuffer(){
+		this(DEFAULT_CAPACITY);
+	}
+	
+	/**
+	 * @param capacity - most events the queue holds, a power of two.
+	 * @throws InvalidParameterException if capacity is not a positive power of two.
+	 */
+	public EventRingBuffer(int capacity) throws InvalidParameterException {
+		if (capacity < 1 || Integer.bitCount(capacity) != 1){
+			throw new InvalidParameterException("Capacity " + capacity + " must be " +
+					"a power of two.\n");
+		}
+		
+		timestamps = new long[capacity];
+		values = new int[capacity];
+		mask = capacity - 1;
+	}
+	
+	public int getCapacity(){
+		return values.length;
+	}
+	
+	/**
+	 * Adds an event to the tail of the queue.  Called by the producer thread only.
+	 * @return false if the queue was full and the event was rejected.
+	 */
+	public boolean offer(long timestamp, int value){
+		long index = tail.get();
+		
+		if (index - cachedHead == values.length){
+			cachedHead = head.get();
+			
+			if (index - cachedHead == values.length){
+				rejected.incrementAndGet();
+				return false;
+			}
+		}
+		
+		int slot = (int)index & mask;
+		timestamps[slot] = timestamp;
+		values[slot] = value;
+		
+		// Ordered store, so the slot is written before the consumer can see it.
+		tail.lazySet(index + 1);
+		return true;
+	}
+	
+	/**
+	 * @return true if there is no event to read.  Called by the consumer thread
+	 * only.
+	 */
+	public boolean isEmpty(){
+		long index = head.get();
+		
+		if (index == cachedTail){
+			cachedTail = tail.get();
+		}
+		
+		return index == cachedTail;
+	}
+	
+	/**
+	 * @return timestamp of the event at the head of the queue.  Called by the
+	 * consumer thread only.
+	 * @throws IllegalStateException if the queue is empty.
+	 */
+	public long peekTimestamp() throws IllegalStateException {
+		return timestamps[getHeadSlot()];
+	}
+	
+	/**
+	 * @return value of the event at the head of the queue.  Called by the consumer
+	 * thread only.
+	 * @throws IllegalStateException if the queue is empty.
+	 */
+	public int peekValue() throws IllegalStateException {
+		return values[getHeadSlot()];
+	}
+	
+	/**
+	 * Removes the event at the head of the queue.  Called by the consumer thread
+	 * only.
+	 * @throws IllegalStateException if the queue is empty.
+	 */
+	public void remove() throws IllegalStateException {
+		getHeadSlot();
+		
+		// Ordered store, so the slot is read before the producer can reuse it.
+		head.lazySet(head.get() + 1);
+	}
+	
+	private int getHeadSlot() throws IllegalStateException {
+		if (isEmpty()){
+			throw new IllegalStateException("EventRingBuffer is empty.\n");
+		}
+		
+		return (int)head.get() & mask;
+	}
+	
+	/**
+	 * @return number of events in the queue.  Exact only when called by the
+	 * consumer or producer thread while the other is idle.
+	 */
+	public int size(){
+		return (int)(tail.get() - head.get());
+	}
+	
+	/**
+	 * @return number of events rejected because the queue was full.
+	 */
+	public long getRejected(){
+		return rejected.get();
+	}
+}
@@ -1,5 +1,10 @@
 package tetrix.datastructures;
 
+/**
+ * A single vertex with position, color and texture coordinates, along with the
+ * interleaved layout these are stored in on the GPU.  To fill vertex buffers
+ * without creating a TexturedVertex per vertex, use {@link VertexStreamWriter}.
+ */
 public class TexturedVertex {
 	// Position data
 	private float[] xyzw = new float[] {0f, 0f, 0f, 1f};
@@ -46,15 +51,22 @@ public class TexturedVertex {
 	}
 	
 	public void setST(float s, float t) {
-		this.st = new float[] {s, t};
+		this.st[0] = s;
+		this.st[1] = t;
 	}
 	
 	public void setXYZW(float x, float y, float z, float w) {
-		this.xyzw = new float[] {x, y, z, w};
+		this.xyzw[0] = x;
+		this.xyzw[1] = y;
+		this.xyzw[2] = z;
+		this.xyzw[3] = w;
 	}
 	
 	public void setRGBA(float r, float g, float b, float a) {
-		this.rgba = new float[] {r, g, b, 1f};
+		this.rgba[0] = r;
+		this.rgba[1] = g;
+		this.rgba[2] = b;
+		this.rgba[3] = a;
 	}
 	
 	// Construction Helpers
@@ -0,0 +1,138 @@
+package tetrix.datastructures;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free triple buffer, passing the newest of a stream of values from one
+ * writer thread to one reader thread, such as game state snapshots from a logic
+ * thread to a render thread.  Neither thread ever waits for the other: the
+ * writer always has a buffer to fill, and the reader always has a complete buffer
+ * to read.
+ *
+ * <p>
+ * Of the three buffers, the writer owns one, the reader owns one, and the third,
+ * the middle buffer, holds the newest complete value.  {@link #publish()} swaps
+ * the writer's buffer with the middle one, and {@link #acquire()} swaps the
+ * reader's buffer with the middle one if a newer value was published since.  Both
+ * swaps are a single atomic exchange of the middle buffer's index, together with
+ * a flag marking it as fresh, so a buffer is never owned by both threads.
+ * Buffers are reused rather than allocated, so values are typically mutable
+ * objects that the writer overwrites completely before each publish.
+ *
+ * <p>
+ * Values published but replaced before the reader acquired them are counted as
+ * dropped, and acquires that find nothing new are counted as duplicated.
+ *
+ * @author Dustin Biser
+ *
+ */
+public class TripleBuffer<T> {
+	// The middle state packs the index of the middle buffer with a fresh flag.
+	private static final int INDEX_MASK = 3;
+	private static final int FRESH = 4;
+	
+	private final Object[] buffers;
+	private final AtomicInteger middle = new AtomicInteger(1);
+	
+	// Owned by the writer and by the reader.
+	private int writeIndex = 0;
+	private int readIndex = 2;
+	
+	private final AtomicLong published = new AtomicLong();
+	private final AtomicLong dropped = new AtomicLong();
+	private final AtomicLong acquired = new AtomicLong();
+	private final AtomicLong duplicated = new AtomicLong();
+	
+	/**
+	 * @param write - buffer the writer fills first.
+	 * @param middle - buffer handed over next.
+	 * @param read - buffer returned by acquire until the first value is published.
+	 */
+	public TripleBuffer(T write, T middle, T read){
+		buffers = new Object[] { write, middle, read };
+	}
+	
+	/**
+	 * @return the buffer the writer may fill.  Called by the writer thread only.
+	 */
+	@SuppressWarnings("unchecked")
+	public T getWriteBuffer(){
+		return (T)buffers[writeIndex];
+	}
+	
+	/**
+	 * Makes the write buffer the newest value, and gives the writer a new buffer to
+	 * fill.  Called by the writer thread only.
+	 * @return the new write buffer.
+	 */
+	@SuppressWarnings("unchecked")
+	public T publish(){
+		int previous = middle.getAndSet(writeIndex | FRESH);
+		writeIndex = previous & INDEX_MASK;
+		
+		published.incrementAndGet();
+		if ((previous & FRESH) != 0){
+			dropped.incrementAndGet();
+		}
+		
+		return (T)buffers[writeIndex];
+	}
+	
+	/**
+	 * Returns the newest published value.  The buffer returned is owned by the
+	 * reader until the next call to acquire.  Called by the reader thread only.
+	 * @return the newest value, or the value returned by the previous call if
+	 * nothing was published since.
+	 */
+	@SuppressWarnings("unchecked")
+	public T acquire(){
+		acquired.incrementAndGet();
+		
+		if ((middle.get() & FRESH) == 0){
+			duplicated.incrementAndGet();
+		}
+		else {
+			// Only the writer sets the fresh flag, so the middle is still fresh here.
+			readIndex = middle.getAndSet(readIndex) & INDEX_MASK;
+		}
+		
+		return (T)buffers[readIndex];
+	}
+	
+	/**
+	 * @return true if a value was published since the reader last acquired one.
+	 */
+	public boolean hasNewValue(){
+		return (middle.get() & FRESH) != 0;
+	}
+	
+	/**
+	 * @return number of values published.
+	 */
+	public long getPublished(){
+		return published.get();
+	}
+	
+	/**
+	 * @return number of published values replaced before the reader acquired them.
+	 */
+	public long getDropped(){
+		return dropped.get();
+	}
+	
+	/**
+	 * @return number of calls to acquire.
+	 */
+	public long getAcquired(){
+		return acquired.get();
+	}
+	
+	/**
+	 * @return number of calls to acquire that returned the same value as the call
+	 * before, since nothing new was published.
+	 */
+	public long getDuplicated(){
+		return duplicated.get();
+	}
+}
@@ -0,0 +1,184 @@
+package tetrix.datastructures;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Writes vertices in the {@link TexturedVertex} layout straight into a direct
+ * ByteBuffer, ready to be passed to glBufferData, without creating a
+ * TexturedVertex or any float array per vertex.
+ *
+ * <p>
+ * Each call to {@link #vertex(float, float, float)} starts a new vertex, writing
+ * its position along with the TexturedVertex defaults of w = 1, opaque white
+ * color, and ST coordinates of (0, 0).  {@link #color(float, float, float, float)}
+ * and {@link #st(float, float)} then overwrite attributes of the vertex just
+ * started, so vertices are written in the same style as TexturedVertex:
+ * <pre>
+ * writer.vertex(-0.5f, 0.5f, 0).color(1, 0, 0).st(0, 0);
+ * </pre>
+ * All writes are absolute puts into a buffer allocated once, so writing any
+ * number of vertices does not allocate.
+ *
+ * @author Dustin Biser
+ *
+ */
+public class VertexStreamWriter {
+	private static final int POSITION_OFFSET = TexturedVertex.positionByteOffset;
+	private static final int COLOR_OFFSET = TexturedVertex.colorByteOffset;
+	private static final int TEXTURE_OFFSET = TexturedVertex.textureByteOffset;
+	private static final int FLOAT_BYTES = TexturedVertex.elementBytes;
+	
+	private final ByteBuffer buffer;
+	private final int vertexCapacity;
+	
+	// Byte offset of the vertex currently being written, or -stride before the
+	// first vertex.
+	private int vertexOffset = -TexturedVertex.stride;
+	private int vertexCount;
+	
+	/**
+	 * Constructs a VertexStreamWriter with a new direct buffer, in native byte
+	 * order, holding <code>vertexCapacity</code> vertices.
+	 */
+	public VertexStreamWriter(int vertexCapacity){
+		this(ByteBuffer.allocateDirect(vertexCapacity * TexturedVertex.stride));
+	}
+	
+	/**
+	 * Constructs a VertexStreamWriter that writes into <code>buffer</code>, from
+	 * index 0 up to its capacity.  The buffer's byte order is set to native order,
+	 * as OpenGL expects.
+	 */
+	public VertexStreamWriter(ByteBuffer buffer){
+		this.buffer = buffer.order(ByteOrder.nativeOrder());
+		vertexCapacity = buffer.capacity() / TexturedVertex.stride;
+	}
+	
+	/**
+	 * @return number of vertices the buffer holds.
+	 */
+	public int getVertexCapacity(){
+		return vertexCapacity;
+	}
+	
+	/**
+	 * @return number of vertices written since the writer was created or cleared.
+	 */
+	public int getVertexCount(){
+		return vertexCount;
+	}
+	
+	/**
+	 * Discards every written vertex, so the buffer can be written again.
+	 */
+	public void clear(){
+		vertexOffset = -TexturedVertex.stride;
+		vertexCount = 0;
+		
+		// getBuffer() narrows the limit to the vertices written before.
+		buffer.clear();
+	}
+	
+	/**
+	 * @return the written vertices, from position 0 up to a limit of
+	 * <code>getVertexCount() * TexturedVertex.stride</code>.
+	 */
+	public ByteBuffer getBuffer(){
+		buffer.limit(vertexCount * TexturedVertex.stride);
+		buffer.position(0);
+		
+		return buffer;
+	}
+	
+	/**
+	 * Starts a new vertex at the given position, with w = 1.
+	 * @return this writer.
+	 * @throws BufferOverflowException if the buffer is full.
+	 */
+	public VertexStreamWriter vertex(float x, float y, float z)
+			throws BufferOverflowException {
+		return vertex(x, y, z, 1f);
+	}
+	
+	/**
+	 * Starts a new vertex at the given homogeneous position, with opaque white color
+	 * and ST coordinates of (0, 0).
+	 * @return this writer.
+	 * @throws BufferOverflowException if the buffer is full.
+	 */
+	public VertexStreamWriter vertex(float x, float y, float z, float w)
+			throws BufferOverflowException {
+		if (vertexCount == vertexCapacity){
+			throw new BufferOverflowException();
+		}
+		
+		vertexOffset += TexturedVertex.stride;
+		vertexCount++;
+		
+		put4(vertexOffset + POSITION_OFFSET, x, y, z, w);
+		put4(vertexOffset + COLOR_OFFSET, 1f, 1f, 1f, 1f);
+		buffer.putFloat(vertexOffset + TEXTURE_OFFSET, 0f);
+		buffer.putFloat(vertexOffset + TEXTURE_OFFSET + FLOAT_BYTES, 0f);
+		
+		return this;
+	}
+	
+	/**
+	 * Sets the opaque color of the current vertex.
+	 * @return this writer.
+	 */
+	public VertexStreamWriter color(float r, float g, float b){
+		return color(r, g, b, 1f);
+	}
+	
+	/**
+	 * Sets the color of the current vertex.
+	 * @return this writer.
+	 */
+	public VertexStreamWriter color(float r, float g, float b, float a){
+		put4(vertexOffset + COLOR_OFFSET, r, g, b, a);
+		
+		return this;
+	}
+	
+	/**
+	 * Sets the texture coordinates of the current vertex.
+	 * @return this writer.
+	 */
+	public VertexStreamWriter st(float s, float t){
+		buffer.putFloat(vertexOffset + TEXTURE_OFFSET, s);
+		buffer.putFloat(vertexOffset + TEXTURE_OFFSET + FLOAT_BYTES, t);
+		
+		return this;
+	}
+	
+	/**
+	 * Writes the 4 vertices of an axis aligned, white, textured quad, in the counter
+	 * clockwise order top left, bottom left, bottom right, top right, with ST
+	 * coordinates running from (0, 0) at the top left to (1, 1) at the bottom right.
+	 * @return this writer.
+	 * @throws BufferOverflowException if the buffer does not hold 4 more vertices.
+	 */
+	public VertexStreamWriter quad(float left, float bottom, float right, float top,
+			float z) throws BufferOverflowException {
+		if (vertexCount + 4 > vertexCapacity){
+			throw new BufferOverflowException();
+		}
+		
+		vertex(left, top, z).st(0, 0);
+		vertex(left, bottom, z).st(0, 1);
+		vertex(right, bottom, z).st(1, 1);
+		vertex(right, top, z).st(1, 0);
+		
+		return this;
+	}
+	
+	private void put4(int offset, float a, float b, float c, float d){
+		buffer.putFloat(offset, a);
+		buffer.putFloat(offset + FLOAT_BYTES, b);
+		buffer.putFloat(offset + 2 * FLOAT_BYTES, c);
+		buffer.putFloat(offset + 3 * FLOAT_BYTES, d);
+	}
+}
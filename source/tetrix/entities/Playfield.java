@@ -0,0 +1,428 @@
+package tetrix.entities;
+
+import java.security.InvalidParameterException;
+
+import tetrix.entities.rotations.RotationState;
+import tetrix.entities.rotations.SuperRotationSystem;
+import tetrix.entities.shapes.PackedShape;
+import tetrix.entities.shapes.Shape;
+import tetrix.entities.shapes.ShapeType;
+
+/**
+ * Representation of the grid of cells that {@link Shape}s fall into.  The
+ * Playfield uses the same column-row convention as Shapes, where column positions
+ * increase to the right and row positions increase upwards, with cell (0,0) at the
+ * bottom left corner.
+ *
+ * <p>
+ * Each row of the Playfield is stored as a single integer bitmask, where bit
+ * <code>c</code> is set if the cell in column <code>c</code> is occupied.  Testing
+ * a Shape for collision is done by AND-ing at most four precomputed row masks
+ * against the Playfield, and a row is full when its bitmask equals the full row
+ * mask.  None of the collision, lock or line clear methods allocate objects.
+ *
+ * @author Dustin Biser
+ *
+ */
+public class Playfield {
+	public static final int DEFAULT_COLUMNS = 10;
+	public static final int DEFAULT_ROWS = 40;
+
+	// Each row is stored within a single int.
+	public static final int MAX_COLUMNS = 32;
+
+	private final int columns;
+	private final int rows;
+	private final int fullRowMask;
+
+	// Occupied cells of each row, indexed by row.
+	private final int[] rowMasks;
+
+	// Scratch space for Shape Block positions.
+	private final int[] blockPositions = new int[8];
+
+
+	//-- Precomputed row masks for every orientation reachable under the
+	//   SuperRotationSystem, indexed by (ShapeType ordinal * 4 + RotationState ordinal).
+	private static final int NUM_ORIENTATIONS =
+			ShapeType.values().length * RotationState.values().length;
+
+	private static final boolean[] knownOrientations = new boolean[NUM_ORIENTATIONS];
+
+	// Packed Block offsets of each orientation.
+	private static final int[] orientationOffsets = new int[NUM_ORIENTATIONS];
+
+	// Bounds of each orientation's Block offsets from the packed Shape origin.
+	private static final int[] minColumnOffsets = new int[NUM_ORIENTATIONS];
+	private static final int[] maxColumnOffsets = new int[NUM_ORIENTATIONS];
+	private static final int[] minRowOffsets = new int[NUM_ORIENTATIONS];
+	private static final int[] maxRowOffsets = new int[NUM_ORIENTATIONS];
+
+	// Four row masks per orientation, starting at the lowest row of the orientation,
+	// with bit 0 corresponding to the left most column of the orientation.
+	private static final int[] orientationRowMasks = new int[NUM_ORIENTATIONS * 4];
+
+	static {
+		SuperRotationSystem rotationSystem = new SuperRotationSystem();
+
+		for(ShapeType shapeType : ShapeType.values()){
+			long packedShape = PackedShape.spawn(shapeType);
+
+			for(int i = 0; i < RotationState.values().length; i++){
+				computeOrientationMasks(packedShape);
+				packedShape = rotationSystem.rotate(packedShape, Direction.RIGHT);
+			}
+		}
+	}
+
+	private static int getOrientationIndex(long packedShape){
+		return PackedShape.getShapeTypeOrdinal(packedShape) * 4 +
+				PackedShape.getRotationStateOrdinal(packedShape);
+	}
+
+	private static void computeOrientationMasks(long packedShape){
+		int index = getOrientationIndex(packedShape);
+		int minColumn = Integer.MAX_VALUE, maxColumn = Integer.MIN_VALUE;
+		int minRow = Integer.MAX_VALUE, maxRow = Integer.MIN_VALUE;
+
+		for(int i = 0; i < 4; i++){
+			minColumn = Math.min(minColumn, PackedShape.getBlockColumnOffset(packedShape, i));
+			maxColumn = Math.max(maxColumn, PackedShape.getBlockColumnOffset(packedShape, i));
+			minRow = Math.min(minRow, PackedShape.getBlockRowOffset(packedShape, i));
+			maxRow = Math.max(maxRow, PackedShape.getBlockRowOffset(packedShape, i));
+		}
+
+		for(int i = 0; i < 4; i++){
+			int row = PackedShape.getBlockRowOffset(packedShape, i) - minRow;
+			int column = PackedShape.getBlockColumnOffset(packedShape, i) - minColumn;
+			orientationRowMasks[index * 4 + row] |= 1 << column;
+		}
+
+		orientationOffsets[index] = PackedShape.getBlockOffsets(packedShape);
+		minColumnOffsets[index] = minColumn;
+		maxColumnOffsets[index] = maxColumn;
+		minRowOffsets[index] = minRow;
+		maxRowOffsets[index] = maxRow;
+		knownOrientations[index] = true;
+	}
+
+	/**
+	 * Constructs an empty Playfield with DEFAULT_COLUMNS columns and DEFAULT_ROWS
+	 * rows.
+	 */
+	public Playfield(){
+		this(DEFAULT_COLUMNS, DEFAULT_ROWS);
+	}
+
+	/**
+	 * Constructs an empty Playfield with the given number of columns and rows.
+	 * @param columns - number of columns, between 1 and MAX_COLUMNS.
+	 * @param rows - number of rows, greater than 0.
+	 * @throws InvalidParameterException if columns or rows is out of range.
+	 */
+	public Playfield(int columns, int rows) throws InvalidParameterException {
+		if (columns < 1 || columns > MAX_COLUMNS){
+			throw new InvalidParameterException("Invalid columns argument. " +
+					"columns must be between 1 and " + MAX_COLUMNS + ".");
+		}
+		if (rows < 1){
+			throw new InvalidParameterException("Invalid rows argument. " +
+					"rows must be greater than 0.");
+		}
+
+		this.columns = columns;
+		this.rows = rows;
+		this.fullRowMask = (columns == MAX_COLUMNS) ? -1 : (1 << columns) - 1;
+		this.rowMasks = new int[rows];
+	}
+
+	/**
+	 * Constructs a copy of <code>playfield</code>.
+	 */
+	public Playfield(Playfield playfield){
+		this(playfield.columns, playfield.rows);
+		copyFrom(playfield);
+	}
+
+	/**
+	 * Copies the cells of <code>playfield</code> into this Playfield.  Both
+	 * Playfields must have the same dimensions.
+	 * @throws InvalidParameterException if the dimensions differ.
+	 */
+	public void copyFrom(Playfield playfield) throws InvalidParameterException {
+		if (playfield.columns != columns || playfield.rows != rows){
+			throw new InvalidParameterException("Invalid playfield argument. " +
+					"Playfield dimensions must match.");
+		}
+
+		System.arraycopy(playfield.rowMasks, 0, rowMasks, 0, rows);
+	}
+
+	/**
+	 * Empties every cell of this Playfield.
+	 */
+	public void clear(){
+		for(int row = 0; row < rows; row++){
+			rowMasks[row] = 0;
+		}
+	}
+
+	/**
+	 * @return number of columns in this Playfield.
+	 */
+	public int getColumns(){
+		return columns;
+	}
+
+	/**
+	 * @return number of rows in this Playfield.
+	 */
+	public int getRows(){
+		return rows;
+	}
+
+	/**
+	 * @return bitmask with one bit set for every column of the Playfield.
+	 */
+	public int getFullRowMask(){
+		return fullRowMask;
+	}
+
+	/**
+	 * Returns the bitmask of occupied cells in the given row, where bit
+	 * <code>c</code> corresponds to column <code>c</code>.
+	 * @param row - row index within [0, getRows()).
+	 */
+	public int getRowMask(int row){
+		return rowMasks[row];
+	}
+
+	/**
+	 * Sets the bitmask of occupied cells for the given row.  Bits beyond the last
+	 * column are ignored.
+	 * @param row - row index within [0, getRows()).
+	 * @param rowMask - bitmask of occupied cells.
+	 */
+	public void setRowMask(int row, int rowMask){
+		rowMasks[row] = rowMask & fullRowMask;
+	}
+
+	/**
+	 * @return true if (column, row) lies within this Playfield.
+	 */
+	public boolean isInside(int column, int row){
+		return column >= 0 && column < columns && row >= 0 && row < rows;
+	}
+
+	/**
+	 * Returns true if the cell at (column, row) is occupied.  Cells outside of the
+	 * Playfield are treated as occupied, so that they act as walls, a floor and a
+	 * ceiling.
+	 */
+	public boolean isOccupied(int column, int row){
+		if (!isInside(column, row)) return true;
+
+		return (rowMasks[row] & (1 << column)) != 0;
+	}
+
+	/**
+	 * Marks the cell at (column, row) as occupied or empty.
+	 * @throws InvalidParameterException if (column, row) is outside the Playfield.
+	 */
+	public void setOccupied(int column, int row, boolean occupied)
+			throws InvalidParameterException {
+		checkInside(column, row);
+
+		if (occupied){
+			rowMasks[row] |= 1 << column;
+		}
+		else {
+			rowMasks[row] &= ~(1 << column);
+		}
+	}
+
+	/**
+	 * @return true if every cell in the given row is occupied.
+	 */
+	public boolean isRowFull(int row){
+		return rowMasks[row] == fullRowMask;
+	}
+
+	/**
+	 * @return true if no cell in the given row is occupied.
+	 */
+	public boolean isRowEmpty(int row){
+		return rowMasks[row] == 0;
+	}
+
+	/**
+	 * Returns true if any of the Block positions given collide with an occupied
+	 * cell or lie outside of the Playfield.
+	 * @param blockPositions - column-row positions of 4 Blocks, using the layout of
+	 * {@link Shape#getBlockPositions()}.
+	 */
+	public boolean collides(int[] blockPositions){
+		for(int i = 0; i < 8; i += 2){
+			if (isOccupied(blockPositions[i], blockPositions[i + 1])){
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Returns true if any Block of <code>shape</code> collides with an occupied cell
+	 * or lies outside of the Playfield.
+	 */
+	public boolean collides(Shape shape){
+		shape.getBlockPositions(blockPositions);
+
+		return collides(blockPositions);
+	}
+
+	/**
+	 * Returns true if any Block of the packed Shape collides with an occupied cell
+	 * or lies outside of the Playfield.  For orientations produced by the
+	 * SuperRotationSystem, this costs two bounds checks and at most four AND
+	 * operations.
+	 * @see PackedShape
+	 */
+	public boolean collides(long packedShape){
+		int index = getOrientationIndex(packedShape);
+
+		if (!knownOrientations[index] ||
+				orientationOffsets[index] != PackedShape.getBlockOffsets(packedShape)){
+			return collidesBlockByBlock(packedShape);
+		}
+
+		int originColumn = PackedShape.getOriginColumn(packedShape);
+		int originRow = PackedShape.getOriginRow(packedShape);
+
+		int leftColumn = originColumn + minColumnOffsets[index];
+		if (leftColumn < 0 || originColumn + maxColumnOffsets[index] >= columns){
+			return true;
+		}
+
+		int bottomRow = originRow + minRowOffsets[index];
+		int height = maxRowOffsets[index] - minRowOffsets[index] + 1;
+		if (bottomRow < 0 || bottomRow + height > rows){
+			return true;
+		}
+
+		int maskIndex = index * 4;
+		for(int i = 0; i < height; i++){
+			if ((rowMasks[bottomRow + i] & (orientationRowMasks[maskIndex + i] << leftColumn))
+					!= 0){
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private boolean collidesBlockByBlock(long packedShape){
+		for(int i = 0; i < 4; i++){
+			if (isOccupied(PackedShape.getBlockColumn(packedShape, i),
+					PackedShape.getBlockRow(packedShape, i))){
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Marks the cells at each of the given Block positions as occupied.
+	 * @param blockPositions - column-row positions of 4 Blocks, using the layout of
+	 * {@link Shape#getBlockPositions()}.
+	 * @throws InvalidParameterException if a Block lies outside of the Playfield.
+	 */
+	public void lock(int[] blockPositions) throws InvalidParameterException {
+		for(int i = 0; i < 8; i += 2){
+			checkInside(blockPositions[i], blockPositions[i + 1]);
+		}
+
+		for(int i = 0; i < 8; i += 2){
+			rowMasks[blockPositions[i + 1]] |= 1 << blockPositions[i];
+		}
+	}
+
+	/**
+	 * Marks the cells occupied by each Block of <code>shape</code> as occupied.
+	 * @throws InvalidParameterException if a Block lies outside of the Playfield.
+	 */
+	public void lock(Shape shape) throws InvalidParameterException {
+		shape.getBlockPositions(blockPositions);
+
+		lock(blockPositions);
+	}
+
+	/**
+	 * Marks the cells occupied by each Block of the packed Shape as occupied.
+	 * @throws InvalidParameterException if a Block lies outside of the Playfield.
+	 * @see PackedShape
+	 */
+	public void lock(long packedShape) throws InvalidParameterException {
+		for(int i = 0; i < 4; i++){
+			checkInside(PackedShape.getBlockColumn(packedShape, i),
+					PackedShape.getBlockRow(packedShape, i));
+		}
+
+		for(int i = 0; i < 4; i++){
+			rowMasks[PackedShape.getBlockRow(packedShape, i)] |=
+					1 << PackedShape.getBlockColumn(packedShape, i);
+		}
+	}
+
+	/**
+	 * Removes every full row from the Playfield, moving all rows above a removed
+	 * row down to fill the gap.  Rows at the top of the Playfield are left empty.
+	 * @return number of rows removed.
+	 */
+	public int clearFullRows(){
+		int writeRow = 0;
+
+		for(int readRow = 0; readRow < rows; readRow++){
+			int rowMask = rowMasks[readRow];
+
+			if (rowMask != fullRowMask){
+				rowMasks[writeRow++] = rowMask;
+			}
+		}
+
+		int clearedRows = rows - writeRow;
+
+		while (writeRow < rows){
+			rowMasks[writeRow++] = 0;
+		}
+
+		return clearedRows;
+	}
+
+	private void checkInside(int column, int row) throws InvalidParameterException {
+		if (!isInside(column, row)){
+			throw new InvalidParameterException("Cell (" + column + "," + row +
+					") lies outside of the Playfield.");
+		}
+	}
+
+	/**
+	 * Returns a String representation of the occupied rows of this Playfield, top
+	 * row first, useful for debugging.
+	 */
+	public String toString(){
+		StringBuilder builder = new StringBuilder();
+
+		for(int row = rows - 1; row >= 0; row--){
+			if (rowMasks[row] == 0 && builder.length() == 0) continue;
+
+			for(int column = 0; column < columns; column++){
+				builder.append(((rowMasks[row] >>> column) & 1) != 0 ? '#' : '.');
+			}
+			builder.append('\n');
+		}
+
+		return builder.toString();
+	}
+}
@@ -9,13 +9,16 @@ package tetrix.entities.rotations;
 public enum RotationState {
 	SPAWN_STATE, RIGHT_OF_SPAWN, SECOND_ROTATION, LEFT_OF_SPAWN;
 	
+	// Cached copy of values(), which returns a new array on every call.
+	private static final RotationState[] STATES = values();
+	
 	/**
 	 * Get RotationState generated by a right (clockwise) rotation from current
 	 * RotationState.
 	 * @return RotationState
 	 */
 	public RotationState right(){
-		return values()[ (ordinal() + 1) % values().length];
+		return STATES[ (ordinal() + 1) % STATES.length];
 	}
 	
 	/**
@@ -25,8 +28,8 @@ public enum RotationState {
 	 */
 	public RotationState left(){
 		int index = ordinal() - 1;
-		if ( index < 0) index = values().length - 1; 
+		if ( index < 0) index = STATES.length - 1; 
 		
-		return values()[index];
+		return STATES[index];
 	}
 }
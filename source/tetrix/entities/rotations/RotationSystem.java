@@ -4,7 +4,9 @@ import java.security.InvalidParameterException;
 import java.util.Map;
 
 import tetrix.entities.Direction;
+import tetrix.entities.Playfield;
 import tetrix.entities.shapes.Block;
+import tetrix.entities.shapes.PackedShape;
 import tetrix.entities.shapes.Shape;
 import tetrix.entities.shapes.ShapeType;
 
@@ -14,6 +16,11 @@ import tetrix.entities.shapes.ShapeType;
  *
  */
 public abstract class RotationSystem {
+	
+	/**
+	 * Kick index returned when a rotation against a {@link Playfield} fails.
+	 */
+	public static final int ROTATION_FAILED = -1;
 
 	protected Map<ShapeType, Map<RotationTransition, TranslationResponse>> shapeRotationResponses;
 	
@@ -30,4 +37,59 @@ public abstract class RotationSystem {
 	 */
 	public abstract void rotate(Shape shape, Direction direction) throws InvalidParameterException;
 	
+	/**
+	 * Returns a new packed Shape produced by rotating <code>packedShape</code> in a
+	 * particular {@link Direction}, following the same rules as
+	 * {@link #rotate(Shape, Direction)}.  This method does not allocate any objects.
+	 * The <code>Direction</code> argument supplied to this method must be one of
+	 * <code>LEFT</code> or <code>RIGHT</code>, otherwise an
+	 * {@link InvalidParameterException} is thrown.
+	 * @param packedShape - the packed Shape to be rotated.
+	 * @param direction - the Direction of the rotation, either LEFT or RIGHT.
+	 * @return the rotated packed Shape.
+	 * @see PackedShape
+	 */
+	public abstract long rotate(long packedShape, Direction direction)
+			throws InvalidParameterException;
+	
+	/**
+	 * Rotates a {@link Shape} in a particular {@link Direction}, testing the
+	 * rotated Shape against <code>playfield</code> and applying wall kicks when the
+	 * basic rotation collides.  Kicks are attempted in order, and the first one
+	 * whose position does not collide is applied.  If every kick collides,
+	 * <code>shape</code> is left unchanged.
+	 * @param shape - the Shape to be rotated.
+	 * @param direction - the Direction of the rotation, either LEFT or RIGHT.
+	 * @param playfield - the Playfield to test the rotated Shape against.
+	 * @return index of the kick that succeeded, where 0 is the basic rotation, or
+	 * <code>ROTATION_FAILED</code> if the Shape could not be rotated.
+	 */
+	public abstract int rotate(Shape shape, Direction direction, Playfield playfield)
+			throws InvalidParameterException;
+	
+	/**
+	 * Returns the index of the first kick that lets <code>packedShape</code> rotate
+	 * in a particular {@link Direction} without colliding with
+	 * <code>playfield</code>.  This method does not allocate any objects.
+	 * @param packedShape - the packed Shape to be rotated.
+	 * @param direction - the Direction of the rotation, either LEFT or RIGHT.
+	 * @param playfield - the Playfield to test the rotated Shape against.
+	 * @return index of the kick that succeeded, where 0 is the basic rotation, or
+	 * <code>ROTATION_FAILED</code> if the Shape can not be rotated.
+	 */
+	public abstract int getKickIndex(long packedShape, Direction direction,
+			Playfield playfield) throws InvalidParameterException;
+	
+	/**
+	 * Returns a new packed Shape produced by rotating <code>packedShape</code> in a
+	 * particular {@link Direction} and applying the first kick that does not collide
+	 * with <code>playfield</code>.  This method does not allocate any objects.
+	 * @param packedShape - the packed Shape to be rotated.
+	 * @param direction - the Direction of the rotation, either LEFT or RIGHT.
+	 * @param playfield - the Playfield to test the rotated Shape against.
+	 * @return the rotated and kicked packed Shape, or {@link PackedShape#INVALID} if
+	 * the Shape can not be rotated.
+	 */
+	public abstract long rotate(long packedShape, Direction direction,
+			Playfield playfield) throws InvalidParameterException;
 }
@@ -5,11 +5,61 @@ import java.util.HashMap;
 import java.util.Map;
 
 import tetrix.entities.Direction;
+import tetrix.entities.Playfield;
+import tetrix.entities.shapes.PackedShape;
 import tetrix.entities.shapes.Shape;
 import tetrix.entities.shapes.ShapeType;
 
+/**
+ * Implementation of the Super Rotation System (SRS) for rotating {@link Shape}s.
+ * 
+ * <p>
+ * Translation responses for every {@link ShapeType} are first described as a map of
+ * {@link RotationTransition}s to {@link TranslationResponse}s, and then compiled
+ * into flat tables indexed by <code>ShapeType</code> ordinal,
+ * <code>RotationState</code> ordinal and rotation direction, so that a rotation
+ * only costs a few array reads.
+ * 
+ * <p>
+ * Rotations against a {@link Playfield} also test the five SRS wall kicks, using
+ * the J, L, S, T, Z kick table for every ShapeType other than I and O, and the
+ * I kick table for ShapeType I.  ShapeType O never kicks.
+ * 
+ * @author Dustin Biser
+ *
+ */
 public class SuperRotationSystem extends RotationSystem {
 	
+	// Rotation directions used to index the rotation tables.
+	private static final int LEFT_INDEX = 0;
+	private static final int RIGHT_INDEX = 1;
+	private static final int NUM_DIRECTIONS = 2;
+	
+	private static final int NUM_STATES = RotationState.values().length;
+	private static final RotationState[] STATES = RotationState.values();
+	
+	// Number of column-row offsets per rotation table entry.
+	private static final int OFFSETS_PER_ENTRY = 8;
+	
+	// Block column-row offsets for each rotation, OFFSETS_PER_ENTRY per entry.
+	private int[] rotationOffsets;
+	
+	// Block offsets for each rotation, packed for use with PackedShape.
+	private int[] packedRotationOffsets;
+	
+	// RotationState ordinal reached by each rotation.
+	private byte[] endStates;
+	
+	// Number of kick tests per rotation, including the basic rotation.
+	private static final int NUM_KICKS = 5;
+	
+	// Column and row offsets of each kick test, NUM_KICKS per rotation.
+	private int[] kickColumnOffsets;
+	private int[] kickRowOffsets;
+	
+	// Number of kick tests to attempt for each rotation.
+	private byte[] kickCounts;
+	
 	public SuperRotationSystem(){
 		this.shapeRotationResponses = new
 				HashMap<ShapeType, Map<RotationTransition, TranslationResponse>>();
@@ -21,29 +71,270 @@ public class SuperRotationSystem extends RotationSystem {
 		computeSShapeReponses();
 		computeTShapeReponses();
 		computeZShapeReponses();
+		
+		compileRotationTables();
+		compileKickTables();
 	}
-
-	@Override
-	public void rotate(Shape shape, Direction direction) throws InvalidParameterException {
-		RotationState startState = shape.getRotationState();
-		RotationState endState;
-
+	
+	/**
+	 * Returns the index into the rotation tables for rotating a Shape with the given
+	 * ShapeType and RotationState ordinals in the given direction.
+	 */
+	private static int getTableIndex(int shapeTypeOrdinal, int rotationStateOrdinal,
+			int directionIndex){
+		return (shapeTypeOrdinal * NUM_STATES + rotationStateOrdinal) * NUM_DIRECTIONS
+				+ directionIndex;
+	}
+	
+	/**
+	 * Returns the index used by the rotation tables for a rotation Direction.
+	 * @throws InvalidParameterException if direction is not LEFT or RIGHT.
+	 */
+	private static int getDirectionIndex(Direction direction)
+			throws InvalidParameterException {
 		switch (direction) {
 		case LEFT:
-			endState = startState.left();
-			break;
+			return LEFT_INDEX;
 		case RIGHT:
-			endState = startState.right();
-			break;
+			return RIGHT_INDEX;
 		default:
 			throw new InvalidParameterException("Invalid Direction argument." +
 					"Direction must equal LEFT or RIGHT.\n");
 		}
+	}
+	
+	/**
+	 * Flattens shapeRotationResponses into the primitive rotation tables.
+	 */
+	private void compileRotationTables(){
+		int numEntries = ShapeType.values().length * NUM_STATES * NUM_DIRECTIONS;
+		
+		rotationOffsets = new int[numEntries * OFFSETS_PER_ENTRY];
+		packedRotationOffsets = new int[numEntries];
+		endStates = new byte[numEntries];
+		
+		for(ShapeType shapeType : ShapeType.values()){
+			Map<RotationTransition, TranslationResponse> responseMap =
+					shapeRotationResponses.get(shapeType);
+			
+			for(RotationState startState : STATES){
+				for(int directionIndex = 0; directionIndex < NUM_DIRECTIONS;
+						directionIndex++){
+					int index = getTableIndex(shapeType.ordinal(), startState.ordinal(),
+							directionIndex);
+					
+					if (responseMap == null){
+						// No translations, and no change of RotationState.
+						endStates[index] = (byte)startState.ordinal();
+						continue;
+					}
+					
+					RotationState endState = (directionIndex == LEFT_INDEX) ?
+							startState.left() : startState.right();
+					
+					TranslationResponse response = responseMap.get(
+							RotationTransition.getTransition(startState, endState));
+					
+					response.getOffsets(rotationOffsets, index * OFFSETS_PER_ENTRY);
+					packedRotationOffsets[index] = response.getPackedOffsets();
+					endStates[index] = (byte)endState.ordinal();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Flattens the SRS kick offsets into the primitive kick tables.
+	 */
+	private void compileKickTables(){
+		int numEntries = ShapeType.values().length * NUM_STATES * NUM_DIRECTIONS;
+		
+		kickColumnOffsets = new int[numEntries * NUM_KICKS];
+		kickRowOffsets = new int[numEntries * NUM_KICKS];
+		kickCounts = new byte[numEntries];
+		
+		Map<RotationTransition, int[]> jlstzKicks = createJLSTZKicks();
+		Map<RotationTransition, int[]> iKicks = createIKicks();
+		
+		for(ShapeType shapeType : ShapeType.values()){
+			for(RotationState startState : STATES){
+				for(int directionIndex = 0; directionIndex < NUM_DIRECTIONS;
+						directionIndex++){
+					int index = getTableIndex(shapeType.ordinal(), startState.ordinal(),
+							directionIndex);
+					
+					if (shapeType == ShapeType.O){
+						// Only the basic rotation, with no offset.
+						kickCounts[index] = 1;
+						continue;
+					}
+					
+					RotationState endState = (directionIndex == LEFT_INDEX) ?
+							startState.left() : startState.right();
+					RotationTransition transition =
+							RotationTransition.getTransition(startState, endState);
+					
+					int[] kicks = (shapeType == ShapeType.I) ?
+							iKicks.get(transition) : jlstzKicks.get(transition);
+					
+					for(int k = 0; k < NUM_KICKS; k++){
+						kickColumnOffsets[index * NUM_KICKS + k] = kicks[2*k];
+						kickRowOffsets[index * NUM_KICKS + k] = kicks[2*k + 1];
+					}
+					kickCounts[index] = NUM_KICKS;
+				}
+			}
+		}
+	}
+	
+	/*
+	 * Wall kick offsets for Shapes J, L, S, T and Z.  Each transition lists the
+	 * column-row offsets of the five kick tests, in the order they are attempted.
+	 * 
+	 * +col (right), +row (up) 
+	 */
+	private static Map<RotationTransition, int[]> createJLSTZKicks(){
+		Map<RotationTransition, int[]> kicks = new HashMap<RotationTransition, int[]>();
+		
+		kicks.put(RotationTransition.OtoR,   new int[] {0,0, -1,0, -1, 1, 0,-2, -1,-2});
+		kicks.put(RotationTransition.RtoO,   new int[] {0,0,  1,0,  1,-1, 0, 2,  1, 2});
+		kicks.put(RotationTransition.RtoTwo, new int[] {0,0,  1,0,  1,-1, 0, 2,  1, 2});
+		kicks.put(RotationTransition.TwotoR, new int[] {0,0, -1,0, -1, 1, 0,-2, -1,-2});
+		kicks.put(RotationTransition.TwotoL, new int[] {0,0,  1,0,  1, 1, 0,-2,  1,-2});
+		kicks.put(RotationTransition.LtoTwo, new int[] {0,0, -1,0, -1,-1, 0, 2, -1, 2});
+		kicks.put(RotationTransition.LtoO,   new int[] {0,0, -1,0, -1,-1, 0, 2, -1, 2});
+		kicks.put(RotationTransition.OtoL,   new int[] {0,0,  1,0,  1, 1, 0,-2,  1,-2});
+		
+		return kicks;
+	}
+	
+	/*
+	 * Wall kick offsets for Shape I.  Each transition lists the column-row offsets
+	 * of the five kick tests, in the order they are attempted.
+	 * 
+	 * +col (right), +row (up) 
+	 */
+	private static Map<RotationTransition, int[]> createIKicks(){
+		Map<RotationTransition, int[]> kicks = new HashMap<RotationTransition, int[]>();
+		
+		kicks.put(RotationTransition.OtoR,   new int[] {0,0, -2,0,  1,0, -2,-1,  1, 2});
+		kicks.put(RotationTransition.RtoO,   new int[] {0,0,  2,0, -1,0,  2, 1, -1,-2});
+		kicks.put(RotationTransition.RtoTwo, new int[] {0,0, -1,0,  2,0, -1, 2,  2,-1});
+		kicks.put(RotationTransition.TwotoR, new int[] {0,0,  1,0, -2,0,  1,-2, -2, 1});
+		kicks.put(RotationTransition.TwotoL, new int[] {0,0,  2,0, -1,0,  2, 1, -1,-2});
+		kicks.put(RotationTransition.LtoTwo, new int[] {0,0, -2,0,  1,0, -2,-1,  1, 2});
+		kicks.put(RotationTransition.LtoO,   new int[] {0,0,  1,0, -2,0,  1,-2, -2, 1});
+		kicks.put(RotationTransition.OtoL,   new int[] {0,0, -1,0,  2,0, -1, 2,  2,-1});
+		
+		return kicks;
+	}
 
-		ShapeType shapeType = shape.getShapeType();
+	@Override
+	public void rotate(Shape shape, Direction direction) throws InvalidParameterException {
+		int index = getTableIndex(shape.getShapeType().ordinal(),
+				shape.getRotationState().ordinal(), getDirectionIndex(direction));
+		
+		shape.translateBlocks(rotationOffsets, index * OFFSETS_PER_ENTRY);
+
+		shape.setRotationState(STATES[endStates[index]]);
+	}
+	
+	@Override
+	public long rotate(long packedShape, Direction direction)
+			throws InvalidParameterException {
+		int index = getTableIndex(PackedShape.getShapeTypeOrdinal(packedShape),
+				PackedShape.getRotationStateOrdinal(packedShape),
+				getDirectionIndex(direction));
+		
+		packedShape = PackedShape.translateBlocks(packedShape,
+				packedRotationOffsets[index]);
+		
+		return PackedShape.setRotationState(packedShape, STATES[endStates[index]]);
+	}
+	
+	@Override
+	public int rotate(Shape shape, Direction direction, Playfield playfield)
+			throws InvalidParameterException {
+		long packedShape = shape.getPackedShape();
+		int kickIndex = getKickIndex(packedShape, direction, playfield);
+		
+		if (kickIndex != ROTATION_FAILED){
+			shape.setPackedShape(applyKick(packedShape, direction, kickIndex));
+		}
+		
+		return kickIndex;
+	}
+	
+	@Override
+	public int getKickIndex(long packedShape, Direction direction, Playfield playfield)
+			throws InvalidParameterException {
+		long rotated = rotate(packedShape, direction);
+		int index = getTableIndex(PackedShape.getShapeTypeOrdinal(packedShape),
+				PackedShape.getRotationStateOrdinal(packedShape),
+				getDirectionIndex(direction));
+		
+		int start = index * NUM_KICKS;
+		for(int k = 0; k < kickCounts[index]; k++){
+			long kicked = PackedShape.translate(rotated, kickColumnOffsets[start + k],
+					kickRowOffsets[start + k]);
+			
+			if (!playfield.collides(kicked)){
+				return k;
+			}
+		}
+		
+		return ROTATION_FAILED;
+	}
+	
+	@Override
+	public long rotate(long packedShape, Direction direction, Playfield playfield)
+			throws InvalidParameterException {
+		long rotated = rotate(packedShape, direction);
+		int index = getTableIndex(PackedShape.getShapeTypeOrdinal(packedShape),
+				PackedShape.getRotationStateOrdinal(packedShape),
+				getDirectionIndex(direction));
+		
+		int start = index * NUM_KICKS;
+		for(int k = 0; k < kickCounts[index]; k++){
+			long kicked = PackedShape.translate(rotated, kickColumnOffsets[start + k],
+					kickRowOffsets[start + k]);
+			
+			if (!playfield.collides(kicked)){
+				return kicked;
+			}
+		}
+		
+		return PackedShape.INVALID;
+	}
+	
+	/**
+	 * Returns <code>packedShape</code> rotated in the given direction, and then
+	 * translated by the offset of kick test <code>kickIndex</code>.
+	 */
+	private long applyKick(long packedShape, Direction direction, int kickIndex){
+		int index = getTableIndex(PackedShape.getShapeTypeOrdinal(packedShape),
+				PackedShape.getRotationStateOrdinal(packedShape),
+				getDirectionIndex(direction));
+		
+		return PackedShape.translate(rotate(packedShape, direction),
+				kickColumnOffsets[index * NUM_KICKS + kickIndex],
+				kickRowOffsets[index * NUM_KICKS + kickIndex]);
+	}
+	
+	/**
+	 * Rotates <code>shape</code> by looking up its {@link TranslationResponse} in
+	 * shapeRotationResponses rather than in the compiled rotation tables.  This is
+	 * the reference implementation that the rotation tables are verified and
+	 * benchmarked against.
+	 */
+	public void rotateUsingResponseMap(Shape shape, Direction direction)
+			throws InvalidParameterException {
+		RotationState startState = shape.getRotationState();
+		RotationState endState = (getDirectionIndex(direction) == LEFT_INDEX) ?
+				startState.left() : startState.right();
 
 		Map<RotationTransition, TranslationResponse> responseMap =
-				shapeRotationResponses.get(shapeType);
+				shapeRotationResponses.get(shape.getShapeType());
 		
 		if (responseMap == null){
 			// No translations for the given ShapeType.
@@ -53,9 +344,7 @@ public class SuperRotationSystem extends RotationSystem {
 		RotationTransition transition =
 				RotationTransition.getTransition(startState, endState);
 
-		TranslationResponse response = responseMap.get(transition);
-		
-		response.translate(shape);
+		responseMap.get(transition).translate(shape);
 
 		shape.setRotationState(endState);
 	}
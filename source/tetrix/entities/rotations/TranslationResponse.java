@@ -1,6 +1,7 @@
 package tetrix.entities.rotations;
 
 import tetrix.entities.shapes.Block;
+import tetrix.entities.shapes.PackedShape;
 import tetrix.entities.shapes.Shape;
 
 
@@ -17,6 +18,8 @@ import tetrix.entities.shapes.Shape;
  * <li>rowOffset = k,  represents a translation Up by k rows.</li>
  * <li>rowOffset = -k,  represents a translation Down by k rows.</li>
  * <br>
+ * A TranslationResponse can also be applied to a packed Shape (see
+ * {@link PackedShape}), in which case each offset must lie within [-8, 7].
  * 
  * @author Dustin Biser
  *
@@ -27,6 +30,9 @@ public class TranslationResponse {
 	private int cColOffset, cRowOffset;
 	private int dColOffset, dRowOffset;
 	
+	// All offsets packed for use with PackedShape.translateBlocks().
+	private int packedOffsets;
+	
 	
 	/**
 	 * Constructs a TranslationReponse with no translations.  Translations can be
@@ -50,6 +56,7 @@ public class TranslationResponse {
 	public TranslationResponse translateA(int aColOffset, int aRowOffset){
 		this.aColOffset = aColOffset;
 		this.aRowOffset = aRowOffset;
+		updatePackedOffsets();
 		
 		return this;
 	}
@@ -64,6 +71,7 @@ public class TranslationResponse {
 	public TranslationResponse translateB(int bColOffset, int bRowOffset){
 		this.bColOffset = bColOffset;
 		this.bRowOffset = bRowOffset;
+		updatePackedOffsets();
 		
 		return this;
 	}
@@ -78,6 +86,7 @@ public class TranslationResponse {
 	public TranslationResponse translateC(int cColOffset, int cRowOffset){
 		this.cColOffset = cColOffset;
 		this.cRowOffset = cRowOffset;
+		updatePackedOffsets();
 		
 		return this;
 	}
@@ -92,6 +101,7 @@ public class TranslationResponse {
 	public TranslationResponse translateD(int dColOffset, int dRowOffset){
 		this.dColOffset = dColOffset;
 		this.dRowOffset = dRowOffset;
+		updatePackedOffsets();
 		
 		return this;
 	}
@@ -109,6 +119,44 @@ public class TranslationResponse {
 		s.translateD(dColOffset, dRowOffset);
 	}
 	
+	/**
+	 * Returns a new packed Shape where each Block of <code>packedShape</code> has
+	 * been translated by using the translations that define this
+	 * {@link TranslationResponse}.  No new objects are allocated.
+	 * @param packedShape - packed Shape to be translated.
+	 * @return translated packed Shape.
+	 * @see PackedShape
+	 */
+	public long translate(long packedShape){
+		return PackedShape.translateBlocks(packedShape, packedOffsets);
+	}
+	
+	/**
+	 * Stores the column-row offsets of this TranslationResponse in
+	 * <code>result</code>, starting at index <code>start</code>, in the order
+	 * A-col, A-row, B-col, B-row, C-col, C-row, D-col, D-row.
+	 * @param result - array to hold the 8 offsets.
+	 * @param start - index within <code>result</code> of Block-A's column offset.
+	 */
+	public void getOffsets(int[] result, int start){
+		result[start]     = aColOffset;
+		result[start + 1] = aRowOffset;
+		result[start + 2] = bColOffset;
+		result[start + 3] = bRowOffset;
+		result[start + 4] = cColOffset;
+		result[start + 5] = cRowOffset;
+		result[start + 6] = dColOffset;
+		result[start + 7] = dRowOffset;
+	}
+	
+	/**
+	 * @return the offsets of this TranslationResponse packed for use with
+	 * {@link PackedShape#translateBlocks(long, int)}.
+	 */
+	public int getPackedOffsets(){
+		return packedOffsets;
+	}
+	
 	/**
 	 * Returns a new TranslationResponse representing the inverse of this TranslationResponse.
 	 * If a {@link Shape} is translated using a TranslationResponse <code>t</code>,
@@ -122,4 +170,9 @@ public class TranslationResponse {
 				                        .translateC(-1 * cColOffset, -1 * cRowOffset)
 				                        .translateD(-1 * dColOffset, -1 * dRowOffset);
 	}
+	
+	private void updatePackedOffsets(){
+		packedOffsets = PackedShape.packBlockOffsets(aColOffset, aRowOffset,
+				bColOffset, bRowOffset, cColOffset, cRowOffset, dColOffset, dRowOffset);
+	}
 }
@@ -0,0 +1,296 @@
+package tetrix.entities.shapes;
+
+import java.security.InvalidParameterException;
+
+import tetrix.entities.rotations.RotationState;
+
+/**
+ * Static helper methods for working with packed Shapes.  A packed Shape is an
+ * immutable <code>long</code> value that holds everything needed to locate the 4
+ * Blocks of a {@link Shape}, so that Shapes can be stored, copied, translated and
+ * rotated without allocating any objects.
+ *
+ * <p>
+ * A packed Shape is composed of an origin column-row position, together with four
+ * column-row offsets from the origin, one pair for each of the Blocks A, B, C, and D.
+ * The origin is the position of Block-A when the Shape is in SPAWN_STATE, and moves
+ * along with the Shape whenever the whole Shape is translated.  Rotations only change
+ * the Block offsets.  Bits are laid out as follows:<br>
+ * <pre>
+ * bits  0-31 : Block offsets, 4 signed bits each, in the order
+ *              A-col, A-row, B-col, B-row, C-col, C-row, D-col, D-row
+ * bits 32-39 : origin column (signed byte)
+ * bits 40-47 : origin row (signed byte)
+ * bits 48-49 : RotationState ordinal
+ * bits 50-52 : ShapeType ordinal
+ * </pre>
+ * Block offsets must lie within [-8, 7] and origin coordinates within [-128, 127].
+ *
+ * @author Dustin Biser
+ *
+ */
+public final class PackedShape {
+
+	/**
+	 * Value that is never produced for a valid Shape.  Used to signal that an
+	 * operation on a packed Shape did not succeed.
+	 */
+	public static final long INVALID = -1L;
+
+	private static final int ORIGIN_COLUMN_SHIFT = 32;
+	private static final int ORIGIN_ROW_SHIFT = 40;
+	private static final int ROTATION_STATE_SHIFT = 48;
+	private static final int SHAPE_TYPE_SHIFT = 50;
+
+	private static final long OFFSETS_MASK = 0xFFFFFFFFL;
+	private static final long ORIGIN_MASK = 0xFFFFL << ORIGIN_COLUMN_SHIFT;
+	private static final long ROTATION_STATE_MASK = 0x3L << ROTATION_STATE_SHIFT;
+
+	// Sign bit of each 4 bit Block offset.
+	private static final int OFFSET_SIGN_BITS = 0x88888888;
+
+	private static final ShapeType[] SHAPE_TYPES = ShapeType.values();
+	private static final RotationState[] ROTATION_STATES = RotationState.values();
+
+	// Packed spawn position for each ShapeType, indexed by ShapeType ordinal.
+	private static final long[] SPAWN_SHAPES = new long[SHAPE_TYPES.length];
+
+	static {
+		SPAWN_SHAPES[ShapeType.I.ordinal()] = new IShape().getPackedShape();
+		SPAWN_SHAPES[ShapeType.J.ordinal()] = new JShape().getPackedShape();
+		SPAWN_SHAPES[ShapeType.L.ordinal()] = new LShape().getPackedShape();
+		SPAWN_SHAPES[ShapeType.O.ordinal()] = new OShape().getPackedShape();
+		SPAWN_SHAPES[ShapeType.S.ordinal()] = new SShape().getPackedShape();
+		SPAWN_SHAPES[ShapeType.T.ordinal()] = new TShape().getPackedShape();
+		SPAWN_SHAPES[ShapeType.Z.ordinal()] = new ZShape().getPackedShape();
+	}
+
+	private PackedShape(){
+
+	}
+
+	/**
+	 * Returns a packed Shape with the given ShapeType, RotationState, origin and
+	 * Block offsets.
+	 * @param shapeType - ShapeType of the packed Shape.
+	 * @param rotationState - RotationState of the packed Shape.
+	 * @param originColumn - column of the packed Shape's origin.
+	 * @param originRow - row of the packed Shape's origin.
+	 * @param blockOffsets - packed Block offsets, as returned by
+	 * {@link #packBlockOffsets(int, int, int, int, int, int, int, int)}.
+	 * @return packed Shape.
+	 */
+	public static long pack(ShapeType shapeType, RotationState rotationState,
+			int originColumn, int originRow, int blockOffsets){
+		return ((long)shapeType.ordinal() << SHAPE_TYPE_SHIFT)
+				| ((long)rotationState.ordinal() << ROTATION_STATE_SHIFT)
+				| ((long)(originRow & 0xFF) << ORIGIN_ROW_SHIFT)
+				| ((long)(originColumn & 0xFF) << ORIGIN_COLUMN_SHIFT)
+				| (blockOffsets & OFFSETS_MASK);
+	}
+
+	/**
+	 * Packs four column-row offset pairs, one pair for each Block A, B, C and D,
+	 * into a single integer.  Each offset must lie within [-8, 7].
+	 * @return packed Block offsets.
+	 */
+	public static int packBlockOffsets(int aColOffset, int aRowOffset,
+									   int bColOffset, int bRowOffset,
+									   int cColOffset, int cRowOffset,
+									   int dColOffset, int dRowOffset){
+		return (aColOffset & 0xF)
+				| (aRowOffset & 0xF) << 4
+				| (bColOffset & 0xF) << 8
+				| (bRowOffset & 0xF) << 12
+				| (cColOffset & 0xF) << 16
+				| (cRowOffset & 0xF) << 20
+				| (dColOffset & 0xF) << 24
+				| (dRowOffset & 0xF) << 28;
+	}
+
+	/**
+	 * Returns the packed Shape for the given ShapeType at its spawn position, with
+	 * RotationState equal to SPAWN_STATE.
+	 * @param shapeType
+	 * @return packed Shape.
+	 */
+	public static long spawn(ShapeType shapeType){
+		return SPAWN_SHAPES[shapeType.ordinal()];
+	}
+
+	/**
+	 * @return ShapeType of the packed Shape.
+	 */
+	public static ShapeType getShapeType(long packedShape){
+		return SHAPE_TYPES[getShapeTypeOrdinal(packedShape)];
+	}
+
+	/**
+	 * @return ordinal of the ShapeType of the packed Shape.
+	 */
+	public static int getShapeTypeOrdinal(long packedShape){
+		return (int)(packedShape >>> SHAPE_TYPE_SHIFT) & 0x7;
+	}
+
+	/**
+	 * @return RotationState of the packed Shape.
+	 */
+	public static RotationState getRotationState(long packedShape){
+		return ROTATION_STATES[getRotationStateOrdinal(packedShape)];
+	}
+
+	/**
+	 * @return ordinal of the RotationState of the packed Shape.
+	 */
+	public static int getRotationStateOrdinal(long packedShape){
+		return (int)(packedShape >>> ROTATION_STATE_SHIFT) & 0x3;
+	}
+
+	/**
+	 * Returns a new packed Shape equal to <code>packedShape</code> but with the
+	 * given RotationState.  Block positions are left unchanged.
+	 */
+	public static long setRotationState(long packedShape, RotationState rotationState){
+		return (packedShape & ~ROTATION_STATE_MASK)
+				| ((long)rotationState.ordinal() << ROTATION_STATE_SHIFT);
+	}
+
+	/**
+	 * @return column of the packed Shape's origin.
+	 */
+	public static int getOriginColumn(long packedShape){
+		return (byte)(packedShape >>> ORIGIN_COLUMN_SHIFT);
+	}
+
+	/**
+	 * @return row of the packed Shape's origin.
+	 */
+	public static int getOriginRow(long packedShape){
+		return (byte)(packedShape >>> ORIGIN_ROW_SHIFT);
+	}
+
+	/**
+	 * @return packed Block offsets of the packed Shape.
+	 */
+	public static int getBlockOffsets(long packedShape){
+		return (int)packedShape;
+	}
+
+	/**
+	 * @param packedShape
+	 * @param block - Block index, where Blocks A,B,C,D correspond to indices
+	 * 0,1,2,3 respectively.
+	 * @return column offset of the given Block from the packed Shape's origin.
+	 */
+	public static int getBlockColumnOffset(long packedShape, int block){
+		return (int)packedShape << (28 - 8*block) >> 28;
+	}
+
+	/**
+	 * @param packedShape
+	 * @param block - Block index, where Blocks A,B,C,D correspond to indices
+	 * 0,1,2,3 respectively.
+	 * @return row offset of the given Block from the packed Shape's origin.
+	 */
+	public static int getBlockRowOffset(long packedShape, int block){
+		return (int)packedShape << (24 - 8*block) >> 28;
+	}
+
+	/**
+	 * @param packedShape
+	 * @param block - Block index, where Blocks A,B,C,D correspond to indices
+	 * 0,1,2,3 respectively.
+	 * @return column position of the given Block.
+	 */
+	public static int getBlockColumn(long packedShape, int block){
+		return getOriginColumn(packedShape) + getBlockColumnOffset(packedShape, block);
+	}
+
+	/**
+	 * @param packedShape
+	 * @param block - Block index, where Blocks A,B,C,D correspond to indices
+	 * 0,1,2,3 respectively.
+	 * @return row position of the given Block.
+	 */
+	public static int getBlockRow(long packedShape, int block){
+		return getOriginRow(packedShape) + getBlockRowOffset(packedShape, block);
+	}
+
+	/**
+	 * Stores the column-row positions of each of the 4 Blocks of the packed Shape in
+	 * <code>result</code>, using the same layout as {@link Shape#getBlockPositions()}.
+	 * @param packedShape
+	 * @param result - integer array with at least 8 elements.
+	 */
+	public static void getBlockPositions(long packedShape, int[] result){
+		int originColumn = getOriginColumn(packedShape);
+		int originRow = getOriginRow(packedShape);
+
+		for(int i = 0; i < 4; i++){
+			result[2*i] = originColumn + getBlockColumnOffset(packedShape, i);
+			result[2*i + 1] = originRow + getBlockRowOffset(packedShape, i);
+		}
+	}
+
+	/**
+	 * Returns a new packed Shape with all Blocks translated by colOffset number of
+	 * columns and rowOffset number of rows.
+	 * @param packedShape - packed Shape to translate.
+	 * @param colOffset - number of columns to translate Shape by.
+	 * @param rowOffset - number of rows to translate Shape by.
+	 * @return translated packed Shape.
+	 */
+	public static long translate(long packedShape, int colOffset, int rowOffset){
+		int column = getOriginColumn(packedShape) + colOffset;
+		int row = getOriginRow(packedShape) + rowOffset;
+
+		return (packedShape & ~ORIGIN_MASK)
+				| ((long)(row & 0xFF) << ORIGIN_ROW_SHIFT)
+				| ((long)(column & 0xFF) << ORIGIN_COLUMN_SHIFT);
+	}
+
+	/**
+	 * Returns a new packed Shape where each Block offset has been shifted by the
+	 * corresponding offset within <code>blockOffsets</code>.  Each 4 bit offset is
+	 * added independently of the others, without carrying into its neighbour.
+	 * @param packedShape - packed Shape to translate.
+	 * @param blockOffsets - packed Block offsets, as returned by
+	 * {@link #packBlockOffsets(int, int, int, int, int, int, int, int)}.
+	 * @return packed Shape with translated Blocks.
+	 */
+	public static long translateBlocks(long packedShape, int blockOffsets){
+		int offsets = (int)packedShape;
+		int sum = ((offsets & ~OFFSET_SIGN_BITS) + (blockOffsets & ~OFFSET_SIGN_BITS))
+				^ ((offsets ^ blockOffsets) & OFFSET_SIGN_BITS);
+
+		return (packedShape & ~OFFSETS_MASK) | (sum & OFFSETS_MASK);
+	}
+
+	/**
+	 * Returns a String representation of the packed Shape, useful for debugging.
+	 */
+	public static String toString(long packedShape){
+		StringBuilder builder = new StringBuilder();
+		builder.append(getShapeType(packedShape)).append(' ');
+		builder.append(getRotationState(packedShape)).append(" [");
+
+		for(int i = 0; i < 4; i++){
+			if (i > 0) builder.append(", ");
+			builder.append('(').append(getBlockColumn(packedShape, i)).append(',');
+			builder.append(getBlockRow(packedShape, i)).append(')');
+		}
+
+		return builder.append(']').toString();
+	}
+
+	/**
+	 * Checks that <code>value</code> can be stored as a packed Block offset.
+	 * @throws InvalidParameterException if value is outside of [-8, 7].
+	 */
+	static void checkBlockOffset(int value) throws InvalidParameterException {
+		if (value < -8 || value > 7){
+			throw new InvalidParameterException("Block offset " + value +
+					" can not be packed. Offsets must lie within [-8, 7].");
+		}
+	}
+}
@@ -1,5 +1,7 @@
 package tetrix.entities.shapes;
 
+import java.security.InvalidParameterException;
+
 import tetrix.entities.Direction;
 import tetrix.entities.rotations.RotationState;
 import static tetrix.entities.rotations.RotationState.*;
@@ -11,6 +13,11 @@ import static tetrix.entities.rotations.RotationState.*;
  * upwards.  When a Shape object is first created, it's {@link RotationState}
  * defaults to <code>RotationState.SPAWN_STATE</code>.
  * 
+ * <p>
+ * A Shape can be converted to and from a packed <code>long</code> representation
+ * using {@link #getPackedShape()} and {@link #setPackedShape(long)}.  See
+ * {@link PackedShape} for details.
+ * 
  * @author Dustin Biser
  * 
  */
@@ -28,6 +35,12 @@ public abstract class Shape {
 	private int resetAColumn;
 	private int resetARow;
 	
+	// Column-Row coordinates of Block-A while in SPAWN_STATE.  The origin follows
+	// the Shape when the whole Shape is translated, but not when individual
+	// Blocks are translated.
+	private int originColumn;
+	private int originRow;
+	
 	protected ShapeType shapeType;
 
 	/**
@@ -156,6 +169,9 @@ public abstract class Shape {
 		blocks[0].setColumn(resetAColumn);
 		blocks[0].setRow(resetARow);
 		
+		originColumn = resetAColumn;
+		originRow = resetARow;
+		
 		// Use construction directions if available.
 		if (constructionDirections != null) {
 			Direction direction;
@@ -256,30 +272,104 @@ public abstract class Shape {
 	public int[] getBlockPositions(){
 		int[] result = new int[8];
 		
+		getBlockPositions(result);
+		
+		return result;
+	}
+	
+	/**
+	 * Stores the current column-row positions of each of the 4 Blocks that compose
+	 * this Shape in <code>result</code>, using the same layout as
+	 * {@link #getBlockPositions()}.  No new objects are allocated.
+	 * @param result - integer array with at least 8 elements.
+	 */
+	public void getBlockPositions(int[] result){
 		for(int i = 0; i < 4; i++){
 			result[2*i] = blocks[i].getColumn();
 			result[2*i + 1] = blocks[i].getRow();
 		}
+	}
+
+	/**
+	 * @param block - index of the Block, where Blocks A, B, C, D correspond to
+	 * indices 0, 1, 2, 3 respectively.
+	 * @return column position of the given Block.
+	 */
+	public int getBlockColumn(int block){
+		return blocks[block].getColumn();
+	}
+
+	/**
+	 * @param block - index of the Block, where Blocks A, B, C, D correspond to
+	 * indices 0, 1, 2, 3 respectively.
+	 * @return row position of the given Block.
+	 */
+	public int getBlockRow(int block){
+		return blocks[block].getRow();
+	}
+
+	/**
+	 * Returns the packed representation of this Shape.  The packed Shape's origin
+	 * is the position Block-A would occupy if this Shape were in SPAWN_STATE.
+	 * @return packed Shape.
+	 * @throws InvalidParameterException if a Block is too far from the origin to be
+	 * packed.
+	 * @see PackedShape
+	 */
+	public long getPackedShape() throws InvalidParameterException {
+		int blockOffsets = 0;
+		int colOffset, rowOffset;
 		
-		return result;
+		for(int i = 0; i < 4; i++){
+			colOffset = blocks[i].getColumn() - originColumn;
+			rowOffset = blocks[i].getRow() - originRow;
+			
+			PackedShape.checkBlockOffset(colOffset);
+			PackedShape.checkBlockOffset(rowOffset);
+			
+			blockOffsets |= (colOffset & 0xF) << (8*i);
+			blockOffsets |= (rowOffset & 0xF) << (8*i + 4);
+		}
+		
+		return PackedShape.pack(shapeType, rotationState, originColumn, originRow,
+				blockOffsets);
 	}
 	
-	public void moveLeft(){
-		for(Block block : blocks){
-			block.translate(-1, 0);
+	/**
+	 * Sets the Block positions and RotationState of this Shape from a packed Shape.
+	 * No new objects are allocated.
+	 * @param packedShape - packed Shape with the same ShapeType as this Shape.
+	 * @throws InvalidParameterException if the ShapeType of <code>packedShape</code>
+	 * differs from this Shape's ShapeType.
+	 * @see PackedShape
+	 */
+	public void setPackedShape(long packedShape) throws InvalidParameterException {
+		if (PackedShape.getShapeTypeOrdinal(packedShape) != shapeType.ordinal()){
+			throw new InvalidParameterException("Invalid packedShape argument. " +
+					"ShapeType of packedShape must equal " + shapeType + ".");
 		}
+		
+		originColumn = PackedShape.getOriginColumn(packedShape);
+		originRow = PackedShape.getOriginRow(packedShape);
+		
+		for(int i = 0; i < 4; i++){
+			blocks[i].setColumn(PackedShape.getBlockColumn(packedShape, i));
+			blocks[i].setRow(PackedShape.getBlockRow(packedShape, i));
+		}
+		
+		rotationState = PackedShape.getRotationState(packedShape);
+	}
+	
+	public void moveLeft(){
+		translate(-1, 0);
 	}
 	
 	public void moveRight(){
-		for(Block block : blocks){
-			block.translate(1, 0);
-		}
+		translate(1, 0);
 	}
 	
 	public void moveDown(){
-		for(Block block : blocks){
-			block.translate(0, -1);
-		}
+		translate(0, -1);
 	}
 	
 	/**
@@ -296,6 +386,9 @@ public abstract class Shape {
 		for(Block block : blocks){
 			block.translate(colOffset, rowOffset);
 		}
+		
+		originColumn += colOffset;
+		originRow += rowOffset;
 	}
 	
 	public void translateA(int colOffset, int rowOffset){
@@ -313,4 +406,18 @@ public abstract class Shape {
 	public void translateD(int colOffset, int rowOffset){
 		blocks[3].translate(colOffset, rowOffset);
 	}
+	
+	/**
+	 * Translates each of Blocks A, B, C and D by the column-row offset pairs stored
+	 * in <code>offsets</code>, starting at index <code>start</code>.  The 8 offsets
+	 * are read in the same order as the positions returned by
+	 * {@link #getBlockPositions()}.
+	 * @param offsets - array of column-row offsets.
+	 * @param start - index of Block-A's column offset within <code>offsets</code>.
+	 */
+	public void translateBlocks(int[] offsets, int start){
+		for(int i = 0; i < 4; i++){
+			blocks[i].translate(offsets[start + 2*i], offsets[start + 2*i + 1]);
+		}
+	}
 }
@@ -0,0 +1,73 @@
+package tetrix.entities.shapes;
+
+/**
+ * Holds one reusable Shape instance for each {@link ShapeType}.  Rather than
+ * constructing a new Shape whenever a Shape spawns, the Shape of the spawning
+ * ShapeType is reset to its spawn position with {@link Shape#reset()} and handed
+ * out again.  A Shape returned by {@link #get(ShapeType)} is therefore only valid
+ * until the next call for the same ShapeType.
+ * @author Dustin Biser
+ *
+ */
+public class ShapePool {
+	private final Shape[] shapes;
+	
+	public ShapePool(){
+		ShapeType[] shapeTypes = ShapeType.values();
+		shapes = new Shape[shapeTypes.length];
+		
+		for(ShapeType shapeType : shapeTypes){
+			shapes[shapeType.ordinal()] = create(shapeType);
+		}
+	}
+	
+	/**
+	 * Constructs a new Shape of the given ShapeType at its spawn position.
+	 * @param shapeType
+	 * @return new Shape.
+	 */
+	public static Shape create(ShapeType shapeType){
+		switch (shapeType){
+		case I:
+			return new IShape();
+		case J:
+			return new JShape();
+		case L:
+			return new LShape();
+		case O:
+			return new OShape();
+		case S:
+			return new SShape();
+		case T:
+			return new TShape();
+		default:
+			return new ZShape();
+		}
+	}
+	
+	/**
+	 * Resets the Shape of the given ShapeType to its spawn position and
+	 * RotationState, and returns it.  No new objects are allocated.
+	 * @param shapeType
+	 * @return the pooled Shape of <code>shapeType</code>.
+	 */
+	public Shape get(ShapeType shapeType){
+		Shape shape = shapes[shapeType.ordinal()];
+		shape.reset();
+		
+		return shape;
+	}
+	
+	/**
+	 * Same as {@link #get(ShapeType)}, taking a ShapeType ordinal such as those
+	 * generated in bulk by {@link tetrix.randomizers.PieceGenerator#fill(byte[], int, int)}.
+	 * @param ordinal - ShapeType ordinal.
+	 * @return the pooled Shape of the given ShapeType.
+	 */
+	public Shape get(int ordinal){
+		Shape shape = shapes[ordinal];
+		shape.reset();
+		
+		return shape;
+	}
+}
@@ -0,0 +1,74 @@
+package tetrix.randomizers;
+
+import java.util.SplittableRandom;
+
+import tetrix.entities.shapes.ShapeType;
+
+/**
+ * PieceGenerator that deals ShapeTypes from a shuffled bag holding one of each
+ * ShapeType, reshuffling the bag once it is empty (the "7-bag" randomizer).  Every
+ * run of 7 ShapeTypes starting at a multiple of 7 contains each ShapeType exactly
+ * once, so at most 12 Shapes separate two Shapes of the same ShapeType.
+ * @author Dustin Biser
+ *
+ */
+public class BagGenerator implements PieceGenerator {
+	private static final ShapeType[] SHAPE_TYPES = ShapeType.values();
+	private static final int BAG_SIZE = SHAPE_TYPES.length;
+	
+	private SplittableRandom random;
+	
+	// ShapeType ordinals of the current bag, dealt from index 0 upwards.
+	private final byte[] bag = new byte[BAG_SIZE];
+	private int dealt;
+	
+	public BagGenerator(long seed){
+		reset(seed);
+	}
+
+	@Override
+	public void reset(long seed) {
+		random = new SplittableRandom(seed);
+		dealt = BAG_SIZE;
+	}
+
+	@Override
+	public ShapeType next() {
+		if (dealt == BAG_SIZE){
+			shuffle();
+		}
+		
+		return SHAPE_TYPES[bag[dealt++]];
+	}
+
+	@Override
+	public void fill(byte[] queue, int offset, int length) {
+		int end = offset + length;
+		int i = offset;
+		
+		while (i < end){
+			if (dealt == BAG_SIZE){
+				shuffle();
+			}
+			
+			int count = Math.min(BAG_SIZE - dealt, end - i);
+			System.arraycopy(bag, dealt, queue, i, count);
+			dealt += count;
+			i += count;
+		}
+	}
+	
+	/**
+	 * Refills the bag with one of each ShapeType in a random order, using a
+	 * Fisher-Yates shuffle.
+	 */
+	private void shuffle(){
+		for(int i = 0; i < BAG_SIZE; i++){
+			int j = random.nextInt(i + 1);
+			bag[i] = bag[j];
+			bag[j] = (byte)i;
+		}
+		
+		dealt = 0;
+	}
+}
@@ -0,0 +1,54 @@
+package tetrix.randomizers;
+
+import java.security.InvalidParameterException;
+
+/**
+ * Enumeration of the {@link PieceGenerator} implementations, used to record which
+ * randomizer a game was played with, so that the game can be reproduced from its
+ * seed.
+ * @author Dustin Biser
+ *
+ */
+public enum GeneratorType {
+	MEMORYLESS, BAG, HISTORY;
+	
+	/**
+	 * Constructs a new PieceGenerator of this GeneratorType.
+	 * @param seed - seed the PieceGenerator is reset with.
+	 * @return new PieceGenerator.
+	 */
+	public PieceGenerator create(long seed){
+		switch (this){
+		case MEMORYLESS:
+			return new MemorylessGenerator(seed);
+		case BAG:
+			return new BagGenerator(seed);
+		default:
+			return new HistoryGenerator(seed);
+		}
+	}
+	
+	/**
+	 * Returns the GeneratorType of <code>pieceGenerator</code>.
+	 * @throws InvalidParameterException if pieceGenerator is not one of the
+	 * PieceGenerators in this package, or is a HistoryGenerator with a non default
+	 * number of rolls.
+	 */
+	public static GeneratorType of(PieceGenerator pieceGenerator)
+			throws InvalidParameterException {
+		if (pieceGenerator instanceof MemorylessGenerator){
+			return MEMORYLESS;
+		}
+		else if (pieceGenerator instanceof BagGenerator){
+			return BAG;
+		}
+		else if (pieceGenerator instanceof HistoryGenerator &&
+				((HistoryGenerator)pieceGenerator).getRolls() ==
+				HistoryGenerator.DEFAULT_ROLLS){
+			return HISTORY;
+		}
+		
+		throw new InvalidParameterException("No GeneratorType for " +
+				pieceGenerator.getClass().getName() + ".\n");
+	}
+}
@@ -0,0 +1,121 @@
+package tetrix.randomizers;
+
+import java.security.InvalidParameterException;
+import java.util.SplittableRandom;
+
+import tetrix.entities.shapes.ShapeType;
+
+/**
+ * PieceGenerator in the style of the Tetris The Grand Master games.  The generator
+ * remembers the last 4 ShapeTypes it produced.  Each new ShapeType is picked
+ * uniformly at random, and while it is in the history it is picked again, up to a
+ * fixed number of rolls, after which the last roll is kept.  The history starts
+ * as Z, S, S, Z, and the first ShapeType is never S, Z or O, so a game never begins
+ * with a Shape that forces an overhang.
+ * @author Dustin Biser
+ *
+ */
+public class HistoryGenerator implements PieceGenerator {
+	public static final int HISTORY_LENGTH = 4;
+	
+	// Rolls used by Tetris The Grand Master 2.
+	public static final int DEFAULT_ROLLS = 6;
+	
+	private static final ShapeType[] SHAPE_TYPES = ShapeType.values();
+	
+	private static final byte[] INITIAL_HISTORY = {
+		(byte)ShapeType.Z.ordinal(), (byte)ShapeType.S.ordinal(),
+		(byte)ShapeType.S.ordinal(), (byte)ShapeType.Z.ordinal()
+	};
+	
+	// ShapeTypes the first Shape may have.
+	private static final byte[] FIRST_SHAPE_TYPES = {
+		(byte)ShapeType.I.ordinal(), (byte)ShapeType.J.ordinal(),
+		(byte)ShapeType.L.ordinal(), (byte)ShapeType.T.ordinal()
+	};
+	
+	private final int rolls;
+	
+	private SplittableRandom random;
+	
+	// Last HISTORY_LENGTH ShapeType ordinals, as a ring with the oldest at historyIndex.
+	private final byte[] history = new byte[HISTORY_LENGTH];
+	private int historyIndex;
+	private boolean first;
+	
+	/**
+	 * Constructs a HistoryGenerator that rolls up to DEFAULT_ROLLS times.
+	 * @param seed
+	 */
+	public HistoryGenerator(long seed){
+		this(seed, DEFAULT_ROLLS);
+	}
+	
+	/**
+	 * @param seed
+	 * @param rolls - maximum number of times a ShapeType is picked before one
+	 * in the history is accepted.
+	 * @throws InvalidParameterException if rolls is less than 1.
+	 */
+	public HistoryGenerator(long seed, int rolls) throws InvalidParameterException {
+		if (rolls < 1){
+			throw new InvalidParameterException("rolls must be at least 1.\n");
+		}
+		
+		this.rolls = rolls;
+		reset(seed);
+	}
+
+	/**
+	 * @return maximum number of times a ShapeType is picked before one in the
+	 * history is accepted.
+	 */
+	public int getRolls(){
+		return rolls;
+	}
+
+	@Override
+	public void reset(long seed) {
+		random = new SplittableRandom(seed);
+		System.arraycopy(INITIAL_HISTORY, 0, history, 0, HISTORY_LENGTH);
+		historyIndex = 0;
+		first = true;
+	}
+
+	@Override
+	public ShapeType next() {
+		return SHAPE_TYPES[nextOrdinal()];
+	}
+
+	@Override
+	public void fill(byte[] queue, int offset, int length) {
+		for(int i = offset; i < offset + length; i++){
+			queue[i] = nextOrdinal();
+		}
+	}
+	
+	private byte nextOrdinal(){
+		byte ordinal;
+		
+		if (first){
+			ordinal = FIRST_SHAPE_TYPES[random.nextInt(FIRST_SHAPE_TYPES.length)];
+			first = false;
+		}
+		else {
+			ordinal = (byte)random.nextInt(SHAPE_TYPES.length);
+			for(int roll = 1; roll < rolls && inHistory(ordinal); roll++){
+				ordinal = (byte)random.nextInt(SHAPE_TYPES.length);
+			}
+		}
+		
+		history[historyIndex] = ordinal;
+		historyIndex = (historyIndex + 1) & (HISTORY_LENGTH - 1);
+		
+		return ordinal;
+	}
+	
+	private boolean inHistory(byte ordinal){
+		return history[0] == ordinal || history[1] == ordinal ||
+				history[2] == ordinal || history[3] == ordinal;
+	}
+}
@@ -0,0 +1,38 @@
+package tetrix.randomizers;
+
+import java.util.SplittableRandom;
+
+import tetrix.entities.shapes.ShapeType;
+
+/**
+ * PieceGenerator that picks every ShapeType independently and uniformly at random,
+ * with no memory of previously generated ShapeTypes.
+ * @author Dustin Biser
+ *
+ */
+public class MemorylessGenerator implements PieceGenerator {
+	private static final ShapeType[] SHAPE_TYPES = ShapeType.values();
+	
+	private SplittableRandom random;
+	
+	public MemorylessGenerator(long seed){
+		reset(seed);
+	}
+
+	@Override
+	public void reset(long seed) {
+		random = new SplittableRandom(seed);
+	}
+
+	@Override
+	public ShapeType next() {
+		return SHAPE_TYPES[random.nextInt(SHAPE_TYPES.length)];
+	}
+
+	@Override
+	public void fill(byte[] queue, int offset, int length) {
+		for(int i = offset; i < offset + length; i++){
+			queue[i] = (byte)random.nextInt(SHAPE_TYPES.length);
+		}
+	}
+}
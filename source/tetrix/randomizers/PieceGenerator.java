@@ -0,0 +1,36 @@
+package tetrix.randomizers;
+
+import tetrix.entities.shapes.ShapeType;
+
+/**
+ * Defines a source of {@link ShapeType}s that determines the order in which Shapes
+ * are handed to the player.  A PieceGenerator is deterministic: after a call to
+ * <code>reset(seed)</code>, the sequence of ShapeTypes it produces depends only on
+ * the seed, so any game can be reproduced exactly from its seed.
+ * @author Dustin Biser
+ *
+ */
+public interface PieceGenerator {
+	
+	/**
+	 * Restarts the sequence of ShapeTypes from the given seed.
+	 * @param seed
+	 */
+	public void reset(long seed);
+	
+	/**
+	 * @return the next ShapeType in the sequence.
+	 */
+	public ShapeType next();
+	
+	/**
+	 * Stores the ordinals of the next <code>length</code> ShapeTypes in the sequence
+	 * in <code>queue</code>, starting at index <code>offset</code>.  The ShapeTypes
+	 * are the same as those <code>length</code> calls to {@link #next()} would
+	 * return, so calls to both methods may be mixed.
+	 * @param queue - array to store ShapeType ordinals in.
+	 * @param offset - index of <code>queue</code> to store the first ordinal at.
+	 * @param length - number of ShapeTypes to generate.
+	 */
+	public void fill(byte[] queue, int offset, int length);
+}
@@ -0,0 +1,343 @@
+package tetrix.rendering;
+
+import java.nio.ByteBuffer;
+
+import tetrix.entities.Playfield;
+import tetrix.entities.shapes.PackedShape;
+import tetrix.entities.shapes.ShapeType;
+
+/**
+ * Packs every visible Block of a frame (locked Playfield cells, the active Shape,
+ * its ghost, and the preview queue) into a single buffer of compact instance
+ * records, so that a {@link BlockRenderer} can draw them all with one instanced
+ * draw call.  The packer makes no GL calls, so it can be tested and benchmarked
+ * without a display.
+ *
+ * <p>
+ * Each instance record is {@link #BYTES_PER_INSTANCE} bytes:
+ * <pre>
+ * byte 0  cell column, signed
+ * byte 1  cell row, signed
+ * byte 2  texture array layer, unsigned
+ * byte 3  row offset, signed, in 1/128ths of a cell
+ * byte 4  tint red
+ * byte 5  tint green
+ * byte 6  tint blue
+ * byte 7  tint alpha
+ * </pre>
+ * Tints are given as <code>0xRRGGBBAA</code> integers, and multiply the color of
+ * the Block's texture layer.  Cell positions must lie in the range [-128, 127].
+ * The row offset shifts a Block vertically by a fraction of a cell, so that a
+ * falling Shape can be drawn between the rows of two logical states (see
+ * {@link #putInterpolatedShape(long, long, float, int)}).
+ *
+ * <p>
+ * Records are written in the order they are put, and are drawn in that order, so
+ * a ghost should be put before the active Shape it belongs to.  The buffer grows
+ * as needed; once it is large enough for a frame, packing allocates nothing.
+ *
+ * @author Dustin Biser
+ *
+ */
+public class BlockInstancePacker {
+	public static final int BYTES_PER_INSTANCE = 8;
+	
+	// Byte offsets of the fields of an instance record.
+	public static final int CELL_OFFSET = 0;
+	public static final int LAYER_OFFSET = 2;
+	public static final int ROW_OFFSET_OFFSET = 3;
+	public static final int TINT_OFFSET = 4;
+	
+	// Row offset units per cell.
+	public static final int ROW_OFFSET_SCALE = 128;
+	
+	public static final int OPAQUE_WHITE = 0xFFFFFFFF;
+	public static final int DEFAULT_GHOST_TINT = 0xFFFFFF50;
+	
+	// Texture array layers of the block textures.
+	public static final int BLUE_LAYER = 0;
+	public static final int PURPLE_LAYER = 1;
+	public static final int CYAN_LAYER = 2;
+	public static final int GREEN_LAYER = 3;
+	public static final int ORANGE_LAYER = 4;
+	public static final int RED_LAYER = 5;
+	public static final int YELLOW_LAYER = 6;
+	public static final int NUM_LAYERS = 7;
+	
+	// Texture array layer of each ShapeType, indexed by ShapeType ordinal.
+	private static final int[] SHAPE_LAYERS = new int[ShapeType.values().length];
+	static {
+		SHAPE_LAYERS[ShapeType.I.ordinal()] = CYAN_LAYER;
+		SHAPE_LAYERS[ShapeType.J.ordinal()] = BLUE_LAYER;
+		SHAPE_LAYERS[ShapeType.L.ordinal()] = ORANGE_LAYER;
+		SHAPE_LAYERS[ShapeType.O.ordinal()] = YELLOW_LAYER;
+		SHAPE_LAYERS[ShapeType.S.ordinal()] = GREEN_LAYER;
+		SHAPE_LAYERS[ShapeType.T.ordinal()] = PURPLE_LAYER;
+		SHAPE_LAYERS[ShapeType.Z.ordinal()] = RED_LAYER;
+	}
+	
+	private ByteBuffer buffer;
+	private int instanceCount;
+	
+	/**
+	 * Constructs a BlockInstancePacker with room for every cell of a default sized
+	 * Playfield, plus the active Shape, its ghost and a preview queue.
+	 */
+	public BlockInstancePacker(){
+		this(Playfield.DEFAULT_COLUMNS * Playfield.DEFAULT_ROWS + 64);
+	}
+	
+	/**
+	 * @param initialCapacity - number of instances the buffer initially holds.
+	 */
+	public BlockInstancePacker(int initialCapacity){
+		buffer = ByteBuffer.allocateDirect(Math.max(1, initialCapacity) *
+				BYTES_PER_INSTANCE);
+	}
+	
+	/**
+	 * @return texture array layer of Blocks of the given ShapeType.
+	 */
+	public static int getLayer(ShapeType shapeType){
+		return SHAPE_LAYERS[shapeType.ordinal()];
+	}
+	
+	/**
+	 * Removes all instances, so that the next frame can be packed.
+	 */
+	public void clear(){
+		instanceCount = 0;
+		
+		// getBuffer() narrows the limit to the instances of the last frame.
+		buffer.clear();
+	}
+	
+	/**
+	 * @return number of instances packed since the last call to {@link #clear()}.
+	 */
+	public int getInstanceCount(){
+		return instanceCount;
+	}
+	
+	/**
+	 * @return the packed instances, from position 0 up to a limit of
+	 * <code>getInstanceCount() * BYTES_PER_INSTANCE</code>.  The buffer is owned by
+	 * this packer and is only valid until more instances are put.
+	 */
+	public ByteBuffer getBuffer(){
+		buffer.limit(instanceCount * BYTES_PER_INSTANCE);
+		buffer.position(0);
+		
+		return buffer;
+	}
+	
+	/**
+	 * Grows the buffer, if needed, to hold <code>count</code> more instances.
+	 */
+	private void ensureCapacity(int count){
+		int required = (instanceCount + count) * BYTES_PER_INSTANCE;
+		if (required <= buffer.capacity()) return;
+		
+		ByteBuffer grown = ByteBuffer.allocateDirect(Math.max(required,
+				2 * buffer.capacity()));
+		buffer.limit(instanceCount * BYTES_PER_INSTANCE);
+		buffer.position(0);
+		grown.put(buffer);
+		
+		buffer = grown;
+	}
+	
+	/**
+	 * Writes an instance record at the end of the buffer, which must have room for it.
+	 */
+	private void write(int column, int row, int layer, int rowOffset, int tint){
+		putInstance(buffer, instanceCount * BYTES_PER_INSTANCE, column, row, layer,
+				rowOffset, tint);
+		instanceCount++;
+	}
+	
+	/**
+	 * Writes an instance record, with no row offset, into a big endian
+	 * <code>buffer</code> at byte <code>offset</code>.
+	 */
+	static void putInstance(ByteBuffer buffer, int offset, int column, int row,
+			int layer, int tint){
+		putInstance(buffer, offset, column, row, layer, 0, tint);
+	}
+	
+	/**
+	 * Writes an instance record into a big endian <code>buffer</code> at byte
+	 * <code>offset</code>.
+	 */
+	static void putInstance(ByteBuffer buffer, int offset, int column, int row,
+			int layer, int rowOffset, int tint){
+		// The buffer is big endian, so bytes are stored in the order they are read.
+		buffer.putInt(offset, (column & 0xFF) << 24 | (row & 0xFF) << 16 |
+				(layer & 0xFF) << 8 | (rowOffset & 0xFF));
+		buffer.putInt(offset + TINT_OFFSET, tint);
+	}
+	
+	/**
+	 * Packs a single Block.
+	 * @param column - cell column of the Block.
+	 * @param row - cell row of the Block.
+	 * @param layer - texture array layer of the Block.
+	 * @param tint - tint of the Block, as 0xRRGGBBAA.
+	 */
+	public void putBlock(int column, int row, int layer, int tint){
+		ensureCapacity(1);
+		write(column, row, layer, 0, tint);
+	}
+	
+	/**
+	 * Packs the 4 Blocks of a packed Shape, textured with its ShapeType's layer.
+	 * @param packedShape - Shape to pack.
+	 * @param tint - tint of the Blocks, as 0xRRGGBBAA.
+	 */
+	public void putShape(long packedShape, int tint){
+		putShape(packedShape, SHAPE_LAYERS[PackedShape.getShapeTypeOrdinal(packedShape)],
+				tint);
+	}
+	
+	/**
+	 * Packs the 4 Blocks of a packed Shape.
+	 * @param packedShape - Shape to pack.
+	 * @param layer - texture array layer of the Blocks.
+	 * @param tint - tint of the Blocks, as 0xRRGGBBAA.
+	 */
+	public void putShape(long packedShape, int layer, int tint){
+		putShape(packedShape, layer, 0, tint);
+	}
+	
+	private void putShape(long packedShape, int layer, int rowOffset, int tint){
+		ensureCapacity(4);
+		
+		for(int i = 0; i < 4; i++){
+			write(PackedShape.getBlockColumn(packedShape, i),
+					PackedShape.getBlockRow(packedShape, i), layer, rowOffset, tint);
+		}
+	}
+	
+	/**
+	 * Packs a Shape drawn between its state before the last logical tick and its
+	 * state after it.  If the Shape only moved one row up or down during the tick,
+	 * as it does when falling, it is drawn offset from <code>current</code> towards
+	 * <code>previous</code> by <code>1 - alpha</code> of a row.  Any other change,
+	 * such as a rotation, a sideways move, a hard drop or a new Shape, is drawn at
+	 * <code>current</code>, since blending it would show a state that never existed.
+	 * @param previous - the Shape before the last tick, as a packed Shape.
+	 * @param current - the Shape after the last tick, as a packed Shape.
+	 * @param alpha - how far the frame lies between the two ticks, in the range
+	 * [0, 1], such as FixedTimestepLoop.getAlpha().
+	 * @param tint - tint of the Blocks, as 0xRRGGBBAA.
+	 */
+	public void putInterpolatedShape(long previous, long current, float alpha,
+			int tint){
+		int rows = PackedShape.getOriginRow(current) - PackedShape.getOriginRow(previous);
+		int rowOffset = 0;
+		
+		if ((rows == 1 || rows == -1) &&
+				PackedShape.translate(previous, 0, rows) == current){
+			float offset = -rows * (1f - Math.max(0f, Math.min(1f, alpha)));
+			rowOffset = Math.max(-ROW_OFFSET_SCALE, Math.min(ROW_OFFSET_SCALE - 1,
+					Math.round(offset * ROW_OFFSET_SCALE)));
+		}
+		
+		putShape(current, SHAPE_LAYERS[PackedShape.getShapeTypeOrdinal(current)],
+				rowOffset, tint);
+	}
+	
+	/**
+	 * Packs the ghost of the active Shape: the active Shape dropped as far as it can
+	 * fall on <code>playfield</code>.
+	 * @param playfield - Playfield the active Shape falls on.
+	 * @param activeShape - the active Shape, as a packed Shape.
+	 * @param tint - tint of the ghost, usually translucent, as 0xRRGGBBAA.
+	 */
+	public void putGhost(Playfield playfield, long activeShape, int tint){
+		if (playfield.collides(activeShape)) return;
+		
+		long ghost = activeShape;
+		long moved = PackedShape.translate(ghost, 0, -1);
+		while (!playfield.collides(moved)){
+			ghost = moved;
+			moved = PackedShape.translate(ghost, 0, -1);
+		}
+		
+		putShape(ghost, tint);
+	}
+	
+	/**
+	 * Packs every occupied cell of the lowest <code>visibleRows</code> rows of
+	 * <code>playfield</code>, all with the same texture layer.
+	 * @param playfield - Playfield to pack.
+	 * @param visibleRows - number of rows, from the bottom, that are on screen.
+	 * @param layer - texture array layer of the cells.
+	 * @param tint - tint of the cells, as 0xRRGGBBAA.
+	 */
+	public void putPlayfield(Playfield playfield, int visibleRows, int layer, int tint){
+		putPlayfield(playfield, visibleRows, null, layer, tint);
+	}
+	
+	/**
+	 * Packs every occupied cell of the lowest <code>visibleRows</code> rows of
+	 * <code>playfield</code>, each with its own texture layer.
+	 * @param playfield - Playfield to pack.
+	 * @param visibleRows - number of rows, from the bottom, that are on screen.
+	 * @param cellLayers - texture array layer of each cell, indexed by
+	 * <code>row * columns + column</code>, such as the layer of the Shape that
+	 * locked into the cell.
+	 * @param tint - tint of the cells, as 0xRRGGBBAA.
+	 */
+	public void putPlayfield(Playfield playfield, int visibleRows, byte[] cellLayers,
+			int tint){
+		putPlayfield(playfield, visibleRows, cellLayers, 0, tint);
+	}
+	
+	private void putPlayfield(Playfield playfield, int visibleRows, byte[] cellLayers,
+			int layer, int tint){
+		int columns = playfield.getColumns();
+		int rows = Math.min(visibleRows, playfield.getRows());
+		
+		for(int row = 0; row < rows; row++){
+			int rowMask = playfield.getRowMask(row);
+			if (rowMask == 0) continue;
+			
+			ensureCapacity(Integer.bitCount(rowMask));
+			
+			int base = row * columns;
+			while (rowMask != 0){
+				int column = Integer.numberOfTrailingZeros(rowMask);
+				rowMask &= rowMask - 1;
+				
+				write(column, row, cellLayers == null ? layer :
+					cellLayers[base + column] & 0xFF, 0, tint);
+			}
+		}
+	}
+	
+	/**
+	 * Packs the Shapes of a preview queue in a column, each in its SPAWN_STATE, with
+	 * the first Shape on top.
+	 * @param preview - ShapeTypes of the preview queue, in order.
+	 * @param count - number of ShapeTypes of <code>preview</code> to pack.
+	 * @param column - cell column of the origin of each preview Shape.
+	 * @param row - cell row of the origin of the first preview Shape.
+	 * @param rowSpacing - rows between the origins of consecutive preview Shapes.
+	 * @param tint - tint of the Shapes, as 0xRRGGBBAA.
+	 */
+	public void putPreview(ShapeType[] preview, int count, int column, int row,
+			int rowSpacing, int tint){
+		count = Math.min(count, preview.length);
+		ensureCapacity(4 * count);
+		
+		for(int i = 0; i < count; i++){
+			long spawn = PackedShape.spawn(preview[i]);
+			long shape = PackedShape.translate(spawn,
+					column - PackedShape.getOriginColumn(spawn),
+					row - i * rowSpacing - PackedShape.getOriginRow(spawn));
+			
+			putShape(shape, tint);
+		}
+	}
+}
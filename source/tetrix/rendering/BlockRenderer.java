@@ -0,0 +1,360 @@
+package tetrix.rendering;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.security.InvalidParameterException;
+
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL13;
+import org.lwjgl.opengl.GL15;
+import org.lwjgl.opengl.GL20;
+import org.lwjgl.opengl.GL30;
+import org.lwjgl.util.vector.Matrix4f;
+
+import tetrix.assets.AssetPack;
+import tetrix.utilities.GLUtils;
+import tetrix.utilities.ShaderUtils;
+import tetrix.utilities.TextureUtils;
+
+/**
+ * Draws every Block of a frame with a single instanced draw call.
+ *
+ * <p>
+ * One unit quad is stored once on the GPU.  Each frame, the instance records of a
+ * {@link BlockInstancePacker} are uploaded to an instance VBO, whose attributes
+ * advance once per instance, and all Blocks are drawn by one call to
+ * glDrawElementsInstanced.  Block textures are the layers of one 2D texture array,
+ * so no texture is bound between Blocks.  Requires an OpenGL 3.3 context.
+ *
+ * <p>
+ * {@link #render(PlayfieldRenderData, BlockInstancePacker)} keeps the locked cells
+ * of the board resident at the start of the instance VBO, and only uploads the
+ * byte ranges of the board that changed, followed by the few instances of the
+ * active Shape, ghost and preview.  The bytes uploaded each frame are available
+ * from {@link #getBytesUploaded()}.
+ *
+ * <p>
+ * Blocks are positioned in cell units: the Block at a given column and row covers
+ * the square from (column, row) to (column + 1, row + 1), before being transformed
+ * by the matrix set with {@link #setMvpMatrix(Matrix4f)}.
+ *
+ * <p>
+ * Every OpenGL call is made through a {@link RenderBackend}, so a BlockRenderer
+ * constructed with a {@link NullRenderBackend} runs without an OpenGL context,
+ * and given an in-memory {@link AssetPack} and shader sources, without reading
+ * any file.
+ * Drawing leaves the block program, vertex array, texture, instance VBO and blend
+ * state bound rather than unbinding them after every frame, so when drawn
+ * through a {@link CachingRenderBackend}, frames after the first make no
+ * redundant binds.
+ *
+ * @author Dustin Biser
+ *
+ */
+public class BlockRenderer {
+	// Block textures of the default AssetPack, in texture array layer order.
+	public static final String[] BLOCK_TEXTURE_NAMES = new String[] {
+		"blue-block",
+		"purple-block",
+		"cyan-block",
+		"green-block",
+		"orange-block",
+		"red-block",
+		"yellow-block" };
+	
+	public static final String VERTEX_SHADER_FILE =
+		"source/tetrix/shaders/blockInstanceVertex.glsl";
+	public static final String FRAGMENT_SHADER_FILE =
+		"source/tetrix/shaders/blockInstanceFragment.glsl";
+	
+	// Vertex attribute locations.
+	private static final int CORNER_ATTRIBUTE = 0;
+	private static final int CELL_ATTRIBUTE = 1;
+	private static final int LAYER_ATTRIBUTE = 2;
+	private static final int TINT_ATTRIBUTE = 3;
+	private static final int ROW_OFFSET_ATTRIBUTE = 4;
+	
+	private static final int INDICES_COUNT = 6;
+	
+	private final RenderBackend backend;
+	
+	private int vaoId;
+	private int cornerVboId;
+	private int indicesVboId;
+	private int instanceVboId;
+	private int vertexShaderId;
+	private int fragmentShaderId;
+	private int programId;
+	private int textureId;
+	private int mvpMatrixLocation;
+	
+	// Size of the instance VBO's storage, and the board resident at its start.
+	private int instanceVboBytes;
+	private PlayfieldRenderData residentBoard;
+	private int bytesUploaded;
+	
+	private final BufferUploader uploader;
+	
+	private final FloatBuffer matrix44Buffer = BufferUtils.createFloatBuffer(16);
+	
+	/**
+	 * Loads the block shaders and textures, and creates the buffers used to draw
+	 * Blocks.  Must be called on the thread owning the OpenGL context.
+	 */
+	public BlockRenderer(){
+		this(LwjglRenderBackend.INSTANCE);
+	}
+	
+	/**
+	 * Loads the block shaders and textures, and creates the buffers used to draw
+	 * Blocks, through <code>backend</code>.
+	 */
+	public BlockRenderer(RenderBackend backend){
+		this(backend, openDefaultPack(), ShaderUtils.readShader(VERTEX_SHADER_FILE),
+				ShaderUtils.readShader(FRAGMENT_SHADER_FILE));
+	}
+	
+	/**
+	 * Creates the buffers used to draw Blocks through <code>backend</code>, with
+	 * the block textures of <code>pack</code> and the given shader sources.  No
+	 * file is read.
+	 * @throws InvalidParameterException if pack is missing one of the
+	 * BLOCK_TEXTURE_NAMES, or they differ in size.
+	 */
+	public BlockRenderer(RenderBackend backend, AssetPack pack,
+			CharSequence vertexShaderSource, CharSequence fragmentShaderSource)
+			throws InvalidParameterException {
+		this.backend = backend;
+		this.uploader = new GLBufferUploader(backend, GL15.GL_ARRAY_BUFFER);
+		
+		setupShaders(vertexShaderSource, fragmentShaderSource);
+		setupBuffers();
+		
+		textureId = loadBlockTextures(backend, pack);
+		
+		setMvpMatrix(new Matrix4f());
+	}
+	
+	/**
+	 * Opens the default AssetPack, rebuilding it first if it is stale, and exits if
+	 * it can not be opened.
+	 */
+	static AssetPack openDefaultPack(){
+		AssetPack pack = null;
+		try {
+			pack = AssetPack.openDefault();
+		} catch (IOException e) {
+			e.printStackTrace();
+			System.exit(-1);
+		}
+		
+		return pack;
+	}
+	
+	/**
+	 * Uploads the block textures of <code>pack</code> into a texture array.
+	 * @return texture ID of the texture array.  Nothing is left bound.
+	 */
+	static int loadBlockTextures(RenderBackend backend, AssetPack pack)
+			throws InvalidParameterException {
+		int textureId = TextureUtils.loadTextureArray(backend, pack,
+				BLOCK_TEXTURE_NAMES, GL13.GL_TEXTURE0);
+		backend.bindTexture(GL30.GL_TEXTURE_2D_ARRAY, 0);
+		
+		return textureId;
+	}
+	
+	private void setupShaders(CharSequence vertexShaderSource,
+			CharSequence fragmentShaderSource){
+		vertexShaderId = ShaderUtils.compileShader(backend, vertexShaderSource,
+				GL20.GL_VERTEX_SHADER, VERTEX_SHADER_FILE);
+		fragmentShaderId = ShaderUtils.compileShader(backend, fragmentShaderSource,
+				GL20.GL_FRAGMENT_SHADER, FRAGMENT_SHADER_FILE);
+		
+		programId = backend.createProgram();
+		backend.attachShader(programId, vertexShaderId);
+		backend.attachShader(programId, fragmentShaderId);
+		
+		// Attribute locations only take effect when the program is linked.
+		backend.bindAttribLocation(programId, CORNER_ATTRIBUTE, "in_Corner");
+		backend.bindAttribLocation(programId, CELL_ATTRIBUTE, "in_Cell");
+		backend.bindAttribLocation(programId, LAYER_ATTRIBUTE, "in_Layer");
+		backend.bindAttribLocation(programId, TINT_ATTRIBUTE, "in_Tint");
+		backend.bindAttribLocation(programId, ROW_OFFSET_ATTRIBUTE, "in_RowOffset");
+		ShaderUtils.linkProgram(backend, programId);
+		
+		mvpMatrixLocation = backend.getUniformLocation(programId, "mvpMatrix");
+		
+		// Sample block textures from texture unit 0.
+		backend.useProgram(programId);
+		backend.uniform1i(backend.getUniformLocation(programId, "blockTextures"), 0);
+		backend.useProgram(0);
+		
+		GLUtils.exitOnGLError(backend, "BlockRenderer.setupShaders");
+	}
+	
+	private void setupBuffers(){
+		vaoId = backend.genVertexArray();
+		backend.bindVertexArray(vaoId);
+		
+		// Corners of the unit quad, in counter clockwise order.
+		ByteBuffer corners = BufferUtils.createByteBuffer(8 * 4);
+		corners.asFloatBuffer().put(new float[] {0, 0,  1, 0,  1, 1,  0, 1});
+		
+		cornerVboId = backend.genBuffer();
+		backend.bindBuffer(GL15.GL_ARRAY_BUFFER, cornerVboId);
+		backend.bufferData(GL15.GL_ARRAY_BUFFER, corners, GL15.GL_STATIC_DRAW);
+		backend.vertexAttribPointer(CORNER_ATTRIBUTE, 2, GL11.GL_FLOAT, false, 0, 0);
+		backend.enableVertexAttribArray(CORNER_ATTRIBUTE);
+		
+		// Instance attributes advance once per instance, rather than per vertex.
+		instanceVboId = backend.genBuffer();
+		backend.bindBuffer(GL15.GL_ARRAY_BUFFER, instanceVboId);
+		int stride = BlockInstancePacker.BYTES_PER_INSTANCE;
+		
+		backend.vertexAttribIPointer(CELL_ATTRIBUTE, 2, GL11.GL_BYTE, stride,
+				BlockInstancePacker.CELL_OFFSET);
+		backend.vertexAttribIPointer(LAYER_ATTRIBUTE, 1, GL11.GL_UNSIGNED_BYTE, stride,
+				BlockInstancePacker.LAYER_OFFSET);
+		backend.vertexAttribPointer(TINT_ATTRIBUTE, 4, GL11.GL_UNSIGNED_BYTE, true,
+				stride, BlockInstancePacker.TINT_OFFSET);
+		backend.vertexAttribIPointer(ROW_OFFSET_ATTRIBUTE, 1, GL11.GL_BYTE, stride,
+				BlockInstancePacker.ROW_OFFSET_OFFSET);
+		
+		for(int attribute = CELL_ATTRIBUTE; attribute <= ROW_OFFSET_ATTRIBUTE;
+				attribute++){
+			backend.vertexAttribDivisor(attribute, 1);
+			backend.enableVertexAttribArray(attribute);
+		}
+		
+		// Tessellate the quad into 2 triangles.
+		ByteBuffer indices = BufferUtils.createByteBuffer(INDICES_COUNT);
+		indices.put(new byte[] {0, 1, 2, 2, 3, 0});
+		indices.flip();
+		
+		// The element array binding is part of the VAO state.
+		indicesVboId = backend.genBuffer();
+		backend.bindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, indicesVboId);
+		backend.bufferData(GL15.GL_ELEMENT_ARRAY_BUFFER, indices, GL15.GL_STATIC_DRAW);
+		
+		backend.bindVertexArray(0);
+		backend.bindBuffer(GL15.GL_ARRAY_BUFFER, 0);
+		
+		GLUtils.exitOnGLError(backend, "BlockRenderer.setupBuffers");
+	}
+	
+	/**
+	 * Sets the matrix that transforms Block cell coordinates into clip space.
+	 */
+	public void setMvpMatrix(Matrix4f mvpMatrix){
+		mvpMatrix.store(matrix44Buffer);
+		matrix44Buffer.flip();
+		
+		backend.useProgram(programId);
+		backend.uniformMatrix4(mvpMatrixLocation, false, matrix44Buffer);
+	}
+	
+	/**
+	 * Draws every instance packed into <code>packer</code> with one draw call.
+	 */
+	public void render(BlockInstancePacker packer){
+		int instanceCount = packer.getInstanceCount();
+		bytesUploaded = 0;
+		if (instanceCount == 0) return;
+		
+		// Orphan last frame's storage, so the upload does not wait on the GPU to
+		// finish drawing from it.
+		ByteBuffer instances = packer.getBuffer();
+		backend.bindBuffer(GL15.GL_ARRAY_BUFFER, instanceVboId);
+		backend.bufferData(GL15.GL_ARRAY_BUFFER, instances.remaining(),
+				GL15.GL_STREAM_DRAW);
+		backend.bufferSubData(GL15.GL_ARRAY_BUFFER, 0, instances);
+		
+		instanceVboBytes = instances.remaining();
+		residentBoard = null;
+		bytesUploaded = instances.remaining();
+		
+		draw(instanceCount);
+	}
+	
+	/**
+	 * Draws the locked cells of <code>board</code> followed by every instance packed
+	 * into <code>packer</code>, with one draw call.  Only the rows of the board that
+	 * changed since the last frame are uploaded.
+	 */
+	public void render(PlayfieldRenderData board, BlockInstancePacker packer){
+		int boardBytes = board.getByteCount();
+		ByteBuffer instances = packer.getBuffer();
+		int requiredBytes = boardBytes + instances.remaining();
+		
+		backend.bindBuffer(GL15.GL_ARRAY_BUFFER, instanceVboId);
+		
+		// Reallocating discards the board, so it must be uploaded in full, as must
+		// a board other than the one resident.
+		if (requiredBytes > instanceVboBytes){
+			instanceVboBytes = Math.max(requiredBytes, 2 * instanceVboBytes);
+			backend.bufferData(GL15.GL_ARRAY_BUFFER, instanceVboBytes,
+					GL15.GL_DYNAMIC_DRAW);
+			residentBoard = null;
+		}
+		if (board != residentBoard){
+			residentBoard = board;
+			board.markAllDirty();
+		}
+		
+		bytesUploaded = board.upload(uploader);
+		if (instances.hasRemaining()){
+			uploader.upload(boardBytes, instances);
+			bytesUploaded += instances.remaining();
+		}
+		
+		draw(board.getInstanceCount() + packer.getInstanceCount());
+	}
+	
+	/**
+	 * @return number of instance bytes uploaded by the last call to render.
+	 */
+	public int getBytesUploaded(){
+		return bytesUploaded;
+	}
+	
+	private void draw(int instanceCount){
+		backend.useProgram(programId);
+		backend.bindVertexArray(vaoId);
+		backend.activeTexture(GL13.GL_TEXTURE0);
+		backend.bindTexture(GL30.GL_TEXTURE_2D_ARRAY, textureId);
+		
+		// Tints may be translucent, as for ghost Shapes and empty cells.
+		backend.enable(GL11.GL_BLEND);
+		backend.blendFunc(GL11.GL_SRC_ALPHA, GL11.GL_ONE_MINUS_SRC_ALPHA);
+		
+		backend.drawElementsInstanced(GL11.GL_TRIANGLES, INDICES_COUNT,
+				GL11.GL_UNSIGNED_BYTE, 0, instanceCount);
+		
+		GLUtils.exitOnGLError(backend, "BlockRenderer.render");
+	}
+	
+	/**
+	 * Deletes the shaders, textures and buffers of this BlockRenderer.
+	 */
+	public void destroy(){
+		backend.deleteTexture(textureId);
+		
+		backend.useProgram(0);
+		backend.detachShader(programId, vertexShaderId);
+		backend.detachShader(programId, fragmentShaderId);
+		backend.deleteShader(vertexShaderId);
+		backend.deleteShader(fragmentShaderId);
+		backend.deleteProgram(programId);
+		
+		backend.bindVertexArray(0);
+		backend.deleteVertexArray(vaoId);
+		backend.deleteBuffer(cornerVboId);
+		backend.deleteBuffer(instanceVboId);
+		backend.deleteBuffer(indicesVboId);
+		
+		GLUtils.exitOnGLError(backend, "BlockRenderer.destroy");
+	}
+}
@@ -0,0 +1,22 @@
+package tetrix.rendering;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Defines the destination of byte ranges uploaded by a {@link DirtyRangeTracker},
+ * such as a bound OpenGL buffer object.  Separating the upload from the tracking
+ * allows tracking to be tested without an OpenGL context.
+ *
+ * @author Dustin Biser
+ *
+ */
+public interface BufferUploader {
+	
+	/**
+	 * Uploads the remaining bytes of <code>data</code>, from its position to its
+	 * limit, to the destination starting at byte <code>offset</code>.
+	 * @param offset - byte offset in the destination.
+	 * @param data - bytes to upload.  Its position and limit must be left unchanged.
+	 */
+	public void upload(long offset, ByteBuffer data);
+}
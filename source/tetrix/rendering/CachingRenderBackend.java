@@ -0,0 +1,495 @@
+package tetrix.rendering;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL13;
+import org.lwjgl.opengl.GL15;
+import org.lwjgl.opengl.GL30;
+
+/**
+ * Tracks the OpenGL state bound through it, and skips calls to another
+ * {@link RenderBackend} that would not change that state.  The cached state is
+ * the current program, vertex array, array and element array buffers, active
+ * texture unit, the 2D and 2D array textures bound to each of the first
+ * {@link #MAX_TEXTURE_UNITS} texture units, the enabled capabilities blend,
+ * depth test, cull face and scissor test, and the blend function.  Binds of
+ * other targets, units and capabilities are always passed on.
+ *
+ * <p>
+ * Every bind, enable, disable and blend function call that is passed on counts
+ * as issued, and every one that is dropped counts as skipped.  Counters
+ * accumulate until {@link #reset()}, typically called once per frame.
+ *
+ * <p>
+ * The cache starts with all state unknown, so the first call of each kind is
+ * passed on.  If OpenGL state is changed other than through this backend, such
+ * as by code calling LWJGL directly, {@link #invalidate()} must be called before
+ * this backend is used again.  Deleting a bound object unbinds it, as OpenGL
+ * does.  Binding a vertex array makes the element array buffer unknown, since
+ * that binding is part of the vertex array's state.
+ *
+ * @author Dustin Biser
+ *
+ */
+public class CachingRenderBackend implements RenderBackend {
+	public static final int MAX_TEXTURE_UNITS = 16;
+	
+	// Marks a binding whose value is not known.
+	private static final int UNKNOWN = -1;
+	
+	// Cached texture targets and capabilities, in index order.
+	private static final int[] TEXTURE_TARGETS = {
+		GL11.GL_TEXTURE_2D, GL30.GL_TEXTURE_2D_ARRAY };
+	private static final int[] CAPABILITIES = {
+		GL11.GL_BLEND, GL11.GL_DEPTH_TEST, GL11.GL_CULL_FACE, GL11.GL_SCISSOR_TEST };
+	
+	private final RenderBackend backend;
+	
+	private int program;
+	private int vertexArray;
+	private int arrayBuffer;
+	private int elementArrayBuffer;
+	
+	// Index of the active texture unit, counted from GL_TEXTURE0.
+	private int activeUnit;
+	
+	// Indexed by texture unit, then by index into TEXTURE_TARGETS.
+	private final int[][] textures = new int[MAX_TEXTURE_UNITS][TEXTURE_TARGETS.length];
+	
+	// GL_TRUE or GL_FALSE, indexed by index into CAPABILITIES.
+	private final int[] capabilities = new int[CAPABILITIES.length];
+	
+	private int blendSourceFactor;
+	private int blendDestinationFactor;
+	
+	private long issued;
+	private long skipped;
+	
+	/**
+	 * @param backend - RenderBackend that calls are passed on to.
+	 */
+	public CachingRenderBackend(RenderBackend backend){
+		this.backend = backend;
+		invalidate();
+	}
+	
+	/**
+	 * Forgets all cached state, so the next call of each kind is passed on.
+	 */
+	public void invalidate(){
+		program = UNKNOWN;
+		vertexArray = UNKNOWN;
+		arrayBuffer = UNKNOWN;
+		elementArrayBuffer = UNKNOWN;
+		activeUnit = UNKNOWN;
+		
+		for(int[] unitTextures : textures){
+			for(int i = 0; i < unitTextures.length; i++){
+				unitTextures[i] = UNKNOWN;
+			}
+		}
+		
+		for(int i = 0; i < capabilities.length; i++){
+			capabilities[i] = UNKNOWN;
+		}
+		
+		blendSourceFactor = UNKNOWN;
+		blendDestinationFactor = UNKNOWN;
+	}
+	
+	/**
+	 * Sets the issued and skipped counters to zero.  Cached state is kept.
+	 */
+	public void reset(){
+		issued = 0;
+		skipped = 0;
+	}
+	
+	/**
+	 * @return RenderBackend that calls are passed on to.
+	 */
+	public RenderBackend getBackend(){
+		return backend;
+	}
+	
+	/**
+	 * @return number of state changing calls passed on.
+	 */
+	public long getIssued(){
+		return issued;
+	}
+	
+	/**
+	 * @return number of state changing calls dropped, since they would not have
+	 * changed anything.
+	 */
+	public long getSkipped(){
+		return skipped;
+	}
+	
+	/**
+	 * Counts a state changing call.
+	 * @return true if <code>value</code> is already set, so the call can be skipped.
+	 */
+	private boolean isRedundant(int cached, int value){
+		if (cached == value){
+			skipped++;
+			return true;
+		}
+		
+		issued++;
+		return false;
+	}
+	
+	private static int indexOf(int[] values, int value){
+		for(int i = 0; i < values.length; i++){
+			if (values[i] == value) return i;
+		}
+		
+		return -1;
+	}
+	
+	@Override
+	public int genBuffer(){
+		return backend.genBuffer();
+	}
+	
+	@Override
+	public void bindBuffer(int target, int buffer){
+		if (target == GL15.GL_ARRAY_BUFFER){
+			if (isRedundant(arrayBuffer, buffer)) return;
+			arrayBuffer = buffer;
+		}
+		else if (target == GL15.GL_ELEMENT_ARRAY_BUFFER){
+			if (isRedundant(elementArrayBuffer, buffer)) return;
+			elementArrayBuffer = buffer;
+		}
+		else {
+			issued++;
+		}
+		
+		backend.bindBuffer(target, buffer);
+	}
+	
+	@Override
+	public void bufferData(int target, long size, int usage){
+		backend.bufferData(target, size, usage);
+	}
+	
+	@Override
+	public void bufferData(int target, ByteBuffer data, int usage){
+		backend.bufferData(target, data, usage);
+	}
+	
+	@Override
+	public void bufferSubData(int target, long offset, ByteBuffer data){
+		backend.bufferSubData(target, offset, data);
+	}
+	
+	@Override
+	public void deleteBuffer(int buffer){
+		backend.deleteBuffer(buffer);
+		
+		if (arrayBuffer == buffer) arrayBuffer = 0;
+		if (elementArrayBuffer == buffer) elementArrayBuffer = 0;
+	}
+	
+	@Override
+	public int genVertexArray(){
+		return backend.genVertexArray();
+	}
+	
+	@Override
+	public void bindVertexArray(int vertexArray){
+		if (isRedundant(this.vertexArray, vertexArray)) return;
+		
+		this.vertexArray = vertexArray;
+		elementArrayBuffer = UNKNOWN;
+		backend.bindVertexArray(vertexArray);
+	}
+	
+	@Override
+	public void deleteVertexArray(int vertexArray){
+		backend.deleteVertexArray(vertexArray);
+		
+		if (this.vertexArray == vertexArray){
+			this.vertexArray = 0;
+			elementArrayBuffer = UNKNOWN;
+		}
+	}
+	
+	@Override
+	public void vertexAttribPointer(int index, int size, int type, boolean normalized,
+			int stride, long offset){
+		backend.vertexAttribPointer(index, size, type, normalized, stride, offset);
+	}
+	
+	@Override
+	public void vertexAttribIPointer(int index, int size, int type, int stride,
+			long offset){
+		backend.vertexAttribIPointer(index, size, type, stride, offset);
+	}
+	
+	@Override
+	public void vertexAttribDivisor(int index, int divisor){
+		backend.vertexAttribDivisor(index, divisor);
+	}
+	
+	@Override
+	public void enableVertexAttribArray(int index){
+		backend.enableVertexAttribArray(index);
+	}
+	
+	@Override
+	public int genTexture(){
+		return backend.genTexture();
+	}
+	
+	@Override
+	public void activeTexture(int textureUnit){
+		int unit = textureUnit - GL13.GL_TEXTURE0;
+		
+		if (unit < 0 || unit >= MAX_TEXTURE_UNITS){
+			issued++;
+			activeUnit = UNKNOWN;
+		}
+		else {
+			if (isRedundant(activeUnit, unit)) return;
+			activeUnit = unit;
+		}
+		
+		backend.activeTexture(textureUnit);
+	}
+	
+	@Override
+	public void bindTexture(int target, int texture){
+		int targetIndex = indexOf(TEXTURE_TARGETS, target);
+		
+		if (activeUnit == UNKNOWN || targetIndex < 0){
+			issued++;
+		}
+		else {
+			if (isRedundant(textures[activeUnit][targetIndex], texture)) return;
+			textures[activeUnit][targetIndex] = texture;
+		}
+		
+		backend.bindTexture(target, texture);
+	}
+	
+	@Override
+	public void texParameteri(int target, int name, int value){
+		backend.texParameteri(target, name, value);
+	}
+	
+	@Override
+	public void pixelStorei(int name, int value){
+		backend.pixelStorei(name, value);
+	}
+	
+	@Override
+	public void texImage2D(int target, int level, int internalFormat, int width,
+			int height, int format, int type, ByteBuffer texels){
+		backend.texImage2D(target, level, internalFormat, width, height, format, type, texels);
+	}
+	
+	@Override
+	public void texImage3D(int target, int level, int internalFormat, int width,
+			int height, int depth, int format, int type, ByteBuffer texels){
+		backend.texImage3D(target, level, internalFormat, width, height, depth, format, type, texels);
+	}
+	
+	@Override
+	public void texSubImage3D(int target, int level, int xOffset, int yOffset,
+			int zOffset, int width, int height, int depth, int format, int type,
+			ByteBuffer texels){
+		backend.texSubImage3D(target, level, xOffset, yOffset, zOffset, width, height, depth, format, type, texels);
+	}
+	
+	@Override
+	public void generateMipmap(int target){
+		backend.generateMipmap(target);
+	}
+	
+	@Override
+	public void deleteTexture(int texture){
+		backend.deleteTexture(texture);
+		
+		for(int[] unitTextures : textures){
+			for(int i = 0; i < unitTextures.length; i++){
+				if (unitTextures[i] == texture) unitTextures[i] = 0;
+			}
+		}
+	}
+	
+	@Override
+	public int createShader(int type){
+		return backend.createShader(type);
+	}
+	
+	@Override
+	public void shaderSource(int shader, CharSequence source){
+		backend.shaderSource(shader, source);
+	}
+	
+	@Override
+	public void shaderSource(int shader, ByteBuffer source){
+		backend.shaderSource(shader, source);
+	}
+	
+	@Override
+	public void compileShader(int shader){
+		backend.compileShader(shader);
+	}
+	
+	@Override
+	public int getShaderi(int shader, int name){
+		return backend.getShaderi(shader, name);
+	}
+	
+	@Override
+	public String getShaderInfoLog(int shader, int maxLength){
+		return backend.getShaderInfoLog(shader, maxLength);
+	}
+	
+	@Override
+	public void deleteShader(int shader){
+		backend.deleteShader(shader);
+	}
+	
+	@Override
+	public int createProgram(){
+		return backend.createProgram();
+	}
+	
+	@Override
+	public void attachShader(int program, int shader){
+		backend.attachShader(program, shader);
+	}
+	
+	@Override
+	public void detachShader(int program, int shader){
+		backend.detachShader(program, shader);
+	}
+	
+	@Override
+	public void bindAttribLocation(int program, int index, CharSequence name){
+		backend.bindAttribLocation(program, index, name);
+	}
+	
+	@Override
+	public void linkProgram(int program){
+		backend.linkProgram(program);
+	}
+	
+	@Override
+	public int getProgrami(int program, int name){
+		return backend.getProgrami(program, name);
+	}
+	
+	@Override
+	public String getProgramInfoLog(int program, int maxLength){
+		return backend.getProgramInfoLog(program, maxLength);
+	}
+	
+	@Override
+	public void useProgram(int program){
+		if (isRedundant(this.program, program)) return;
+		
+		this.program = program;
+		backend.useProgram(program);
+	}
+	
+	@Override
+	public void deleteProgram(int program){
+		backend.deleteProgram(program);
+	}
+	
+	@Override
+	public int getUniformLocation(int program, CharSequence name){
+		return backend.getUniformLocation(program, name);
+	}
+	
+	@Override
+	public void uniform1i(int location, int value){
+		backend.uniform1i(location, value);
+	}
+	
+	@Override
+	public void uniform4(int location, FloatBuffer values){
+		backend.uniform4(location, values);
+	}
+	
+	@Override
+	public void uniformMatrix4(int location, boolean transpose, FloatBuffer matrix){
+		backend.uniformMatrix4(location, transpose, matrix);
+	}
+	
+	@Override
+	public void enable(int capability){
+		if (setCapability(capability, GL11.GL_TRUE)){
+			backend.enable(capability);
+		}
+	}
+	
+	@Override
+	public void disable(int capability){
+		if (setCapability(capability, GL11.GL_FALSE)){
+			backend.disable(capability);
+		}
+	}
+	
+	/**
+	 * Counts an enable or disable call.
+	 * @return true if the call must be passed on.
+	 */
+	private boolean setCapability(int capability, int value){
+		int index = indexOf(CAPABILITIES, capability);
+		
+		if (index < 0){
+			issued++;
+			return true;
+		}
+		if (isRedundant(capabilities[index], value)) return false;
+		
+		capabilities[index] = value;
+		return true;
+	}
+	
+	@Override
+	public void blendFunc(int sourceFactor, int destinationFactor){
+		if (sourceFactor == blendSourceFactor &&
+				destinationFactor == blendDestinationFactor){
+			skipped++;
+			return;
+		}
+		
+		issued++;
+		blendSourceFactor = sourceFactor;
+		blendDestinationFactor = destinationFactor;
+		backend.blendFunc(sourceFactor, destinationFactor);
+	}
+	
+	@Override
+	public void clear(int mask){
+		backend.clear(mask);
+	}
+	
+	@Override
+	public void drawElementsInstanced(int mode, int count, int type, long offset,
+			int instanceCount){
+		backend.drawElementsInstanced(mode, count, type, offset, instanceCount);
+	}
+	
+	@Override
+	public void drawElementsBaseVertex(int mode, int count, int type, long offset,
+			int baseVertex){
+		backend.drawElementsBaseVertex(mode, count, type, offset, baseVertex);
+	}
+	
+	@Override
+	public int getError(){
+		return backend.getError();
+	}
+}
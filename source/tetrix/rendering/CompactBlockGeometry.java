@@ -0,0 +1,221 @@
+package tetrix.rendering;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.security.InvalidParameterException;
+
+import tetrix.entities.Playfield;
+import tetrix.entities.shapes.PackedShape;
+
+/**
+ * Block geometry in a quantized vertex format, for drawing many boards at once
+ * with a {@link CompactBlockRenderer}.
+ *
+ * <p>
+ * Blocks sit on an integer grid, so every vertex of a Block stores the same
+ * {@link #BYTES_PER_VERTEX} byte record:
+ * <pre>
+ * bytes 0-1  grid column, signed 16 bit
+ * bytes 2-3  grid row, signed 16 bit
+ * byte  4    texture array layer, unsigned
+ * byte  5    palette index of the tint, unsigned
+ * bytes 6-7  padding, so that records stay 4 byte aligned
+ * </pre>
+ * The corner of a vertex is implicit in its index: vertex <code>4 * block +
+ * corner</code> is corner <code>corner</code> of the Block, counter-clockwise from
+ * the lower left, as in {@link tetrix.utilities.ShapeUtils}.  The vertex shader
+ * adds the corner to the grid position, so a Block costs {@link #BYTES_PER_BLOCK}
+ * bytes, against 160 bytes in the {@link tetrix.datastructures.TexturedVertex}
+ * layout.
+ *
+ * <p>
+ * Grid positions span the signed 16 bit range, so many boards can share one
+ * buffer, each at its own grid offset.  Like {@link BlockInstancePacker}, this
+ * class makes no GL calls, and its buffer grows as needed.
+ *
+ * @author Dustin Biser
+ *
+ */
+public class CompactBlockGeometry {
+	public static final int BYTES_PER_VERTEX = 8;
+	public static final int VERTICES_PER_BLOCK = 4;
+	public static final int BYTES_PER_BLOCK = BYTES_PER_VERTEX * VERTICES_PER_BLOCK;
+	public static final int INDICES_PER_BLOCK = 6;
+	
+	// Byte offsets of the fields of a vertex record.
+	public static final int POSITION_OFFSET = 0;
+	public static final int LAYER_OFFSET = 4;
+	public static final int PALETTE_OFFSET = 5;
+	
+	public static final int PALETTE_SIZE = 16;
+	
+	// Blocks addressable with 16 bit indices.
+	public static final int MAX_INDEXED_BLOCKS = (1 << 16) / VERTICES_PER_BLOCK;
+	
+	private ByteBuffer buffer;
+	private int blockCount;
+	
+	/**
+	 * Constructs a CompactBlockGeometry with room for one default sized Playfield.
+	 */
+	public CompactBlockGeometry(){
+		this(Playfield.DEFAULT_COLUMNS * Playfield.DEFAULT_ROWS);
+	}
+	
+	/**
+	 * @param initialBlocks - number of Blocks the buffer initially holds.
+	 */
+	public CompactBlockGeometry(int initialBlocks){
+		buffer = allocate(Math.max(1, initialBlocks) * BYTES_PER_BLOCK);
+	}
+	
+	private static ByteBuffer allocate(int bytes){
+		return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+	}
+	
+	/**
+	 * Removes all Blocks.
+	 */
+	public void clear(){
+		blockCount = 0;
+	}
+	
+	public int getBlockCount(){
+		return blockCount;
+	}
+	
+	/**
+	 * @return number of vertices written, 4 per Block.
+	 */
+	public int getVertexCount(){
+		return blockCount * VERTICES_PER_BLOCK;
+	}
+	
+	/**
+	 * @return the vertex records, in native byte order, from position 0 up to a
+	 * limit of <code>getBlockCount() * BYTES_PER_BLOCK</code>.
+	 */
+	public ByteBuffer getBuffer(){
+		buffer.limit(blockCount * BYTES_PER_BLOCK);
+		buffer.position(0);
+		
+		return buffer;
+	}
+	
+	private void ensureCapacity(int count){
+		int required = (blockCount + count) * BYTES_PER_BLOCK;
+		if (required <= buffer.capacity()) return;
+		
+		ByteBuffer grown = allocate(Math.max(required, 2 * buffer.capacity()));
+		grown.put(getBuffer());
+		
+		buffer = grown;
+	}
+	
+	private void write(int column, int row, int layer, int paletteIndex){
+		int offset = blockCount * BYTES_PER_BLOCK;
+		
+		buffer.putShort(offset + POSITION_OFFSET, (short)column);
+		buffer.putShort(offset + POSITION_OFFSET + 2, (short)row);
+		buffer.put(offset + LAYER_OFFSET, (byte)layer);
+		buffer.put(offset + PALETTE_OFFSET, (byte)paletteIndex);
+		buffer.putShort(offset + PALETTE_OFFSET + 1, (short)0);
+		
+		// Every corner repeats the record; the corner comes from the vertex index.
+		long record = buffer.getLong(offset);
+		buffer.putLong(offset + BYTES_PER_VERTEX, record);
+		buffer.putLong(offset + 2 * BYTES_PER_VERTEX, record);
+		buffer.putLong(offset + 3 * BYTES_PER_VERTEX, record);
+		
+		blockCount++;
+	}
+	
+	/**
+	 * Writes a single Block.
+	 * @param column - grid column of the Block's lower left corner.
+	 * @param row - grid row of the Block's lower left corner.
+	 * @param layer - texture array layer of the Block.
+	 * @param paletteIndex - index of the Block's tint in the renderer's palette.
+	 */
+	public void putBlock(int column, int row, int layer, int paletteIndex){
+		ensureCapacity(1);
+		write(column, row, layer, paletteIndex);
+	}
+	
+	/**
+	 * Writes the 4 Blocks of a packed Shape, textured with its ShapeType's layer.
+	 * @param packedShape - Shape to write.
+	 * @param columnOffset - grid column of the board's column 0.
+	 * @param rowOffset - grid row of the board's row 0.
+	 * @param paletteIndex - index of the Blocks' tint in the renderer's palette.
+	 */
+	public void putShape(long packedShape, int columnOffset, int rowOffset,
+			int paletteIndex){
+		ensureCapacity(4);
+		
+		int layer = BlockInstancePacker.getLayer(PackedShape.getShapeType(packedShape));
+		for(int i = 0; i < 4; i++){
+			write(columnOffset + PackedShape.getBlockColumn(packedShape, i),
+					rowOffset + PackedShape.getBlockRow(packedShape, i), layer,
+					paletteIndex);
+		}
+	}
+	
+	/**
+	 * Writes every occupied cell of the lowest <code>visibleRows</code> rows of
+	 * <code>playfield</code>.
+	 * @param playfield - Playfield to write.
+	 * @param visibleRows - number of rows, from the bottom, that are on screen.
+	 * @param columnOffset - grid column of the board's column 0.
+	 * @param rowOffset - grid row of the board's row 0.
+	 * @param layer - texture array layer of the cells.
+	 * @param paletteIndex - index of the cells' tint in the renderer's palette.
+	 */
+	public void putPlayfield(Playfield playfield, int visibleRows, int columnOffset,
+			int rowOffset, int layer, int paletteIndex){
+		int rows = Math.min(visibleRows, playfield.getRows());
+		
+		for(int row = 0; row < rows; row++){
+			int rowMask = playfield.getRowMask(row);
+			if (rowMask == 0) continue;
+			
+			ensureCapacity(Integer.bitCount(rowMask));
+			
+			while (rowMask != 0){
+				int column = Integer.numberOfTrailingZeros(rowMask);
+				rowMask &= rowMask - 1;
+				
+				write(columnOffset + column, rowOffset + row, layer, paletteIndex);
+			}
+		}
+	}
+	
+	/**
+	 * Returns a buffer of unsigned 16 bit indices, in native byte order, that
+	 * tessellates each of <code>blocks</code> Blocks into 2 counter-clockwise
+	 * triangles.  The same index buffer serves any geometry of up to
+	 * <code>blocks</code> Blocks.
+	 * @throws InvalidParameterException if blocks is not in the range
+	 * [1, MAX_INDEXED_BLOCKS].
+	 */
+	public static ByteBuffer createIndices(int blocks) throws InvalidParameterException {
+		if (blocks < 1 || blocks > MAX_INDEXED_BLOCKS){
+			throw new InvalidParameterException("Blocks must be between 1 and " +
+					MAX_INDEXED_BLOCKS + ".\n");
+		}
+		
+		ByteBuffer indices = allocate(blocks * INDICES_PER_BLOCK * 2);
+		for(int block = 0; block < blocks; block++){
+			int first = block * VERTICES_PER_BLOCK;
+			indices.putShort((short)first);
+			indices.putShort((short)(first + 1));
+			indices.putShort((short)(first + 2));
+			indices.putShort((short)(first + 2));
+			indices.putShort((short)(first + 3));
+			indices.putShort((short)first);
+		}
+		indices.flip();
+		
+		return indices;
+	}
+}
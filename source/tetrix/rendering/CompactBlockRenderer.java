@@ -0,0 +1,253 @@
+package tetrix.rendering;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.security.InvalidParameterException;
+
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL13;
+import org.lwjgl.opengl.GL15;
+import org.lwjgl.opengl.GL20;
+import org.lwjgl.opengl.GL30;
+import org.lwjgl.util.vector.Matrix4f;
+
+import tetrix.assets.AssetPack;
+import tetrix.utilities.GLUtils;
+import tetrix.utilities.ShaderUtils;
+
+/**
+ * Draws {@link CompactBlockGeometry}, the quantized Block vertex format, for
+ * rendering many boards at once.  Block corners are derived from the vertex index
+ * in the vertex shader, and tints are looked up in a palette of
+ * {@link CompactBlockGeometry#PALETTE_SIZE} colors, so vertices carry only a grid
+ * position, a texture array layer and a palette index.  Geometry of more Blocks
+ * than 16 bit indices can address is drawn in batches, each offset with a base
+ * vertex.  Requires an OpenGL 3.3 context, unless constructed with a
+ * {@link NullRenderBackend}, and reads no file when given an in-memory
+ * {@link AssetPack} and shader sources.  As with {@link BlockRenderer}, drawing leaves its
+ * state bound, so frames drawn through a {@link CachingRenderBackend} make no
+ * redundant binds.
+ *
+ * @author Dustin Biser
+ *
+ */
+public class CompactBlockRenderer {
+	public static final String VERTEX_SHADER_FILE =
+		"source/tetrix/shaders/compactBlockVertex.glsl";
+	
+	// Palette indices whose tints are set by default.
+	public static final int WHITE_PALETTE_INDEX = 0;
+	public static final int GHOST_PALETTE_INDEX = 1;
+	
+	// Vertex attribute locations.
+	private static final int POSITION_ATTRIBUTE = 0;
+	private static final int LAYER_ATTRIBUTE = 1;
+	private static final int PALETTE_ATTRIBUTE = 2;
+	
+	private final RenderBackend backend;
+	
+	private int vaoId;
+	private int vertexVboId;
+	private int indicesVboId;
+	private int vertexShaderId;
+	private int fragmentShaderId;
+	private int programId;
+	private int textureId;
+	private int mvpMatrixLocation;
+	private int paletteLocation;
+	
+	// Size of the vertex VBO's storage, and Blocks covered by the index VBO.
+	private int vertexVboBytes;
+	private int indexedBlocks;
+	
+	private final FloatBuffer matrix44Buffer = BufferUtils.createFloatBuffer(16);
+	private final FloatBuffer paletteBuffer =
+		BufferUtils.createFloatBuffer(4 * CompactBlockGeometry.PALETTE_SIZE);
+	
+	/**
+	 * Loads the compact block shaders and block textures.  Must be called on the
+	 * thread owning the OpenGL context.
+	 */
+	public CompactBlockRenderer(){
+		this(LwjglRenderBackend.INSTANCE);
+	}
+	
+	/**
+	 * Loads the compact block shaders and block textures through
+	 * <code>backend</code>.
+	 */
+	public CompactBlockRenderer(RenderBackend backend){
+		this(backend, BlockRenderer.openDefaultPack(),
+				ShaderUtils.readShader(VERTEX_SHADER_FILE),
+				ShaderUtils.readShader(BlockRenderer.FRAGMENT_SHADER_FILE));
+	}
+	
+	/**
+	 * Creates the buffers used to draw compact geometry through
+	 * <code>backend</code>, with the block textures of <code>pack</code> and the
+	 * given shader sources.  No file is read.
+	 * @param fragmentShaderSource - source of the instanced block fragment shader,
+	 * whose inputs match those written by the compact block vertex shader.
+	 * @throws InvalidParameterException if pack is missing one of the
+	 * {@link BlockRenderer#BLOCK_TEXTURE_NAMES}, or they differ in size.
+	 */
+	public CompactBlockRenderer(RenderBackend backend, AssetPack pack,
+			CharSequence vertexShaderSource, CharSequence fragmentShaderSource)
+			throws InvalidParameterException {
+		this.backend = backend;
+		
+		setupShaders(vertexShaderSource, fragmentShaderSource);
+		setupBuffers();
+		
+		textureId = BlockRenderer.loadBlockTextures(backend, pack);
+		
+		setMvpMatrix(new Matrix4f());
+		setPaletteColor(WHITE_PALETTE_INDEX, BlockInstancePacker.OPAQUE_WHITE);
+		setPaletteColor(GHOST_PALETTE_INDEX, BlockInstancePacker.DEFAULT_GHOST_TINT);
+	}
+	
+	private void setupShaders(CharSequence vertexShaderSource,
+			CharSequence fragmentShaderSource){
+		vertexShaderId = ShaderUtils.compileShader(backend, vertexShaderSource,
+				GL20.GL_VERTEX_SHADER, VERTEX_SHADER_FILE);
+		// Inputs of the instanced block fragment shader match those written here.
+		fragmentShaderId = ShaderUtils.compileShader(backend, fragmentShaderSource,
+				GL20.GL_FRAGMENT_SHADER, BlockRenderer.FRAGMENT_SHADER_FILE);
+		
+		programId = backend.createProgram();
+		backend.attachShader(programId, vertexShaderId);
+		backend.attachShader(programId, fragmentShaderId);
+		
+		// Attribute locations only take effect when the program is linked.
+		backend.bindAttribLocation(programId, POSITION_ATTRIBUTE, "in_Position");
+		backend.bindAttribLocation(programId, LAYER_ATTRIBUTE, "in_Layer");
+		backend.bindAttribLocation(programId, PALETTE_ATTRIBUTE, "in_PaletteIndex");
+		ShaderUtils.linkProgram(backend, programId);
+		
+		mvpMatrixLocation = backend.getUniformLocation(programId, "mvpMatrix");
+		paletteLocation = backend.getUniformLocation(programId, "palette");
+		
+		backend.useProgram(programId);
+		backend.uniform1i(backend.getUniformLocation(programId, "blockTextures"), 0);
+		backend.useProgram(0);
+		
+		GLUtils.exitOnGLError(backend, "CompactBlockRenderer.setupShaders");
+	}
+	
+	private void setupBuffers(){
+		vaoId = backend.genVertexArray();
+		backend.bindVertexArray(vaoId);
+		
+		vertexVboId = backend.genBuffer();
+		backend.bindBuffer(GL15.GL_ARRAY_BUFFER, vertexVboId);
+		int stride = CompactBlockGeometry.BYTES_PER_VERTEX;
+		
+		backend.vertexAttribIPointer(POSITION_ATTRIBUTE, 2, GL11.GL_SHORT, stride,
+				CompactBlockGeometry.POSITION_OFFSET);
+		backend.vertexAttribIPointer(LAYER_ATTRIBUTE, 1, GL11.GL_UNSIGNED_BYTE, stride,
+				CompactBlockGeometry.LAYER_OFFSET);
+		backend.vertexAttribIPointer(PALETTE_ATTRIBUTE, 1, GL11.GL_UNSIGNED_BYTE, stride,
+				CompactBlockGeometry.PALETTE_OFFSET);
+		backend.enableVertexAttribArray(POSITION_ATTRIBUTE);
+		backend.enableVertexAttribArray(LAYER_ATTRIBUTE);
+		backend.enableVertexAttribArray(PALETTE_ATTRIBUTE);
+		
+		// The element array binding is part of the VAO state.
+		indicesVboId = backend.genBuffer();
+		backend.bindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, indicesVboId);
+		
+		backend.bindVertexArray(0);
+		backend.bindBuffer(GL15.GL_ARRAY_BUFFER, 0);
+		
+		GLUtils.exitOnGLError(backend, "CompactBlockRenderer.setupBuffers");
+	}
+	
+	/**
+	 * Sets the matrix that transforms grid coordinates into clip space.
+	 */
+	public void setMvpMatrix(Matrix4f mvpMatrix){
+		mvpMatrix.store(matrix44Buffer);
+		matrix44Buffer.flip();
+		
+		backend.useProgram(programId);
+		backend.uniformMatrix4(mvpMatrixLocation, false, matrix44Buffer);
+	}
+	
+	/**
+	 * Sets the tint that Blocks with palette index <code>index</code> are drawn with.
+	 * @param index - palette index, in the range [0, PALETTE_SIZE).
+	 * @param rgba - tint, as 0xRRGGBBAA.
+	 */
+	public void setPaletteColor(int index, int rgba){
+		int offset = 4 * index;
+		paletteBuffer.clear();
+		paletteBuffer.put(offset, (rgba >>> 24) / 255f);
+		paletteBuffer.put(offset + 1, ((rgba >>> 16) & 0xFF) / 255f);
+		paletteBuffer.put(offset + 2, ((rgba >>> 8) & 0xFF) / 255f);
+		paletteBuffer.put(offset + 3, (rgba & 0xFF) / 255f);
+		
+		backend.useProgram(programId);
+		backend.uniform4(paletteLocation, paletteBuffer);
+	}
+	
+	/**
+	 * Uploads and draws every Block of <code>geometry</code>.
+	 */
+	public void render(CompactBlockGeometry geometry){
+		int blocks = geometry.getBlockCount();
+		if (blocks == 0) return;
+		
+		backend.bindVertexArray(vaoId);
+		
+		// Orphan last frame's storage, so the upload does not wait on the GPU.
+		ByteBuffer vertices = geometry.getBuffer();
+		backend.bindBuffer(GL15.GL_ARRAY_BUFFER, vertexVboId);
+		vertexVboBytes = Math.max(vertexVboBytes, vertices.remaining());
+		backend.bufferData(GL15.GL_ARRAY_BUFFER, vertexVboBytes, GL15.GL_STREAM_DRAW);
+		backend.bufferSubData(GL15.GL_ARRAY_BUFFER, 0, vertices);
+		
+		int batchBlocks = Math.min(blocks, CompactBlockGeometry.MAX_INDEXED_BLOCKS);
+		if (batchBlocks > indexedBlocks){
+			indexedBlocks = batchBlocks;
+			backend.bufferData(GL15.GL_ELEMENT_ARRAY_BUFFER,
+					CompactBlockGeometry.createIndices(indexedBlocks), GL15.GL_STATIC_DRAW);
+		}
+		
+		backend.useProgram(programId);
+		backend.activeTexture(GL13.GL_TEXTURE0);
+		backend.bindTexture(GL30.GL_TEXTURE_2D_ARRAY, textureId);
+		backend.enable(GL11.GL_BLEND);
+		backend.blendFunc(GL11.GL_SRC_ALPHA, GL11.GL_ONE_MINUS_SRC_ALPHA);
+		
+		for(int first = 0; first < blocks; first += batchBlocks){
+			int count = Math.min(batchBlocks, blocks - first);
+			backend.drawElementsBaseVertex(GL11.GL_TRIANGLES,
+					count * CompactBlockGeometry.INDICES_PER_BLOCK, GL11.GL_UNSIGNED_SHORT,
+					0, first * CompactBlockGeometry.VERTICES_PER_BLOCK);
+		}
+		
+		GLUtils.exitOnGLError(backend, "CompactBlockRenderer.render");
+	}
+	
+	/**
+	 * Deletes the shaders, textures and buffers of this CompactBlockRenderer.
+	 */
+	public void destroy(){
+		backend.deleteTexture(textureId);
+		
+		backend.useProgram(0);
+		backend.detachShader(programId, vertexShaderId);
+		backend.detachShader(programId, fragmentShaderId);
+		backend.deleteShader(vertexShaderId);
+		backend.deleteShader(fragmentShaderId);
+		backend.deleteProgram(programId);
+		
+		backend.bindVertexArray(0);
+		backend.deleteVertexArray(vaoId);
+		backend.deleteBuffer(vertexVboId);
+		backend.deleteBuffer(indicesVboId);
+		
+		GLUtils.exitOnGLError(backend, "CompactBlockRenderer.destroy");
+	}
+}
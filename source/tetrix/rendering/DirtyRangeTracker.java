@@ -0,0 +1,185 @@
+package tetrix.rendering;
+
+import java.nio.ByteBuffer;
+import java.security.InvalidParameterException;
+import java.util.Arrays;
+
+/**
+ * Tracks the byte ranges of a CPU side buffer that have changed since they were
+ * last uploaded, so that only those ranges need to be sent to the GPU.
+ *
+ * <p>
+ * Ranges are kept sorted by start, and a range that overlaps or touches another
+ * range is merged with it, so consecutive dirty rows upload as one range.
+ * {@link #upload(ByteBuffer, BufferUploader)} sends each range to a
+ * {@link BufferUploader} and records the number of bytes uploaded, as a per frame
+ * metric.
+ *
+ * @author Dustin Biser
+ *
+ */
+public class DirtyRangeTracker {
+	private static final int INITIAL_RANGES = 8;
+	
+	// Start (inclusive) and end (exclusive) byte of each dirty range, sorted.
+	private int[] starts = new int[INITIAL_RANGES];
+	private int[] ends = new int[INITIAL_RANGES];
+	private int rangeCount;
+	
+	private int bytesUploaded;
+	private int rangesUploaded;
+	private long totalBytesUploaded;
+	
+	/**
+	 * Marks the bytes from <code>start</code> up to, but not including,
+	 * <code>end</code> as changed.  Empty ranges are ignored.
+	 * @throws InvalidParameterException if start is negative or greater than end.
+	 */
+	public void markDirty(int start, int end) throws InvalidParameterException {
+		if (start < 0 || start > end){
+			throw new InvalidParameterException("Invalid range [" + start + ", " +
+					end + ").\n");
+		}
+		if (start == end) return;
+		
+		// First range that ends at or after start, so could merge with the new range.
+		int first = 0;
+		while (first < rangeCount && ends[first] < start){
+			first++;
+		}
+		
+		// One past the last range that starts at or before end.
+		int last = first;
+		while (last < rangeCount && starts[last] <= end){
+			last++;
+		}
+		
+		if (first < last){
+			start = Math.min(start, starts[first]);
+			end = Math.max(end, ends[last - 1]);
+		}
+		
+		// Replace the merged ranges [first, last) with the single new range.
+		int removed = last - first;
+		if (removed == 0){
+			ensureCapacity(rangeCount + 1);
+		}
+		int tail = rangeCount - last;
+		int shift = 1 - removed;
+		System.arraycopy(starts, last, starts, last + shift, tail);
+		System.arraycopy(ends, last, ends, last + shift, tail);
+		
+		starts[first] = start;
+		ends[first] = end;
+		rangeCount += shift;
+	}
+	
+	private void ensureCapacity(int count){
+		if (count <= starts.length) return;
+		
+		starts = Arrays.copyOf(starts, 2 * starts.length);
+		ends = Arrays.copyOf(ends, 2 * ends.length);
+	}
+	
+	/**
+	 * Marks every range as clean, without uploading.
+	 */
+	public void clear(){
+		rangeCount = 0;
+	}
+	
+	/**
+	 * @return true if any range is waiting to be uploaded.
+	 */
+	public boolean isDirty(){
+		return rangeCount > 0;
+	}
+	
+	/**
+	 * @return number of disjoint dirty ranges.
+	 */
+	public int getRangeCount(){
+		return rangeCount;
+	}
+	
+	/**
+	 * @return first byte of the dirty range at <code>index</code>, in order of start.
+	 */
+	public int getRangeStart(int index){
+		return starts[index];
+	}
+	
+	/**
+	 * @return one past the last byte of the dirty range at <code>index</code>.
+	 */
+	public int getRangeEnd(int index){
+		return ends[index];
+	}
+	
+	/**
+	 * @return total number of dirty bytes.
+	 */
+	public int getDirtyBytes(){
+		int bytes = 0;
+		for(int i = 0; i < rangeCount; i++){
+			bytes += ends[i] - starts[i];
+		}
+		
+		return bytes;
+	}
+	
+	/**
+	 * Uploads every dirty range of <code>source</code> to the same offset of the
+	 * destination, then marks every range as clean.
+	 * @param source - CPU side buffer, indexed from 0.  Its position and limit are
+	 * restored before returning.
+	 * @param uploader - destination of the dirty ranges.
+	 * @return number of bytes uploaded.
+	 */
+	public int upload(ByteBuffer source, BufferUploader uploader){
+		int position = source.position();
+		int limit = source.limit();
+		
+		int bytes = 0;
+		for(int i = 0; i < rangeCount; i++){
+			// Set the limit first, since the position may not exceed it.
+			source.limit(ends[i]);
+			source.position(starts[i]);
+			uploader.upload(starts[i], source);
+			bytes += ends[i] - starts[i];
+		}
+		
+		source.limit(limit);
+		source.position(position);
+		
+		bytesUploaded = bytes;
+		rangesUploaded = rangeCount;
+		totalBytesUploaded += bytes;
+		rangeCount = 0;
+		
+		return bytes;
+	}
+	
+	/**
+	 * @return number of bytes sent by the last call to
+	 * {@link #upload(ByteBuffer, BufferUploader)}.
+	 */
+	public int getBytesUploaded(){
+		return bytesUploaded;
+	}
+	
+	/**
+	 * @return number of ranges sent by the last call to
+	 * {@link #upload(ByteBuffer, BufferUploader)}.
+	 */
+	public int getRangesUploaded(){
+		return rangesUploaded;
+	}
+	
+	/**
+	 * @return number of bytes sent by every upload so far.
+	 */
+	public long getTotalBytesUploaded(){
+		return totalBytesUploaded;
+	}
+}
@@ -0,0 +1,38 @@
+package tetrix.rendering;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Uploads byte ranges with glBufferSubData to the buffer object bound to a target,
+ * such as GL_ARRAY_BUFFER, through a {@link RenderBackend}.  The buffer must be
+ * bound before uploading.
+ *
+ * @author Dustin Biser
+ *
+ */
+public class GLBufferUploader implements BufferUploader {
+	private final RenderBackend backend;
+	private final int target;
+	
+	/**
+	 * Constructs a GLBufferUploader that uploads through LWJGL.
+	 * @param target - buffer binding target to upload to, such as GL_ARRAY_BUFFER.
+	 */
+	public GLBufferUploader(int target){
+		this(LwjglRenderBackend.INSTANCE, target);
+	}
+	
+	/**
+	 * @param backend - RenderBackend to upload through.
+	 * @param target - buffer binding target to upload to, such as GL_ARRAY_BUFFER.
+	 */
+	public GLBufferUploader(RenderBackend backend, int target){
+		this.backend = backend;
+		this.target = target;
+	}
+	
+	@Override
+	public void upload(long offset, ByteBuffer data){
+		backend.bufferSubData(target, offset, data);
+	}
+}
@@ -0,0 +1,291 @@
+package tetrix.rendering;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL12;
+import org.lwjgl.opengl.GL13;
+import org.lwjgl.opengl.GL15;
+import org.lwjgl.opengl.GL20;
+import org.lwjgl.opengl.GL30;
+import org.lwjgl.opengl.GL31;
+import org.lwjgl.opengl.GL32;
+import org.lwjgl.opengl.GL33;
+
+/**
+ * Issues every call to OpenGL through LWJGL.  Must only be used on the thread
+ * owning the OpenGL context.  The backend holds no state, so one instance,
+ * {@link #INSTANCE}, serves every caller.
+ *
+ * @author Dustin Biser
+ *
+ */
+public class LwjglRenderBackend implements RenderBackend {
+	public static final LwjglRenderBackend INSTANCE = new LwjglRenderBackend();
+	
+	private LwjglRenderBackend(){
+		
+	}
+	
+	@Override
+	public int genBuffer(){
+		return GL15.glGenBuffers();
+	}
+	
+	@Override
+	public void bindBuffer(int target, int buffer){
+		GL15.glBindBuffer(target, buffer);
+	}
+	
+	@Override
+	public void bufferData(int target, long size, int usage){
+		GL15.glBufferData(target, size, usage);
+	}
+	
+	@Override
+	public void bufferData(int target, ByteBuffer data, int usage){
+		GL15.glBufferData(target, data, usage);
+	}
+	
+	@Override
+	public void bufferSubData(int target, long offset, ByteBuffer data){
+		GL15.glBufferSubData(target, offset, data);
+	}
+	
+	@Override
+	public void deleteBuffer(int buffer){
+		GL15.glDeleteBuffers(buffer);
+	}
+	
+	@Override
+	public int genVertexArray(){
+		return GL30.glGenVertexArrays();
+	}
+	
+	@Override
+	public void bindVertexArray(int vertexArray){
+		GL30.glBindVertexArray(vertexArray);
+	}
+	
+	@Override
+	public void deleteVertexArray(int vertexArray){
+		GL30.glDeleteVertexArrays(vertexArray);
+	}
+	
+	@Override
+	public void vertexAttribPointer(int index, int size, int type, boolean normalized,
+			int stride, long offset){
+		GL20.glVertexAttribPointer(index, size, type, normalized, stride, offset);
+	}
+	
+	@Override
+	public void vertexAttribIPointer(int index, int size, int type, int stride,
+			long offset){
+		GL30.glVertexAttribIPointer(index, size, type, stride, offset);
+	}
+	
+	@Override
+	public void vertexAttribDivisor(int index, int divisor){
+		GL33.glVertexAttribDivisor(index, divisor);
+	}
+	
+	@Override
+	public void enableVertexAttribArray(int index){
+		GL20.glEnableVertexAttribArray(index);
+	}
+	
+	@Override
+	public int genTexture(){
+		return GL11.glGenTextures();
+	}
+	
+	@Override
+	public void activeTexture(int textureUnit){
+		GL13.glActiveTexture(textureUnit);
+	}
+	
+	@Override
+	public void bindTexture(int target, int texture){
+		GL11.glBindTexture(target, texture);
+	}
+	
+	@Override
+	public void texParameteri(int target, int name, int value){
+		GL11.glTexParameteri(target, name, value);
+	}
+	
+	@Override
+	public void pixelStorei(int name, int value){
+		GL11.glPixelStorei(name, value);
+	}
+	
+	@Override
+	public void texImage2D(int target, int level, int internalFormat, int width,
+			int height, int format, int type, ByteBuffer texels){
+		GL11.glTexImage2D(target, level, internalFormat, width, height, 0, format,
+				type, texels);
+	}
+	
+	@Override
+	public void texImage3D(int target, int level, int internalFormat, int width,
+			int height, int depth, int format, int type, ByteBuffer texels){
+		GL12.glTexImage3D(target, level, internalFormat, width, height, depth, 0,
+				format, type, texels);
+	}
+	
+	@Override
+	public void texSubImage3D(int target, int level, int xOffset, int yOffset,
+			int zOffset, int width, int height, int depth, int format, int type,
+			ByteBuffer texels){
+		GL12.glTexSubImage3D(target, level, xOffset, yOffset, zOffset, width, height,
+				depth, format, type, texels);
+	}
+	
+	@Override
+	public void generateMipmap(int target){
+		GL30.glGenerateMipmap(target);
+	}
+	
+	@Override
+	public void deleteTexture(int texture){
+		GL11.glDeleteTextures(texture);
+	}
+	
+	@Override
+	public int createShader(int type){
+		return GL20.glCreateShader(type);
+	}
+	
+	@Override
+	public void shaderSource(int shader, CharSequence source){
+		GL20.glShaderSource(shader, source);
+	}
+	
+	@Override
+	public void shaderSource(int shader, ByteBuffer source){
+		GL20.glShaderSource(shader, source);
+	}
+	
+	@Override
+	public void compileShader(int shader){
+		GL20.glCompileShader(shader);
+	}
+	
+	@Override
+	public int getShaderi(int shader, int name){
+		return GL20.glGetShaderi(shader, name);
+	}
+	
+	@Override
+	public String getShaderInfoLog(int shader, int maxLength){
+		return GL20.glGetShaderInfoLog(shader, maxLength);
+	}
+	
+	@Override
+	public void deleteShader(int shader){
+		GL20.glDeleteShader(shader);
+	}
+	
+	@Override
+	public int createProgram(){
+		return GL20.glCreateProgram();
+	}
+	
+	@Override
+	public void attachShader(int program, int shader){
+		GL20.glAttachShader(program, shader);
+	}
+	
+	@Override
+	public void detachShader(int program, int shader){
+		GL20.glDetachShader(program, shader);
+	}
+	
+	@Override
+	public void bindAttribLocation(int program, int index, CharSequence name){
+		GL20.glBindAttribLocation(program, index, name);
+	}
+	
+	@Override
+	public void linkProgram(int program){
+		GL20.glLinkProgram(program);
+	}
+	
+	@Override
+	public int getProgrami(int program, int name){
+		return GL20.glGetProgrami(program, name);
+	}
+	
+	@Override
+	public String getProgramInfoLog(int program, int maxLength){
+		return GL20.glGetProgramInfoLog(program, maxLength);
+	}
+	
+	@Override
+	public void useProgram(int program){
+		GL20.glUseProgram(program);
+	}
+	
+	@Override
+	public void deleteProgram(int program){
+		GL20.glDeleteProgram(program);
+	}
+	
+	@Override
+	public int getUniformLocation(int program, CharSequence name){
+		return GL20.glGetUniformLocation(program, name);
+	}
+	
+	@Override
+	public void uniform1i(int location, int value){
+		GL20.glUniform1i(location, value);
+	}
+	
+	@Override
+	public void uniform4(int location, FloatBuffer values){
+		GL20.glUniform4(location, values);
+	}
+	
+	@Override
+	public void uniformMatrix4(int location, boolean transpose, FloatBuffer matrix){
+		GL20.glUniformMatrix4(location, transpose, matrix);
+	}
+	
+	@Override
+	public void enable(int capability){
+		GL11.glEnable(capability);
+	}
+	
+	@Override
+	public void disable(int capability){
+		GL11.glDisable(capability);
+	}
+	
+	@Override
+	public void blendFunc(int sourceFactor, int destinationFactor){
+		GL11.glBlendFunc(sourceFactor, destinationFactor);
+	}
+	
+	@Override
+	public void clear(int mask){
+		GL11.glClear(mask);
+	}
+	
+	@Override
+	public void drawElementsInstanced(int mode, int count, int type, long offset,
+			int instanceCount){
+		GL31.glDrawElementsInstanced(mode, count, type, offset, instanceCount);
+	}
+	
+	@Override
+	public void drawElementsBaseVertex(int mode, int count, int type, long offset,
+			int baseVertex){
+		GL32.glDrawElementsBaseVertex(mode, count, type, offset, baseVertex);
+	}
+	
+	@Override
+	public int getError(){
+		return GL11.glGetError();
+	}
+}
@@ -0,0 +1,283 @@
+package tetrix.rendering;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+import org.lwjgl.opengl.GL11;
+
+/**
+ * Discards every call, so rendering code can run without an OpenGL context, such
+ * as in tests and headless benchmarks.  Object names are handed out in
+ * increasing order starting at 1, so that distinct objects never share a name,
+ * shaders always compile, programs always link, and no error is ever reported.
+ *
+ * @author Dustin Biser
+ *
+ */
+public class NullRenderBackend implements RenderBackend {
+	private int lastName;
+	
+	private int nextName(){
+		return ++lastName;
+	}
+	
+	@Override
+	public int genBuffer(){
+		return nextName();
+	}
+	
+	@Override
+	public void bindBuffer(int target, int buffer){
+		
+	}
+	
+	@Override
+	public void bufferData(int target, long size, int usage){
+		
+	}
+	
+	@Override
+	public void bufferData(int target, ByteBuffer data, int usage){
+		
+	}
+	
+	@Override
+	public void bufferSubData(int target, long offset, ByteBuffer data){
+		
+	}
+	
+	@Override
+	public void deleteBuffer(int buffer){
+		
+	}
+	
+	@Override
+	public int genVertexArray(){
+		return nextName();
+	}
+	
+	@Override
+	public void bindVertexArray(int vertexArray){
+		
+	}
+	
+	@Override
+	public void deleteVertexArray(int vertexArray){
+		
+	}
+	
+	@Override
+	public void vertexAttribPointer(int index, int size, int type, boolean normalized,
+			int stride, long offset){
+		
+	}
+	
+	@Override
+	public void vertexAttribIPointer(int index, int size, int type, int stride,
+			long offset){
+		
+	}
+	
+	@Override
+	public void vertexAttribDivisor(int index, int divisor){
+		
+	}
+	
+	@Override
+	public void enableVertexAttribArray(int index){
+		
+	}
+	
+	@Override
+	public int genTexture(){
+		return nextName();
+	}
+	
+	@Override
+	public void activeTexture(int textureUnit){
+		
+	}
+	
+	@Override
+	public void bindTexture(int target, int texture){
+		
+	}
+	
+	@Override
+	public void texParameteri(int target, int name, int value){
+		
+	}
+	
+	@Override
+	public void pixelStorei(int name, int value){
+		
+	}
+	
+	@Override
+	public void texImage2D(int target, int level, int internalFormat, int width,
+			int height, int format, int type, ByteBuffer texels){
+		
+	}
+	
+	@Override
+	public void texImage3D(int target, int level, int internalFormat, int width,
+			int height, int depth, int format, int type, ByteBuffer texels){
+		
+	}
+	
+	@Override
+	public void texSubImage3D(int target, int level, int xOffset, int yOffset,
+			int zOffset, int width, int height, int depth, int format, int type,
+			ByteBuffer texels){
+		
+	}
+	
+	@Override
+	public void generateMipmap(int target){
+		
+	}
+	
+	@Override
+	public void deleteTexture(int texture){
+		
+	}
+	
+	@Override
+	public int createShader(int type){
+		return nextName();
+	}
+	
+	@Override
+	public void shaderSource(int shader, CharSequence source){
+		
+	}
+	
+	@Override
+	public void shaderSource(int shader, ByteBuffer source){
+		
+	}
+	
+	@Override
+	public void compileShader(int shader){
+		
+	}
+	
+	@Override
+	public int getShaderi(int shader, int name){
+		// Every status query, such as GL_COMPILE_STATUS, succeeds.
+		return GL11.GL_TRUE;
+	}
+	
+	@Override
+	public String getShaderInfoLog(int shader, int maxLength){
+		return "";
+	}
+	
+	@Override
+	public void deleteShader(int shader){
+		
+	}
+	
+	@Override
+	public int createProgram(){
+		return nextName();
+	}
+	
+	@Override
+	public void attachShader(int program, int shader){
+		
+	}
+	
+	@Override
+	public void detachShader(int program, int shader){
+		
+	}
+	
+	@Override
+	public void bindAttribLocation(int program, int index, CharSequence name){
+		
+	}
+	
+	@Override
+	public void linkProgram(int program){
+		
+	}
+	
+	@Override
+	public int getProgrami(int program, int name){
+		// Every status query, such as GL_LINK_STATUS, succeeds.
+		return GL11.GL_TRUE;
+	}
+	
+	@Override
+	public String getProgramInfoLog(int program, int maxLength){
+		return "";
+	}
+	
+	@Override
+	public void useProgram(int program){
+		
+	}
+	
+	@Override
+	public void deleteProgram(int program){
+		
+	}
+	
+	@Override
+	public int getUniformLocation(int program, CharSequence name){
+		return nextName();
+	}
+	
+	@Override
+	public void uniform1i(int location, int value){
+		
+	}
+	
+	@Override
+	public void uniform4(int location, FloatBuffer values){
+		
+	}
+	
+	@Override
+	public void uniformMatrix4(int location, boolean transpose, FloatBuffer matrix){
+		
+	}
+	
+	@Override
+	public void enable(int capability){
+		
+	}
+	
+	@Override
+	public void disable(int capability){
+		
+	}
+	
+	@Override
+	public void blendFunc(int sourceFactor, int destinationFactor){
+		
+	}
+	
+	@Override
+	public void clear(int mask){
+		
+	}
+	
+	@Override
+	public void drawElementsInstanced(int mode, int count, int type, long offset,
+			int instanceCount){
+		
+	}
+	
+	@Override
+	public void drawElementsBaseVertex(int mode, int count, int type, long offset,
+			int baseVertex){
+		
+	}
+	
+	@Override
+	public int getError(){
+		return GL11.GL_NO_ERROR;
+	}
+}
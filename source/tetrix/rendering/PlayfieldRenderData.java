@@ -0,0 +1,251 @@
+package tetrix.rendering;
+
+import java.nio.ByteBuffer;
+import java.security.InvalidParameterException;
+
+import tetrix.entities.Playfield;
+
+/**
+ * Instance records for the locked cells of a Playfield, kept at fixed positions so
+ * that a GPU copy of them only needs updating where cells changed.
+ *
+ * <p>
+ * Every visible cell has a record, in the {@link BlockInstancePacker} format, at
+ * instance <code>row * columns + column</code>.  Empty cells are given a fully
+ * transparent tint.  {@link #update(Playfield, int, int)} compares each row against
+ * the row last packed, rewrites only the rows that changed, and marks their bytes
+ * in a {@link DirtyRangeTracker}.  Rows only change when a Shape locks or rows are
+ * cleared, so most frames upload nothing, and a line clear uploads one merged range
+ * from the lowest cleared row to the top of the stack.
+ *
+ * @author Dustin Biser
+ *
+ */
+public class PlayfieldRenderData {
+	public static final int EMPTY_TINT = 0x00000000;
+	
+	// Largest number of rows whose row index fits in an instance record.
+	public static final int MAX_VISIBLE_ROWS = 127;
+	
+	private final int columns;
+	private final int visibleRows;
+	private final int rowBytes;
+	private final ByteBuffer buffer;
+	private final DirtyRangeTracker tracker = new DirtyRangeTracker();
+	
+	// Row masks, cell layers and tint of the records currently in the buffer.
+	private final int[] rowMasks;
+	private final byte[] cellLayers;
+	private int tint = EMPTY_TINT;
+	
+	/**
+	 * @param columns - number of Playfield columns.
+	 * @param visibleRows - number of rows, from the bottom, that are on screen.
+	 * @throws InvalidParameterException if columns is not in the range
+	 * [1, Playfield.MAX_COLUMNS] or visibleRows is not in the range
+	 * [1, MAX_VISIBLE_ROWS].
+	 */
+	public PlayfieldRenderData(int columns, int visibleRows)
+			throws InvalidParameterException {
+		if (columns < 1 || columns > Playfield.MAX_COLUMNS){
+			throw new InvalidParameterException("Columns must be between 1 and " +
+					Playfield.MAX_COLUMNS + ".\n");
+		}
+		if (visibleRows < 1 || visibleRows > MAX_VISIBLE_ROWS){
+			throw new InvalidParameterException("Visible rows must be between 1 and " +
+					MAX_VISIBLE_ROWS + ".\n");
+		}
+		
+		this.columns = columns;
+		this.visibleRows = visibleRows;
+		rowBytes = columns * BlockInstancePacker.BYTES_PER_INSTANCE;
+		buffer = ByteBuffer.allocateDirect(visibleRows * rowBytes);
+		rowMasks = new int[visibleRows];
+		cellLayers = new byte[visibleRows * columns];
+		
+		for(int row = 0; row < visibleRows; row++){
+			writeRow(row, 0, null, 0);
+		}
+		markAllDirty();
+	}
+	
+	public int getColumns(){
+		return columns;
+	}
+	
+	public int getVisibleRows(){
+		return visibleRows;
+	}
+	
+	/**
+	 * @return number of instance records, one per visible cell.
+	 */
+	public int getInstanceCount(){
+		return columns * visibleRows;
+	}
+	
+	/**
+	 * @return size of the instance records, in bytes.
+	 */
+	public int getByteCount(){
+		return buffer.capacity();
+	}
+	
+	/**
+	 * @return the instance records, from position 0 to a limit of
+	 * {@link #getByteCount()}.
+	 */
+	public ByteBuffer getBuffer(){
+		buffer.limit(buffer.capacity());
+		buffer.position(0);
+		
+		return buffer;
+	}
+	
+	/**
+	 * @return tracker of the byte ranges changed since the last upload.
+	 */
+	public DirtyRangeTracker getTracker(){
+		return tracker;
+	}
+	
+	/**
+	 * Marks every record as changed, such as after the GPU copy has been
+	 * reallocated.
+	 */
+	public void markAllDirty(){
+		tracker.markDirty(0, buffer.capacity());
+	}
+	
+	/**
+	 * Updates the records of the rows of <code>playfield</code> that changed, with
+	 * every occupied cell textured with the same layer.
+	 * @param playfield - Playfield to pack.
+	 * @param layer - texture array layer of occupied cells.
+	 * @param tint - tint of occupied cells, as 0xRRGGBBAA.
+	 * @throws InvalidParameterException if the Playfield's column count differs.
+	 */
+	public void update(Playfield playfield, int layer, int tint)
+			throws InvalidParameterException {
+		update(playfield, null, layer, tint);
+	}
+	
+	/**
+	 * Updates the records of the rows of <code>playfield</code> that changed, with
+	 * each occupied cell textured with its own layer.
+	 * @param playfield - Playfield to pack.
+	 * @param cellLayers - texture array layer of each cell, indexed by
+	 * <code>row * columns + column</code>.
+	 * @param tint - tint of occupied cells, as 0xRRGGBBAA.
+	 * @throws InvalidParameterException if the Playfield's column count differs.
+	 */
+	public void update(Playfield playfield, byte[] cellLayers, int tint)
+			throws InvalidParameterException {
+		update(playfield, cellLayers, 0, tint);
+	}
+	
+	/**
+	 * Updates the records of the rows that changed, from row masks such as those of
+	 * a {@link tetrix.simulation.BoardSnapshot}, with every occupied cell textured
+	 * with the same layer.
+	 * @param rowMasks - row masks of the Playfield, from the bottom row up, with bit
+	 * <code>c</code> set if column <code>c</code> is occupied.  Rows past the end
+	 * of the array are empty.
+	 * @param layer - texture array layer of occupied cells.
+	 * @param tint - tint of occupied cells, as 0xRRGGBBAA.
+	 */
+	public void update(int[] rowMasks, int layer, int tint){
+		boolean tintChanged = beginUpdate(tint);
+		
+		for(int row = 0; row < visibleRows; row++){
+			updateRow(row, row < rowMasks.length ? rowMasks[row] : 0, tintChanged,
+					null, layer);
+		}
+	}
+	
+	private void update(Playfield playfield, byte[] layers, int layer, int tint){
+		if (playfield.getColumns() != columns){
+			throw new InvalidParameterException("Playfield has " +
+					playfield.getColumns() + " columns, expected " + columns + ".\n");
+		}
+		
+		boolean tintChanged = beginUpdate(tint);
+		
+		int rows = Math.min(visibleRows, playfield.getRows());
+		for(int row = 0; row < visibleRows; row++){
+			updateRow(row, row < rows ? playfield.getRowMask(row) : 0, tintChanged,
+					layers, layer);
+		}
+	}
+	
+	/**
+	 * @return true if <code>tint</code> differs from the tint of the records.
+	 */
+	private boolean beginUpdate(int tint){
+		boolean tintChanged = tint != this.tint;
+		this.tint = tint;
+		
+		return tintChanged;
+	}
+	
+	private void updateRow(int row, int rowMask, boolean tintChanged, byte[] layers,
+			int layer){
+		if (!tintChanged && rowMask == rowMasks[row] &&
+				layersMatch(row, rowMask, layers, layer)){
+			return;
+		}
+		
+		writeRow(row, rowMask, layers, layer);
+		tracker.markDirty(row * rowBytes, (row + 1) * rowBytes);
+	}
+	
+	/**
+	 * @return true if the occupied cells of <code>row</code> already have the
+	 * given layers.
+	 */
+	private boolean layersMatch(int row, int rowMask, byte[] layers, int layer){
+		int base = row * columns;
+		
+		while (rowMask != 0){
+			int index = base + Integer.numberOfTrailingZeros(rowMask);
+			rowMask &= rowMask - 1;
+			
+			int cellLayer = layers == null ? layer : layers[index] & 0xFF;
+			if ((cellLayers[index] & 0xFF) != cellLayer) return false;
+		}
+		
+		return true;
+	}
+	
+	private void writeRow(int row, int rowMask, byte[] layers, int layer){
+		int base = row * columns;
+		
+		for(int column = 0; column < columns; column++){
+			int index = base + column;
+			int offset = index * BlockInstancePacker.BYTES_PER_INSTANCE;
+			
+			if ((rowMask & (1 << column)) != 0){
+				int cellLayer = layers == null ? layer : layers[index] & 0xFF;
+				cellLayers[index] = (byte)cellLayer;
+				BlockInstancePacker.putInstance(buffer, offset, column, row, cellLayer,
+						tint);
+			}
+			else {
+				cellLayers[index] = 0;
+				BlockInstancePacker.putInstance(buffer, offset, column, row, 0,
+						EMPTY_TINT);
+			}
+		}
+		
+		rowMasks[row] = rowMask;
+	}
+	
+	/**
+	 * Uploads the changed records with <code>uploader</code>, to the same byte
+	 * offsets as in {@link #getBuffer()}.
+	 * @return number of bytes uploaded.
+	 */
+	public int upload(BufferUploader uploader){
+		return tracker.upload(getBuffer(), uploader);
+	}
+}
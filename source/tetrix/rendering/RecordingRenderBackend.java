@@ -0,0 +1,502 @@
+package tetrix.rendering;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+/**
+ * Counts the calls made through another {@link RenderBackend}, then passes them
+ * on to it.  Calls are counted per {@link Call}, along with the bytes of buffer
+ * and texture data uploaded, the state changes, such as binds, program switches
+ * and blend state, and the draw calls and instances drawn.  Wrapping a
+ * {@link NullRenderBackend} measures a frame without an OpenGL context, and
+ * wrapping an {@link LwjglRenderBackend} measures a frame as it is drawn.
+ * Counters accumulate until {@link #reset()}, typically called once per frame.
+ *
+ * @author Dustin Biser
+ *
+ */
+public class RecordingRenderBackend implements RenderBackend {
+
+	/**
+	 * The calls of a RenderBackend, marked with whether they change state that
+	 * later draw calls depend on.
+	 */
+	public enum Call {
+		GEN_BUFFER(false),
+		BIND_BUFFER(true),
+		BUFFER_DATA(false),
+		BUFFER_SUB_DATA(false),
+		DELETE_BUFFER(false),
+		GEN_VERTEX_ARRAY(false),
+		BIND_VERTEX_ARRAY(true),
+		DELETE_VERTEX_ARRAY(false),
+		VERTEX_ATTRIB_POINTER(true),
+		VERTEX_ATTRIB_I_POINTER(true),
+		VERTEX_ATTRIB_DIVISOR(true),
+		ENABLE_VERTEX_ATTRIB_ARRAY(true),
+		GEN_TEXTURE(false),
+		ACTIVE_TEXTURE(true),
+		BIND_TEXTURE(true),
+		TEX_PARAMETER(true),
+		PIXEL_STORE(true),
+		TEX_IMAGE_2D(false),
+		TEX_IMAGE_3D(false),
+		TEX_SUB_IMAGE_3D(false),
+		GENERATE_MIPMAP(false),
+		DELETE_TEXTURE(false),
+		CREATE_SHADER(false),
+		SHADER_SOURCE(false),
+		COMPILE_SHADER(false),
+		GET_SHADER(false),
+		DELETE_SHADER(false),
+		CREATE_PROGRAM(false),
+		ATTACH_SHADER(false),
+		DETACH_SHADER(false),
+		BIND_ATTRIB_LOCATION(false),
+		LINK_PROGRAM(false),
+		GET_PROGRAM(false),
+		USE_PROGRAM(true),
+		DELETE_PROGRAM(false),
+		GET_UNIFORM_LOCATION(false),
+		UNIFORM(true),
+		ENABLE(true),
+		DISABLE(true),
+		BLEND_FUNC(true),
+		CLEAR(false),
+		DRAW_ELEMENTS_INSTANCED(false),
+		DRAW_ELEMENTS_BASE_VERTEX(false),
+		GET_ERROR(false);
+		
+		private final boolean stateChange;
+		
+		private Call(boolean stateChange){
+			this.stateChange = stateChange;
+		}
+		
+		/**
+		 * @return true if the call changes state that later draw calls depend on.
+		 */
+		public boolean isStateChange(){
+			return stateChange;
+		}
+	}
+	
+	private static final Call[] CALLS = Call.values();
+	
+	private final RenderBackend backend;
+	
+	// Indexed by Call ordinal.
+	private final long[] counts = new long[CALLS.length];
+	
+	private long calls;
+	private long stateChanges;
+	private long drawCalls;
+	private long instancesDrawn;
+	private long bytesUploaded;
+	
+	/**
+	 * @param backend - RenderBackend that calls are passed on to.
+	 */
+	public RecordingRenderBackend(RenderBackend backend){
+		this.backend = backend;
+	}
+	
+	private void record(Call call){
+		counts[call.ordinal()]++;
+		calls++;
+		
+		if (call.stateChange){
+			stateChanges++;
+		}
+	}
+	
+	private void recordUpload(Call call, ByteBuffer data){
+		record(call);
+		
+		if (data != null){
+			bytesUploaded += data.remaining();
+		}
+	}
+	
+	private void recordDraw(Call call, int instanceCount){
+		record(call);
+		drawCalls++;
+		instancesDrawn += instanceCount;
+	}
+	
+	/**
+	 * Sets every counter to zero.
+	 */
+	public void reset(){
+		for(int i = 0; i < counts.length; i++){
+			counts[i] = 0;
+		}
+		
+		calls = 0;
+		stateChanges = 0;
+		drawCalls = 0;
+		instancesDrawn = 0;
+		bytesUploaded = 0;
+	}
+	
+	/**
+	 * @return RenderBackend that calls are passed on to.
+	 */
+	public RenderBackend getBackend(){
+		return backend;
+	}
+	
+	/**
+	 * @return number of times <code>call</code> was made.
+	 */
+	public long getCount(Call call){
+		return counts[call.ordinal()];
+	}
+	
+	/**
+	 * @return number of calls of every kind.
+	 */
+	public long getCalls(){
+		return calls;
+	}
+	
+	/**
+	 * @return number of calls that change state, see {@link Call#isStateChange()}.
+	 */
+	public long getStateChanges(){
+		return stateChanges;
+	}
+	
+	/**
+	 * @return number of draw calls.
+	 */
+	public long getDrawCalls(){
+		return drawCalls;
+	}
+	
+	/**
+	 * @return number of instances drawn, counting a draw call that is not
+	 * instanced as one instance.
+	 */
+	public long getInstancesDrawn(){
+		return instancesDrawn;
+	}
+	
+	/**
+	 * @return number of bytes of buffer and texture data uploaded.
+	 */
+	public long getBytesUploaded(){
+		return bytesUploaded;
+	}
+	
+	@Override
+	public int genBuffer(){
+		record(Call.GEN_BUFFER);
+		return backend.genBuffer();
+	}
+	
+	@Override
+	public void bindBuffer(int target, int buffer){
+		record(Call.BIND_BUFFER);
+		backend.bindBuffer(target, buffer);
+	}
+	
+	@Override
+	public void bufferData(int target, long size, int usage){
+		record(Call.BUFFER_DATA);
+		backend.bufferData(target, size, usage);
+	}
+	
+	@Override
+	public void bufferData(int target, ByteBuffer data, int usage){
+		recordUpload(Call.BUFFER_DATA, data);
+		backend.bufferData(target, data, usage);
+	}
+	
+	@Override
+	public void bufferSubData(int target, long offset, ByteBuffer data){
+		recordUpload(Call.BUFFER_SUB_DATA, data);
+		backend.bufferSubData(target, offset, data);
+	}
+	
+	@Override
+	public void deleteBuffer(int buffer){
+		record(Call.DELETE_BUFFER);
+		backend.deleteBuffer(buffer);
+	}
+	
+	@Override
+	public int genVertexArray(){
+		record(Call.GEN_VERTEX_ARRAY);
+		return backend.genVertexArray();
+	}
+	
+	@Override
+	public void bindVertexArray(int vertexArray){
+		record(Call.BIND_VERTEX_ARRAY);
+		backend.bindVertexArray(vertexArray);
+	}
+	
+	@Override
+	public void deleteVertexArray(int vertexArray){
+		record(Call.DELETE_VERTEX_ARRAY);
+		backend.deleteVertexArray(vertexArray);
+	}
+	
+	@Override
+	public void vertexAttribPointer(int index, int size, int type, boolean normalized,
+			int stride, long offset){
+		record(Call.VERTEX_ATTRIB_POINTER);
+		backend.vertexAttribPointer(index, size, type, normalized, stride, offset);
+	}
+	
+	@Override
+	public void vertexAttribIPointer(int index, int size, int type, int stride,
+			long offset){
+		record(Call.VERTEX_ATTRIB_I_POINTER);
+		backend.vertexAttribIPointer(index, size, type, stride, offset);
+	}
+	
+	@Override
+	public void vertexAttribDivisor(int index, int divisor){
+		record(Call.VERTEX_ATTRIB_DIVISOR);
+		backend.vertexAttribDivisor(index, divisor);
+	}
+	
+	@Override
+	public void enableVertexAttribArray(int index){
+		record(Call.ENABLE_VERTEX_ATTRIB_ARRAY);
+		backend.enableVertexAttribArray(index);
+	}
+	
+	@Override
+	public int genTexture(){
+		record(Call.GEN_TEXTURE);
+		return backend.genTexture();
+	}
+	
+	@Override
+	public void activeTexture(int textureUnit){
+		record(Call.ACTIVE_TEXTURE);
+		backend.activeTexture(textureUnit);
+	}
+	
+	@Override
+	public void bindTexture(int target, int texture){
+		record(Call.BIND_TEXTURE);
+		backend.bindTexture(target, texture);
+	}
+	
+	@Override
+	public void texParameteri(int target, int name, int value){
+		record(Call.TEX_PARAMETER);
+		backend.texParameteri(target, name, value);
+	}
+	
+	@Override
+	public void pixelStorei(int name, int value){
+		record(Call.PIXEL_STORE);
+		backend.pixelStorei(name, value);
+	}
+	
+	@Override
+	public void texImage2D(int target, int level, int internalFormat, int width,
+			int height, int format, int type, ByteBuffer texels){
+		recordUpload(Call.TEX_IMAGE_2D, texels);
+		backend.texImage2D(target, level, internalFormat, width, height, format, type,
+				texels);
+	}
+	
+	@Override
+	public void texImage3D(int target, int level, int internalFormat, int width,
+			int height, int depth, int format, int type, ByteBuffer texels){
+		recordUpload(Call.TEX_IMAGE_3D, texels);
+		backend.texImage3D(target, level, internalFormat, width, height, depth, format,
+				type, texels);
+	}
+	
+	@Override
+	public void texSubImage3D(int target, int level, int xOffset, int yOffset,
+			int zOffset, int width, int height, int depth, int format, int type,
+			ByteBuffer texels){
+		recordUpload(Call.TEX_SUB_IMAGE_3D, texels);
+		backend.texSubImage3D(target, level, xOffset, yOffset, zOffset, width, height,
+				depth, format, type, texels);
+	}
+	
+	@Override
+	public void generateMipmap(int target){
+		record(Call.GENERATE_MIPMAP);
+		backend.generateMipmap(target);
+	}
+	
+	@Override
+	public void deleteTexture(int texture){
+		record(Call.DELETE_TEXTURE);
+		backend.deleteTexture(texture);
+	}
+	
+	@Override
+	public int createShader(int type){
+		record(Call.CREATE_SHADER);
+		return backend.createShader(type);
+	}
+	
+	@Override
+	public void shaderSource(int shader, CharSequence source){
+		record(Call.SHADER_SOURCE);
+		backend.shaderSource(shader, source);
+	}
+	
+	@Override
+	public void shaderSource(int shader, ByteBuffer source){
+		record(Call.SHADER_SOURCE);
+		backend.shaderSource(shader, source);
+	}
+	
+	@Override
+	public void compileShader(int shader){
+		record(Call.COMPILE_SHADER);
+		backend.compileShader(shader);
+	}
+	
+	@Override
+	public int getShaderi(int shader, int name){
+		record(Call.GET_SHADER);
+		return backend.getShaderi(shader, name);
+	}
+	
+	@Override
+	public String getShaderInfoLog(int shader, int maxLength){
+		record(Call.GET_SHADER);
+		return backend.getShaderInfoLog(shader, maxLength);
+	}
+	
+	@Override
+	public void deleteShader(int shader){
+		record(Call.DELETE_SHADER);
+		backend.deleteShader(shader);
+	}
+	
+	@Override
+	public int createProgram(){
+		record(Call.CREATE_PROGRAM);
+		return backend.createProgram();
+	}
+	
+	@Override
+	public void attachShader(int program, int shader){
+		record(Call.ATTACH_SHADER);
+		backend.attachShader(program, shader);
+	}
+	
+	@Override
+	public void detachShader(int program, int shader){
+		record(Call.DETACH_SHADER);
+		backend.detachShader(program, shader);
+	}
+	
+	@Override
+	public void bindAttribLocation(int program, int index, CharSequence name){
+		record(Call.BIND_ATTRIB_LOCATION);
+		backend.bindAttribLocation(program, index, name);
+	}
+	
+	@Override
+	public void linkProgram(int program){
+		record(Call.LINK_PROGRAM);
+		backend.linkProgram(program);
+	}
+	
+	@Override
+	public int getProgrami(int program, int name){
+		record(Call.GET_PROGRAM);
+		return backend.getProgrami(program, name);
+	}
+	
+	@Override
+	public String getProgramInfoLog(int program, int maxLength){
+		record(Call.GET_PROGRAM);
+		return backend.getProgramInfoLog(program, maxLength);
+	}
+	
+	@Override
+	public void useProgram(int program){
+		record(Call.USE_PROGRAM);
+		backend.useProgram(program);
+	}
+	
+	@Override
+	public void deleteProgram(int program){
+		record(Call.DELETE_PROGRAM);
+		backend.deleteProgram(program);
+	}
+	
+	@Override
+	public int getUniformLocation(int program, CharSequence name){
+		record(Call.GET_UNIFORM_LOCATION);
+		return backend.getUniformLocation(program, name);
+	}
+	
+	@Override
+	public void uniform1i(int location, int value){
+		record(Call.UNIFORM);
+		backend.uniform1i(location, value);
+	}
+	
+	@Override
+	public void uniform4(int location, FloatBuffer values){
+		record(Call.UNIFORM);
+		backend.uniform4(location, values);
+	}
+	
+	@Override
+	public void uniformMatrix4(int location, boolean transpose, FloatBuffer matrix){
+		record(Call.UNIFORM);
+		backend.uniformMatrix4(location, transpose, matrix);
+	}
+	
+	@Override
+	public void enable(int capability){
+		record(Call.ENABLE);
+		backend.enable(capability);
+	}
+	
+	@Override
+	public void disable(int capability){
+		record(Call.DISABLE);
+		backend.disable(capability);
+	}
+	
+	@Override
+	public void blendFunc(int sourceFactor, int destinationFactor){
+		record(Call.BLEND_FUNC);
+		backend.blendFunc(sourceFactor, destinationFactor);
+	}
+	
+	@Override
+	public void clear(int mask){
+		record(Call.CLEAR);
+		backend.clear(mask);
+	}
+	
+	@Override
+	public void drawElementsInstanced(int mode, int count, int type, long offset,
+			int instanceCount){
+		recordDraw(Call.DRAW_ELEMENTS_INSTANCED, instanceCount);
+		backend.drawElementsInstanced(mode, count, type, offset, instanceCount);
+	}
+	
+	@Override
+	public void drawElementsBaseVertex(int mode, int count, int type, long offset,
+			int baseVertex){
+		recordDraw(Call.DRAW_ELEMENTS_BASE_VERTEX, 1);
+		backend.drawElementsBaseVertex(mode, count, type, offset, baseVertex);
+	}
+	
+	@Override
+	public int getError(){
+		record(Call.GET_ERROR);
+		return backend.getError();
+	}
+}
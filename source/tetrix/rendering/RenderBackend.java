@@ -0,0 +1,172 @@
+package tetrix.rendering;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+/**
+ * Defines the OpenGL operations used to draw Tetrix: buffer objects, vertex
+ * arrays, textures, shaders, fixed function state and draw calls.  Methods take
+ * the same arguments and OpenGL constants as the OpenGL functions they are named
+ * after, without the <code>gl</code> prefix.
+ *
+ * <p>
+ * Rendering code that calls a RenderBackend rather than the LWJGL GL classes can
+ * run without an OpenGL context.  {@link LwjglRenderBackend} issues every call
+ * to OpenGL, {@link NullRenderBackend} discards every call, so the CPU cost of a
+ * frame can be measured on machines without a GPU, and
+ * {@link RecordingRenderBackend} counts the calls, bytes uploaded and state
+ * changes made through another backend, so tests can assert draw call budgets.
+ *
+ * @author Dustin Biser
+ *
+ */
+public interface RenderBackend {
+
+	// Buffer objects.
+	
+	public int genBuffer();
+	
+	public void bindBuffer(int target, int buffer);
+	
+	/**
+	 * Allocates <code>size</code> bytes of uninitialized storage for the buffer
+	 * bound to <code>target</code>, orphaning its previous storage.
+	 */
+	public void bufferData(int target, long size, int usage);
+	
+	/**
+	 * Allocates storage for the buffer bound to <code>target</code>, initialized with
+	 * the remaining bytes of <code>data</code>.
+	 */
+	public void bufferData(int target, ByteBuffer data, int usage);
+	
+	/**
+	 * Uploads the remaining bytes of <code>data</code> to the buffer bound to
+	 * <code>target</code>, starting at byte <code>offset</code>.
+	 */
+	public void bufferSubData(int target, long offset, ByteBuffer data);
+	
+	public void deleteBuffer(int buffer);
+	
+	// Vertex arrays.
+	
+	public int genVertexArray();
+	
+	public void bindVertexArray(int vertexArray);
+	
+	public void deleteVertexArray(int vertexArray);
+	
+	public void vertexAttribPointer(int index, int size, int type, boolean normalized,
+			int stride, long offset);
+	
+	public void vertexAttribIPointer(int index, int size, int type, int stride,
+			long offset);
+	
+	public void vertexAttribDivisor(int index, int divisor);
+	
+	public void enableVertexAttribArray(int index);
+	
+	// Textures.
+	
+	public int genTexture();
+	
+	public void activeTexture(int textureUnit);
+	
+	public void bindTexture(int target, int texture);
+	
+	public void texParameteri(int target, int name, int value);
+	
+	public void pixelStorei(int name, int value);
+	
+	/**
+	 * @param texels - texels to upload, or null to only allocate storage.
+	 */
+	public void texImage2D(int target, int level, int internalFormat, int width,
+			int height, int format, int type, ByteBuffer texels);
+	
+	/**
+	 * @param texels - texels to upload, or null to only allocate storage.
+	 */
+	public void texImage3D(int target, int level, int internalFormat, int width,
+			int height, int depth, int format, int type, ByteBuffer texels);
+	
+	public void texSubImage3D(int target, int level, int xOffset, int yOffset,
+			int zOffset, int width, int height, int depth, int format, int type,
+			ByteBuffer texels);
+	
+	public void generateMipmap(int target);
+	
+	public void deleteTexture(int texture);
+	
+	// Shaders and programs.
+	
+	public int createShader(int type);
+	
+	public void shaderSource(int shader, CharSequence source);
+	
+	/**
+	 * @param source - shader source in UTF-8, from its position to its limit.
+	 */
+	public void shaderSource(int shader, ByteBuffer source);
+	
+	public void compileShader(int shader);
+	
+	public int getShaderi(int shader, int name);
+	
+	public String getShaderInfoLog(int shader, int maxLength);
+	
+	public void deleteShader(int shader);
+	
+	public int createProgram();
+	
+	public void attachShader(int program, int shader);
+	
+	public void detachShader(int program, int shader);
+	
+	public void bindAttribLocation(int program, int index, CharSequence name);
+	
+	public void linkProgram(int program);
+	
+	public int getProgrami(int program, int name);
+	
+	public String getProgramInfoLog(int program, int maxLength);
+	
+	public void useProgram(int program);
+	
+	public void deleteProgram(int program);
+	
+	public int getUniformLocation(int program, CharSequence name);
+	
+	public void uniform1i(int location, int value);
+	
+	/**
+	 * Sets a vec4 array uniform from the remaining floats of <code>values</code>.
+	 */
+	public void uniform4(int location, FloatBuffer values);
+	
+	public void uniformMatrix4(int location, boolean transpose, FloatBuffer matrix);
+	
+	// Fixed function state.
+	
+	public void enable(int capability);
+	
+	public void disable(int capability);
+	
+	public void blendFunc(int sourceFactor, int destinationFactor);
+	
+	public void clear(int mask);
+	
+	// Draw calls.
+	
+	public void drawElementsInstanced(int mode, int count, int type, long offset,
+			int instanceCount);
+	
+	public void drawElementsBaseVertex(int mode, int count, int type, long offset,
+			int baseVertex);
+	
+	/**
+	 * @return the oldest error flag set by an earlier call, such as
+	 * GL_INVALID_OPERATION, or GL_NO_ERROR.
+	 */
+	public int getError();
+}
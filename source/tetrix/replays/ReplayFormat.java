@@ -0,0 +1,100 @@
+package tetrix.replays;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Constants and encoding helpers of the Tetrix replay file format.  A replay
+ * records everything needed to reproduce a game played on a
+ * {@link tetrix.simulation.GameSimulator}: the randomizer and its seed, the
+ * simulator settings, and the inputs applied on each frame.  All values are big
+ * endian.
+ *
+ * <p>
+ * A replay begins with a fixed size header:
+ * <pre>
+ * offset  size  field
+ *  0      4     magic number 'TXRP'
+ *  4      2     format version
+ *  6      1     GeneratorType ordinal of the randomizer
+ *  7      1     reserved, 0
+ *  8      2     Playfield columns
+ * 10      2     Playfield rows
+ * 12      2     gravity frames
+ * 14      2     lock delay frames
+ * 16      8     randomizer seed
+ * 24      8     number of frames simulated
+ * 32      8     final score
+ * 40      4     final number of lines cleared
+ * 44      4     number of input events
+ * </pre>
+ *
+ * <p>
+ * The header is followed by one event for every frame with inputs.  Frames without
+ * inputs are not stored.  An event is a single unsigned varint (7 bits per byte,
+ * least significant group first, high bit set on every byte but the last) holding
+ * <code>(frameDelta - 1) &lt;&lt; 6 | inputs</code>, where <code>inputs</code> is
+ * the combination of {@link tetrix.simulation.Input} flags and
+ * <code>frameDelta</code> is the number of frames since the previous event, or
+ * since frame -1 for the first event.  An input every frame or every other frame
+ * takes 1 byte, and inputs up to 256 frames apart take 2 bytes.
+ *
+ * @author Dustin Biser
+ *
+ */
+public final class ReplayFormat {
+	public static final int MAGIC = 0x54585250;
+	public static final short VERSION = 1;
+	public static final int HEADER_BYTES = 48;
+	
+	// File name extension of replay files.
+	public static final String FILE_EXTENSION = ".txr";
+	
+	// Header field offsets.
+	static final int MAGIC_OFFSET = 0;
+	static final int VERSION_OFFSET = 4;
+	static final int GENERATOR_OFFSET = 6;
+	static final int COLUMNS_OFFSET = 8;
+	static final int ROWS_OFFSET = 10;
+	static final int GRAVITY_OFFSET = 12;
+	static final int LOCK_DELAY_OFFSET = 14;
+	static final int SEED_OFFSET = 16;
+	static final int FRAMES_OFFSET = 24;
+	static final int SCORE_OFFSET = 32;
+	static final int LINES_OFFSET = 40;
+	static final int EVENTS_OFFSET = 44;
+	
+	// Bits of an event holding the Input flags.
+	static final int INPUT_BITS = 6;
+	static final int INPUT_MASK = (1 << INPUT_BITS) - 1;
+	
+	// Most bytes an unsigned varint of a long can take.
+	static final int MAX_VARINT_BYTES = 10;
+	
+	private ReplayFormat(){
+		
+	}
+	
+	/**
+	 * Writes <code>value</code> as an unsigned varint at the position of
+	 * <code>buffer</code>, advancing its position.
+	 */
+	static void putVarint(ByteBuffer buffer, long value){
+		while ((value & ~0x7FL) != 0){
+			buffer.put((byte)((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		buffer.put((byte)value);
+	}
+	
+	/**
+	 * @return number of bytes <code>value</code> takes as an unsigned varint.
+	 */
+	public static int getVarintLength(long value){
+		int length = 1;
+		while ((value & ~0x7FL) != 0){
+			value >>>= 7;
+			length++;
+		}
+		return length;
+	}
+}
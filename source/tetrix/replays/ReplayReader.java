@@ -0,0 +1,269 @@
+package tetrix.replays;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.InvalidParameterException;
+
+import tetrix.entities.Playfield;
+import tetrix.entities.rotations.SuperRotationSystem;
+import tetrix.randomizers.GeneratorType;
+import tetrix.simulation.GameSimulator;
+import tetrix.simulation.Input;
+import tetrix.simulation.InputSource;
+
+/**
+ * Reads a replay file in the format described by {@link ReplayFormat}, and plays
+ * it back through a {@link GameSimulator}.  The file is memory mapped with
+ * {@link FileChannel#map(FileChannel.MapMode, long, long)}, and events are decoded
+ * directly from the mapped buffer as the simulator asks for the inputs of each
+ * frame, so no part of the file is copied onto the heap.
+ *
+ * <p>
+ * A ReplayReader is the {@link InputSource} of the game it replays.  Frames must be
+ * requested in increasing order, as {@link GameSimulator#run(InputSource, long)}
+ * does; {@link #rewind()} restarts playback from the first event.
+ *
+ * @author Dustin Biser
+ *
+ */
+public class ReplayReader implements InputSource {
+	private static final GeneratorType[] GENERATOR_TYPES = GeneratorType.values();
+	
+	private final ByteBuffer data;
+	
+	private final GeneratorType generatorType;
+	private final int columns;
+	private final int rows;
+	private final int gravityFrames;
+	private final int lockDelayFrames;
+	private final long seed;
+	private final long frames;
+	private final long score;
+	private final int linesCleared;
+	private final int events;
+	
+	// Playback state.
+	private int position;
+	private int eventsLeft;
+	private long nextEventFrame;
+	private int nextInputs;
+	
+	/**
+	 * Memory maps a replay file.  The file is closed once mapped; the mapping stays
+	 * valid until the ReplayReader is garbage collected.
+	 * @param path - replay file.
+	 * @return ReplayReader positioned at the first event.
+	 * @throws IOException if the file can not be read or is not a valid replay.
+	 */
+	public static ReplayReader open(Path path) throws IOException {
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+		
+		try {
+			return new ReplayReader(channel.map(FileChannel.MapMode.READ_ONLY, 0,
+					channel.size()));
+		}
+		finally {
+			channel.close();
+		}
+	}
+	
+	/**
+	 * Reads a replay held in <code>data</code>, from index 0 up to its limit.  The
+	 * buffer is read with absolute gets, so its position is not changed.
+	 * @param data - buffer holding a complete replay.
+	 * @throws IOException if data does not hold a valid replay header.
+	 */
+	public ReplayReader(ByteBuffer data) throws IOException {
+		this.data = data.duplicate().order(ByteOrder.BIG_ENDIAN);
+		
+		if (data.limit() < ReplayFormat.HEADER_BYTES ||
+				this.data.getInt(ReplayFormat.MAGIC_OFFSET) != ReplayFormat.MAGIC){
+			throw new IOException("Not a replay file.");
+		}
+		
+		short version = this.data.getShort(ReplayFormat.VERSION_OFFSET);
+		if (version != ReplayFormat.VERSION){
+			throw new IOException("Unsupported replay version " + version + ".");
+		}
+		
+		int generator = this.data.get(ReplayFormat.GENERATOR_OFFSET);
+		if (generator < 0 || generator >= GENERATOR_TYPES.length){
+			throw new IOException("Unknown randomizer " + generator + ".");
+		}
+		
+		generatorType = GENERATOR_TYPES[generator];
+		columns = this.data.getShort(ReplayFormat.COLUMNS_OFFSET);
+		rows = this.data.getShort(ReplayFormat.ROWS_OFFSET);
+		gravityFrames = this.data.getShort(ReplayFormat.GRAVITY_OFFSET);
+		lockDelayFrames = this.data.getShort(ReplayFormat.LOCK_DELAY_OFFSET);
+		seed = this.data.getLong(ReplayFormat.SEED_OFFSET);
+		frames = this.data.getLong(ReplayFormat.FRAMES_OFFSET);
+		score = this.data.getLong(ReplayFormat.SCORE_OFFSET);
+		linesCleared = this.data.getInt(ReplayFormat.LINES_OFFSET);
+		events = this.data.getInt(ReplayFormat.EVENTS_OFFSET);
+		
+		rewind();
+	}
+	
+	/**
+	 * Restarts playback from the first event.
+	 */
+	public void rewind(){
+		position = ReplayFormat.HEADER_BYTES;
+		eventsLeft = events;
+		nextEventFrame = -1;
+		readEvent();
+	}
+	
+	/**
+	 * Decodes the next event into nextEventFrame and nextInputs.  After the last
+	 * event, or at a truncated event, no further inputs are produced.
+	 */
+	private void readEvent(){
+		if (eventsLeft == 0){
+			nextEventFrame = Long.MAX_VALUE;
+			return;
+		}
+		
+		long value = 0;
+		int shift = 0;
+		int limit = data.limit();
+		
+		while (true){
+			if (position >= limit || shift >= 7 * ReplayFormat.MAX_VARINT_BYTES){
+				eventsLeft = 0;
+				nextEventFrame = Long.MAX_VALUE;
+				return;
+			}
+			
+			byte b = data.get(position++);
+			value |= (long)(b & 0x7F) << shift;
+			if (b >= 0) break;
+			shift += 7;
+		}
+		
+		eventsLeft--;
+		nextEventFrame += (value >>> ReplayFormat.INPUT_BITS) + 1;
+		nextInputs = (int)value & ReplayFormat.INPUT_MASK;
+	}
+
+	@Override
+	public int getInputs(long frame) {
+		if (frame != nextEventFrame) return Input.NONE;
+		
+		int inputs = nextInputs;
+		readEvent();
+		
+		return inputs;
+	}
+	
+	/**
+	 * Constructs a GameSimulator with the Playfield dimensions, randomizer and
+	 * settings of this replay, that {@link #replay(GameSimulator)} can play it on.
+	 */
+	public GameSimulator createSimulator(){
+		GameSimulator simulator = new GameSimulator(new Playfield(columns, rows),
+				new SuperRotationSystem(), generatorType.create(seed));
+		simulator.setGravityFrames(gravityFrames);
+		simulator.setLockDelayFrames(lockDelayFrames);
+		
+		return simulator;
+	}
+	
+	/**
+	 * Returns true if <code>simulator</code> has the Playfield dimensions and
+	 * randomizer of this replay, so that it can replay it.
+	 */
+	public boolean canReplayOn(GameSimulator simulator){
+		Playfield playfield = simulator.getPlayfield();
+		
+		try {
+			return playfield.getColumns() == columns && playfield.getRows() == rows &&
+					GeneratorType.of(simulator.getPieceGenerator()) == generatorType;
+		}
+		catch (InvalidParameterException e){
+			return false;
+		}
+	}
+	
+	/**
+	 * Plays this replay from its first event on <code>simulator</code>.  The
+	 * simulator's gravity and lock delay are set to those of the replay, it is reset
+	 * with the replay's seed, and run for the recorded number of frames, or until
+	 * the game is over.  The result can then be compared with
+	 * {@link #getScore()} and {@link #getLinesCleared()}.
+	 * @param simulator - simulator to replay on, which may be reused between replays.
+	 * @return number of frames simulated.
+	 * @throws InvalidParameterException if the simulator can not replay this replay.
+	 * @see #canReplayOn(GameSimulator)
+	 */
+	public long replay(GameSimulator simulator) throws InvalidParameterException {
+		if (!canReplayOn(simulator)){
+			throw new InvalidParameterException("Simulator does not match a " +
+					columns + "x" + rows + " " + generatorType + " replay.\n");
+		}
+		
+		simulator.setGravityFrames(gravityFrames);
+		simulator.setLockDelayFrames(lockDelayFrames);
+		simulator.reset(seed);
+		rewind();
+		
+		return simulator.run(this, frames);
+	}
+	
+	public GeneratorType getGeneratorType(){
+		return generatorType;
+	}
+	
+	public int getColumns(){
+		return columns;
+	}
+	
+	public int getRows(){
+		return rows;
+	}
+	
+	public int getGravityFrames(){
+		return gravityFrames;
+	}
+	
+	public int getLockDelayFrames(){
+		return lockDelayFrames;
+	}
+	
+	public long getSeed(){
+		return seed;
+	}
+	
+	/**
+	 * @return number of frames the recorded game was simulated for.
+	 */
+	public long getFrames(){
+		return frames;
+	}
+	
+	/**
+	 * @return final score recorded for the game.
+	 */
+	public long getScore(){
+		return score;
+	}
+	
+	/**
+	 * @return final number of lines cleared recorded for the game.
+	 */
+	public int getLinesCleared(){
+		return linesCleared;
+	}
+	
+	/**
+	 * @return number of frames with inputs in the replay.
+	 */
+	public int getEvents(){
+		return events;
+	}
+}
@@ -0,0 +1,339 @@
+package tetrix.replays;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+import tetrix.randomizers.GeneratorType;
+import tetrix.simulation.GameSimulator;
+
+/**
+ * Re-simulates replay files and checks that the score and number of lines cleared
+ * recorded in each replay match those the game actually produces.  Replays are
+ * played back on a {@link GameSimulator} with the {@link
+ * tetrix.entities.rotations.SuperRotationSystem}, so verification uses exactly
+ * the same rules as the game.
+ *
+ * <p>
+ * Replays are verified in parallel on a {@link ForkJoinPool}.  Each worker thread
+ * keeps its own GameSimulators, one for each {@link GeneratorType}, and reuses them
+ * for every replay it verifies.  Every replay that does not match, or can not be
+ * read, is written as a line of CSV as soon as it is found, so the output of a
+ * large run can be followed as it grows.
+ *
+ * <p>
+ * Usage: <code>ReplayVerifier replayDirectory [mismatches.csv] [threads]</code>
+ * <br>
+ * Verifies every replay file in <code>replayDirectory</code>, writing mismatches
+ * to <code>mismatches.csv</code>, or to standard output if no file is given.
+ *
+ * @author Dustin Biser
+ *
+ */
+public class ReplayVerifier {
+	public static final String CSV_HEADER = "replay,status,claimed_score," +
+			"simulated_score,claimed_lines,simulated_lines,claimed_frames," +
+			"simulated_frames,message";
+	
+	public static final String STATUS_MISMATCH = "MISMATCH";
+	public static final String STATUS_ERROR = "ERROR";
+	
+	// Replays verified by a task before it stops splitting.
+	private static final int REPLAYS_PER_TASK = 8;
+	
+	private final ForkJoinPool pool;
+	
+	// Per thread GameSimulators, indexed by GeneratorType ordinal.
+	private final ThreadLocal<GameSimulator[]> simulators;
+	
+	// Statistics of the last run.
+	private final AtomicLong verified = new AtomicLong();
+	private final AtomicLong mismatches = new AtomicLong();
+	private final AtomicLong errors = new AtomicLong();
+	private final AtomicLong inputs = new AtomicLong();
+	private long elapsedNanos;
+	
+	/**
+	 * @param pool - ForkJoinPool that replays are verified on.
+	 */
+	public ReplayVerifier(ForkJoinPool pool){
+		this.pool = pool;
+		this.simulators = new ThreadLocal<GameSimulator[]>() {
+			@Override
+			protected GameSimulator[] initialValue(){
+				return new GameSimulator[GeneratorType.values().length];
+			}
+		};
+	}
+	
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1){
+			System.err.println("Usage: ReplayVerifier replayDirectory " +
+					"[mismatches.csv] [threads]");
+			System.exit(2);
+		}
+		
+		int threads = args.length > 2 ? Integer.parseInt(args[2]) :
+			Runtime.getRuntime().availableProcessors();
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		
+		Writer csv = args.length > 1 ?
+				Files.newBufferedWriter(Paths.get(args[1]), StandardCharsets.UTF_8) :
+				new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+		
+		ReplayVerifier verifier = new ReplayVerifier(pool);
+		try {
+			verifier.verify(listReplays(Paths.get(args[0])), csv);
+		}
+		finally {
+			csv.flush();
+			if (args.length > 1) csv.close();
+			pool.shutdown();
+		}
+		
+		System.err.printf("Verified %,d replays on %d threads: %,d mismatches, " +
+				"%,d errors%n", verifier.getVerified(), threads,
+				verifier.getMismatches(), verifier.getErrors());
+		System.err.printf("%,.0f replays/sec, %,.0f inputs/sec%n",
+				verifier.getReplaysPerSecond(),
+				verifier.getInputs() / (verifier.getElapsedNanos() * 1e-9));
+		
+		System.exit(verifier.getMismatches() + verifier.getErrors() == 0 ? 0 : 1);
+	}
+	
+	/**
+	 * @return the replay files in <code>directory</code>, sorted by name.
+	 * @throws IOException if the directory can not be listed.
+	 */
+	public static List<Path> listReplays(Path directory) throws IOException {
+		List<Path> replays = new ArrayList<Path>();
+		DirectoryStream<Path> stream = Files.newDirectoryStream(directory,
+				"*" + ReplayFormat.FILE_EXTENSION);
+		
+		try {
+			for(Path path : stream){
+				replays.add(path);
+			}
+		}
+		finally {
+			stream.close();
+		}
+		
+		Collections.sort(replays);
+		return replays;
+	}
+	
+	/**
+	 * Verifies every replay in <code>replays</code>, writing a CSV header followed by
+	 * one line for every replay that does not match or can not be read.
+	 * @param replays - replay files to verify.
+	 * @param csv - destination of the mismatch report.  Lines are written as
+	 * mismatches are found, from several threads, in no particular order.
+	 * @return number of replays that did not match or could not be read.
+	 * @throws IOException if the CSV can not be written.
+	 */
+	public long verify(List<Path> replays, Writer csv) throws IOException {
+		verified.set(0);
+		mismatches.set(0);
+		errors.set(0);
+		inputs.set(0);
+		
+		csv.write(CSV_HEADER);
+		csv.write('\n');
+		csv.flush();
+		
+		long start = System.nanoTime();
+		VerifyTask task = new VerifyTask(replays, csv, 0, replays.size());
+		pool.invoke(task);
+		elapsedNanos = System.nanoTime() - start;
+		
+		if (task.csvError != null){
+			throw task.csvError;
+		}
+		
+		return mismatches.get() + errors.get();
+	}
+	
+	/**
+	 * Re-simulates a single replay on this thread's simulators, and reports it to
+	 * <code>csv</code> if it does not match.
+	 */
+	private void verifyReplay(Path path, Writer csv) throws IOException {
+		ReplayReader reader;
+		GameSimulator simulator;
+		long frames;
+		
+		try {
+			reader = ReplayReader.open(path);
+			simulator = getSimulator(reader);
+			frames = reader.replay(simulator);
+		}
+		catch (IOException | InvalidParameterException e){
+			// Unreadable files, and headers describing an invalid Playfield.
+			errors.incrementAndGet();
+			writeLine(csv, path, STATUS_ERROR, 0, 0, 0, 0, 0, 0, e.getMessage());
+			return;
+		}
+		
+		verified.incrementAndGet();
+		inputs.addAndGet(reader.getEvents());
+		
+		if (simulator.getScore() != reader.getScore() ||
+				simulator.getLinesCleared() != reader.getLinesCleared() ||
+				frames != reader.getFrames()){
+			mismatches.incrementAndGet();
+			writeLine(csv, path, STATUS_MISMATCH, reader.getScore(), simulator.getScore(),
+					reader.getLinesCleared(), simulator.getLinesCleared(),
+					reader.getFrames(), frames, "");
+		}
+	}
+	
+	/**
+	 * Returns this thread's GameSimulator for the randomizer of <code>reader</code>,
+	 * creating it if none exists or if the Playfield size differs.
+	 */
+	private GameSimulator getSimulator(ReplayReader reader){
+		GameSimulator[] threadSimulators = simulators.get();
+		int index = reader.getGeneratorType().ordinal();
+		
+		GameSimulator simulator = threadSimulators[index];
+		if (simulator == null || !reader.canReplayOn(simulator)){
+			simulator = reader.createSimulator();
+			threadSimulators[index] = simulator;
+		}
+		
+		return simulator;
+	}
+	
+	private static void writeLine(Writer csv, Path path, String status,
+			long claimedScore, long simulatedScore, long claimedLines,
+			long simulatedLines, long claimedFrames, long simulatedFrames,
+			String message) throws IOException {
+		StringBuilder line = new StringBuilder(128);
+		line.append(quote(path.toString())).append(',').append(status).append(',')
+			.append(claimedScore).append(',').append(simulatedScore).append(',')
+			.append(claimedLines).append(',').append(simulatedLines).append(',')
+			.append(claimedFrames).append(',').append(simulatedFrames).append(',')
+			.append(quote(message == null ? "" : message)).append('\n');
+		
+		// Whole lines are written at once, so lines from different threads do not
+		// interleave, and flushed, so the report can be followed as it grows.
+		synchronized (csv){
+			csv.write(line.toString());
+			csv.flush();
+		}
+	}
+	
+	/**
+	 * @return <code>value</code> quoted for CSV, if it contains a separator or quote.
+	 */
+	static String quote(String value){
+		if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0){
+			return value;
+		}
+		
+		return '"' + value.replace("\"", "\"\"") + '"';
+	}
+	
+	/**
+	 * @return number of replays re-simulated during the last run.
+	 */
+	public long getVerified(){
+		return verified.get();
+	}
+	
+	/**
+	 * @return number of replays whose recorded result did not match.
+	 */
+	public long getMismatches(){
+		return mismatches.get();
+	}
+	
+	/**
+	 * @return number of replays that could not be read.
+	 */
+	public long getErrors(){
+		return errors.get();
+	}
+	
+	/**
+	 * @return number of recorded inputs replayed during the last run.
+	 */
+	public long getInputs(){
+		return inputs.get();
+	}
+	
+	/**
+	 * @return duration of the last run in nanoseconds.
+	 */
+	public long getElapsedNanos(){
+		return elapsedNanos;
+	}
+	
+	/**
+	 * @return replays verified per second during the last run.
+	 */
+	public double getReplaysPerSecond(){
+		return elapsedNanos == 0 ? 0 : (verified.get() + errors.get()) /
+				(elapsedNanos * 1e-9);
+	}
+	
+	/**
+	 * Verifies the replays in the range [from, to), splitting the range in half
+	 * until at most REPLAYS_PER_TASK replays are left.
+	 */
+	private class VerifyTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		
+		private final List<Path> replays;
+		private final Writer csv;
+		private final int from;
+		private final int to;
+		
+		// First error writing the CSV, rethrown by verify().
+		IOException csvError;
+		
+		VerifyTask(List<Path> replays, Writer csv, int from, int to){
+			this.replays = replays;
+			this.csv = csv;
+			this.from = from;
+			this.to = to;
+		}
+		
+		@Override
+		protected void compute(){
+			if (to - from <= REPLAYS_PER_TASK){
+				for(int i = from; i < to; i++){
+					try {
+						verifyReplay(replays.get(i), csv);
+					}
+					catch (IOException e){
+						csvError = e;
+						return;
+					}
+				}
+				return;
+			}
+			
+			int middle = (from + to) >>> 1;
+			VerifyTask left = new VerifyTask(replays, csv, from, middle);
+			VerifyTask right = new VerifyTask(replays, csv, middle, to);
+			invokeAll(left, right);
+			
+			csvError = left.csvError != null ? left.csvError : right.csvError;
+		}
+	}
+}
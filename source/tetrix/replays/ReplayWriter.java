@@ -0,0 +1,224 @@
+package tetrix.replays;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.InvalidParameterException;
+
+import tetrix.datastructures.ByteBufferPool;
+import tetrix.entities.Playfield;
+import tetrix.randomizers.GeneratorType;
+import tetrix.simulation.GameSimulator;
+import tetrix.simulation.Input;
+
+/**
+ * Writes a replay file in the format described by {@link ReplayFormat}.  Inputs
+ * are passed to {@link #record(long, int)} frame by frame as a game is played,
+ * encoded into a ByteBuffer borrowed from a {@link ByteBufferPool}, and appended to
+ * the file whenever the buffer fills.  The header is written last, when the
+ * ReplayWriter is closed, once the number of frames and the final score are known.
+ *
+ * <p>
+ * A typical recording looks like:
+ * <pre>
+ * ReplayWriter writer = new ReplayWriter(path, simulator, seed);
+ * simulator.reset(seed);
+ * while (!simulator.isGameOver()){
+ *     int inputs = ...;
+ *     writer.record(simulator.getFrame(), inputs);
+ *     simulator.step(inputs);
+ * }
+ * writer.finish(simulator);
+ * writer.close();
+ * </pre>
+ *
+ * @author Dustin Biser
+ *
+ */
+public class ReplayWriter implements Closeable {
+	public static final int BUFFER_BYTES = 1 << 16;
+	
+	private final FileChannel channel;
+	private final ByteBufferPool bufferPool;
+	private ByteBuffer buffer;
+	
+	private final GeneratorType generatorType;
+	private final long seed;
+	private final int columns;
+	private final int rows;
+	private final int gravityFrames;
+	private final int lockDelayFrames;
+	
+	// Frame of the last recorded event, with -1 before the first event.
+	private long lastFrame = -1;
+	private int events;
+	
+	private long frames = -1;
+	private long score;
+	private int linesCleared;
+	
+	/**
+	 * Creates a replay file for a game played on <code>simulator</code>, with its
+	 * current settings and PieceGenerator, using the shared ByteBufferPool.
+	 * @param path - file to create or overwrite.
+	 * @param simulator - simulator the recorded game is played on.
+	 * @param seed - seed the simulator is reset with.
+	 * @throws InvalidParameterException if the simulator's PieceGenerator has no
+	 * {@link GeneratorType}.
+	 * @throws IOException if the file can not be created.
+	 */
+	public ReplayWriter(Path path, GameSimulator simulator, long seed)
+			throws IOException, InvalidParameterException {
+		this(path, GeneratorType.of(simulator.getPieceGenerator()), seed,
+				simulator.getPlayfield(), simulator.getGravityFrames(),
+				simulator.getLockDelayFrames(), ByteBufferPool.getShared());
+	}
+	
+	/**
+	 * Creates a replay file.
+	 * @param path - file to create or overwrite.
+	 * @param generatorType - randomizer of the recorded game.
+	 * @param seed - seed of the randomizer.
+	 * @param playfield - Playfield of the recorded game, whose dimensions are
+	 * recorded.
+	 * @param gravityFrames - gravity frames of the recorded game.
+	 * @param lockDelayFrames - lock delay frames of the recorded game.
+	 * @param bufferPool - pool to borrow the write buffer from.
+	 * @throws IOException if the file can not be created.
+	 */
+	public ReplayWriter(Path path, GeneratorType generatorType, long seed,
+			Playfield playfield, int gravityFrames, int lockDelayFrames,
+			ByteBufferPool bufferPool) throws IOException {
+		this.generatorType = generatorType;
+		this.seed = seed;
+		this.columns = playfield.getColumns();
+		this.rows = playfield.getRows();
+		this.gravityFrames = gravityFrames;
+		this.lockDelayFrames = lockDelayFrames;
+		this.bufferPool = bufferPool;
+		
+		channel = FileChannel.open(path, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+		channel.position(ReplayFormat.HEADER_BYTES);
+		
+		// The pool is shared, and hands buffers back in whatever order their last
+		// user left them.
+		buffer = bufferPool.acquire(BUFFER_BYTES).order(ByteOrder.BIG_ENDIAN);
+	}
+	
+	/**
+	 * Records the inputs applied on a frame.  Frames must be recorded in increasing
+	 * order, and frames without inputs need not be recorded at all.
+	 * @param frame - index of the frame, as passed to
+	 * {@link tetrix.simulation.InputSource#getInputs(long)}.
+	 * @param inputs - combination of {@link Input} flags.
+	 * @throws InvalidParameterException if frame is not greater than the last
+	 * recorded frame with inputs.
+	 * @throws IOException if the buffer can not be appended to the file.
+	 */
+	public void record(long frame, int inputs) throws IOException, InvalidParameterException {
+		inputs &= Input.ALL;
+		if (inputs == Input.NONE) return;
+		
+		if (frame <= lastFrame){
+			throw new InvalidParameterException("Frame " + frame + " recorded after " +
+					"frame " + lastFrame + ".\n");
+		}
+		
+		if (buffer.remaining() < ReplayFormat.MAX_VARINT_BYTES){
+			flush();
+		}
+		
+		ReplayFormat.putVarint(buffer,
+				((frame - lastFrame - 1) << ReplayFormat.INPUT_BITS) | inputs);
+		
+		lastFrame = frame;
+		events++;
+	}
+	
+	/**
+	 * Sets the result of the recorded game to the current state of
+	 * <code>simulator</code>.
+	 */
+	public void finish(GameSimulator simulator){
+		finish(simulator.getFrame(), simulator.getScore(), simulator.getLinesCleared());
+	}
+	
+	/**
+	 * Sets the result of the recorded game.  If never called, the game is recorded
+	 * as ending on the frame after the last recorded inputs, with no score.
+	 * @param frames - number of frames the game was simulated for.
+	 * @param score - final score.
+	 * @param linesCleared - final number of lines cleared.
+	 */
+	public void finish(long frames, long score, int linesCleared){
+		this.frames = frames;
+		this.score = score;
+		this.linesCleared = linesCleared;
+	}
+	
+	/**
+	 * @return number of events recorded so far.
+	 */
+	public int getEvents(){
+		return events;
+	}
+	
+	/**
+	 * @return number of bytes written, or to be written, so far, including the
+	 * header.
+	 */
+	public long getBytes() throws IOException {
+		return channel.position() + buffer.position();
+	}
+	
+	private void flush() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()){
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+	
+	/**
+	 * Appends any buffered events, writes the header, closes the file and returns
+	 * the buffer to its pool.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (buffer == null) return;
+		
+		try {
+			flush();
+			
+			buffer.putInt(ReplayFormat.MAGIC_OFFSET, ReplayFormat.MAGIC);
+			buffer.putShort(ReplayFormat.VERSION_OFFSET, ReplayFormat.VERSION);
+			buffer.put(ReplayFormat.GENERATOR_OFFSET, (byte)generatorType.ordinal());
+			buffer.put(ReplayFormat.GENERATOR_OFFSET + 1, (byte)0);
+			buffer.putShort(ReplayFormat.COLUMNS_OFFSET, (short)columns);
+			buffer.putShort(ReplayFormat.ROWS_OFFSET, (short)rows);
+			buffer.putShort(ReplayFormat.GRAVITY_OFFSET, (short)gravityFrames);
+			buffer.putShort(ReplayFormat.LOCK_DELAY_OFFSET, (short)lockDelayFrames);
+			buffer.putLong(ReplayFormat.SEED_OFFSET, seed);
+			buffer.putLong(ReplayFormat.FRAMES_OFFSET, frames < 0 ? lastFrame + 1 : frames);
+			buffer.putLong(ReplayFormat.SCORE_OFFSET, score);
+			buffer.putInt(ReplayFormat.LINES_OFFSET, linesCleared);
+			buffer.putInt(ReplayFormat.EVENTS_OFFSET, events);
+			buffer.limit(ReplayFormat.HEADER_BYTES);
+			
+			long position = 0;
+			while (buffer.hasRemaining()){
+				position += channel.write(buffer, position);
+			}
+		}
+		finally {
+			bufferPool.release(buffer);
+			buffer = null;
+			channel.close();
+		}
+	}
+}
@@ -0,0 +1,12 @@
+#version 330 core
+
+uniform sampler2DArray blockTextures;
+
+in vec3 pass_TextureCoord;
+in vec4 pass_Tint;
+
+out vec4 out_Color;
+
+void main(void) {
+	out_Color = texture(blockTextures, pass_TextureCoord) * pass_Tint;
+}
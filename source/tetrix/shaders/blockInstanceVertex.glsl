@@ -0,0 +1,24 @@
+#version 330 core
+
+uniform mat4 mvpMatrix;
+
+// Corner of the unit quad, per vertex.
+in vec2 in_Corner;
+
+// Per instance attributes.
+in ivec2 in_Cell;
+in uint in_Layer;
+in int in_RowOffset;
+in vec4 in_Tint;
+
+out vec3 pass_TextureCoord;
+out vec4 pass_Tint;
+
+void main(void) {
+	// Row offsets are in 1/128ths of a cell.
+	vec2 position = vec2(in_Cell) + in_Corner + vec2(0.0, float(in_RowOffset) / 128.0);
+	gl_Position = mvpMatrix * vec4(position, 0.0, 1.0);
+	
+	pass_TextureCoord = vec3(in_Corner.x, 1.0 - in_Corner.y, float(in_Layer));
+	pass_Tint = in_Tint;
+}
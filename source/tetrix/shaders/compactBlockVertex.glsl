@@ -0,0 +1,25 @@
+#version 330 core
+
+uniform mat4 mvpMatrix;
+uniform vec4 palette[16];
+
+// Every corner of a Block shares the same record; the corner comes from the
+// vertex index.
+in ivec2 in_Position;
+in uint in_Layer;
+in uint in_PaletteIndex;
+
+out vec3 pass_TextureCoord;
+out vec4 pass_Tint;
+
+// Corners counter-clockwise from the lower left.
+const vec2 CORNERS[4] = vec2[4](vec2(0.0, 0.0), vec2(1.0, 0.0), vec2(1.0, 1.0),
+		vec2(0.0, 1.0));
+
+void main(void) {
+	vec2 corner = CORNERS[gl_VertexID & 3];
+	gl_Position = mvpMatrix * vec4(vec2(in_Position) + corner, 0.0, 1.0);
+	
+	pass_TextureCoord = vec3(corner.x, 1.0 - corner.y, float(in_Layer));
+	pass_Tint = palette[in_PaletteIndex & 15u];
+}
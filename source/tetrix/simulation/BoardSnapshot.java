@@ -0,0 +1,147 @@
+package tetrix.simulation;
+
+import tetrix.entities.Playfield;
+import tetrix.entities.shapes.PackedShape;
+
+/**
+ * Copy of the state of a {@link GameSimulator} after a logic tick, held in
+ * primitive fields and a row mask array, so that a render thread can draw it while
+ * the logic thread keeps simulating.  Snapshots are handed between threads by a
+ * {@link tetrix.datastructures.TripleBuffer}: the logic thread overwrites a
+ * snapshot with {@link #copyFrom(GameSimulator, long, long, long)} before
+ * publishing it, and from then on the snapshot is only read, until the render
+ * thread hands it back.
+ *
+ * <p>
+ * Alongside the active Shape, a snapshot holds the active Shape before the tick
+ * and the time of the tick, so that the render thread can interpolate between
+ * the two, and the ghost, so that drawing needs no collision tests.
+ *
+ * @author Dustin Biser
+ *
+ */
+public class BoardSnapshot {
+	private final int columns;
+	private final int[] rowMasks;
+	
+	private long activeShape = PackedShape.INVALID;
+	private long previousActiveShape = PackedShape.INVALID;
+	private long ghostShape = PackedShape.INVALID;
+	private long tick;
+	private long tickNanos;
+	private long score;
+	private int linesCleared;
+	private int level;
+	private boolean gameOver;
+	
+	/**
+	 * Constructs an empty snapshot of a Playfield of the given size.
+	 */
+	public BoardSnapshot(int columns, int rows){
+		this.columns = columns;
+		this.rowMasks = new int[rows];
+	}
+	
+	/**
+	 * Overwrites this snapshot with the state of <code>simulator</code>.
+	 * @param previousActiveShape - the active Shape before the tick, as a packed
+	 * Shape.
+	 * @param tick - index of the tick just simulated.
+	 * @param tickNanos - time the tick was simulated, from System.nanoTime().
+	 */
+	public void copyFrom(GameSimulator simulator, long previousActiveShape, long tick,
+			long tickNanos){
+		Playfield playfield = simulator.getPlayfield();
+		int rows = Math.min(rowMasks.length, playfield.getRows());
+		
+		for(int row = 0; row < rows; row++){
+			rowMasks[row] = playfield.getRowMask(row);
+		}
+		
+		this.activeShape = simulator.getActiveShape();
+		this.previousActiveShape = previousActiveShape;
+		this.gameOver = simulator.isGameOver();
+		this.ghostShape = gameOver ? PackedShape.INVALID :
+			PackedShape.translate(activeShape, 0, -simulator.getDropDistance());
+		this.tick = tick;
+		this.tickNanos = tickNanos;
+		this.score = simulator.getScore();
+		this.linesCleared = simulator.getLinesCleared();
+		this.level = simulator.getLevel();
+	}
+	
+	public int getColumns(){
+		return columns;
+	}
+	
+	public int getRows(){
+		return rowMasks.length;
+	}
+	
+	/**
+	 * @return occupied columns of <code>row</code>, as in Playfield.getRowMask.
+	 */
+	public int getRowMask(int row){
+		return rowMasks[row];
+	}
+	
+	/**
+	 * @return the row masks, from the bottom row up.  The array must not be
+	 * modified.
+	 */
+	public int[] getRowMasks(){
+		return rowMasks;
+	}
+	
+	/**
+	 * @return the active Shape after the tick, as a packed Shape.
+	 */
+	public long getActiveShape(){
+		return activeShape;
+	}
+	
+	/**
+	 * @return the active Shape before the tick, as a packed Shape.
+	 */
+	public long getPreviousActiveShape(){
+		return previousActiveShape;
+	}
+	
+	/**
+	 * @return the active Shape dropped as far as it can fall, as a packed Shape, or
+	 * PackedShape.INVALID if the game is over.
+	 */
+	public long getGhostShape(){
+		return ghostShape;
+	}
+	
+	/**
+	 * @return index of the tick this snapshot was taken after.
+	 */
+	public long getTick(){
+		return tick;
+	}
+	
+	/**
+	 * @return time the tick was simulated, from System.nanoTime().
+	 */
+	public long getTickNanos(){
+		return tickNanos;
+	}
+	
+	public long getScore(){
+		return score;
+	}
+	
+	public int getLinesCleared(){
+		return linesCleared;
+	}
+	
+	public int getLevel(){
+		return level;
+	}
+	
+	public boolean isGameOver(){
+		return gameOver;
+	}
+}
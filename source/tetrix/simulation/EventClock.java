@@ -0,0 +1,62 @@
+package tetrix.simulation;
+
+/**
+ * Converts event timestamps from another clock, such as the operating system's
+ * keyboard event times, to the clock game logic runs on, typically
+ * System.nanoTime().  The two clocks count from different origins, so the offset
+ * between them is estimated from the events themselves.
+ *
+ * <p>
+ * Events are read in polls.  An event can only be read after it happens, so
+ * <code>pollNanos - eventNanos</code> is at least the true offset between the
+ * clocks, and is closest to it for events read just after they happen.  The
+ * smallest such difference seen is used as the offset.  Converted times are
+ * also kept between the previous poll and the current one, since an event read
+ * by a poll happened after the poll before it, which bounds the error when the
+ * clocks drift apart or the event clock is coarse.
+ *
+ * @author Dustin Biser
+ *
+ */
+public class EventClock {
+	private long offsetNanos;
+	private boolean calibrated;
+	
+	private long previousPollNanos;
+	private long pollNanos;
+	private boolean polled;
+	
+	/**
+	 * Starts a poll of events.
+	 * @param nowNanos - time of the poll, on the clock game logic runs on.
+	 */
+	public void beginPoll(long nowNanos){
+		previousPollNanos = polled ? pollNanos : nowNanos;
+		pollNanos = nowNanos;
+		polled = true;
+	}
+	
+	/**
+	 * Converts the timestamp of an event read by the current poll.
+	 * @param eventNanos - time of the event, on the event clock.
+	 * @return time of the event, on the clock game logic runs on.
+	 */
+	public long toLocalNanos(long eventNanos){
+		long offset = pollNanos - eventNanos;
+		
+		if (!calibrated || offset < offsetNanos){
+			offsetNanos = offset;
+			calibrated = true;
+		}
+		
+		long localNanos = eventNanos + offsetNanos;
+		return Math.max(previousPollNanos, Math.min(pollNanos, localNanos));
+	}
+	
+	/**
+	 * @return estimated offset from the event clock to the local clock.
+	 */
+	public long getOffsetNanos(){
+		return offsetNanos;
+	}
+}
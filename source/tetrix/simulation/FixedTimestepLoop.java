@@ -0,0 +1,197 @@
+package tetrix.simulation;
+
+import java.security.InvalidParameterException;
+
+/**
+ * Decouples the rate game logic runs at from the rate frames are drawn at.  Logic
+ * advances in ticks of a fixed duration, while frames are drawn as often as the
+ * display allows.
+ *
+ * <p>
+ * Once per frame, {@link #advance(long, Tickable)} adds the time elapsed since the
+ * previous frame to an accumulator, and runs one tick for every whole tick
+ * duration accumulated.  The time left over, as a fraction of a tick, is
+ * {@link #getAlpha()}: how far the frame lies between the last two ticks, so that
+ * the frame can be drawn interpolated between the two logical states, rather than
+ * showing the latest state early or late.  Logic therefore runs at the same speed
+ * and with the same input latency however long frames take to draw.
+ *
+ * <p>
+ * After a stall, such as a slow frame or the window being dragged, the loop runs
+ * the ticks it missed to catch up, but never more than a maximum per frame.  Any
+ * time beyond that is dropped and counted, so a long stall slows the game down
+ * for a moment instead of freezing it while hundreds of ticks run.
+ *
+ * <p>
+ * Time is passed in by the caller, so the loop does not depend on a clock and can
+ * be driven by simulated time.
+ *
+ * @author Dustin Biser
+ *
+ */
+public class FixedTimestepLoop {
+	public static final int DEFAULT_TICKS_PER_SECOND = 240;
+	
+	// A quarter of a second of ticks at the default rate.
+	public static final int DEFAULT_MAX_TICKS_PER_FRAME = 60;
+	
+	private static final long NANOS_PER_SECOND = 1000000000L;
+	
+	private final long tickNanos;
+	private final int maxTicksPerFrame;
+	
+	private long lastNanos;
+	private long accumulatorNanos;
+	private long tick;
+	private boolean started;
+	
+	// Statistics.
+	private long frames;
+	private long droppedNanos;
+	private long droppedTicks;
+	private int maxTicksInFrame;
+	
+	/**
+	 * Constructs a FixedTimestepLoop running DEFAULT_TICKS_PER_SECOND ticks per
+	 * second, and at most DEFAULT_MAX_TICKS_PER_FRAME ticks per frame.
+	 */
+	public FixedTimestepLoop(){
+		this(DEFAULT_TICKS_PER_SECOND, DEFAULT_MAX_TICKS_PER_FRAME);
+	}
+	
+	/**
+	 * @param ticksPerSecond - rate game logic runs at.
+	 * @param maxTicksPerFrame - most ticks run by one call to advance.
+	 * @throws InvalidParameterException if ticksPerSecond or maxTicksPerFrame is
+	 * less than 1.
+	 */
+	public FixedTimestepLoop(int ticksPerSecond, int maxTicksPerFrame)
+			throws InvalidParameterException {
+		if (ticksPerSecond < 1 || maxTicksPerFrame < 1){
+			throw new InvalidParameterException("ticksPerSecond and maxTicksPerFrame " +
+					"must be at least 1.\n");
+		}
+		
+		this.tickNanos = NANOS_PER_SECOND / ticksPerSecond;
+		this.maxTicksPerFrame = maxTicksPerFrame;
+	}
+	
+	/**
+	 * Restarts timing at <code>nowNanos</code>, discarding accumulated time, so
+	 * that time spent before, such as loading, is not caught up on.  The tick count
+	 * is kept.
+	 */
+	public void reset(long nowNanos){
+		lastNanos = nowNanos;
+		accumulatorNanos = 0;
+		started = true;
+	}
+	
+	/**
+	 * Runs the ticks due by <code>nowNanos</code>.  The first call only starts
+	 * timing, unless {@link #reset(long)} was called first.
+	 * @param nowNanos - current time, typically System.nanoTime().
+	 * @param tickable - game logic to tick.
+	 * @return number of ticks run.
+	 */
+	public int advance(long nowNanos, Tickable tickable){
+		if (!started){
+			reset(nowNanos);
+		}
+		
+		// Time running backwards, as some clocks do across cores, adds nothing.
+		accumulatorNanos += Math.max(0, nowNanos - lastNanos);
+		lastNanos = nowNanos;
+		frames++;
+		
+		int ticks = 0;
+		while (accumulatorNanos >= tickNanos && ticks < maxTicksPerFrame){
+			tickable.tick(tick++);
+			accumulatorNanos -= tickNanos;
+			ticks++;
+		}
+		
+		// Drop whole ticks that could not be caught up on, keeping the fraction.
+		if (accumulatorNanos >= tickNanos){
+			long dropped = accumulatorNanos / tickNanos;
+			droppedTicks += dropped;
+			droppedNanos += dropped * tickNanos;
+			accumulatorNanos -= dropped * tickNanos;
+		}
+		
+		maxTicksInFrame = Math.max(maxTicksInFrame, ticks);
+		return ticks;
+	}
+	
+	/**
+	 * @return fraction of a tick accumulated since the last tick, in the range
+	 * [0, 1).  A frame drawn now lies this far between the state before the last
+	 * tick and the state after it.
+	 */
+	public float getAlpha(){
+		return (float)accumulatorNanos / tickNanos;
+	}
+	
+	/**
+	 * @return value of a quantity interpolated between its state before the last
+	 * tick and its state after it.
+	 */
+	public static float interpolate(float previous, float current, float alpha){
+		return previous + (current - previous) * alpha;
+	}
+	
+	/**
+	 * @return number of ticks run.
+	 */
+	public long getTick(){
+		return tick;
+	}
+	
+	/**
+	 * @return time the tick being run started at, when called from
+	 * {@link Tickable#tick(long)}, and otherwise the time the next tick will start
+	 * at.  Ticks start exactly getTickNanos() apart, except across dropped time.
+	 */
+	public long getTickStartNanos(){
+		return lastNanos - accumulatorNanos;
+	}
+	
+	/**
+	 * @return duration of a tick, in nanoseconds.
+	 */
+	public long getTickNanos(){
+		return tickNanos;
+	}
+	
+	public int getMaxTicksPerFrame(){
+		return maxTicksPerFrame;
+	}
+	
+	/**
+	 * @return number of calls to advance.
+	 */
+	public long getFrames(){
+		return frames;
+	}
+	
+	/**
+	 * @return number of ticks dropped after stalls, rather than caught up on.
+	 */
+	public long getDroppedTicks(){
+		return droppedTicks;
+	}
+	
+	/**
+	 * @return time dropped after stalls, in nanoseconds.
+	 */
+	public long getDroppedNanos(){
+		return droppedNanos;
+	}
+	
+	/**
+	 * @return most ticks run by a single call to advance.
+	 */
+	public int getMaxTicksInFrame(){
+		return maxTicksInFrame;
+	}
+}
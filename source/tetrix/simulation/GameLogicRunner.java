@@ -0,0 +1,261 @@
+package tetrix.simulation;
+
+import java.security.InvalidParameterException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import tetrix.datastructures.EventRingBuffer;
+import tetrix.datastructures.TripleBuffer;
+import tetrix.entities.Playfield;
+
+/**
+ * Runs a {@link GameSimulator} on its own thread, so that game logic never waits
+ * for rendering, a driver stall, or an OpenGL error check.
+ *
+ * <p>
+ * {@link #run()} ticks the simulator with a {@link FixedTimestepLoop}, sleeping
+ * between ticks, and after every tick publishes a {@link BoardSnapshot} through a
+ * {@link TripleBuffer}.  The render thread calls {@link #getSnapshots()}.acquire()
+ * once per frame for the newest snapshot.  Inputs travel the other way.  The
+ * input thread queues timestamped key events with
+ * {@link #postKeyEvent(long, int)} in an {@link EventRingBuffer}, which each tick
+ * drains up to its own end time through an {@link InputEventProcessor}, so that
+ * presses and auto repeats land on the tick they happened in.  Inputs posted
+ * with {@link #postInputs(int)} and resets requested with
+ * {@link #requestReset(long)} are applied on the next tick.  No call on either
+ * side blocks.
+ *
+ * <p>
+ * Key events are only queued when the input thread polls for them, up to a poll
+ * interval after they happen, by which time the tick they happened in has
+ * usually run.  Such late events are applied by the next tick, so press latency
+ * would still be quantized to the poll interval.  To avoid this, ticks can apply
+ * key events a fixed input delay behind real time, at least one poll interval,
+ * so that every event is queued before the tick that applies it.  Each press is
+ * then applied exactly the input delay after it happened.
+ *
+ * <p>
+ * GameSimulator timings are counted in frames of a 60 frames per second game, so
+ * its gravity and lock delay are scaled to the tick rate, and the game plays at
+ * the same speed at any tick rate.
+ *
+ * @author Dustin Biser
+ *
+ */
+public class GameLogicRunner implements Runnable, Tickable {
+	public static final int SIMULATOR_FRAMES_PER_SECOND = 60;
+	
+	private static final long NO_RESET = Long.MIN_VALUE;
+	
+	private final GameSimulator simulator;
+	private final FixedTimestepLoop loop;
+	private final TripleBuffer<BoardSnapshot> snapshots;
+	private final EventRingBuffer keyEvents = new EventRingBuffer();
+	private final InputEventProcessor inputProcessor;
+	
+	private final AtomicInteger pendingInputs = new AtomicInteger();
+	private final AtomicLong resetSeed = new AtomicLong(NO_RESET);
+	private final long inputDelayNanos;
+	private volatile boolean stopRequested;
+	private volatile long lateKeyEvents;
+	
+	// Owned by the logic thread.
+	private long activeShape;
+	
+	/**
+	 * Constructs a GameLogicRunner applying key events with the default DAS, ARR
+	 * and soft drop times of {@link InputEventProcessor}.
+	 * @throws InvalidParameterException if ticksPerSecond is not a positive multiple
+	 * of SIMULATOR_FRAMES_PER_SECOND.
+	 */
+	public GameLogicRunner(GameSimulator simulator, int ticksPerSecond)
+			throws InvalidParameterException {
+		this(simulator, ticksPerSecond, new InputEventProcessor());
+	}
+	
+	/**
+	 * Constructs a GameLogicRunner applying key events by the tick they happened
+	 * in, without an input delay.
+	 * @throws InvalidParameterException if ticksPerSecond is not a positive multiple
+	 * of SIMULATOR_FRAMES_PER_SECOND.
+	 */
+	public GameLogicRunner(GameSimulator simulator, int ticksPerSecond,
+			InputEventProcessor inputProcessor) throws InvalidParameterException {
+		this(simulator, ticksPerSecond, inputProcessor, 0);
+	}
+	
+	/**
+	 * @param simulator - GameSimulator to run.  Only the logic thread may use it
+	 * once running.
+	 * @param ticksPerSecond - logic tick rate, a multiple of
+	 * SIMULATOR_FRAMES_PER_SECOND.
+	 * @param inputProcessor - InputEventProcessor that key events are applied with.
+	 * @param inputDelayNanos - time key events are applied after they happen, at
+	 * least the interval key events are polled at.
+	 * @throws InvalidParameterException if ticksPerSecond is not a positive multiple
+	 * of SIMULATOR_FRAMES_PER_SECOND, or inputDelayNanos is negative.
+	 */
+	public GameLogicRunner(GameSimulator simulator, int ticksPerSecond,
+			InputEventProcessor inputProcessor, long inputDelayNanos)
+			throws InvalidParameterException {
+		if (ticksPerSecond < SIMULATOR_FRAMES_PER_SECOND ||
+				ticksPerSecond % SIMULATOR_FRAMES_PER_SECOND != 0){
+			throw new InvalidParameterException("ticksPerSecond must be a multiple of " +
+					SIMULATOR_FRAMES_PER_SECOND + ".\n");
+		}
+		if (inputDelayNanos < 0){
+			throw new InvalidParameterException("inputDelayNanos must not be " +
+					"negative.\n");
+		}
+		
+		this.simulator = simulator;
+		this.inputProcessor = inputProcessor;
+		this.inputDelayNanos = inputDelayNanos;
+		this.loop = new FixedTimestepLoop(ticksPerSecond,
+				FixedTimestepLoop.DEFAULT_MAX_TICKS_PER_FRAME);
+		int ticksPerFrame = ticksPerSecond / SIMULATOR_FRAMES_PER_SECOND;
+		
+		simulator.setGravityFrames(simulator.getGravityFrames() * ticksPerFrame);
+		simulator.setLockDelayFrames(simulator.getLockDelayFrames() * ticksPerFrame);
+		
+		Playfield playfield = simulator.getPlayfield();
+		snapshots = new TripleBuffer<BoardSnapshot>(createSnapshot(playfield),
+				createSnapshot(playfield), createSnapshot(playfield));
+		
+		// Give the render thread a complete first snapshot.
+		activeShape = simulator.getActiveShape();
+		snapshots.getWriteBuffer().copyFrom(simulator, activeShape, 0, System.nanoTime());
+		snapshots.publish();
+	}
+	
+	private static BoardSnapshot createSnapshot(Playfield playfield){
+		return new BoardSnapshot(playfield.getColumns(), playfield.getRows());
+	}
+	
+	/**
+	 * @return the TripleBuffer snapshots are published through.  Only one thread
+	 * may acquire snapshots from it.
+	 */
+	public TripleBuffer<BoardSnapshot> getSnapshots(){
+		return snapshots;
+	}
+	
+	/**
+	 * @return the FixedTimestepLoop ticking the simulator.
+	 */
+	public FixedTimestepLoop getLoop(){
+		return loop;
+	}
+	
+	/**
+	 * Adds Input flags to apply on the next tick.  May be called from any thread.
+	 */
+	public void postInputs(int inputs){
+		int current;
+		do {
+			current = pendingInputs.get();
+		} while (!pendingInputs.compareAndSet(current, current | inputs));
+	}
+	
+	/**
+	 * @return the InputEventProcessor key events are applied with.  Only the logic
+	 * thread may use it once running.
+	 */
+	public InputEventProcessor getInputProcessor(){
+		return inputProcessor;
+	}
+	
+	/**
+	 * @return time key events are applied after they happen.
+	 */
+	public long getInputDelayNanos(){
+		return inputDelayNanos;
+	}
+	
+	/**
+	 * Queues a key event, to be applied by the tick it happened in, or the input
+	 * delay after it happened.  Must only be called from one input thread.
+	 * @param timestampNanos - time of the event, on the System.nanoTime() clock.
+	 * @param event - event encoded by {@link InputEvent}.
+	 * @return false if the queue was full and the event was dropped.
+	 */
+	public boolean postKeyEvent(long timestampNanos, int event){
+		return keyEvents.offer(timestampNanos, event);
+	}
+	
+	/**
+	 * @return number of key events dropped because the queue was full.
+	 */
+	public long getDroppedKeyEvents(){
+		return keyEvents.getRejected();
+	}
+	
+	/**
+	 * @return number of key events queued after the tick they belong to had run,
+	 * and so applied late.  May be called from any thread.
+	 */
+	public long getLateKeyEvents(){
+		return lateKeyEvents;
+	}
+	
+	/**
+	 * Starts a new game from <code>seed</code> on the next tick.  May be called from
+	 * any thread.
+	 */
+	public void requestReset(long seed){
+		resetSeed.set(seed);
+	}
+	
+	/**
+	 * Ticks the simulator until {@link #stop()} is called, returning at once if it
+	 * already was, even before the logic thread started.  Runs on the logic thread.
+	 */
+	@Override
+	public void run(){
+		loop.reset(System.nanoTime());
+		
+		while (!stopRequested){
+			loop.advance(System.nanoTime(), this);
+			
+			// Sleep until the next tick is due.
+			long wait = (long)((1f - loop.getAlpha()) * loop.getTickNanos());
+			LockSupport.parkNanos(wait);
+		}
+	}
+	
+	/**
+	 * Stops {@link #run()} after its current tick.  May be called from any thread.
+	 */
+	public void stop(){
+		stopRequested = true;
+	}
+	
+	/**
+	 * Simulates one tick and publishes its snapshot.
+	 */
+	@Override
+	public void tick(long tick){
+		long seed = resetSeed.getAndSet(NO_RESET);
+		if (seed != NO_RESET){
+			simulator.reset(seed);
+			activeShape = simulator.getActiveShape();
+		}
+		
+		int inputs = pendingInputs.getAndSet(Input.NONE);
+		
+		// Key events are applied on a clock running the input delay behind the tick.
+		long startNanos = loop.getTickStartNanos() - inputDelayNanos;
+		inputs |= inputProcessor.update(keyEvents, startNanos,
+				startNanos + loop.getTickNanos());
+		lateKeyEvents = inputProcessor.getLateEvents();
+		
+		long previousActiveShape = activeShape;
+		simulator.step(inputs);
+		activeShape = simulator.getActiveShape();
+		
+		snapshots.getWriteBuffer().copyFrom(simulator, previousActiveShape, tick,
+				System.nanoTime());
+		snapshots.publish();
+	}
+}
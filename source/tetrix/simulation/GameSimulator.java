@@ -0,0 +1,333 @@
+package tetrix.simulation;
+
+import tetrix.entities.Direction;
+import tetrix.entities.Playfield;
+import tetrix.entities.rotations.RotationSystem;
+import tetrix.entities.rotations.SuperRotationSystem;
+import tetrix.entities.shapes.PackedShape;
+import tetrix.entities.shapes.ShapeType;
+import tetrix.randomizers.MemorylessGenerator;
+import tetrix.randomizers.PieceGenerator;
+
+/**
+ * Headless, deterministic simulation of a game of Tetrix.  The simulator does not
+ * depend on LWJGL, a window, or wall clock time.  Instead, the game advances one
+ * logical frame per call to {@link #step(int)}, and everything that happens is a
+ * function of the {@link PieceGenerator} seed and the inputs applied on each frame.
+ * Two simulators reset with the same seed and fed the same inputs always end up in
+ * the same state, and simulation runs as fast as the CPU allows.
+ *
+ * <p>
+ * On each frame the simulator applies, in order: rotations, horizontal movement,
+ * hard or soft drop, gravity, and lock delay.  When the active Shape locks, full
+ * rows are cleared, score is awarded, and the next Shape is spawned.  The game is
+ * over when a newly spawned Shape collides with the Playfield.  The active Shape
+ * is kept as a packed Shape (see {@link PackedShape}), so that stepping the
+ * simulator does not allocate objects.
+ *
+ * @author Dustin Biser
+ *
+ */
+public class GameSimulator {
+	// One row per second at 60 frames per second.
+	public static final int DEFAULT_GRAVITY_FRAMES = 60;
+	public static final int DEFAULT_LOCK_DELAY_FRAMES = 30;
+
+	// Number of times moving or rotating a grounded Shape can restart lock delay.
+	public static final int MAX_LOCK_RESETS = 15;
+
+	// Points for clearing 0, 1, 2, 3 and 4 rows at once, multiplied by level.
+	private static final int[] LINE_CLEAR_POINTS = { 0, 100, 300, 500, 800 };
+	private static final int SOFT_DROP_POINTS = 1;
+	private static final int HARD_DROP_POINTS = 2;
+	private static final int LINES_PER_LEVEL = 10;
+
+	private final Playfield playfield;
+	private final RotationSystem rotationSystem;
+	private final PieceGenerator pieceGenerator;
+
+	private int gravityFrames = DEFAULT_GRAVITY_FRAMES;
+	private int lockDelayFrames = DEFAULT_LOCK_DELAY_FRAMES;
+
+	// Current game state.
+	private long activeShape;
+	private long frame;
+	private long score;
+	private int linesCleared;
+	private int shapesLocked;
+	private boolean gameOver;
+
+	// Frames elapsed since the active Shape last fell, and since it became grounded.
+	private int gravityCounter;
+	private int lockCounter;
+	private int lockResets;
+
+	/**
+	 * Constructs a GameSimulator with a default sized Playfield, the
+	 * SuperRotationSystem and a MemorylessGenerator, reset with seed 0.
+	 */
+	public GameSimulator(){
+		this(new Playfield(), new SuperRotationSystem(), new MemorylessGenerator(0));
+	}
+
+	/**
+	 * Constructs a GameSimulator that plays on <code>playfield</code>, and resets it
+	 * with seed 0.
+	 * @param playfield - Playfield to play on.  Its contents are cleared on reset.
+	 * @param rotationSystem - RotationSystem used to rotate Shapes.
+	 * @param pieceGenerator - source of the ShapeTypes to spawn.
+	 */
+	public GameSimulator(Playfield playfield, RotationSystem rotationSystem,
+			PieceGenerator pieceGenerator){
+		this.playfield = playfield;
+		this.rotationSystem = rotationSystem;
+		this.pieceGenerator = pieceGenerator;
+
+		reset(0);
+	}
+
+	/**
+	 * Starts a new game from the given seed, reusing this simulator's Playfield and
+	 * PieceGenerator.
+	 * @param seed - seed passed to the PieceGenerator.
+	 */
+	public void reset(long seed){
+		playfield.clear();
+		pieceGenerator.reset(seed);
+
+		frame = 0;
+		score = 0;
+		linesCleared = 0;
+		shapesLocked = 0;
+		gameOver = false;
+
+		spawnNextShape();
+	}
+
+	/**
+	 * Simulates frames, reading inputs from <code>inputSource</code>, until either
+	 * the game is over or <code>maxFrames</code> frames have been simulated.
+	 * @return number of frames simulated.
+	 */
+	public long run(InputSource inputSource, long maxFrames){
+		long startFrame = frame;
+		long endFrame = frame + maxFrames;
+
+		while (!gameOver && frame < endFrame){
+			step(inputSource.getInputs(frame));
+		}
+
+		return frame - startFrame;
+	}
+
+	/**
+	 * Advances the game by one frame, applying the given inputs.  Does nothing if
+	 * the game is over.
+	 * @param inputs - combination of {@link Input} flags to apply this frame.
+	 */
+	public void step(int inputs){
+		if (gameOver) return;
+
+		frame++;
+
+		if ((inputs & Input.ROTATE_LEFT) != 0){
+			rotate(Direction.LEFT);
+		}
+		if ((inputs & Input.ROTATE_RIGHT) != 0){
+			rotate(Direction.RIGHT);
+		}
+		if ((inputs & Input.MOVE_LEFT) != 0){
+			move(-1);
+		}
+		if ((inputs & Input.MOVE_RIGHT) != 0){
+			move(1);
+		}
+
+		if ((inputs & Input.HARD_DROP) != 0){
+			int rows = getDropDistance();
+			activeShape = PackedShape.translate(activeShape, 0, -rows);
+			score += HARD_DROP_POINTS * rows;
+			lockActiveShape();
+			return;
+		}
+
+		if ((inputs & Input.SOFT_DROP) != 0 && moveDown()){
+			score += SOFT_DROP_POINTS;
+			gravityCounter = 0;
+		}
+
+		if (++gravityCounter >= gravityFrames){
+			gravityCounter = 0;
+			moveDown();
+		}
+
+		if (isGrounded()){
+			if (++lockCounter >= lockDelayFrames){
+				lockActiveShape();
+			}
+		}
+		else {
+			lockCounter = 0;
+		}
+	}
+
+	private void rotate(Direction direction){
+		long rotated = rotationSystem.rotate(activeShape, direction, playfield);
+
+		if (rotated != PackedShape.INVALID){
+			activeShape = rotated;
+			onShapeMoved();
+		}
+	}
+
+	private void move(int colOffset){
+		long moved = PackedShape.translate(activeShape, colOffset, 0);
+
+		if (!playfield.collides(moved)){
+			activeShape = moved;
+			onShapeMoved();
+		}
+	}
+
+	private boolean moveDown(){
+		long moved = PackedShape.translate(activeShape, 0, -1);
+
+		if (playfield.collides(moved)) return false;
+
+		activeShape = moved;
+		return true;
+	}
+
+	/**
+	 * Restarts lock delay after a successful move or rotation of a grounded Shape,
+	 * at most MAX_LOCK_RESETS times per Shape.
+	 */
+	private void onShapeMoved(){
+		if (lockCounter > 0 && lockResets < MAX_LOCK_RESETS){
+			lockCounter = 0;
+			lockResets++;
+		}
+	}
+
+	private boolean isGrounded(){
+		return playfield.collides(PackedShape.translate(activeShape, 0, -1));
+	}
+
+	/**
+	 * @return number of rows the active Shape can fall before it lands.
+	 */
+	public int getDropDistance(){
+		int rows = 0;
+
+		while (!playfield.collides(PackedShape.translate(activeShape, 0, -(rows + 1)))){
+			rows++;
+		}
+
+		return rows;
+	}
+
+	private void lockActiveShape(){
+		playfield.lock(activeShape);
+		shapesLocked++;
+
+		int rows = playfield.clearFullRows();
+		score += (long)LINE_CLEAR_POINTS[rows] * getLevel();
+		linesCleared += rows;
+
+		spawnNextShape();
+	}
+
+	private void spawnNextShape(){
+		activeShape = PackedShape.spawn(pieceGenerator.next());
+		gravityCounter = 0;
+		lockCounter = 0;
+		lockResets = 0;
+
+		if (playfield.collides(activeShape)){
+			gameOver = true;
+		}
+	}
+
+	/**
+	 * Sets the number of frames it takes gravity to move the active Shape down by
+	 * one row.
+	 * @param gravityFrames - frames per row, at least 1.
+	 */
+	public void setGravityFrames(int gravityFrames){
+		this.gravityFrames = Math.max(1, gravityFrames);
+	}
+
+	/**
+	 * Sets the number of frames a grounded Shape waits before it locks.
+	 * @param lockDelayFrames - frames of lock delay, at least 1.
+	 */
+	public void setLockDelayFrames(int lockDelayFrames){
+		this.lockDelayFrames = Math.max(1, lockDelayFrames);
+	}
+
+	public int getGravityFrames(){
+		return gravityFrames;
+	}
+
+	public int getLockDelayFrames(){
+		return lockDelayFrames;
+	}
+
+	/**
+	 * @return the PieceGenerator this simulator spawns Shapes from.
+	 */
+	public PieceGenerator getPieceGenerator(){
+		return pieceGenerator;
+	}
+
+	/**
+	 * @return the Playfield this simulator plays on.
+	 */
+	public Playfield getPlayfield(){
+		return playfield;
+	}
+
+	/**
+	 * @return the active Shape, as a packed Shape.
+	 */
+	public long getActiveShape(){
+		return activeShape;
+	}
+
+	/**
+	 * @return ShapeType of the active Shape.
+	 */
+	public ShapeType getActiveShapeType(){
+		return PackedShape.getShapeType(activeShape);
+	}
+
+	/**
+	 * @return number of frames simulated since the last reset.
+	 */
+	public long getFrame(){
+		return frame;
+	}
+
+	public long getScore(){
+		return score;
+	}
+
+	public int getLinesCleared(){
+		return linesCleared;
+	}
+
+	public int getShapesLocked(){
+		return shapesLocked;
+	}
+
+	/**
+	 * @return current level, starting at 1 and increasing every 10 cleared rows.
+	 */
+	public int getLevel(){
+		return 1 + linesCleared / LINES_PER_LEVEL;
+	}
+
+	public boolean isGameOver(){
+		return gameOver;
+	}
+}
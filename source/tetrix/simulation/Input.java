@@ -0,0 +1,25 @@
+package tetrix.simulation;
+
+/**
+ * Bit flags for the player inputs that can be applied during a single frame of a
+ * {@link GameSimulator}.  Flags are combined with bitwise OR, so that all inputs of
+ * one frame fit within a single integer.
+ * @author Dustin Biser
+ *
+ */
+public final class Input {
+	public static final int NONE = 0;
+	public static final int MOVE_LEFT = 1;
+	public static final int MOVE_RIGHT = 1 << 1;
+	public static final int SOFT_DROP = 1 << 2;
+	public static final int HARD_DROP = 1 << 3;
+	public static final int ROTATE_LEFT = 1 << 4;
+	public static final int ROTATE_RIGHT = 1 << 5;
+	
+	// Mask containing every valid input flag.
+	public static final int ALL = (1 << 6) - 1;
+	
+	private Input(){
+		
+	}
+}
@@ -0,0 +1,48 @@
+package tetrix.simulation;
+
+/**
+ * Encodes the press or release of the key bound to a single {@link Input} as an
+ * integer, so that timestamped key events can be queued in an
+ * {@link tetrix.datastructures.EventRingBuffer} without allocating.  The low bits
+ * hold the Input flag, and the sign bit is set for releases.
+ * @author Dustin Biser
+ *
+ */
+public final class InputEvent {
+	// Set in events of a released key.
+	public static final int RELEASED = 1 << 31;
+	
+	private InputEvent(){
+		
+	}
+	
+	/**
+	 * @param input - a single Input flag.
+	 * @return event of the key bound to <code>input</code> being pressed.
+	 */
+	public static int pressed(int input){
+		return input & Input.ALL;
+	}
+	
+	/**
+	 * @param input - a single Input flag.
+	 * @return event of the key bound to <code>input</code> being released.
+	 */
+	public static int released(int input){
+		return (input & Input.ALL) | RELEASED;
+	}
+	
+	/**
+	 * @return Input flag of <code>event</code>.
+	 */
+	public static int getInput(int event){
+		return event & Input.ALL;
+	}
+	
+	/**
+	 * @return true if <code>event</code> is a key press, false if a release.
+	 */
+	public static boolean isPressed(int event){
+		return (event & RELEASED) == 0;
+	}
+}
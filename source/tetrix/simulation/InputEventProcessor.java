@@ -0,0 +1,239 @@
+package tetrix.simulation;
+
+import java.security.InvalidParameterException;
+
+import tetrix.datastructures.EventRingBuffer;
+
+/**
+ * Turns timestamped key events (see {@link InputEvent}) into the {@link Input}
+ * flags of each logic tick, applying every event at the time it happened rather
+ * than at the time it was polled.
+ *
+ * <p>
+ * Each call to {@link #update(EventRingBuffer, long, long)} covers one tick, the
+ * interval from its start time up to its end time, and consumes every queued
+ * event stamped before the end of the tick, in order.  Every press is reported,
+ * so a key tapped and released within a single tick still moves the Shape.
+ *
+ * <p>
+ * Holding a movement key moves the Shape once when pressed, then again after the
+ * delayed auto shift (DAS) time, then once every auto repeat rate (ARR) interval.
+ * Holding soft drop moves the Shape down once when pressed, and then once every
+ * soft drop interval.  Repeats are scheduled in nanoseconds from the press
+ * timestamp, not counted in ticks, so their timing does not depend on the tick or
+ * frame rate, and a repeat due before a release is still applied in the tick the
+ * release lands in.  The simulator moves a Shape at most one column per tick, so
+ * repeats falling due more than once within a tick are applied once, and an ARR
+ * of zero repeats every tick.  If both movement keys are held, the last one
+ * pressed wins, and releasing it recharges DAS towards the other.
+ *
+ * @author Dustin Biser
+ *
+ */
+public class InputEventProcessor {
+	// 10 frames and 2 frames at 60 frames per second.
+	public static final long DEFAULT_DAS_NANOS = 166666667L;
+	public static final long DEFAULT_ARR_NANOS = 33333333L;
+	
+	// One row per frame at 60 frames per second.
+	public static final long DEFAULT_SOFT_DROP_NANOS = 16666667L;
+	
+	private final long dasNanos;
+	private final long arrNanos;
+	private final long softDropNanos;
+	
+	// Held keys, and the direction, -1, 0 or 1, auto shift is moving in.
+	private boolean leftHeld;
+	private boolean rightHeld;
+	private boolean softDropHeld;
+	private int shiftDirection;
+	
+	// Times the next auto shift and soft drop repeats are due.
+	private long nextShiftNanos;
+	private long nextSoftDropNanos;
+	
+	// Statistics.
+	private long eventsConsumed;
+	private long lateEvents;
+	private long maxLatenessNanos;
+	
+	/**
+	 * Constructs an InputEventProcessor with DEFAULT_DAS_NANOS, DEFAULT_ARR_NANOS and
+	 * DEFAULT_SOFT_DROP_NANOS.
+	 */
+	public InputEventProcessor(){
+		this(DEFAULT_DAS_NANOS, DEFAULT_ARR_NANOS, DEFAULT_SOFT_DROP_NANOS);
+	}
+	
+	/**
+	 * @param dasNanos - time a movement key is held before it auto repeats.
+	 * @param arrNanos - time between auto repeats, or 0 to repeat every tick.
+	 * @param softDropNanos - time between soft drop repeats, or 0 to repeat every
+	 * tick.
+	 * @throws InvalidParameterException if any time is negative.
+	 */
+	public InputEventProcessor(long dasNanos, long arrNanos, long softDropNanos)
+			throws InvalidParameterException {
+		if (dasNanos < 0 || arrNanos < 0 || softDropNanos < 0){
+			throw new InvalidParameterException("DAS, ARR and soft drop times must not " +
+					"be negative.\n");
+		}
+		
+		this.dasNanos = dasNanos;
+		this.arrNanos = arrNanos;
+		this.softDropNanos = softDropNanos;
+	}
+	
+	/**
+	 * Consumes the events of one tick and returns its inputs.
+	 * @param events - queue of timestamped events, read by this thread only.
+	 * @param startNanos - time the tick starts at.
+	 * @param endNanos - time the tick ends at.  Events stamped at or after it are
+	 * left for later ticks.
+	 * @return combination of Input flags to apply this tick.
+	 */
+	public int update(EventRingBuffer events, long startNanos, long endNanos){
+		int inputs = Input.NONE;
+		
+		while (!events.isEmpty() && events.peekTimestamp() < endNanos){
+			long timestamp = events.peekTimestamp();
+			int event = events.peekValue();
+			events.remove();
+			
+			// Repeats due before the event happen first, so a release stops them on time.
+			inputs |= repeat(timestamp);
+			inputs |= apply(event, timestamp);
+			
+			eventsConsumed++;
+			if (timestamp < startNanos){
+				lateEvents++;
+				maxLatenessNanos = Math.max(maxLatenessNanos, startNanos - timestamp);
+			}
+		}
+		
+		return inputs | repeat(endNanos);
+	}
+	
+	/**
+	 * Updates held keys for one event.
+	 * @return Input flag the event applies, if any.
+	 */
+	private int apply(int event, long timestamp){
+		int input = InputEvent.getInput(event);
+		boolean pressed = InputEvent.isPressed(event);
+		
+		switch (input){
+		case Input.MOVE_LEFT:
+			return applyShift(-1, pressed, timestamp);
+		case Input.MOVE_RIGHT:
+			return applyShift(1, pressed, timestamp);
+		case Input.SOFT_DROP:
+			if (pressed == softDropHeld) return Input.NONE;
+			
+			softDropHeld = pressed;
+			nextSoftDropNanos = timestamp + softDropNanos;
+			return pressed ? Input.SOFT_DROP : Input.NONE;
+		default:
+			return pressed ? input : Input.NONE;
+		}
+	}
+	
+	private int applyShift(int direction, boolean pressed, long timestamp){
+		boolean held = direction < 0 ? leftHeld : rightHeld;
+		
+		// Ignore repeated presses, such as the operating system's key repeat.
+		if (pressed == held) return Input.NONE;
+		
+		if (direction < 0){
+			leftHeld = pressed;
+		}
+		else {
+			rightHeld = pressed;
+		}
+		
+		if (pressed){
+			shiftDirection = direction;
+			nextShiftNanos = timestamp + dasNanos;
+			return getShiftInput(direction);
+		}
+		
+		if (shiftDirection == direction){
+			boolean otherHeld = direction < 0 ? rightHeld : leftHeld;
+			shiftDirection = otherHeld ? -direction : 0;
+			nextShiftNanos = timestamp + dasNanos;
+		}
+		
+		return Input.NONE;
+	}
+	
+	private static int getShiftInput(int direction){
+		return direction < 0 ? Input.MOVE_LEFT : Input.MOVE_RIGHT;
+	}
+	
+	/**
+	 * @return Input flags of the repeats due before <code>untilNanos</code>.
+	 */
+	private int repeat(long untilNanos){
+		int inputs = Input.NONE;
+		
+		if (shiftDirection != 0 && nextShiftNanos < untilNanos){
+			inputs |= getShiftInput(shiftDirection);
+			nextShiftNanos = getNextRepeat(nextShiftNanos, arrNanos, untilNanos);
+		}
+		
+		if (softDropHeld && nextSoftDropNanos < untilNanos){
+			inputs |= Input.SOFT_DROP;
+			nextSoftDropNanos = getNextRepeat(nextSoftDropNanos, softDropNanos,
+					untilNanos);
+		}
+		
+		return inputs;
+	}
+	
+	/**
+	 * @return first time at or after <code>untilNanos</code> of repeats every
+	 * <code>intervalNanos</code> from <code>dueNanos</code>.
+	 */
+	private static long getNextRepeat(long dueNanos, long intervalNanos,
+			long untilNanos){
+		if (intervalNanos == 0) return untilNanos;
+		
+		return dueNanos + ((untilNanos - dueNanos - 1) / intervalNanos + 1) *
+				intervalNanos;
+	}
+	
+	public long getDasNanos(){
+		return dasNanos;
+	}
+	
+	public long getArrNanos(){
+		return arrNanos;
+	}
+	
+	public long getSoftDropNanos(){
+		return softDropNanos;
+	}
+	
+	/**
+	 * @return number of events consumed.
+	 */
+	public long getEventsConsumed(){
+		return eventsConsumed;
+	}
+	
+	/**
+	 * @return number of events consumed by a tick that started after them, because
+	 * they were queued too late for the tick they belong to.
+	 */
+	public long getLateEvents(){
+		return lateEvents;
+	}
+	
+	/**
+	 * @return longest time a late event was applied after it happened, measured to
+	 * the start of the tick that applied it.
+	 */
+	public long getMaxLatenessNanos(){
+		return maxLatenessNanos;
+	}
+}
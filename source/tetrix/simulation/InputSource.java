@@ -0,0 +1,17 @@
+package tetrix.simulation;
+
+/**
+ * Defines a stream of player inputs that drives a {@link GameSimulator}.
+ * @author Dustin Biser
+ *
+ */
+public interface InputSource {
+	
+	/**
+	 * Returns the inputs to apply during the given frame, as a combination of
+	 * {@link Input} flags.
+	 * @param frame - index of the frame about to be simulated, starting at 0.
+	 * @return combination of Input flags.
+	 */
+	public int getInputs(long frame);
+}
@@ -0,0 +1,47 @@
+package tetrix.simulation;
+
+import java.util.SplittableRandom;
+
+/**
+ * InputSource that produces a reproducible pseudo-random stream of inputs from a
+ * seed.  On each frame, an input is pressed with probability
+ * <code>1 / framesPerInput</code>.  Useful for soak and performance testing of the
+ * {@link GameSimulator}.
+ * @author Dustin Biser
+ *
+ */
+public class RandomInputSource implements InputSource {
+	// Inputs chosen from when an input is pressed.  Hard drops are included once,
+	// so that games are not ended too quickly.
+	private static final int[] INPUTS = { Input.MOVE_LEFT, Input.MOVE_RIGHT,
+		Input.SOFT_DROP, Input.ROTATE_LEFT, Input.ROTATE_RIGHT, Input.MOVE_LEFT,
+		Input.MOVE_RIGHT, Input.HARD_DROP };
+	
+	private final int framesPerInput;
+	private SplittableRandom random;
+	
+	/**
+	 * @param seed - seed of the input stream.
+	 * @param framesPerInput - average number of frames between inputs, at least 1.
+	 */
+	public RandomInputSource(long seed, int framesPerInput){
+		this.framesPerInput = Math.max(1, framesPerInput);
+		reset(seed);
+	}
+	
+	/**
+	 * Restarts the input stream from the given seed.
+	 */
+	public void reset(long seed){
+		random = new SplittableRandom(seed);
+	}
+
+	@Override
+	public int getInputs(long frame) {
+		if (random.nextInt(framesPerInput) != 0){
+			return Input.NONE;
+		}
+		
+		return INPUTS[random.nextInt(INPUTS.length)];
+	}
+}
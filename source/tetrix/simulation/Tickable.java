@@ -0,0 +1,15 @@
+package tetrix.simulation;
+
+/**
+ * Defines game logic advanced in fixed steps by a {@link FixedTimestepLoop}.
+ * @author Dustin Biser
+ *
+ */
+public interface Tickable {
+	
+	/**
+	 * Advances game logic by one fixed step.
+	 * @param tick - index of the step, starting at 0.
+	 */
+	public void tick(long tick);
+}
@@ -5,9 +5,21 @@ import org.lwjgl.opengl.GL11;
 import org.lwjgl.util.glu.GLU;
 import org.lwjgl.util.vector.Matrix4f;
 
+import tetrix.rendering.LwjglRenderBackend;
+import tetrix.rendering.RenderBackend;
+
 public class GLUtils {
 	public static void exitOnGLError(String errorMessage) {
-		int errorValue = GL11.glGetError();
+		exitOnGLError(LwjglRenderBackend.INSTANCE, errorMessage);
+	}
+	
+	/**
+	 * Checks <code>backend</code> for an error set by an earlier call, and if one is
+	 * found, reports it to the standard error output stream before exiting.
+	 * @param errorMessage - context reported with the error.
+	 */
+	public static void exitOnGLError(RenderBackend backend, String errorMessage) {
+		int errorValue = backend.getError();
 		
 		if (errorValue != GL11.GL_NO_ERROR) {
 			String errorString = GLU.gluErrorString(errorValue);
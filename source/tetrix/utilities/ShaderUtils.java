@@ -3,12 +3,16 @@ package tetrix.utilities;
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import org.lwjgl.opengl.GL11;
 import org.lwjgl.opengl.GL20;
 
+import tetrix.rendering.LwjglRenderBackend;
+import tetrix.rendering.RenderBackend;
+
 public class ShaderUtils {
-	
+
 	/**
 	 * Reads in the shader file, compiles it, and returns a shader ID if successful.
 	 * @param filename - path String to shader file, relative to top level Tetrix folder.
@@ -18,8 +22,23 @@ public class ShaderUtils {
 	 * @return shader ID of the loaded shader program.
 	 */
 	public static int loadShader(String filename, int type) {
+		return loadShader(LwjglRenderBackend.INSTANCE, filename, type);
+	}
+	
+	/**
+	 * Reads in the shader file, and compiles it with <code>backend</code>.
+	 * @see #loadShader(String, int)
+	 */
+	public static int loadShader(RenderBackend backend, String filename, int type) {
+		return compileShader(backend, readShader(filename), type, filename);
+	}
+	
+	/**
+	 * Reads in the shader file, exiting if it can not be read.
+	 * @return source of the shader, one line after another.
+	 */
+	public static StringBuilder readShader(String filename) {
 		StringBuilder shaderSource = new StringBuilder();
-		int shaderID = 0;
 		
 		try {
 			BufferedReader reader = new BufferedReader(new FileReader(filename));
@@ -34,24 +53,71 @@ public class ShaderUtils {
 			System.exit(-1);
 		}
 		
-		shaderID = GL20.glCreateShader(type);
-		GL20.glShaderSource(shaderID, shaderSource);
-		GL20.glCompileShader(shaderID);
+		return shaderSource;
+	}
+	
+	/**
+	 * Compiles shader source held in memory with <code>backend</code>, so no file
+	 * is read.
+	 * @see #compileShader(ByteBuffer, int, String)
+	 */
+	public static int compileShader(RenderBackend backend, CharSequence source, int type,
+			String name) {
+		int shaderID = backend.createShader(type);
+		backend.shaderSource(shaderID, source);
+		compile(backend, shaderID, name);
+		
+		GLUtils.exitOnGLError(backend, "compileShader");
 		
-		if (GL20.glGetShaderi(shaderID, GL20.GL_COMPILE_STATUS) == GL11.GL_FALSE) {
+		return shaderID;
+	}
+	
+	/**
+	 * Compiles shader source that has already been read, and returns a shader ID if
+	 * successful.
+	 * @param source - shader source in UTF-8, from its position to its limit.
+	 * @param type - Specifies the type of shader to be created, such as
+	 * GL_VERTEX_SHADER or GL_FRAGMENT_SHADER.
+	 * @param name - name of the shader, reported if it fails to compile.
+	 * @return shader ID of the compiled shader.
+	 */
+	public static int compileShader(ByteBuffer source, int type, String name) {
+		return compileShader(LwjglRenderBackend.INSTANCE, source, type, name);
+	}
+	
+	/**
+	 * Compiles shader source that has already been read with <code>backend</code>.
+	 * @see #compileShader(ByteBuffer, int, String)
+	 */
+	public static int compileShader(RenderBackend backend, ByteBuffer source, int type,
+			String name) {
+		int shaderID = backend.createShader(type);
+		backend.shaderSource(shaderID, source);
+		compile(backend, shaderID, name);
+		
+		GLUtils.exitOnGLError(backend, "compileShader");
+		
+		return shaderID;
+	}
+	
+	/**
+	 * Compiles the shader referenced by <code>shaderID</code>, and reports any
+	 * errors if found to the standard error output stream before exiting.
+	 * @param name - name of the shader, used in error reports.
+	 */
+	private static void compile(RenderBackend backend, int shaderID, String name) {
+		backend.compileShader(shaderID);
+		
+		if (backend.getShaderi(shaderID, GL20.GL_COMPILE_STATUS) == GL11.GL_FALSE) {
 			int maxInfoLength = 1024;
 			StringBuilder message = new StringBuilder();
-			message.append("Could not compile shader:\n");
-			message.append(GL20.glGetShaderInfoLog(shaderID, maxInfoLength));
+			message.append("Could not compile shader " + name + ":\n");
+			message.append(backend.getShaderInfoLog(shaderID, maxInfoLength));
 			
 			System.err.println(message);
 			System.exit(-1);
 		}
-		
-		GLUtils.exitOnGLError("loadShader");
-		
-		return shaderID;
-	}	
+	}
 	
 	/**
 	 * Links the shader program referenced by <code>programId</code>, and reports any
@@ -59,13 +125,22 @@ public class ShaderUtils {
 	 * @param programId - handle to the shader program.
 	 */
 	public static void linkProgram(int programId){
-		GL20.glLinkProgram(programId);
+		linkProgram(LwjglRenderBackend.INSTANCE, programId);
+	}
+	
+	/**
+	 * Links the shader program referenced by <code>programId</code> with
+	 * <code>backend</code>.
+	 * @see #linkProgram(int)
+	 */
+	public static void linkProgram(RenderBackend backend, int programId){
+		backend.linkProgram(programId);
 		
-		if (GL20.glGetProgrami(programId, GL20.GL_LINK_STATUS) == GL11.GL_FALSE) {
+		if (backend.getProgrami(programId, GL20.GL_LINK_STATUS) == GL11.GL_FALSE) {
 			int maxInfoLength = 1024;
 			StringBuilder message = new StringBuilder();
 			message.append("Could not link shader program:\n");
-			message.append(GL20.glGetProgramInfoLog(programId, maxInfoLength));
+			message.append(backend.getProgramInfoLog(programId, maxInfoLength));
 			
 			System.err.println(message);
 			System.exit(-1);
@@ -1,11 +1,14 @@
 package tetrix.utilities;
 
+import java.nio.ByteBuffer;
 import java.nio.FloatBuffer;
+import java.security.InvalidParameterException;
 
 import org.lwjgl.BufferUtils;
 import org.lwjgl.util.vector.Vector3f;
 
 import tetrix.entities.shapes.Block;
+import tetrix.entities.shapes.PackedShape;
 import tetrix.entities.shapes.Shape;
 
 /**
@@ -14,6 +17,13 @@ import tetrix.entities.shapes.Shape;
  *
  */
 public class ShapeUtils {
+	// Number of floats written for each vertex, Block and Shape.
+	public static final int FLOATS_PER_VERTEX = 3;
+	public static final int FLOATS_PER_BLOCK = 4 * FLOATS_PER_VERTEX;
+	public static final int FLOATS_PER_SHAPE = 4 * FLOATS_PER_BLOCK;
+	
+	// Number of bytes written for each Shape to a ByteBuffer.
+	public static final int BYTES_PER_SHAPE = FLOATS_PER_SHAPE * 4;
 	
 	/**
 	 * Returns a flipped {@link FloatBuffer} containing vertex coordinate data that
@@ -43,23 +53,259 @@ public class ShapeUtils {
 	public static FloatBuffer createVertexFloatBuffer(Shape shape, float blockHalfWidth){
 		if (shape == null) return null;
 		
-		Vector3f[] blockVertices = ShapeUtils.createBlockVertices(shape, blockHalfWidth);
+		return createVertexFloatBuffer(shape.getBlockPositions(), blockHalfWidth);
+	}
+	
+	/**
+	 * Returns a flipped {@link FloatBuffer} containing vertex coordinate data that
+	 * can be used to render the argument packed Shape, using the same vertex layout
+	 * as {@link #createVertexFloatBuffer(Shape, float)}.
+	 * @param packedShape - packed Shape to be used in creating the returned FloatBuffer.
+	 * @param blockHalfWidth - One half the desired side length for each Block.
+	 * @return Flipped {@link FloatBuffer} containing the vertices of the packed Shape.
+	 * @see PackedShape
+	 */
+	public static FloatBuffer createVertexFloatBuffer(long packedShape,
+			float blockHalfWidth){
+		int[] blockPositions = new int[8];
+		PackedShape.getBlockPositions(packedShape, blockPositions);
 		
+		return createVertexFloatBuffer(blockPositions, blockHalfWidth);
+	}
+	
+	private static FloatBuffer createVertexFloatBuffer(int[] blockPositions,
+			float blockHalfWidth){
 		// Create vertex buffer to hold 3 float coordinates per Block vertex.
-		FloatBuffer verticesBuffer =
-				BufferUtils.createFloatBuffer(blockVertices.length * 3);
-		
-		// Copy block vertices into the verticesBuffer.
-		for(Vector3f vertex : blockVertices){
-			verticesBuffer.put(vertex.x);
-			verticesBuffer.put(vertex.y);
-			verticesBuffer.put(vertex.z);
-		}
+		FloatBuffer verticesBuffer = BufferUtils.createFloatBuffer(FLOATS_PER_SHAPE);
 		
-		verticesBuffer.flip();
+		for(int i = 0; i < 4; i++){
+			putBlockVertices(blockPositions[2*i], blockPositions[2*i + 1],
+					blockHalfWidth, verticesBuffer, i * FLOATS_PER_BLOCK);
+		}
 		
 		return verticesBuffer;
 	}
+	
+	/**
+	 * Writes the vertex coordinates of the given {@link Shape} into
+	 * <code>buffer</code>, starting at float index <code>offset</code>, using the
+	 * same vertex layout as {@link #createVertexFloatBuffer(Shape, float)}.
+	 * 
+	 * <p>
+	 * Unlike <code>createVertexFloatBuffer</code>, no objects are allocated, so
+	 * this method can be called every frame to refill the same buffer.  Values are
+	 * written using absolute puts, so the position and limit of <code>buffer</code>
+	 * are left unchanged.
+	 * @param shape - Shape whose vertices are written.
+	 * @param blockHalfWidth - One half the desired side length for each Block.
+	 * @param buffer - FloatBuffer to write into.
+	 * @param offset - index of the first float to write.
+	 * @return index of the float following the last one written, which is
+	 * <code>offset + FLOATS_PER_SHAPE</code>.
+	 * @throws InvalidParameterException if the vertices do not fit within the limit
+	 * of <code>buffer</code>.
+	 */
+	public static int putVertices(Shape shape, float blockHalfWidth,
+			FloatBuffer buffer, int offset) throws InvalidParameterException {
+		checkCapacity(buffer.limit(), offset, FLOATS_PER_SHAPE);
+		
+		for(int i = 0; i < 4; i++){
+			putBlockVertices(shape.getBlockColumn(i), shape.getBlockRow(i),
+					blockHalfWidth, buffer, offset + i * FLOATS_PER_BLOCK);
+		}
+		
+		return offset + FLOATS_PER_SHAPE;
+	}
+	
+	/**
+	 * Writes the vertex coordinates of the given packed Shape into
+	 * <code>buffer</code>, starting at float index <code>offset</code>.  See
+	 * {@link #putVertices(Shape, float, FloatBuffer, int)}.
+	 * @return index of the float following the last one written.
+	 * @throws InvalidParameterException if the vertices do not fit within the limit
+	 * of <code>buffer</code>.
+	 * @see PackedShape
+	 */
+	public static int putVertices(long packedShape, float blockHalfWidth,
+			FloatBuffer buffer, int offset) throws InvalidParameterException {
+		checkCapacity(buffer.limit(), offset, FLOATS_PER_SHAPE);
+		
+		for(int i = 0; i < 4; i++){
+			putBlockVertices(PackedShape.getBlockColumn(packedShape, i),
+					PackedShape.getBlockRow(packedShape, i),
+					blockHalfWidth, buffer, offset + i * FLOATS_PER_BLOCK);
+		}
+		
+		return offset + FLOATS_PER_SHAPE;
+	}
+	
+	/**
+	 * Writes the vertex coordinates of every Shape in <code>shapes</code> into
+	 * <code>buffer</code>, one after another, starting at float index
+	 * <code>offset</code>.  See {@link #putVertices(Shape, float, FloatBuffer, int)}.
+	 * @return index of the float following the last one written.
+	 * @throws InvalidParameterException if the vertices do not fit within the limit
+	 * of <code>buffer</code>.
+	 */
+	public static int putVertices(Shape[] shapes, float blockHalfWidth,
+			FloatBuffer buffer, int offset) throws InvalidParameterException {
+		checkCapacity(buffer.limit(), offset, shapes.length * FLOATS_PER_SHAPE);
+		
+		for(Shape shape : shapes){
+			offset = putVertices(shape, blockHalfWidth, buffer, offset);
+		}
+		
+		return offset;
+	}
+	
+	/**
+	 * Writes the vertex coordinates of the first <code>count</code> packed Shapes
+	 * in <code>packedShapes</code> into <code>buffer</code>, one after another,
+	 * starting at float index <code>offset</code>.  See
+	 * {@link #putVertices(Shape, float, FloatBuffer, int)}.
+	 * @return index of the float following the last one written.
+	 * @throws InvalidParameterException if the vertices do not fit within the limit
+	 * of <code>buffer</code>.
+	 */
+	public static int putVertices(long[] packedShapes, int count, float blockHalfWidth,
+			FloatBuffer buffer, int offset) throws InvalidParameterException {
+		checkCapacity(buffer.limit(), offset, count * FLOATS_PER_SHAPE);
+		
+		for(int i = 0; i < count; i++){
+			offset = putVertices(packedShapes[i], blockHalfWidth, buffer, offset);
+		}
+		
+		return offset;
+	}
+	
+	/**
+	 * Writes the vertex coordinates of the given {@link Shape} into
+	 * <code>buffer</code> as floats, starting at byte index
+	 * <code>byteOffset</code>, using the byte order of <code>buffer</code>.  Buffers
+	 * passed to OpenGL should use the native byte order, as those created by
+	 * {@link BufferUtils#createByteBuffer(int)} do.  See
+	 * {@link #putVertices(Shape, float, FloatBuffer, int)}.
+	 * @return index of the byte following the last one written, which is
+	 * <code>byteOffset + BYTES_PER_SHAPE</code>.
+	 * @throws InvalidParameterException if the vertices do not fit within the limit
+	 * of <code>buffer</code>.
+	 */
+	public static int putVertices(Shape shape, float blockHalfWidth,
+			ByteBuffer buffer, int byteOffset) throws InvalidParameterException {
+		checkCapacity(buffer.limit(), byteOffset, BYTES_PER_SHAPE);
+		
+		for(int i = 0; i < 4; i++){
+			putBlockVertices(shape.getBlockColumn(i), shape.getBlockRow(i),
+					blockHalfWidth, buffer, byteOffset + i * FLOATS_PER_BLOCK * 4);
+		}
+		
+		return byteOffset + BYTES_PER_SHAPE;
+	}
+	
+	/**
+	 * Writes the vertex coordinates of the given packed Shape into
+	 * <code>buffer</code> as floats, starting at byte index
+	 * <code>byteOffset</code>.  See {@link #putVertices(Shape, float, ByteBuffer, int)}.
+	 * @return index of the byte following the last one written.
+	 * @throws InvalidParameterException if the vertices do not fit within the limit
+	 * of <code>buffer</code>.
+	 */
+	public static int putVertices(long packedShape, float blockHalfWidth,
+			ByteBuffer buffer, int byteOffset) throws InvalidParameterException {
+		checkCapacity(buffer.limit(), byteOffset, BYTES_PER_SHAPE);
+		
+		for(int i = 0; i < 4; i++){
+			putBlockVertices(PackedShape.getBlockColumn(packedShape, i),
+					PackedShape.getBlockRow(packedShape, i),
+					blockHalfWidth, buffer, byteOffset + i * FLOATS_PER_BLOCK * 4);
+		}
+		
+		return byteOffset + BYTES_PER_SHAPE;
+	}
+	
+	/**
+	 * Writes the vertex coordinates of every Shape in <code>shapes</code> into
+	 * <code>buffer</code> as floats, one after another, starting at byte index
+	 * <code>byteOffset</code>.  See {@link #putVertices(Shape, float, ByteBuffer, int)}.
+	 * @return index of the byte following the last one written.
+	 * @throws InvalidParameterException if the vertices do not fit within the limit
+	 * of <code>buffer</code>.
+	 */
+	public static int putVertices(Shape[] shapes, float blockHalfWidth,
+			ByteBuffer buffer, int byteOffset) throws InvalidParameterException {
+		checkCapacity(buffer.limit(), byteOffset, shapes.length * BYTES_PER_SHAPE);
+		
+		for(Shape shape : shapes){
+			byteOffset = putVertices(shape, blockHalfWidth, buffer, byteOffset);
+		}
+		
+		return byteOffset;
+	}
+	
+	/**
+	 * Writes the vertex coordinates of the first <code>count</code> packed Shapes
+	 * in <code>packedShapes</code> into <code>buffer</code> as floats, one after
+	 * another, starting at byte index <code>byteOffset</code>.  See
+	 * {@link #putVertices(Shape, float, ByteBuffer, int)}.
+	 * @return index of the byte following the last one written.
+	 * @throws InvalidParameterException if the vertices do not fit within the limit
+	 * of <code>buffer</code>.
+	 */
+	public static int putVertices(long[] packedShapes, int count, float blockHalfWidth,
+			ByteBuffer buffer, int byteOffset) throws InvalidParameterException {
+		checkCapacity(buffer.limit(), byteOffset, count * BYTES_PER_SHAPE);
+		
+		for(int i = 0; i < count; i++){
+			byteOffset = putVertices(packedShapes[i], blockHalfWidth, buffer, byteOffset);
+		}
+		
+		return byteOffset;
+	}
+	
+	private static void checkCapacity(int limit, int offset, int length){
+		if (offset < 0 || length > limit - offset){
+			throw new InvalidParameterException("Writing " + length + " elements at " +
+					"offset " + offset + " exceeds buffer limit " + limit + ".\n");
+		}
+	}
+	
+	/**
+	 * Writes the 4 corner vertices of the Block at the given column-row position,
+	 * in counter-clockwise order starting from the bottom left corner.
+	 */
+	private static void putBlockVertices(int column, int row, float blockHalfWidth,
+			FloatBuffer buffer, int offset){
+		float xCenter = column * blockHalfWidth * 2;
+		float yCenter = row * blockHalfWidth * 2;
+		float left = xCenter - blockHalfWidth;
+		float right = xCenter + blockHalfWidth;
+		float bottom = yCenter - blockHalfWidth;
+		float top = yCenter + blockHalfWidth;
+		
+		buffer.put(offset,      left).put(offset + 1,  bottom).put(offset + 2,  0f);
+		buffer.put(offset + 3,  right).put(offset + 4,  bottom).put(offset + 5,  0f);
+		buffer.put(offset + 6,  right).put(offset + 7,  top).put(offset + 8,  0f);
+		buffer.put(offset + 9,  left).put(offset + 10, top).put(offset + 11, 0f);
+	}
+	
+	private static void putBlockVertices(int column, int row, float blockHalfWidth,
+			ByteBuffer buffer, int byteOffset){
+		float xCenter = column * blockHalfWidth * 2;
+		float yCenter = row * blockHalfWidth * 2;
+		float left = xCenter - blockHalfWidth;
+		float right = xCenter + blockHalfWidth;
+		float bottom = yCenter - blockHalfWidth;
+		float top = yCenter + blockHalfWidth;
+		
+		buffer.putFloat(byteOffset,      left).putFloat(byteOffset + 4,  bottom)
+		      .putFloat(byteOffset + 8,  0f);
+		buffer.putFloat(byteOffset + 12, right).putFloat(byteOffset + 16, bottom)
+		      .putFloat(byteOffset + 20, 0f);
+		buffer.putFloat(byteOffset + 24, right).putFloat(byteOffset + 28, top)
+		      .putFloat(byteOffset + 32, 0f);
+		buffer.putFloat(byteOffset + 36, left).putFloat(byteOffset + 40, top)
+		      .putFloat(byteOffset + 44, 0f);
+	}
 
 	/**
 	 * Returns an array of {@link Vector3f}s representing the vertices of the given
@@ -74,7 +320,27 @@ public class ShapeUtils {
 	public static Vector3f[] createBlockVertices(Shape shape, float blockHalfWidth){
 		if (shape == null) return null;
 		
-		int[] blockPositions = shape.getBlockPositions();
+		return createBlockVertices(shape.getBlockPositions(), blockHalfWidth);
+	}
+	
+	/**
+	 * Returns an array of {@link Vector3f}s representing the vertices of the given
+	 * packed Shape, using the same vertex layout as
+	 * {@link #createBlockVertices(Shape, float)}.
+	 * 
+	 * @param packedShape - packed Shape with Block positions to be converted to array
+	 * of vertices.
+	 * @see PackedShape
+	 */
+	public static Vector3f[] createBlockVertices(long packedShape, float blockHalfWidth){
+		int[] blockPositions = new int[8];
+		PackedShape.getBlockPositions(packedShape, blockPositions);
+		
+		return createBlockVertices(blockPositions, blockHalfWidth);
+	}
+	
+	private static Vector3f[] createBlockVertices(int[] blockPositions,
+			float blockHalfWidth){
 		int blocksPerShape = 4;
 		int verticesPerBlock = 4;
 		int numVertices = blocksPerShape * verticesPerBlock;
@@ -4,14 +4,18 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.security.InvalidParameterException;
 
 import org.lwjgl.opengl.GL11;
-import org.lwjgl.opengl.GL13;
 import org.lwjgl.opengl.GL30;
 
 import de.matthiasmann.twl.utils.PNGDecoder;
 import de.matthiasmann.twl.utils.PNGDecoder.Format;
 
+import tetrix.assets.AssetPack;
+import tetrix.rendering.LwjglRenderBackend;
+import tetrix.rendering.RenderBackend;
+
 public class TextureUtils {
 
 	public static int loadPNGTexture(String filename, int textureUnit) {
@@ -42,33 +46,200 @@ public class TextureUtils {
 			System.exit(-1);
 		}
 
+		return loadTexture(buf, tWidth, tHeight, textureUnit);
+	}
+
+	/**
+	 * Uploads a texture of an {@link AssetPack} into a new 2D texture, straight from
+	 * the mapped pack.
+	 * @param pack - AssetPack holding the texture.
+	 * @param name - name of the texture, its source file name without extension.
+	 * @param textureUnit - texture unit to bind the texture to, such as GL_TEXTURE0.
+	 * @return texture ID.  It is left bound to <code>textureUnit</code>.
+	 * @throws InvalidParameterException if the pack has no texture called
+	 * <code>name</code>.
+	 */
+	public static int loadTexture(AssetPack pack, String name, int textureUnit)
+			throws InvalidParameterException {
+		int index = pack.getIndex(name);
+
+		return loadTexture(pack.getPixels(index), pack.getWidth(index),
+				pack.getHeight(index), textureUnit);
+	}
+
+	/**
+	 * Uploads decoded texels into a new 2D texture.
+	 * @param texels - tightly packed RGBA texels, rows from top to bottom.
+	 * @param textureUnit - texture unit to bind the texture to, such as GL_TEXTURE0.
+	 * @return texture ID.  It is left bound to <code>textureUnit</code>.
+	 */
+	public static int loadTexture(ByteBuffer texels, int width, int height,
+			int textureUnit) {
+		return loadTexture(LwjglRenderBackend.INSTANCE, texels, width, height,
+				textureUnit);
+	}
+
+	/**
+	 * Uploads decoded texels into a new 2D texture with <code>backend</code>.
+	 * @see #loadTexture(ByteBuffer, int, int, int)
+	 */
+	public static int loadTexture(RenderBackend backend, ByteBuffer texels, int width,
+			int height, int textureUnit) {
 		// Create a new texture object in memory and bind it
-		int texId = GL11.glGenTextures();
-		GL13.glActiveTexture(textureUnit);
-		GL11.glBindTexture(GL11.GL_TEXTURE_2D, texId);
+		int texId = backend.genTexture();
+		backend.activeTexture(textureUnit);
+		backend.bindTexture(GL11.GL_TEXTURE_2D, texId);
 
 		// All RGB bytes are aligned to each other and each component is 1 byte
-		GL11.glPixelStorei(GL11.GL_UNPACK_ALIGNMENT, 1);
+		backend.pixelStorei(GL11.GL_UNPACK_ALIGNMENT, 1);
 
 		// Upload the texture data and generate mip maps (for scaling)
-		GL11.glTexImage2D(GL11.GL_TEXTURE_2D, 0, GL11.GL_RGB, tWidth, tHeight,
-				0, GL11.GL_RGBA, GL11.GL_UNSIGNED_BYTE, buf);
-		GL30.glGenerateMipmap(GL11.GL_TEXTURE_2D);
+		backend.texImage2D(GL11.GL_TEXTURE_2D, 0, GL11.GL_RGB, width, height,
+				GL11.GL_RGBA, GL11.GL_UNSIGNED_BYTE, texels);
+		backend.generateMipmap(GL11.GL_TEXTURE_2D);
 
-		// Setup the ST coordinate system
-		GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_WRAP_S,
-				GL11.GL_REPEAT);
-		GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_WRAP_T,
-				GL11.GL_REPEAT);
+		setTextureParameters(backend, GL11.GL_TEXTURE_2D);
 
-		// Setup what to do when the texture has to be scaled
-		GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MAG_FILTER,
-				GL11.GL_LINEAR);
-		GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MIN_FILTER,
-				GL11.GL_LINEAR_MIPMAP_LINEAR);
+		GLUtils.exitOnGLError(backend, "loadTexture");
+
+		return texId;
+	}
+
+	/**
+	 * Loads PNG images of equal size into the layers of a new 2D texture array, in
+	 * the order they are given.
+	 * @param filenames - paths to PNG files, relative to top level Tetrix folder.
+	 * @param textureUnit - texture unit to bind the texture array to, such as
+	 * GL_TEXTURE0.
+	 * @return texture ID of the texture array.  It is left bound to
+	 * <code>textureUnit</code>.
+	 */
+	public static int loadPNGTextureArray(String[] filenames, int textureUnit) {
+		RenderBackend backend = LwjglRenderBackend.INSTANCE;
+		int texId = createTextureArray(backend, textureUnit);
+
+		for(int layer = 0; layer < filenames.length; layer++){
+			ByteBuffer buf = null;
+			int tWidth = 0;
+			int tHeight = 0;
+
+			try {
+				InputStream in = new FileInputStream(filenames[layer]);
+				PNGDecoder decoder = new PNGDecoder(in);
+
+				tWidth = decoder.getWidth();
+				tHeight = decoder.getHeight();
+
+				// Decode the PNG file in a ByteBuffer
+				buf = ByteBuffer.allocateDirect(4 * tWidth * tHeight);
+				decoder.decode(buf, tWidth * 4, Format.RGBA);
+				buf.flip();
+
+				in.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+				System.exit(-1);
+			}
+
+			uploadLayer(backend, buf, tWidth, tHeight, layer, filenames.length);
+		}
 
-		GLUtils.exitOnGLError("loadPNGTexture");
+		finishTextureArray(backend);
+
+		GLUtils.exitOnGLError("loadPNGTextureArray");
 
 		return texId;
 	}
+
+	/**
+	 * Uploads textures of an {@link AssetPack} into the layers of a new 2D texture
+	 * array, in the order they are given, straight from the mapped pack.
+	 * @param pack - AssetPack holding the textures.
+	 * @param names - names of the textures, their source file names without
+	 * extension.
+	 * @param textureUnit - texture unit to bind the texture array to, such as
+	 * GL_TEXTURE0.
+	 * @return texture ID of the texture array.  It is left bound to
+	 * <code>textureUnit</code>.
+	 * @throws InvalidParameterException if the pack has no texture of one of the
+	 * names, or the textures differ in size.
+	 */
+	public static int loadTextureArray(AssetPack pack, String[] names, int textureUnit)
+			throws InvalidParameterException {
+		return loadTextureArray(LwjglRenderBackend.INSTANCE, pack, names, textureUnit);
+	}
+
+	/**
+	 * Uploads textures of an {@link AssetPack} into the layers of a new 2D texture
+	 * array with <code>backend</code>.
+	 * @see #loadTextureArray(AssetPack, String[], int)
+	 */
+	public static int loadTextureArray(RenderBackend backend, AssetPack pack,
+			String[] names, int textureUnit) throws InvalidParameterException {
+		// Check every layer before any GL object is created.
+		int[] indices = new int[names.length];
+		for(int layer = 0; layer < names.length; layer++){
+			indices[layer] = pack.getIndex(names[layer]);
+
+			if (pack.getWidth(indices[layer]) != pack.getWidth(indices[0]) ||
+					pack.getHeight(indices[layer]) != pack.getHeight(indices[0])){
+				throw new InvalidParameterException("Texture " + names[layer] +
+						" differs in size from texture " + names[0] + ".\n");
+			}
+		}
+
+		int texId = createTextureArray(backend, textureUnit);
+
+		for(int layer = 0; layer < names.length; layer++){
+			int index = indices[layer];
+			uploadLayer(backend, pack.getPixels(index), pack.getWidth(index),
+					pack.getHeight(index), layer, names.length);
+		}
+
+		finishTextureArray(backend);
+
+		GLUtils.exitOnGLError(backend, "loadTextureArray");
+
+		return texId;
+	}
+
+	private static int createTextureArray(RenderBackend backend, int textureUnit) {
+		int texId = backend.genTexture();
+		backend.activeTexture(textureUnit);
+		backend.bindTexture(GL30.GL_TEXTURE_2D_ARRAY, texId);
+
+		// All RGB bytes are aligned to each other and each component is 1 byte
+		backend.pixelStorei(GL11.GL_UNPACK_ALIGNMENT, 1);
+
+		return texId;
+	}
+
+	private static void uploadLayer(RenderBackend backend, ByteBuffer texels,
+			int width, int height, int layer, int layers) {
+		// Storage for every layer is allocated once the first image's size is known
+		if (layer == 0){
+			backend.texImage3D(GL30.GL_TEXTURE_2D_ARRAY, 0, GL11.GL_RGB, width,
+					height, layers, GL11.GL_RGBA, GL11.GL_UNSIGNED_BYTE, null);
+		}
+
+		backend.texSubImage3D(GL30.GL_TEXTURE_2D_ARRAY, 0, 0, 0, layer, width,
+				height, 1, GL11.GL_RGBA, GL11.GL_UNSIGNED_BYTE, texels);
+	}
+
+	private static void finishTextureArray(RenderBackend backend) {
+		backend.generateMipmap(GL30.GL_TEXTURE_2D_ARRAY);
+
+		setTextureParameters(backend, GL30.GL_TEXTURE_2D_ARRAY);
+	}
+
+	private static void setTextureParameters(RenderBackend backend, int target) {
+		// Setup the ST coordinate system
+		backend.texParameteri(target, GL11.GL_TEXTURE_WRAP_S, GL11.GL_REPEAT);
+		backend.texParameteri(target, GL11.GL_TEXTURE_WRAP_T, GL11.GL_REPEAT);
+
+		// Setup what to do when the texture has to be scaled
+		backend.texParameteri(target, GL11.GL_TEXTURE_MAG_FILTER, GL11.GL_LINEAR);
+		backend.texParameteri(target, GL11.GL_TEXTURE_MIN_FILTER,
+				GL11.GL_LINEAR_MIPMAP_LINEAR);
+	}
 }
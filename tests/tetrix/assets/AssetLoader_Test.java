@@ -0,0 +1,253 @@
+package tetrix.assets;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import tetrix.datastructures.ByteBufferPool;
+
+import de.matthiasmann.twl.utils.PNGDecoder;
+import de.matthiasmann.twl.utils.PNGDecoder.Format;
+
+public class AssetLoader_Test {
+	private static final Path TEXTURES = Paths.get(AssetPack.DEFAULT_TEXTURE_DIRECTORY);
+	private static final Path SHADER =
+			Paths.get("source/tetrix/shaders/blockInstanceVertex.glsl");
+	private static final int VERTEX_SHADER = 0x8B31;
+
+	// Runs decoding tasks on the calling thread, so every asset is ready once
+	// start returns.
+	private static final Executor SAME_THREAD = new Executor() {
+		@Override
+		public void execute(Runnable command) {
+			command.run();
+		}
+	};
+
+	private ByteBufferPool pool;
+	private RecordingAssetUploader uploader;
+	private ExecutorService workers;
+
+	/**
+	 * Copies every upload and hands out handles counting up from 1.
+	 */
+	private static class RecordingAssetUploader implements AssetUploader {
+		final Map<String, ByteBuffer> uploads = new HashMap<String, ByteBuffer>();
+		final List<String> order = new ArrayList<String>();
+
+		private int record(Asset asset, ByteBuffer data){
+			ByteBuffer copy = ByteBuffer.allocate(data.remaining());
+			copy.put(data.duplicate()).flip();
+
+			uploads.put(asset.getName(), copy);
+			order.add(asset.getName());
+			return order.size();
+		}
+
+		@Override
+		public int uploadTexture(Asset asset, ByteBuffer texels) {
+			return record(asset, texels);
+		}
+
+		@Override
+		public int uploadShader(Asset asset, ByteBuffer source) {
+			return record(asset, source);
+		}
+	}
+
+	@Before
+	public void setUp() throws Exception {
+		pool = new ByteBufferPool();
+		uploader = new RecordingAssetUploader();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		if (workers != null) workers.shutdown();
+	}
+
+	private static ByteBuffer decode(Path image) throws IOException {
+		InputStream in = Files.newInputStream(image);
+		try {
+			PNGDecoder decoder = new PNGDecoder(in);
+			ByteBuffer texels = ByteBuffer.allocate(4 * decoder.getWidth() *
+					decoder.getHeight());
+			decoder.decode(texels, 4 * decoder.getWidth(), Format.RGBA);
+			texels.flip();
+			return texels;
+		}
+		finally {
+			in.close();
+		}
+	}
+
+	private AssetLoader addEveryTexture(Executor executor) throws IOException {
+		AssetLoader loader = new AssetLoader(executor, pool);
+		for(Path image : AssetPackBuilder.listImages(TEXTURES)){
+			loader.addTexture(AssetPackBuilder.getTextureName(image), image);
+		}
+
+		return loader;
+	}
+
+	private static void loadAll(AssetLoader loader, AssetUploader uploader)
+			throws IOException {
+		while (!loader.isDone()){
+			if (loader.update(uploader) == 0){
+				Thread.yield();
+			}
+		}
+	}
+
+	@Test
+	public void test_textures_match_decoded_png() throws IOException {
+		workers = Executors.newFixedThreadPool(4);
+		AssetLoader loader = addEveryTexture(workers);
+		loader.start();
+		loadAll(loader, uploader);
+
+		for(Path image : AssetPackBuilder.listImages(TEXTURES)){
+			String name = AssetPackBuilder.getTextureName(image);
+			Asset asset = loader.getAsset(name);
+
+			assertTrue(asset.isUploaded());
+			assertEquals(image.toString(), decode(image), uploader.uploads.get(name));
+			assertEquals(4 * asset.getWidth() * asset.getHeight(), asset.getByteCount());
+			assertEquals(uploader.order.indexOf(name) + 1, asset.getHandle());
+		}
+		assertEquals(0, loader.getPendingCount());
+	}
+
+	@Test
+	public void test_shader_source_is_read() throws IOException {
+		AssetLoader loader = new AssetLoader(SAME_THREAD, pool);
+		Asset shader = loader.addShader("vertex", SHADER, VERTEX_SHADER);
+		loader.start();
+		loadAll(loader, uploader);
+
+		assertEquals(Asset.Type.SHADER, shader.getType());
+		assertEquals(VERTEX_SHADER, shader.getShaderType());
+		assertEquals(ByteBuffer.wrap(Files.readAllBytes(SHADER)),
+				uploader.uploads.get("vertex"));
+	}
+
+	@Test
+	public void test_batches_are_bounded_by_count() throws IOException {
+		AssetLoader loader = addEveryTexture(SAME_THREAD);
+		loader.start();
+		int total = loader.getPendingCount();
+
+		assertEquals(2, loader.update(uploader, 2, Long.MAX_VALUE));
+		assertEquals(total - 2, loader.getPendingCount());
+		assertFalse(loader.isDone());
+	}
+
+	@Test
+	public void test_batches_are_bounded_by_bytes() throws IOException {
+		AssetLoader loader = addEveryTexture(SAME_THREAD);
+		loader.start();
+
+		// At least one asset is uploaded, however small the byte budget.
+		assertEquals(1, loader.update(uploader, 100, 1));
+
+		// The batch stops once the budget is used up.
+		long budget = 4 * 24 * 24 + 1;
+		int count = loader.update(uploader, 100, budget);
+		assertTrue(count >= 1);
+		assertTrue(count < loader.getAssets().size());
+	}
+
+	@Test
+	public void test_buffers_return_to_pool() throws IOException {
+		AssetLoader loader = new AssetLoader(SAME_THREAD, pool);
+		loader.addShader("a", SHADER, VERTEX_SHADER);
+		loader.start();
+		loadAll(loader, uploader);
+
+		AssetLoader next = new AssetLoader(SAME_THREAD, pool);
+		next.addShader("b", SHADER, VERTEX_SHADER);
+		next.start();
+		loadAll(next, uploader);
+
+		assertEquals(1, pool.getAllocations());
+		assertEquals(1, pool.getReuses());
+	}
+
+	@Test
+	public void test_timings_are_recorded() throws IOException {
+		AssetLoader loader = addEveryTexture(SAME_THREAD);
+		loader.start();
+		loadAll(loader, uploader);
+
+		for(Asset asset : loader.getAssets()){
+			assertTrue(asset.getDecodeNanos() > 0);
+			assertTrue(asset.getReadyNanos() >= asset.getDecodeNanos());
+			assertTrue(asset.getUploadedNanos() >= asset.getReadyNanos());
+		}
+		assertTrue(loader.getElapsedNanos() > 0);
+	}
+
+	@Test
+	public void test_missing_file_is_reported() throws IOException {
+		AssetLoader loader = new AssetLoader(SAME_THREAD, pool);
+		loader.addTexture("missing", TEXTURES.resolve("no-such-image.png"));
+		loader.addShader("vertex", SHADER, VERTEX_SHADER);
+		loader.start();
+
+		try {
+			loader.update(uploader, 1, Long.MAX_VALUE);
+			fail("Expected an IOException.");
+		}
+		catch (IOException e){
+			assertTrue(e.getMessage().contains("missing"));
+		}
+
+		// Loading continues with the remaining assets.
+		loadAll(loader, uploader);
+		assertTrue(loader.getAsset("vertex").isUploaded());
+		assertFalse(loader.getAsset("missing").isUploaded());
+	}
+
+	@Test
+	public void test_empty_loader_is_done(){
+		AssetLoader loader = new AssetLoader(SAME_THREAD, pool);
+		loader.start();
+
+		assertTrue(loader.isDone());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void test_add_after_start(){
+		AssetLoader loader = new AssetLoader(SAME_THREAD, pool);
+		loader.start();
+
+		loader.addShader("vertex", SHADER, VERTEX_SHADER);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void test_update_before_start() throws IOException {
+		new AssetLoader(SAME_THREAD, pool).update(uploader);
+	}
+
+	@Test(expected = InvalidParameterException.class)
+	public void test_unknown_asset(){
+		new AssetLoader(SAME_THREAD, pool).getAsset("none");
+	}
+}
@@ -0,0 +1,200 @@
+package tetrix.assets;
+
+import static org.junit.Assert.*;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.InvalidParameterException;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.matthiasmann.twl.utils.PNGDecoder;
+import de.matthiasmann.twl.utils.PNGDecoder.Format;
+
+public class AssetPack_Test {
+	private static final Path TEXTURES = Paths.get(AssetPack.DEFAULT_TEXTURE_DIRECTORY);
+
+	private Path file;
+	private AssetPack pack;
+
+	@Before
+	public void setUp() throws Exception {
+		file = Files.createTempFile("AssetPack_Test", AssetPack.FILE_EXTENSION);
+		AssetPackBuilder.build(TEXTURES, file);
+		pack = AssetPack.open(file);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		Files.deleteIfExists(file);
+	}
+
+	private static ByteBuffer decode(Path image) throws IOException {
+		InputStream in = Files.newInputStream(image);
+		try {
+			PNGDecoder decoder = new PNGDecoder(in);
+			ByteBuffer texels = ByteBuffer.allocate(4 * decoder.getWidth() *
+					decoder.getHeight());
+			decoder.decode(texels, 4 * decoder.getWidth(), Format.RGBA);
+			texels.flip();
+			return texels;
+		}
+		finally {
+			in.close();
+		}
+	}
+
+	@Test
+	public void test_every_image_is_packed_in_name_order() throws IOException {
+		List<Path> images = AssetPackBuilder.listImages(TEXTURES);
+
+		assertEquals(images.size(), pack.getTextureCount());
+		for(int i = 0; i < images.size(); i++){
+			assertEquals(AssetPackBuilder.getTextureName(images.get(i)), pack.getName(i));
+			assertEquals(i, pack.indexOf(pack.getName(i)));
+		}
+	}
+
+	@Test
+	public void test_pixels_match_decoded_png() throws IOException {
+		for(Path image : AssetPackBuilder.listImages(TEXTURES)){
+			int index = pack.getIndex(AssetPackBuilder.getTextureName(image));
+			ByteBuffer expected = decode(image);
+
+			assertEquals(expected.remaining(), 4 * pack.getWidth(index) *
+					pack.getHeight(index));
+			assertEquals(image.toString(), expected, pack.getPixels(index));
+		}
+	}
+
+	@Test
+	public void test_block_texture_size(){
+		int index = pack.getIndex("blue-block");
+
+		assertEquals(24, pack.getWidth(index));
+		assertEquals(24, pack.getHeight(index));
+	}
+
+	@Test
+	public void test_pixels_are_aligned_slices() throws IOException {
+		ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(file));
+		AssetPack copy = new AssetPack(data);
+
+		for(int i = 0; i < copy.getTextureCount(); i++){
+			ByteBuffer pixels = copy.getPixels(i);
+
+			assertEquals(0, pixels.position());
+			assertEquals(0, pixels.arrayOffset() % AssetPack.DATA_ALIGNMENT);
+		}
+	}
+
+	@Test
+	public void test_build_in_memory(){
+		ByteBuffer red = ByteBuffer.allocate(2 * 3 * 4);
+		while (red.hasRemaining()){
+			red.putInt(0xFF0000FF);
+		}
+		red.flip();
+		ByteBuffer empty = ByteBuffer.allocate(0);
+
+		AssetPack memory = AssetPackBuilder.build(new String[] { "red", "empty" },
+				new int[] { 2, 0 }, new int[] { 3, 0 }, new ByteBuffer[] { red, empty });
+
+		assertEquals(2, memory.getTextureCount());
+		assertEquals(2, memory.getWidth(memory.getIndex("red")));
+		assertEquals(3, memory.getHeight(memory.getIndex("red")));
+		assertEquals(red, memory.getPixels(memory.getIndex("red")));
+		assertTrue(memory.getPixels(memory.getIndex("red")).isDirect());
+		assertEquals(0, memory.getPixels(memory.getIndex("empty")).remaining());
+	}
+
+	@Test(expected = InvalidParameterException.class)
+	public void test_build_in_memory_texels_do_not_match_size(){
+		AssetPackBuilder.build(new String[] { "red" }, new int[] { 2 }, new int[] { 2 },
+				new ByteBuffer[] { ByteBuffer.allocate(4) });
+	}
+
+	@Test
+	public void test_unknown_name(){
+		assertEquals(-1, pack.indexOf("no-such-texture"));
+	}
+
+	@Test(expected = InvalidParameterException.class)
+	public void test_getIndex_unknown_name(){
+		pack.getIndex("no-such-texture");
+	}
+
+	@Test(expected = IOException.class)
+	public void test_bad_magic_number() throws IOException {
+		ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(file));
+		data.putInt(0, 0x89504E47);
+
+		new AssetPack(data);
+	}
+
+	@Test(expected = IOException.class)
+	public void test_unsupported_version() throws IOException {
+		ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(file));
+		data.putShort(4, (short)(AssetPack.VERSION + 1));
+
+		new AssetPack(data);
+	}
+
+	@Test(expected = IOException.class)
+	public void test_truncated_pack() throws IOException {
+		byte[] bytes = Files.readAllBytes(file);
+		ByteBuffer data = ByteBuffer.wrap(bytes, 0, bytes.length / 2).slice();
+
+		new AssetPack(data);
+	}
+
+	@Test
+	public void test_failed_build_leaves_no_temporary_file() throws IOException {
+		Path directory = Files.createTempDirectory("AssetPack_Test");
+		Path image = directory.resolve("gray.png");
+		Path grayPack = directory.resolve("gray" + AssetPack.FILE_EXTENSION);
+		ImageIO.write(new BufferedImage(2, 2, BufferedImage.TYPE_BYTE_GRAY), "png",
+				image.toFile());
+
+		try {
+			// PNGDecoder can not convert grayscale images to RGBA.
+			AssetPackBuilder.build(directory, grayPack);
+			fail("Grayscale image was packed.");
+		}
+		catch (UnsupportedOperationException e){
+			assertEquals(1, directory.toFile().list().length);
+		}
+		finally {
+			Files.delete(image);
+			Files.delete(directory);
+		}
+	}
+
+	@Test
+	public void test_fresh_pack_is_not_stale() throws IOException {
+		Files.setLastModifiedTime(file, java.nio.file.attribute.FileTime.fromMillis(
+				System.currentTimeMillis() + 60000));
+
+		assertFalse(AssetPackBuilder.isStale(TEXTURES, file));
+		assertFalse(AssetPackBuilder.buildIfStale(TEXTURES, file));
+	}
+
+	@Test
+	public void test_old_or_missing_pack_is_stale() throws IOException {
+		Files.setLastModifiedTime(file, java.nio.file.attribute.FileTime.fromMillis(0));
+		assertTrue(AssetPackBuilder.isStale(TEXTURES, file));
+
+		Files.delete(file);
+		assertTrue(AssetPackBuilder.isStale(TEXTURES, file));
+	}
+}
@@ -0,0 +1,52 @@
+package tetrix.assets;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.lwjgl.opengl.GL13;
+import org.lwjgl.opengl.GL20;
+
+import tetrix.rendering.NullRenderBackend;
+import tetrix.rendering.RecordingRenderBackend;
+import tetrix.rendering.RecordingRenderBackend.Call;
+
+public class GLAssetUploader_Test {
+	private RecordingRenderBackend backend;
+	private GLAssetUploader uploader;
+	
+	@Before
+	public void setUp() throws Exception {
+		backend = new RecordingRenderBackend(new NullRenderBackend());
+		uploader = new GLAssetUploader(backend, GL13.GL_TEXTURE0);
+	}
+	
+	@Test
+	public void test_uploadTexture_binds_and_unbinds_through_backend(){
+		Asset asset = new Asset("red", Asset.Type.TEXTURE, null, 0);
+		asset.width = 2;
+		asset.height = 2;
+		ByteBuffer texels = ByteBuffer.allocateDirect(2 * 2 * 4);
+		
+		int texture = uploader.uploadTexture(asset, texels);
+		
+		assertTrue(texture != 0);
+		assertEquals(1, backend.getCount(Call.TEX_IMAGE_2D));
+		assertEquals(2, backend.getCount(Call.BIND_TEXTURE));
+	}
+	
+	@Test
+	public void test_uploadShader_compiles_through_backend(){
+		Asset asset = new Asset("shader", Asset.Type.SHADER, null,
+				GL20.GL_VERTEX_SHADER);
+		byte[] source = "void main(){}\n".getBytes(StandardCharsets.US_ASCII);
+		ByteBuffer buffer = ByteBuffer.allocateDirect(source.length);
+		buffer.put(source).flip();
+		
+		assertTrue(uploader.uploadShader(asset, buffer) != 0);
+		assertEquals(1, backend.getCount(Call.COMPILE_SHADER));
+	}
+}
@@ -0,0 +1,149 @@
+package tetrix.bots;
+
+import static org.junit.Assert.*;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import tetrix.entities.Playfield;
+import tetrix.entities.rotations.SuperRotationSystem;
+import tetrix.entities.shapes.PackedShape;
+import tetrix.entities.shapes.ShapeType;
+
+import static tetrix.entities.shapes.ShapeType.*;
+
+public class BeamSearchBot_Test {
+	private static final long ONE_SECOND = 1000000000L;
+
+	private ForkJoinPool pool;
+	private Playfield playfield;
+	private BeamSearchBot bot;
+
+	@Before
+	public void setUp() throws Exception {
+		pool = new ForkJoinPool(4);
+		playfield = new Playfield();
+		bot = new BeamSearchBot(16, EvaluationWeights.DEFAULT, new SuperRotationSystem(),
+				pool);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		pool.shutdown();
+	}
+
+	@Test
+	public void test_clears_four_lines_with_I(){
+		// Bottom four rows are full except for column 9.
+		for(int row = 0; row < 4; row++){
+			playfield.setRowMask(row, 0x1FF);
+		}
+
+		long placement = bot.findBestPlacement(playfield, PackedShape.spawn(I),
+				new ShapeType[] { O, T }, ONE_SECOND);
+
+		for(int i = 0; i < 4; i++){
+			assertEquals(9, PackedShape.getBlockColumn(placement, i));
+		}
+		assertEquals(3, bot.getDepthReached());
+		assertTrue(bot.getNodes() > 0);
+		assertTrue(bot.getNodesPerSecond() > 0);
+	}
+
+	@Test
+	public void test_placement_is_reachable(){
+		playfield.setRowMask(0, 0x3F3);
+		playfield.setRowMask(1, 0x1E1);
+
+		long placement = bot.findBestPlacement(playfield, PackedShape.spawn(T),
+				new ShapeType[] { S, Z, L }, ONE_SECOND);
+
+		PlacementList placements = new PlacementList();
+		new MoveGenerator().generate(playfield, PackedShape.spawn(T), placements);
+		assertTrue(placements.contains(placement));
+	}
+
+	@Test
+	public void test_parallel_matches_single_thread(){
+		ForkJoinPool single = new ForkJoinPool(1);
+		BeamSearchBot singleBot = new BeamSearchBot(16, EvaluationWeights.DEFAULT,
+				new SuperRotationSystem(), single);
+		ShapeType[] preview = { J, L, S, Z, O };
+
+		playfield.setRowMask(0, 0x2F7);
+		try {
+			assertEquals(singleBot.findBestPlacement(playfield, PackedShape.spawn(T),
+							preview, ONE_SECOND),
+					bot.findBestPlacement(playfield, PackedShape.spawn(T),
+							preview, ONE_SECOND));
+			assertEquals(singleBot.getNodes(), bot.getNodes());
+		}
+		finally {
+			single.shutdown();
+		}
+	}
+
+	@Test
+	public void test_shared_table_gives_same_placement(){
+		ShapeType[] preview = { J, L, S, Z, O };
+		playfield.setRowMask(0, 0x2F7);
+
+		long first = bot.findBestPlacement(playfield, PackedShape.spawn(T), preview,
+				ONE_SECOND);
+
+		// Every score of the second search is found in the table.
+		long second = bot.findBestPlacement(playfield, PackedShape.spawn(T), preview,
+				ONE_SECOND);
+		assertEquals(first, second);
+		assertEquals(bot.getNodes(), bot.getTableHits());
+	}
+
+	@Test
+	public void test_zero_time_budget_still_places_active_shape(){
+		long placement = bot.findBestPlacement(playfield, PackedShape.spawn(L),
+				new ShapeType[] { I, I, I, I }, 0);
+
+		assertTrue(placement != PackedShape.INVALID);
+		assertEquals(1, bot.getDepthReached());
+	}
+
+	@Test
+	public void test_blocked_spawn(){
+		long spawn = PackedShape.spawn(O);
+		playfield.setOccupied(PackedShape.getBlockColumn(spawn, 0),
+				PackedShape.getBlockRow(spawn, 0), true);
+
+		assertEquals(PackedShape.INVALID, bot.findBestPlacement(playfield, spawn,
+				new ShapeType[0], ONE_SECOND));
+		assertEquals(0, bot.getDepthReached());
+	}
+
+	@Test
+	public void test_playfield_unchanged(){
+		playfield.setRowMask(0, 0x1FF);
+		String before = playfield.toString();
+
+		bot.findBestPlacement(playfield, PackedShape.spawn(I), new ShapeType[] { O },
+				ONE_SECOND);
+
+		assertEquals(before, playfield.toString());
+	}
+
+	@Test
+	public void test_pool_threads_do_not_keep_discarded_bot(){
+		bot.findBestPlacement(playfield, PackedShape.spawn(T), new ShapeType[] { I },
+				ONE_SECOND);
+		WeakReference<BeamSearchBot> reference = new WeakReference<BeamSearchBot>(bot);
+		bot = null;
+
+		// The pool threads outlive the bot, along with their thread locals.
+		for(int i = 0; i < 50 && reference.get() != null; i++){
+			System.gc();
+		}
+		assertNull(reference.get());
+	}
+}
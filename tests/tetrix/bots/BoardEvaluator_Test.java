@@ -0,0 +1,71 @@
+package tetrix.bots;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import tetrix.entities.Playfield;
+
+public class BoardEvaluator_Test {
+	private Playfield playfield;
+	private BoardEvaluator evaluator;
+
+	@Before
+	public void setUp() throws Exception {
+		playfield = new Playfield();
+		evaluator = new BoardEvaluator();
+	}
+
+	private static EvaluationWeights only(int feature){
+		double[] w = new double[5];
+		w[feature] = 1;
+		return new EvaluationWeights(w[0], w[1], w[2], w[3], w[4]);
+	}
+
+	@Test
+	public void test_empty_playfield(){
+		assertEquals(0.0, evaluator.evaluate(playfield, 0), 0.0);
+		assertEquals(0, evaluator.countHoles(playfield));
+	}
+
+	@Test
+	public void test_column_heights_and_holes(){
+		playfield.setOccupied(0, 0, true);
+		playfield.setOccupied(1, 3, true);
+		playfield.setOccupied(1, 1, true);
+
+		assertEquals(2, evaluator.countHoles(playfield));
+		assertEquals(1, evaluator.getColumnHeight(0));
+		assertEquals(4, evaluator.getColumnHeight(1));
+		assertEquals(0, evaluator.getColumnHeight(2));
+	}
+
+	@Test
+	public void test_features(){
+		// Column heights 2, 0, 3, 3, 0, 0, 0, 0, 0, 1 with one hole in column 3.
+		playfield.setRowMask(0, 0x205);
+		playfield.setRowMask(1, 0x00D);
+		playfield.setRowMask(2, 0x00C);
+
+		assertEquals(9.0, new BoardEvaluator(only(0)).evaluate(playfield, 0), 0.0);
+		assertEquals(3.0, new BoardEvaluator(only(1)).evaluate(playfield, 3), 0.0);
+		assertEquals(1.0, new BoardEvaluator(only(2)).evaluate(playfield, 0), 0.0);
+
+		// |2-0| + |0-3| + |3-3| + |3-0| + |0-1|
+		assertEquals(9.0, new BoardEvaluator(only(3)).evaluate(playfield, 0), 0.0);
+
+		// Column 1 is a well of depth 2.
+		assertEquals(2.0, new BoardEvaluator(only(4)).evaluate(playfield, 0), 0.0);
+	}
+
+	@Test
+	public void test_default_prefers_fewer_holes(){
+		Playfield withHole = new Playfield();
+		withHole.setOccupied(0, 1, true);
+		playfield.setOccupied(0, 0, true);
+		playfield.setOccupied(0, 1, true);
+
+		assertTrue(evaluator.evaluate(playfield, 0) > evaluator.evaluate(withHole, 0));
+	}
+}
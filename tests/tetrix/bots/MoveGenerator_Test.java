@@ -0,0 +1,149 @@
+package tetrix.bots;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import tetrix.entities.Playfield;
+import tetrix.entities.shapes.PackedShape;
+import tetrix.entities.shapes.ShapeType;
+
+public class MoveGenerator_Test {
+	private Playfield playfield;
+	private MoveGenerator moveGenerator;
+	private PlacementList placements;
+
+	@Before
+	public void setUp() throws Exception {
+		playfield = new Playfield();
+		moveGenerator = new MoveGenerator();
+		placements = new PlacementList();
+	}
+
+	private int generate(ShapeType shapeType){
+		return moveGenerator.generate(playfield, PackedShape.spawn(shapeType), placements);
+	}
+
+	private static int getMinColumn(long packedShape){
+		int min = Integer.MAX_VALUE;
+		for(int i = 0; i < 4; i++){
+			min = Math.min(min, PackedShape.getBlockColumn(packedShape, i));
+		}
+		return min;
+	}
+
+	private static int getMinRow(long packedShape){
+		int min = Integer.MAX_VALUE;
+		for(int i = 0; i < 4; i++){
+			min = Math.min(min, PackedShape.getBlockRow(packedShape, i));
+		}
+		return min;
+	}
+
+	/////////////////////////////////////////////////////////////////////////////////////
+	// Test placement counts on an empty Playfield
+	/////////////////////////////////////////////////////////////////////////////////////
+
+	@Test
+	public void test_empty_playfield_I(){
+		assertEquals(17, generate(ShapeType.I));
+	}
+
+	@Test
+	public void test_empty_playfield_O(){
+		assertEquals(9, generate(ShapeType.O));
+	}
+
+	@Test
+	public void test_empty_playfield_S_Z(){
+		assertEquals(17, generate(ShapeType.S));
+		assertEquals(17, generate(ShapeType.Z));
+	}
+
+	@Test
+	public void test_empty_playfield_J_L_T(){
+		assertEquals(34, generate(ShapeType.J));
+		assertEquals(34, generate(ShapeType.L));
+		assertEquals(34, generate(ShapeType.T));
+	}
+
+	@Test
+	public void test_placements_are_resting(){
+		playfield.setRowMask(0, 0x1F3);
+		playfield.setRowMask(1, 0x0F1);
+
+		for(ShapeType shapeType : ShapeType.values()){
+			generate(shapeType);
+
+			for(int i = 0; i < placements.size(); i++){
+				long placement = placements.get(i);
+
+				assertFalse(playfield.collides(placement));
+				assertTrue(playfield.collides(PackedShape.translate(placement, 0, -1)));
+				assertEquals(shapeType, PackedShape.getShapeType(placement));
+			}
+		}
+	}
+
+	/////////////////////////////////////////////////////////////////////////////////////
+	// Test tucks and reuse
+	/////////////////////////////////////////////////////////////////////////////////////
+
+	@Test
+	public void test_tuck_under_overhang(){
+		// Overhang covering columns 0 to 4, with empty rows underneath it.
+		playfield.setRowMask(2, 0x1F);
+
+		// 5 placements on top of the overhang and 9 on the floor, 5 of which can
+		// only be reached by sliding under the overhang.
+		assertEquals(14, generate(ShapeType.O));
+
+		boolean foundTuck = false;
+		for(int i = 0; i < placements.size(); i++){
+			long placement = placements.get(i);
+			if (getMinColumn(placement) == 0 && getMinRow(placement) == 0){
+				foundTuck = true;
+			}
+		}
+		assertTrue(foundTuck);
+	}
+
+	@Test
+	public void test_blocked_spawn(){
+		long spawn = PackedShape.spawn(ShapeType.T);
+		playfield.setOccupied(PackedShape.getBlockColumn(spawn, 0),
+				PackedShape.getBlockRow(spawn, 0), true);
+
+		assertEquals(0, moveGenerator.generate(playfield, spawn, placements));
+		assertTrue(placements.isEmpty());
+	}
+
+	@Test
+	public void test_reuse_gives_same_placements(){
+		playfield.setRowMask(0, 0x3F0);
+
+		generate(ShapeType.L);
+		long[] first = new long[placements.size()];
+		for(int i = 0; i < first.length; i++){
+			first[i] = placements.get(i);
+		}
+
+		generate(ShapeType.I);
+		generate(ShapeType.L);
+
+		assertEquals(first.length, placements.size());
+		for(int i = 0; i < first.length; i++){
+			assertEquals(first[i], placements.get(i));
+		}
+	}
+
+	@Test
+	public void test_different_playfield_sizes(){
+		moveGenerator.generate(new Playfield(8, 24), PackedShape.spawn(ShapeType.O),
+				placements);
+		assertEquals(7, placements.size());
+
+		assertEquals(9, generate(ShapeType.O));
+	}
+}
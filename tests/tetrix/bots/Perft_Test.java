@@ -0,0 +1,122 @@
+package tetrix.bots;
+
+import static org.junit.Assert.*;
+
+import java.security.InvalidParameterException;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import tetrix.entities.Playfield;
+import tetrix.entities.rotations.SuperRotationSystem;
+import tetrix.entities.shapes.ShapeType;
+
+import static tetrix.entities.shapes.ShapeType.*;
+
+/**
+ * Checks perft counts of reference positions.  A change in any of these counts
+ * means the placements reachable under the SuperRotationSystem have changed.
+ */
+public class Perft_Test {
+	private static final ShapeType[] SEQUENCE = { T, I, O, L, S };
+
+	// Perft counts for depths 0 to 3 of SEQUENCE.
+	private static final long[] EMPTY_COUNTS = { 1, 34, 600, 5578 };
+	private static final long[] RAGGED_COUNTS = { 1, 34, 586, 5448 };
+
+	private Perft perft;
+	private Playfield empty;
+	private Playfield ragged;
+
+	@Before
+	public void setUp() throws Exception {
+		perft = new Perft();
+		empty = new Playfield();
+
+		// Nearly full bottom rows, with a well in column 5 and an overhang.
+		ragged = new Playfield();
+		ragged.setRowMask(0, 0x3DF);
+		ragged.setRowMask(1, 0x3DF);
+		ragged.setRowMask(2, 0x1CF);
+		ragged.setRowMask(3, 0x0C6);
+	}
+
+	@Test
+	public void test_empty_playfield(){
+		for(int depth = 0; depth < EMPTY_COUNTS.length; depth++){
+			assertEquals(EMPTY_COUNTS[depth], perft.count(empty, SEQUENCE, depth));
+		}
+	}
+
+	@Test
+	public void test_ragged_playfield(){
+		for(int depth = 0; depth < RAGGED_COUNTS.length; depth++){
+			assertEquals(RAGGED_COUNTS[depth], perft.count(ragged, SEQUENCE, depth));
+		}
+	}
+
+	@Test
+	public void test_parallel_matches_sequential(){
+		ForkJoinPool pool = new ForkJoinPool(4);
+
+		try {
+			assertEquals(EMPTY_COUNTS[3], perft.count(empty, SEQUENCE, 3, pool));
+			assertEquals(RAGGED_COUNTS[3], perft.count(ragged, SEQUENCE, 3, pool));
+			assertEquals(EMPTY_COUNTS[1], perft.count(empty, SEQUENCE, 1, pool));
+		}
+		finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void test_transposition_table_matches(){
+		TranspositionTable table = new TranspositionTable(12);
+		Perft cached = new Perft(new SuperRotationSystem(), table);
+
+		for(int depth = 0; depth < EMPTY_COUNTS.length; depth++){
+			assertEquals(EMPTY_COUNTS[depth], cached.count(empty, SEQUENCE, depth));
+			assertEquals(RAGGED_COUNTS[depth], cached.count(ragged, SEQUENCE, depth));
+		}
+
+		// A repeated count is found in the table.
+		long hits = table.getHits();
+		assertEquals(EMPTY_COUNTS[3], cached.count(empty, SEQUENCE, 3));
+		assertEquals(hits + 1, table.getHits());
+
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			table.clear();
+			assertEquals(EMPTY_COUNTS[3], cached.count(empty, SEQUENCE, 3, pool));
+			assertEquals(RAGGED_COUNTS[3], cached.count(ragged, SEQUENCE, 3, pool));
+		}
+		finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void test_playfield_unchanged(){
+		String before = ragged.toString();
+		perft.count(ragged, SEQUENCE, 2);
+
+		assertEquals(before, ragged.toString());
+	}
+
+	@Test
+	public void test_blocked_spawn(){
+		// Every row up to the spawn rows is nearly full, so nothing can spawn.
+		Playfield full = new Playfield();
+		for(int row = 0; row < 24; row++){
+			full.setRowMask(row, 0x2AA);
+		}
+
+		assertEquals(0, perft.count(full, SEQUENCE, 2));
+	}
+
+	@Test(expected=InvalidParameterException.class)
+	public void test_depth_past_sequence(){
+		perft.count(empty, SEQUENCE, SEQUENCE.length + 1);
+	}
+}
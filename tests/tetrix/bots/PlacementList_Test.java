@@ -0,0 +1,41 @@
+package tetrix.bots;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class PlacementList_Test {
+
+	@Test
+	public void test_add_grows(){
+		PlacementList placements = new PlacementList(2);
+
+		for(long i = 0; i < 10; i++){
+			placements.add(i);
+		}
+
+		assertEquals(10, placements.size());
+		assertEquals(7L, placements.get(7));
+		assertTrue(placements.contains(9L));
+		assertFalse(placements.contains(10L));
+	}
+
+	@Test
+	public void test_clear(){
+		PlacementList placements = new PlacementList();
+		placements.add(5L);
+		placements.clear();
+
+		assertTrue(placements.isEmpty());
+		assertFalse(placements.contains(5L));
+	}
+
+	@Test(expected=IndexOutOfBoundsException.class)
+	public void test_get_past_size(){
+		PlacementList placements = new PlacementList();
+		placements.add(5L);
+		placements.clear();
+
+		placements.get(0);
+	}
+}
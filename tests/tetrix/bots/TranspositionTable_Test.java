@@ -0,0 +1,154 @@
+package tetrix.bots;
+
+import static org.junit.Assert.*;
+
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class TranspositionTable_Test {
+	private TranspositionTable table;
+
+	@Before
+	public void setUp() throws Exception {
+		table = new TranspositionTable(4);
+	}
+
+	@Test
+	public void test_capacity(){
+		assertEquals(16 * TranspositionTable.SLOTS_PER_BUCKET, table.getCapacity());
+	}
+
+	@Test
+	public void test_probe_empty(){
+		assertEquals(TranspositionTable.NOT_FOUND, table.probe(0x1234L));
+		assertEquals(TranspositionTable.NOT_FOUND, table.probe(0L));
+	}
+
+	@Test
+	public void test_store_and_probe(){
+		table.store(0x1234L, 3, 42);
+		table.store(0L, 0, 0);
+
+		long data = table.probe(0x1234L);
+		assertEquals(42, TranspositionTable.getValue(data));
+		assertEquals(3, TranspositionTable.getDepth(data));
+
+		data = table.probe(0L);
+		assertTrue(data != TranspositionTable.NOT_FOUND);
+		assertEquals(0, TranspositionTable.getValue(data));
+		assertEquals(0, TranspositionTable.getDepth(data));
+
+		assertEquals(2, table.getProbes());
+		assertEquals(2, table.getHits());
+	}
+
+	@Test
+	public void test_shallower_result_does_not_replace(){
+		table.store(99L, 5, 500);
+		table.store(99L, 2, 200);
+		assertEquals(500, TranspositionTable.getValue(table.probe(99L)));
+
+		table.store(99L, 5, 501);
+		assertEquals(501, TranspositionTable.getValue(table.probe(99L)));
+
+		table.store(99L, 7, 700);
+		assertEquals(7, TranspositionTable.getDepth(table.probe(99L)));
+	}
+
+	@Test
+	public void test_replaces_shallowest_in_bucket(){
+		// One bucket, so every key shares it.
+		TranspositionTable small = new TranspositionTable(0);
+		small.store(1L, 4, 1);
+		small.store(2L, 1, 2);
+		small.store(3L, 6, 3);
+		small.store(4L, 5, 4);
+
+		small.store(5L, 2, 5);
+
+		assertEquals(TranspositionTable.NOT_FOUND, small.probe(2L));
+		assertEquals(5, TranspositionTable.getValue(small.probe(5L)));
+		assertEquals(1, TranspositionTable.getValue(small.probe(1L)));
+		assertEquals(3, TranspositionTable.getValue(small.probe(3L)));
+		assertEquals(4, TranspositionTable.getValue(small.probe(4L)));
+	}
+
+	@Test
+	public void test_clear(){
+		table.store(7L, 1, 1);
+		table.clear();
+
+		assertEquals(TranspositionTable.NOT_FOUND, table.probe(7L));
+		assertEquals(1, table.getProbes());
+		assertEquals(0, table.getHits());
+	}
+
+	@Test(expected = InvalidParameterException.class)
+	public void test_negative_value(){
+		table.store(1L, 0, -1);
+	}
+
+	@Test(expected = InvalidParameterException.class)
+	public void test_depth_out_of_range(){
+		table.store(1L, TranspositionTable.MAX_DEPTH + 1, 0);
+	}
+
+	@Test(expected = InvalidParameterException.class)
+	public void test_size_out_of_range(){
+		new TranspositionTable(-1);
+	}
+
+	@Test
+	public void test_concurrent_stores_never_return_wrong_values() throws Exception {
+		final TranspositionTable shared = new TranspositionTable(6);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+
+		try {
+			List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+			for(int t = 0; t < 4; t++){
+				final long seed = t;
+				results.add(executor.submit(new Callable<Integer>() {
+					@Override
+					public Integer call(){
+						SplittableRandom random = new SplittableRandom(seed);
+						int errors = 0;
+
+						for(int i = 0; i < 200000; i++){
+							// Values are derived from keys, so any hit can be checked.
+							long key = random.nextLong(4096) * 0x9E3779B97F4A7C15L;
+							long value = (key >>> 20) & TranspositionTable.MAX_VALUE;
+							shared.store(key, random.nextInt(8), value);
+
+							long probed = random.nextLong(4096) * 0x9E3779B97F4A7C15L;
+							long data = shared.probe(probed);
+							if (data != TranspositionTable.NOT_FOUND &&
+									TranspositionTable.getValue(data) !=
+									((probed >>> 20) & TranspositionTable.MAX_VALUE)){
+								errors++;
+							}
+						}
+
+						return errors;
+					}
+				}));
+			}
+
+			for(Future<Integer> result : results){
+				assertEquals(0, result.get().intValue());
+			}
+			assertEquals(4 * 200000, shared.getProbes());
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+}
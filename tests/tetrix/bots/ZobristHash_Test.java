@@ -0,0 +1,114 @@
+package tetrix.bots;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import tetrix.entities.Playfield;
+import tetrix.entities.rotations.RotationState;
+import tetrix.entities.shapes.PackedShape;
+import tetrix.entities.shapes.ShapeType;
+
+import static tetrix.entities.shapes.ShapeType.*;
+
+public class ZobristHash_Test {
+	private ZobristHash zobrist;
+	private Playfield playfield;
+
+	@Before
+	public void setUp() throws Exception {
+		zobrist = new ZobristHash();
+		playfield = new Playfield();
+	}
+
+	@Test
+	public void test_empty_playfield_hash(){
+		assertEquals(0L, zobrist.hash(playfield));
+	}
+
+	@Test
+	public void test_same_seed_same_keys(){
+		ZobristHash other = new ZobristHash();
+		playfield.setRowMask(0, 0x2F7);
+		playfield.setRowMask(1, 0x0F0);
+
+		assertEquals(zobrist.hash(playfield), other.hash(playfield));
+	}
+
+	@Test
+	public void test_different_playfields(){
+		playfield.setRowMask(0, 0x001);
+		long hash = zobrist.hash(playfield);
+
+		playfield.setRowMask(0, 0x002);
+		assertTrue(hash != zobrist.hash(playfield));
+
+		playfield.setRowMask(0, 0x000);
+		playfield.setRowMask(1, 0x001);
+		assertTrue(hash != zobrist.hash(playfield));
+	}
+
+	@Test
+	public void test_incremental_lock(){
+		MoveGenerator moveGenerator = new MoveGenerator();
+		PlacementList placements = new PlacementList();
+		ShapeType[] sequence = { T, L, O, S };
+
+		long hash = zobrist.hash(playfield);
+		for(ShapeType shapeType : sequence){
+			moveGenerator.generate(playfield, PackedShape.spawn(shapeType), placements);
+			hash = zobrist.lock(playfield, hash, placements.get(placements.size() / 2));
+			assertEquals(zobrist.hash(playfield), hash);
+		}
+		assertTrue(hash != 0L);
+	}
+
+	@Test
+	public void test_incremental_line_clear(){
+		// Rows 0 to 3 full except for column 9, with some Blocks above.
+		for(int row = 0; row < 4; row++){
+			playfield.setRowMask(row, 0x1FF);
+		}
+		playfield.setRowMask(4, 0x011);
+		playfield.setRowMask(5, 0x010);
+
+		long hash = zobrist.hash(playfield);
+
+		PlacementList placements = new PlacementList();
+		new MoveGenerator().generate(playfield, PackedShape.spawn(I), placements);
+
+		boolean cleared = false;
+		for(int i = 0; i < placements.size(); i++){
+			Playfield copy = new Playfield(playfield);
+			long copyHash = zobrist.lock(copy, hash, placements.get(i));
+
+			assertEquals(zobrist.hash(copy), copyHash);
+			cleared |= copy.isRowEmpty(2);
+		}
+		assertTrue(cleared);
+	}
+
+	@Test
+	public void test_full_state_hash(){
+		ShapeType[] queue = { O, S, Z };
+		long active = PackedShape.spawn(J);
+		long hash = zobrist.hash(playfield, active, null, queue);
+
+		assertEquals(zobrist.getActiveShapeKey(J, RotationState.SPAWN_STATE) ^
+				zobrist.getHoldKey(null) ^ zobrist.hashQueue(queue, 0, 3), hash);
+
+		assertTrue(hash != zobrist.hash(playfield, active, L, queue));
+		assertTrue(hash != zobrist.hash(playfield, active, null,
+				new ShapeType[] { S, O, Z }));
+		assertTrue(hash != zobrist.hash(playfield, PackedShape.spawn(L), null, queue));
+	}
+
+	@Test
+	public void test_hash_queue_offset(){
+		ShapeType[] sequence = { T, I, O, L };
+
+		assertEquals(zobrist.hashQueue(new ShapeType[] { O, L }, 0, 2),
+				zobrist.hashQueue(sequence, 2, 2));
+	}
+}
@@ -0,0 +1,110 @@
+package tetrix.datastructures;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.security.InvalidParameterException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ByteBufferPool_Test {
+	private ByteBufferPool pool;
+
+	@Before
+	public void setUp() throws Exception {
+		pool = new ByteBufferPool();
+	}
+
+	@Test
+	public void test_acquire_sets_limit(){
+		ByteBuffer buffer = pool.acquire(3000);
+
+		assertTrue(buffer.isDirect());
+		assertEquals(0, buffer.position());
+		assertEquals(3000, buffer.limit());
+		assertEquals(ByteBufferPool.MIN_CAPACITY, buffer.capacity());
+	}
+
+	@Test
+	public void test_capacity_is_smallest_power_of_two(){
+		assertEquals(4096, pool.acquire(4096).capacity());
+		assertEquals(8192, pool.acquire(4097).capacity());
+		assertEquals(1 << 20, pool.acquire((1 << 19) + 1).capacity());
+		assertEquals(4096, pool.acquire(0).capacity());
+	}
+
+	@Test
+	public void test_released_buffer_is_reused(){
+		ByteBuffer buffer = pool.acquire(10000);
+		buffer.position(100);
+		pool.release(buffer);
+
+		ByteBuffer reused = pool.acquire(9000);
+
+		assertSame(buffer, reused);
+		assertEquals(0, reused.position());
+		assertEquals(9000, reused.limit());
+		assertEquals(1, pool.getAllocations());
+		assertEquals(1, pool.getReuses());
+		assertEquals(16384, pool.getBytesAllocated());
+	}
+
+	@Test
+	public void test_buffers_are_not_shared_between_size_classes(){
+		pool.release(pool.acquire(10000));
+
+		assertEquals(4096, pool.acquire(100).capacity());
+		assertEquals(2, pool.getAllocations());
+		assertEquals(0, pool.getReuses());
+	}
+
+	@Test
+	public void test_release_drops_buffers_beyond_cap(){
+		int count = ByteBufferPool.MAX_RETAINED_PER_CLASS + 3;
+		ByteBuffer[] buffers = new ByteBuffer[count];
+		for(int i = 0; i < count; i++){
+			buffers[i] = pool.acquire(5000);
+		}
+		for(ByteBuffer buffer : buffers){
+			pool.release(buffer);
+		}
+
+		assertEquals(3, pool.getDrops());
+
+		for(int i = 0; i < count; i++){
+			pool.acquire(5000);
+		}
+
+		assertEquals(ByteBufferPool.MAX_RETAINED_PER_CLASS, pool.getReuses());
+		assertEquals(count + 3, pool.getAllocations());
+	}
+
+	@Test
+	public void test_acquired_buffers_are_distinct(){
+		ByteBuffer a = pool.acquire(100);
+		ByteBuffer b = pool.acquire(100);
+
+		assertNotSame(a, b);
+	}
+
+	@Test
+	public void test_shared_pool_is_one_instance(){
+		assertSame(ByteBufferPool.getShared(), ByteBufferPool.getShared());
+	}
+
+	@Test(expected = InvalidParameterException.class)
+	public void test_negative_size(){
+		pool.acquire(-1);
+	}
+
+	@Test(expected = InvalidParameterException.class)
+	public void test_release_heap_buffer(){
+		pool.release(ByteBuffer.allocate(4096));
+	}
+
+	@Test(expected = InvalidParameterException.class)
+	public void test_release_foreign_direct_buffer(){
+		pool.release(ByteBuffer.allocateDirect(5000));
+	}
+}
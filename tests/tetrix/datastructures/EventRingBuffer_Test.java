@@ -0,0 +1,115 @@
+package tetrix.datastructures;
+
+import static org.junit.Assert.*;
+
+import java.security.InvalidParameterException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class EventRingBuffer_Test {
+	private EventRingBuffer events;
+
+	@Before
+	public void setUp() throws Exception {
+		events = new EventRingBuffer(4);
+	}
+
+	@Test(expected=InvalidParameterException.class)
+	public void test_capacity_must_be_power_of_two(){
+		new EventRingBuffer(6);
+	}
+
+	@Test
+	public void test_empty(){
+		assertTrue(events.isEmpty());
+		assertEquals(0, events.size());
+	}
+
+	@Test(expected=IllegalStateException.class)
+	public void test_peek_empty_throws(){
+		events.peekTimestamp();
+	}
+
+	@Test(expected=IllegalStateException.class)
+	public void test_remove_empty_throws(){
+		events.remove();
+	}
+
+	@Test
+	public void test_events_read_in_order(){
+		assertTrue(events.offer(10, 1));
+		assertTrue(events.offer(20, 2));
+
+		assertFalse(events.isEmpty());
+		assertEquals(2, events.size());
+		assertEquals(10, events.peekTimestamp());
+		assertEquals(1, events.peekValue());
+
+		events.remove();
+		assertEquals(20, events.peekTimestamp());
+		assertEquals(2, events.peekValue());
+
+		events.remove();
+		assertTrue(events.isEmpty());
+	}
+
+	@Test
+	public void test_full_queue_rejects_events(){
+		for(int i = 0; i < events.getCapacity(); i++){
+			assertTrue(events.offer(i, i));
+		}
+
+		assertFalse(events.offer(99, 99));
+		assertEquals(1, events.getRejected());
+
+		// Reading an event frees its slot.
+		events.remove();
+		assertTrue(events.offer(4, 4));
+		assertEquals(1, events.peekValue());
+	}
+
+	@Test
+	public void test_wraps_around(){
+		for(int i = 0; i < 3 * events.getCapacity(); i++){
+			assertTrue(events.offer(i * 100L, i));
+			assertEquals(i * 100L, events.peekTimestamp());
+			assertEquals(i, events.peekValue());
+			events.remove();
+		}
+
+		assertTrue(events.isEmpty());
+	}
+
+	@Test
+	public void test_concurrent_events_arrive_complete_and_in_order() throws Exception {
+		final int count = 200000;
+		final EventRingBuffer shared = new EventRingBuffer(64);
+
+		Thread producer = new Thread(new Runnable() {
+			@Override
+			public void run(){
+				for(int i = 0; i < count; i++){
+					// Timestamps and values are written separately, so check they match.
+					while (!shared.offer(i * 3L, i)){
+						Thread.yield();
+					}
+				}
+			}
+		});
+		producer.start();
+
+		for(int i = 0; i < count; i++){
+			while (shared.isEmpty()){
+				Thread.yield();
+			}
+
+			assertEquals(i, shared.peekValue());
+			assertEquals(i * 3L, shared.peekTimestamp());
+			shared.remove();
+		}
+		producer.join();
+
+		assertTrue(shared.isEmpty());
+	}
+}
@@ -0,0 +1,112 @@
+package tetrix.datastructures;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class TripleBuffer_Test {
+	/**
+	 * Mutable value holding a sequence number.
+	 */
+	private static class Value {
+		long sequence = -1;
+	}
+
+	private TripleBuffer<Value> buffer;
+
+	@Before
+	public void setUp() throws Exception {
+		buffer = new TripleBuffer<Value>(new Value(), new Value(), new Value());
+	}
+
+	private void publish(long sequence){
+		buffer.getWriteBuffer().sequence = sequence;
+		buffer.publish();
+	}
+
+	@Test
+	public void test_acquire_before_publish_returns_read_buffer(){
+		assertFalse(buffer.hasNewValue());
+		assertEquals(-1, buffer.acquire().sequence);
+		assertEquals(1, buffer.getDuplicated());
+	}
+
+	@Test
+	public void test_acquire_returns_published_value(){
+		publish(7);
+
+		assertTrue(buffer.hasNewValue());
+		assertEquals(7, buffer.acquire().sequence);
+		assertFalse(buffer.hasNewValue());
+		assertEquals(0, buffer.getDuplicated());
+	}
+
+	@Test
+	public void test_acquire_returns_newest_value(){
+		publish(1);
+		publish(2);
+		publish(3);
+
+		assertEquals(3, buffer.acquire().sequence);
+		assertEquals(3, buffer.getPublished());
+		assertEquals(2, buffer.getDropped());
+	}
+
+	@Test
+	public void test_acquire_without_publish_repeats_value(){
+		publish(1);
+		Value first = buffer.acquire();
+		Value second = buffer.acquire();
+
+		assertSame(first, second);
+		assertEquals(1, second.sequence);
+		assertEquals(2, buffer.getAcquired());
+		assertEquals(1, buffer.getDuplicated());
+	}
+
+	@Test
+	public void test_write_buffer_never_shared_with_reader(){
+		for(int i = 0; i < 10; i++){
+			publish(i);
+			Value read = buffer.acquire();
+
+			assertNotSame(read, buffer.getWriteBuffer());
+			assertEquals(i, read.sequence);
+		}
+	}
+
+	@Test
+	public void test_concurrent_values_are_complete_and_in_order() throws Exception {
+		final long count = 200000;
+		final Value[] values = { new Value(), new Value(), new Value() };
+		for(Value value : values){
+			value.sequence = 0;
+		}
+		final TripleBuffer<Value> shared = new TripleBuffer<Value>(values[0],
+				values[1], values[2]);
+
+		Thread writer = new Thread(new Runnable() {
+			@Override
+			public void run(){
+				for(long i = 1; i <= count; i++){
+					shared.getWriteBuffer().sequence = i;
+					shared.publish();
+				}
+			}
+		});
+		writer.start();
+
+		// Sequence numbers seen by the reader never go backwards.
+		long last = 0;
+		while (last < count){
+			long sequence = shared.acquire().sequence;
+			assertTrue(sequence >= last);
+			last = sequence;
+		}
+		writer.join();
+
+		assertEquals(count, shared.getPublished());
+		assertEquals(count, last);
+	}
+}
@@ -0,0 +1,127 @@
+package tetrix.datastructures;
+
+import static org.junit.Assert.*;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class VertexStreamWriter_Test {
+	private VertexStreamWriter writer;
+
+	@Before
+	public void setUp() throws Exception {
+		writer = new VertexStreamWriter(8);
+	}
+
+	private static float[] getFloats(ByteBuffer buffer){
+		FloatBuffer floats = buffer.asFloatBuffer();
+		float[] result = new float[floats.remaining()];
+		floats.get(result);
+		return result;
+	}
+
+	@Test
+	public void test_matches_textured_vertex_elements(){
+		TexturedVertex vertex = new TexturedVertex();
+		vertex.setXYZ(1, 2, 3);
+		vertex.setRGBA(0.1f, 0.2f, 0.3f, 0.4f);
+		vertex.setST(0.5f, 0.75f);
+
+		writer.vertex(1, 2, 3).color(0.1f, 0.2f, 0.3f, 0.4f).st(0.5f, 0.75f);
+
+		ByteBuffer buffer = writer.getBuffer();
+		assertEquals(TexturedVertex.stride, buffer.remaining());
+		assertArrayEquals(vertex.getElements(), getFloats(buffer), 0f);
+	}
+
+	@Test
+	public void test_vertex_writes_defaults(){
+		writer.vertex(4, 5, 6);
+
+		assertArrayEquals(new TexturedVertex().withXYZ(4, 5, 6).getElements(),
+				getFloats(writer.getBuffer()), 0f);
+	}
+
+	@Test
+	public void test_attributes_at_layout_offsets(){
+		writer.vertex(0, 0, 0);
+		writer.vertex(7, 8, 9, 2).color(0.25f, 0.5f, 0.75f).st(3, 4);
+
+		ByteBuffer buffer = writer.getBuffer();
+		int base = TexturedVertex.stride;
+		assertEquals(7f, buffer.getFloat(base + TexturedVertex.positionByteOffset), 0f);
+		assertEquals(2f, buffer.getFloat(base + TexturedVertex.positionByteOffset + 12),
+				0f);
+		assertEquals(0.5f, buffer.getFloat(base + TexturedVertex.colorByteOffset + 4), 0f);
+		assertEquals(1f, buffer.getFloat(base + TexturedVertex.colorByteOffset + 12), 0f);
+		assertEquals(4f, buffer.getFloat(base + TexturedVertex.textureByteOffset + 4), 0f);
+	}
+
+	@Test
+	public void test_buffer_is_native_order(){
+		assertEquals(ByteOrder.nativeOrder(), writer.getBuffer().order());
+	}
+
+	@Test
+	public void test_quad_writes_counter_clockwise_corners(){
+		writer.quad(-1, -2, 3, 4, 0.5f);
+
+		float[] floats = getFloats(writer.getBuffer());
+		int stride = TexturedVertex.elementCount;
+		float[][] expected = {
+				{-1, 4, 0, 0}, {-1, -2, 0, 1}, {3, -2, 1, 1}, {3, 4, 1, 0}};
+
+		assertEquals(4, writer.getVertexCount());
+		for(int i = 0; i < 4; i++){
+			assertEquals(expected[i][0], floats[i * stride], 0f);
+			assertEquals(expected[i][1], floats[i * stride + 1], 0f);
+			assertEquals(0.5f, floats[i * stride + 2], 0f);
+			assertEquals(expected[i][2], floats[i * stride + 8], 0f);
+			assertEquals(expected[i][3], floats[i * stride + 9], 0f);
+		}
+	}
+
+	@Test
+	public void test_clear_rewrites_from_start(){
+		writer.vertex(1, 1, 1);
+		writer.vertex(2, 2, 2);
+		writer.clear();
+		writer.vertex(3, 3, 3);
+
+		assertEquals(1, writer.getVertexCount());
+		assertEquals(3f, writer.getBuffer().getFloat(0), 0f);
+	}
+
+	@Test
+	public void test_clear_after_getBuffer_writes_past_previous_limit(){
+		writer.quad(0, 0, 1, 1, 0);
+		writer.getBuffer();
+		writer.clear();
+		writer.quad(0, 0, 1, 1, 0);
+		writer.quad(2, 2, 3, 3, 0);
+
+		ByteBuffer buffer = writer.getBuffer();
+		assertEquals(8, writer.getVertexCount());
+		assertEquals(8 * TexturedVertex.stride, buffer.limit());
+		assertEquals(3f, buffer.getFloat(7 * TexturedVertex.stride), 0f);
+	}
+
+	@Test(expected = BufferOverflowException.class)
+	public void test_full_buffer_throws(){
+		for(int i = 0; i <= writer.getVertexCapacity(); i++){
+			writer.vertex(i, i, i);
+		}
+	}
+
+	@Test(expected = BufferOverflowException.class)
+	public void test_quad_past_capacity_throws(){
+		writer.quad(0, 0, 1, 1, 0);
+		writer.vertex(0, 0, 0);
+		writer.quad(0, 0, 1, 1, 0);
+	}
+}
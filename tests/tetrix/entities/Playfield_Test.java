@@ -0,0 +1,216 @@
+package tetrix.entities;
+
+import static org.junit.Assert.*;
+
+import java.security.InvalidParameterException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import tetrix.entities.rotations.RotationSystem;
+import tetrix.entities.rotations.SuperRotationSystem;
+import tetrix.entities.shapes.IShape;
+import tetrix.entities.shapes.JShape;
+import tetrix.entities.shapes.LShape;
+import tetrix.entities.shapes.OShape;
+import tetrix.entities.shapes.PackedShape;
+import tetrix.entities.shapes.SShape;
+import tetrix.entities.shapes.Shape;
+import tetrix.entities.shapes.TShape;
+import tetrix.entities.shapes.ZShape;
+
+public class Playfield_Test {
+	private Playfield playfield;
+	private RotationSystem rotationSystem = new SuperRotationSystem();
+
+	@Before
+	public void setUp() throws Exception {
+		playfield = new Playfield();
+	}
+
+	private void fillRow(int row){
+		playfield.setRowMask(row, playfield.getFullRowMask());
+	}
+
+	@Test
+	public void test_default_dimensions(){
+		assertEquals(10, playfield.getColumns());
+		assertEquals(40, playfield.getRows());
+		assertEquals(0x3FF, playfield.getFullRowMask());
+	}
+
+	@Test(expected=InvalidParameterException.class)
+	public void test_too_many_columns(){
+		new Playfield(Playfield.MAX_COLUMNS + 1, 20);
+	}
+
+	@Test
+	public void test_outside_cells_are_occupied(){
+		assertTrue(playfield.isOccupied(-1, 0));
+		assertTrue(playfield.isOccupied(10, 0));
+		assertTrue(playfield.isOccupied(0, -1));
+		assertTrue(playfield.isOccupied(0, 40));
+		assertFalse(playfield.isOccupied(0, 0));
+		assertFalse(playfield.isOccupied(9, 39));
+	}
+
+	@Test
+	public void test_setOccupied(){
+		playfield.setOccupied(3, 2, true);
+		assertTrue(playfield.isOccupied(3, 2));
+		assertEquals(1 << 3, playfield.getRowMask(2));
+
+		playfield.setOccupied(3, 2, false);
+		assertFalse(playfield.isOccupied(3, 2));
+	}
+
+	/////////////////////////////////////////////////////////////////////////////////////
+	// Test collides()
+	/////////////////////////////////////////////////////////////////////////////////////
+
+	@Test
+	public void test_spawned_shapes_do_not_collide(){
+		Shape[] shapes = { new IShape(), new JShape(), new LShape(), new OShape(),
+				new SShape(), new TShape(), new ZShape() };
+
+		for(Shape shape : shapes){
+			assertFalse(playfield.collides(shape));
+			assertFalse(playfield.collides(shape.getPackedShape()));
+			assertFalse(playfield.collides(shape.getBlockPositions()));
+		}
+	}
+
+	@Test
+	public void test_collides_with_walls(){
+		Shape shape = new IShape();
+		shape.translate(-3, 0);
+		assertFalse(playfield.collides(shape.getPackedShape()));
+
+		shape.moveLeft();
+		assertTrue(playfield.collides(shape));
+		assertTrue(playfield.collides(shape.getPackedShape()));
+
+		shape.translate(8, 0);
+		assertTrue(playfield.collides(shape.getPackedShape()));
+		shape.moveLeft();
+		assertFalse(playfield.collides(shape.getPackedShape()));
+	}
+
+	@Test
+	public void test_collides_with_floor(){
+		Shape shape = new JShape();
+		shape.translate(0, -20);
+		assertFalse(playfield.collides(shape.getPackedShape()));
+
+		shape.moveDown();
+		assertTrue(playfield.collides(shape.getPackedShape()));
+	}
+
+	@Test
+	public void test_collides_with_occupied_cell(){
+		Shape shape = new TShape();
+		playfield.setOccupied(4, 21, true);
+
+		assertTrue(playfield.collides(shape));
+		assertTrue(playfield.collides(shape.getPackedShape()));
+
+		shape.moveRight();
+		assertFalse(playfield.collides(shape.getPackedShape()));
+	}
+
+	@Test
+	public void test_packed_collision_matches_block_positions(){
+		Shape[] shapes = { new IShape(), new JShape(), new LShape(), new OShape(),
+				new SShape(), new TShape(), new ZShape() };
+
+		// Checkerboard of occupied cells in the bottom rows.
+		for(int row = 0; row < 6; row++){
+			playfield.setRowMask(row, (row % 2 == 0) ? 0x155 : 0x2AA);
+		}
+
+		for(Shape shape : shapes){
+			long packedShape = shape.getPackedShape();
+
+			for(int rotation = 0; rotation < 4; rotation++){
+				for(int column = -4; column < 12; column++){
+					for(int row = -2; row < 10; row++){
+						long moved = PackedShape.translate(packedShape,
+								column - PackedShape.getOriginColumn(packedShape),
+								row - PackedShape.getOriginRow(packedShape));
+						int[] positions = new int[8];
+						PackedShape.getBlockPositions(moved, positions);
+
+						assertEquals(playfield.collides(positions),
+								playfield.collides(moved));
+					}
+				}
+				packedShape = rotationSystem.rotate(packedShape, Direction.RIGHT);
+			}
+		}
+	}
+
+	/////////////////////////////////////////////////////////////////////////////////////
+	// Test lock() and clearFullRows()
+	/////////////////////////////////////////////////////////////////////////////////////
+
+	@Test
+	public void test_lock_packedShape(){
+		Shape shape = new OShape();
+		shape.translate(0, -20);
+		playfield.lock(shape.getPackedShape());
+
+		assertTrue(playfield.isOccupied(4, 0));
+		assertTrue(playfield.isOccupied(5, 0));
+		assertTrue(playfield.isOccupied(4, 1));
+		assertTrue(playfield.isOccupied(5, 1));
+		assertTrue(playfield.collides(shape));
+	}
+
+	@Test(expected=InvalidParameterException.class)
+	public void test_lock_outside(){
+		Shape shape = new OShape();
+		shape.translate(0, -21);
+		playfield.lock(shape);
+	}
+
+	@Test
+	public void test_clearFullRows_none(){
+		playfield.setOccupied(0, 0, true);
+
+		assertEquals(0, playfield.clearFullRows());
+		assertTrue(playfield.isOccupied(0, 0));
+	}
+
+	@Test
+	public void test_clearFullRows_compacts(){
+		fillRow(0);
+		playfield.setOccupied(2, 1, true);
+		fillRow(2);
+		playfield.setOccupied(7, 3, true);
+
+		assertEquals(2, playfield.clearFullRows());
+		assertEquals(1 << 2, playfield.getRowMask(0));
+		assertEquals(1 << 7, playfield.getRowMask(1));
+		assertTrue(playfield.isRowEmpty(2));
+		assertTrue(playfield.isRowEmpty(39));
+	}
+
+	@Test
+	public void test_clearFullRows_top_row(){
+		fillRow(39);
+
+		assertTrue(playfield.isRowFull(39));
+		assertEquals(1, playfield.clearFullRows());
+		assertTrue(playfield.isRowEmpty(39));
+	}
+
+	@Test
+	public void test_copy(){
+		playfield.setOccupied(1, 1, true);
+		Playfield copy = new Playfield(playfield);
+		playfield.clear();
+
+		assertTrue(copy.isOccupied(1, 1));
+		assertFalse(playfield.isOccupied(1, 1));
+	}
+}
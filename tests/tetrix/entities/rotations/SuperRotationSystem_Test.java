@@ -3,13 +3,18 @@ package tetrix.entities.rotations;
 import static org.junit.Assert.*;
 
 import java.security.InvalidParameterException;
+import java.util.Random;
 
 import org.junit.Before;
 import org.junit.Test;
 
 import tetrix.entities.Direction;
+import tetrix.entities.Playfield;
 import tetrix.entities.shapes.IShape;
+import tetrix.entities.shapes.JShape;
+import tetrix.entities.shapes.LShape;
 import tetrix.entities.shapes.OShape;
+import tetrix.entities.shapes.PackedShape;
 import tetrix.entities.shapes.SShape;
 import tetrix.entities.shapes.Shape;
 import tetrix.entities.shapes.TShape;
@@ -499,4 +504,177 @@ public class SuperRotationSystem_Test {
 		
 		assertEquals(RotationState.SPAWN_STATE, shapeZ.getRotationState());
 	}
+	
+	/////////////////////////////////////////////////////////////////////////////////////
+	// Test rotation tables match the TranslationResponse map
+	/////////////////////////////////////////////////////////////////////////////////////
+	
+	@Test
+	public void test_rotation_tables_match_response_map(){
+		SuperRotationSystem superRotationSystem = new SuperRotationSystem();
+		Shape[] tableShapes = { new IShape(), new JShape(), new LShape(), new OShape(),
+				new SShape(), new TShape(), new ZShape() };
+		Shape[] mapShapes = { new IShape(), new JShape(), new LShape(), new OShape(),
+				new SShape(), new TShape(), new ZShape() };
+		Random random = new Random(42);
+		
+		for(int i = 0; i < tableShapes.length; i++){
+			for(int j = 0; j < 100; j++){
+				Direction direction = random.nextBoolean() ? Direction.LEFT :
+					Direction.RIGHT;
+				
+				superRotationSystem.rotate(tableShapes[i], direction);
+				superRotationSystem.rotateUsingResponseMap(mapShapes[i], direction);
+				
+				assertArrayEquals(mapShapes[i].getBlockPositions(),
+						tableShapes[i].getBlockPositions());
+				assertEquals(mapShapes[i].getRotationState(),
+						tableShapes[i].getRotationState());
+			}
+		}
+	}
+	
+	@Test
+	public void test_OShape_rotate_keeps_SPAWN_STATE(){
+		rotationSystem.rotate(shapeO, Direction.RIGHT);
+		
+		assertEquals(RotationState.SPAWN_STATE, shapeO.getRotationState());
+	}
+	
+	/////////////////////////////////////////////////////////////////////////////////////
+	// Test rotations against a Playfield (wall kicks)
+	/////////////////////////////////////////////////////////////////////////////////////
+	
+	@Test
+	public void test_kick_open_playfield_uses_basic_rotation(){
+		Playfield playfield = new Playfield();
+		Shape expected = new TShape();
+		rotationSystem.rotate(expected, Direction.RIGHT);
+		
+		int kickIndex = rotationSystem.rotate(shapeT, Direction.RIGHT, playfield);
+		
+		assertEquals(0, kickIndex);
+		assertArrayEquals(expected.getBlockPositions(), shapeT.getBlockPositions());
+		assertEquals(RotationState.RIGHT_OF_SPAWN, shapeT.getRotationState());
+	}
+	
+	@Test
+	public void test_kick_TShape_off_left_wall(){
+		Playfield playfield = new Playfield();
+		
+		// T in RIGHT_OF_SPAWN with its stem column against the left wall.
+		rotationSystem.rotate(shapeT, Direction.RIGHT);
+		shapeT.translate(-4, 0);
+		assertFalse(playfield.collides(shapeT));
+		
+		Shape expected = new TShape();
+		expected.translate(-3, 0);
+		
+		int kickIndex = rotationSystem.rotate(shapeT, Direction.LEFT, playfield);
+		
+		assertEquals(1, kickIndex);
+		assertArrayEquals(expected.getBlockPositions(), shapeT.getBlockPositions());
+		assertEquals(RotationState.SPAWN_STATE, shapeT.getRotationState());
+	}
+	
+	@Test
+	public void test_kick_IShape_off_left_wall(){
+		Playfield playfield = new Playfield();
+		
+		// Vertical I against the left wall.
+		rotationSystem.rotate(shapeI, Direction.RIGHT);
+		shapeI.translate(-5, 0);
+		assertFalse(playfield.collides(shapeI));
+		
+		int kickIndex = rotationSystem.rotate(shapeI, Direction.LEFT, playfield);
+		
+		assertEquals(1, kickIndex);
+		assertEquals(RotationState.SPAWN_STATE, shapeI.getRotationState());
+		assertFalse(playfield.collides(shapeI));
+		assertEquals(0, shapeI.getBlockPositions()[0]);
+	}
+	
+	@Test
+	public void test_kick_failure_leaves_Shape_unchanged(){
+		Playfield playfield = new Playfield();
+		
+		// Vertical I in a one column wide well.
+		rotationSystem.rotate(shapeI, Direction.RIGHT);
+		shapeI.translate(0, -18);
+		int column = shapeI.getBlockPositions()[0];
+		for(int row = 0; row < playfield.getRows(); row++){
+			playfield.setRowMask(row, playfield.getFullRowMask() & ~(1 << column));
+		}
+		assertFalse(playfield.collides(shapeI));
+		
+		int[] startPositions = shapeI.getBlockPositions();
+		long packedShape = shapeI.getPackedShape();
+		
+		assertEquals(RotationSystem.ROTATION_FAILED,
+				rotationSystem.rotate(shapeI, Direction.LEFT, playfield));
+		assertEquals(RotationSystem.ROTATION_FAILED,
+				rotationSystem.rotate(shapeI, Direction.RIGHT, playfield));
+		assertEquals(PackedShape.INVALID,
+				rotationSystem.rotate(packedShape, Direction.RIGHT, playfield));
+		assertArrayEquals(startPositions, shapeI.getBlockPositions());
+		assertEquals(RotationState.RIGHT_OF_SPAWN, shapeI.getRotationState());
+	}
+	
+	@Test
+	public void test_kick_OShape_never_moves(){
+		Playfield playfield = new Playfield();
+		int[] startPositions = shapeO.getBlockPositions();
+		
+		assertEquals(0, rotationSystem.rotate(shapeO, Direction.RIGHT, playfield));
+		assertArrayEquals(startPositions, shapeO.getBlockPositions());
+	}
+	
+	@Test
+	public void test_kick_first_free_kick_is_chosen(){
+		Shape[] shapes = { new IShape(), new JShape(), new LShape(), new SShape(),
+				new TShape(), new ZShape() };
+		Random random = new Random(7);
+		Playfield playfield = new Playfield();
+		
+		for(int trial = 0; trial < 2000; trial++){
+			playfield.clear();
+			for(int row = 0; row < 8; row++){
+				playfield.setRowMask(row, random.nextInt());
+			}
+			
+			Shape shape = shapes[random.nextInt(shapes.length)];
+			shape.reset();
+			for(int r = random.nextInt(4); r > 0; r--){
+				rotationSystem.rotate(shape, Direction.RIGHT);
+			}
+			shape.translate(random.nextInt(10) - 4, -16 - random.nextInt(4));
+			if (playfield.collides(shape)) continue;
+			
+			Direction direction = random.nextBoolean() ? Direction.LEFT :
+				Direction.RIGHT;
+			long packedShape = shape.getPackedShape();
+			long rotated = rotationSystem.rotate(packedShape, direction);
+			long result = rotationSystem.rotate(packedShape, direction, playfield);
+			int kickIndex = rotationSystem.rotate(shape, direction, playfield);
+			
+			if (kickIndex == RotationSystem.ROTATION_FAILED){
+				assertEquals(PackedShape.INVALID, result);
+				assertEquals(packedShape, shape.getPackedShape());
+				continue;
+			}
+			
+			assertEquals(result, shape.getPackedShape());
+			assertFalse(playfield.collides(result));
+			assertEquals(PackedShape.getRotationState(rotated),
+					PackedShape.getRotationState(result));
+			assertEquals(PackedShape.getBlockOffsets(rotated),
+					PackedShape.getBlockOffsets(result));
+			if (kickIndex == 0){
+				assertEquals(rotated, result);
+			}
+			else {
+				assertTrue(playfield.collides(rotated));
+			}
+		}
+	}
 }
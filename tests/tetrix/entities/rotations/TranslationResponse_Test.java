@@ -6,6 +6,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import tetrix.entities.shapes.JShape;
+import tetrix.entities.shapes.PackedShape;
 import tetrix.entities.shapes.Shape;
 
 public class TranslationResponse_Test {
@@ -132,5 +133,34 @@ public class TranslationResponse_Test {
 		
 		assertArrayEquals(expectedPositions, shape.getBlockPositions());
 	}
+	
+	@Test
+	public void test_translate_packedShape_unique_with_negatives(){
+		translationResponse = new TranslationResponse().translateA(-1, 1)
+													   .translateB(2, -2)
+													   .translateC(3, 3)
+													   .translateD(-4, -4);
+		
+		long packedShape = translationResponse.translate(shape.getPackedShape());
+		translationResponse.translate(shape);
+		
+		int[] packedPositions = new int[8];
+		PackedShape.getBlockPositions(packedShape, packedPositions);
+		
+		assertArrayEquals(shape.getBlockPositions(), packedPositions);
+	}
+	
+	@Test
+	public void test_translate_packedShape_inverse(){
+		translationResponse = new TranslationResponse().translateA(2, 1)
+													   .translateB(1, 0)
+													   .translateC(0, -1)
+													   .translateD(-1, -2);
+		
+		long packedShape = shape.getPackedShape();
+		long translated = translationResponse.translate(packedShape);
+		
+		assertEquals(packedShape, translationResponse.getInverse().translate(translated));
+	}
 
 }
@@ -0,0 +1,239 @@
+package tetrix.entities.shapes;
+
+import static org.junit.Assert.*;
+
+import java.security.InvalidParameterException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import tetrix.entities.Direction;
+import tetrix.entities.rotations.RotationState;
+import tetrix.entities.rotations.RotationSystem;
+import tetrix.entities.rotations.SuperRotationSystem;
+
+import static tetrix.entities.rotations.RotationState.*;
+
+public class PackedShape_Test {
+	private Shape[] shapes;
+	private RotationSystem rotationSystem = new SuperRotationSystem();
+	private int[] packedPositions;
+
+	@Before
+	public void setUp() throws Exception {
+		shapes = new Shape[] { new IShape(), new JShape(), new LShape(), new OShape(),
+				new SShape(), new TShape(), new ZShape() };
+		packedPositions = new int[8];
+	}
+
+	/////////////////////////////////////////////////////////////////////////////////////
+	// Test packing and unpacking
+	/////////////////////////////////////////////////////////////////////////////////////
+
+	@Test
+	public void test_getPackedShape_blockPositions(){
+		for(Shape shape : shapes){
+			PackedShape.getBlockPositions(shape.getPackedShape(), packedPositions);
+
+			assertArrayEquals(shape.getBlockPositions(), packedPositions);
+		}
+	}
+
+	@Test
+	public void test_getPackedShape_shapeType(){
+		for(Shape shape : shapes){
+			long packedShape = shape.getPackedShape();
+
+			assertEquals(shape.getShapeType(), PackedShape.getShapeType(packedShape));
+		}
+	}
+
+	@Test
+	public void test_getPackedShape_rotationState(){
+		Shape shape = new TShape();
+		shape.setRotationState(LEFT_OF_SPAWN);
+
+		assertEquals(LEFT_OF_SPAWN, PackedShape.getRotationState(shape.getPackedShape()));
+	}
+
+	@Test
+	public void test_getPackedShape_origin_is_blockA_spawn_position(){
+		Shape shape = new JShape();
+		long packedShape = shape.getPackedShape();
+
+		assertEquals(3, PackedShape.getOriginColumn(packedShape));
+		assertEquals(21, PackedShape.getOriginRow(packedShape));
+		assertEquals(0, PackedShape.getBlockColumnOffset(packedShape, 0));
+		assertEquals(0, PackedShape.getBlockRowOffset(packedShape, 0));
+		assertEquals(-1, PackedShape.getBlockRowOffset(packedShape, 1));
+		assertEquals(2, PackedShape.getBlockColumnOffset(packedShape, 3));
+	}
+
+	@Test
+	public void test_spawn(){
+		for(Shape shape : shapes){
+			assertEquals(shape.getPackedShape(), PackedShape.spawn(shape.getShapeType()));
+		}
+	}
+
+	@Test
+	public void test_setPackedShape_roundTrip(){
+		for(Shape shape : shapes){
+			long packedShape = PackedShape.translate(shape.getPackedShape(), -3, -20);
+			shape.setPackedShape(packedShape);
+
+			assertEquals(packedShape, shape.getPackedShape());
+		}
+	}
+
+	@Test(expected=InvalidParameterException.class)
+	public void test_setPackedShape_wrong_ShapeType(){
+		new IShape().setPackedShape(new JShape().getPackedShape());
+	}
+
+	@Test(expected=InvalidParameterException.class)
+	public void test_getPackedShape_offset_out_of_range(){
+		Shape shape = new IShape();
+		shape.translateD(8, 0);
+		shape.getPackedShape();
+	}
+
+	@Test
+	public void test_packBlockOffsets_negative(){
+		int blockOffsets = PackedShape.packBlockOffsets(-8, 7, -1, 0, 1, -2, 3, -4);
+		long packedShape = PackedShape.pack(ShapeType.S, SECOND_ROTATION, 5, 6,
+				blockOffsets);
+
+		assertEquals(-8, PackedShape.getBlockColumnOffset(packedShape, 0));
+		assertEquals(7, PackedShape.getBlockRowOffset(packedShape, 0));
+		assertEquals(-1, PackedShape.getBlockColumnOffset(packedShape, 1));
+		assertEquals(0, PackedShape.getBlockRowOffset(packedShape, 1));
+		assertEquals(1, PackedShape.getBlockColumnOffset(packedShape, 2));
+		assertEquals(-2, PackedShape.getBlockRowOffset(packedShape, 2));
+		assertEquals(3, PackedShape.getBlockColumnOffset(packedShape, 3));
+		assertEquals(-4, PackedShape.getBlockRowOffset(packedShape, 3));
+		assertEquals(ShapeType.S, PackedShape.getShapeType(packedShape));
+		assertEquals(SECOND_ROTATION, PackedShape.getRotationState(packedShape));
+	}
+
+	@Test
+	public void test_negative_origin(){
+		long packedShape = PackedShape.pack(ShapeType.Z, SPAWN_STATE, -2, -1, 0);
+
+		assertEquals(-2, PackedShape.getOriginColumn(packedShape));
+		assertEquals(-1, PackedShape.getOriginRow(packedShape));
+		assertEquals(ShapeType.Z, PackedShape.getShapeType(packedShape));
+	}
+
+	@Test
+	public void test_valid_shapes_differ_from_INVALID(){
+		for(Shape shape : shapes){
+			long packedShape = PackedShape.pack(shape.getShapeType(), LEFT_OF_SPAWN,
+					-1, -1, -1);
+
+			assertTrue(packedShape != PackedShape.INVALID);
+		}
+	}
+
+	/////////////////////////////////////////////////////////////////////////////////////
+	// Test translate()
+	/////////////////////////////////////////////////////////////////////////////////////
+
+	@Test
+	public void test_translate_matches_Shape(){
+		for(Shape shape : shapes){
+			long packedShape = shape.getPackedShape();
+
+			packedShape = PackedShape.translate(packedShape, 2, -7);
+			shape.translate(2, -7);
+			PackedShape.getBlockPositions(packedShape, packedPositions);
+
+			assertArrayEquals(shape.getBlockPositions(), packedPositions);
+			assertEquals(shape.getPackedShape(), packedShape);
+		}
+	}
+
+	@Test
+	public void test_translateBlocks_keeps_other_fields(){
+		long packedShape = PackedShape.spawn(ShapeType.L);
+		int blockOffsets = PackedShape.packBlockOffsets(1, 1, 0, 0, -1, -1, 0, -2);
+		long translated = PackedShape.translateBlocks(packedShape, blockOffsets);
+
+		assertEquals(PackedShape.getOriginColumn(packedShape),
+				PackedShape.getOriginColumn(translated));
+		assertEquals(PackedShape.getOriginRow(packedShape),
+				PackedShape.getOriginRow(translated));
+		assertEquals(ShapeType.L, PackedShape.getShapeType(translated));
+		assertEquals(-1, PackedShape.getBlockRowOffset(translated, 3) -
+				PackedShape.getBlockRowOffset(packedShape, 3) + 1);
+	}
+
+	/////////////////////////////////////////////////////////////////////////////////////
+	// Test packed rotations match Shape rotations
+	/////////////////////////////////////////////////////////////////////////////////////
+
+	private void assertRotationsMatch(Direction[] directions){
+		for(Shape shape : shapes){
+			long packedShape = shape.getPackedShape();
+
+			for(Direction direction : directions){
+				rotationSystem.rotate(shape, direction);
+				packedShape = rotationSystem.rotate(packedShape, direction);
+
+				PackedShape.getBlockPositions(packedShape, packedPositions);
+				assertArrayEquals(shape.getBlockPositions(), packedPositions);
+				assertEquals(shape.getRotationState(),
+						PackedShape.getRotationState(packedShape));
+			}
+		}
+	}
+
+	@Test
+	public void test_rotate_RIGHT_FullCircle(){
+		Direction right = Direction.RIGHT;
+		assertRotationsMatch(new Direction[] {right, right, right, right});
+	}
+
+	@Test
+	public void test_rotate_LEFT_FullCircle(){
+		Direction left = Direction.LEFT;
+		assertRotationsMatch(new Direction[] {left, left, left, left});
+	}
+
+	@Test
+	public void test_rotate_mixed(){
+		Direction left = Direction.LEFT;
+		Direction right = Direction.RIGHT;
+		assertRotationsMatch(new Direction[] {right, right, left, left, left, right});
+	}
+
+	@Test
+	public void test_rotate_returns_to_spawn(){
+		for(Shape shape : shapes){
+			long packedShape = shape.getPackedShape();
+			long rotated = packedShape;
+
+			for(int i = 0; i < 4; i++){
+				rotated = rotationSystem.rotate(rotated, Direction.RIGHT);
+			}
+
+			assertEquals(packedShape, rotated);
+		}
+	}
+
+	@Test(expected=InvalidParameterException.class)
+	public void test_rotate_invalid_param_up(){
+		rotationSystem.rotate(PackedShape.spawn(ShapeType.T), Direction.UP);
+	}
+
+	@Test
+	public void test_getRotationState_all(){
+		for(RotationState state : RotationState.values()){
+			long packedShape = PackedShape.setRotationState(
+					PackedShape.spawn(ShapeType.I), state);
+
+			assertEquals(state, PackedShape.getRotationState(packedShape));
+			assertEquals(ShapeType.I, PackedShape.getShapeType(packedShape));
+		}
+	}
+}
@@ -0,0 +1,46 @@
+package tetrix.entities.shapes;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import tetrix.entities.rotations.RotationState;
+
+public class ShapePool_Test {
+	private ShapePool pool;
+
+	@Before
+	public void setUp() throws Exception {
+		pool = new ShapePool();
+	}
+
+	@Test
+	public void test_shape_types(){
+		for(ShapeType shapeType : ShapeType.values()){
+			assertEquals(shapeType, pool.get(shapeType).getShapeType());
+			assertEquals(shapeType, pool.get(shapeType.ordinal()).getShapeType());
+			assertEquals(shapeType, ShapePool.create(shapeType).getShapeType());
+		}
+	}
+
+	@Test
+	public void test_same_instance_reused(){
+		Shape shape = pool.get(ShapeType.T);
+
+		assertSame(shape, pool.get(ShapeType.T));
+		assertNotSame(shape, pool.get(ShapeType.L));
+	}
+
+	@Test
+	public void test_get_resets_to_spawn_position(){
+		Shape shape = pool.get(ShapeType.J);
+		shape.translate(3, -5);
+		shape.setRotationState(RotationState.LEFT_OF_SPAWN);
+
+		shape = pool.get(ShapeType.J);
+
+		assertEquals(PackedShape.spawn(ShapeType.J), shape.getPackedShape());
+		assertArrayEquals(new JShape().getBlockPositions(), shape.getBlockPositions());
+	}
+}
@@ -0,0 +1,75 @@
+package tetrix.randomizers;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import tetrix.entities.shapes.ShapeType;
+
+public class BagGenerator_Test {
+	private static final int NUM_SHAPE_TYPES = ShapeType.values().length;
+
+	private BagGenerator generator;
+
+	@Before
+	public void setUp() throws Exception {
+		generator = new BagGenerator(42);
+	}
+
+	@Test
+	public void test_every_bag_holds_each_shape_type_once(){
+		byte[] queue = new byte[7 * 1000];
+		generator.fill(queue, 0, queue.length);
+
+		for(int bag = 0; bag < queue.length; bag += NUM_SHAPE_TYPES){
+			int seen = 0;
+			for(int i = bag; i < bag + NUM_SHAPE_TYPES; i++){
+				seen |= 1 << queue[i];
+			}
+			assertEquals((1 << NUM_SHAPE_TYPES) - 1, seen);
+		}
+	}
+
+	@Test
+	public void test_same_seed_same_sequence(){
+		BagGenerator other = new BagGenerator(42);
+
+		for(int i = 0; i < 100; i++){
+			assertEquals(other.next(), generator.next());
+		}
+
+		generator.reset(7);
+		other.reset(7);
+		for(int i = 0; i < 100; i++){
+			assertEquals(other.next(), generator.next());
+		}
+	}
+
+	@Test
+	public void test_fill_matches_next(){
+		BagGenerator other = new BagGenerator(42);
+		byte[] queue = new byte[103];
+
+		// Start part way through a bag, and fill across several bags.
+		assertEquals(other.next(), generator.next());
+		assertEquals(other.next(), generator.next());
+		generator.fill(queue, 3, 100);
+
+		for(int i = 3; i < 103; i++){
+			assertEquals(other.next().ordinal(), queue[i]);
+		}
+		assertEquals(other.next(), generator.next());
+	}
+
+	@Test
+	public void test_different_seeds_differ(){
+		byte[] queue = new byte[70];
+		byte[] otherQueue = new byte[70];
+
+		generator.fill(queue, 0, queue.length);
+		new BagGenerator(43).fill(otherQueue, 0, otherQueue.length);
+
+		assertFalse(java.util.Arrays.equals(queue, otherQueue));
+	}
+}
@@ -0,0 +1,83 @@
+package tetrix.randomizers;
+
+import static org.junit.Assert.*;
+
+import java.security.InvalidParameterException;
+
+import org.junit.Test;
+
+import tetrix.entities.shapes.ShapeType;
+
+public class HistoryGenerator_Test {
+
+	@Test
+	public void test_first_shape_type_is_not_S_Z_or_O(){
+		for(long seed = 0; seed < 200; seed++){
+			ShapeType first = new HistoryGenerator(seed).next();
+
+			assertTrue(first != ShapeType.S && first != ShapeType.Z &&
+					first != ShapeType.O);
+		}
+	}
+
+	@Test
+	public void test_fill_matches_next(){
+		HistoryGenerator generator = new HistoryGenerator(5);
+		HistoryGenerator other = new HistoryGenerator(5);
+		byte[] queue = new byte[500];
+
+		generator.fill(queue, 0, queue.length);
+		for(int i = 0; i < queue.length; i++){
+			assertEquals(other.next().ordinal(), queue[i]);
+		}
+	}
+
+	@Test
+	public void test_reset_restarts_sequence(){
+		HistoryGenerator generator = new HistoryGenerator(9);
+		byte[] queue = new byte[50];
+		byte[] repeated = new byte[50];
+
+		generator.fill(queue, 0, queue.length);
+		generator.reset(9);
+		generator.fill(repeated, 0, repeated.length);
+
+		assertArrayEquals(queue, repeated);
+	}
+
+	@Test
+	public void test_repeats_rarer_than_memoryless(){
+		int length = 70000;
+		byte[] queue = new byte[length];
+		byte[] memoryless = new byte[length];
+
+		new HistoryGenerator(1).fill(queue, 0, length);
+		new MemorylessGenerator(1).fill(memoryless, 0, length);
+
+		assertTrue(countRepeats(queue) * 4 < countRepeats(memoryless));
+	}
+
+	@Test
+	public void test_one_roll_has_no_memory(){
+		HistoryGenerator generator = new HistoryGenerator(3, 1);
+		byte[] queue = new byte[70000];
+		generator.fill(queue, 0, queue.length);
+
+		// About one in seven ShapeTypes repeats the previous ShapeType.
+		int repeats = countRepeats(queue);
+		assertTrue(repeats > 9000 && repeats < 11000);
+	}
+
+	@Test(expected = InvalidParameterException.class)
+	public void test_invalid_rolls(){
+		new HistoryGenerator(0, 0);
+	}
+
+	private static int countRepeats(byte[] queue){
+		int repeats = 0;
+		for(int i = 1; i < queue.length; i++){
+			if (queue[i] == queue[i - 1]) repeats++;
+		}
+		return repeats;
+	}
+}
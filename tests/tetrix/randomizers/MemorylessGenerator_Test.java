@@ -0,0 +1,38 @@
+package tetrix.randomizers;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import tetrix.entities.shapes.ShapeType;
+
+public class MemorylessGenerator_Test {
+
+	@Test
+	public void test_fill_matches_next(){
+		MemorylessGenerator generator = new MemorylessGenerator(11);
+		MemorylessGenerator other = new MemorylessGenerator(11);
+		byte[] queue = new byte[300];
+
+		generator.fill(queue, 0, queue.length);
+		for(int i = 0; i < queue.length; i++){
+			assertEquals(other.next().ordinal(), queue[i]);
+		}
+	}
+
+	@Test
+	public void test_every_shape_type_generated(){
+		int numShapeTypes = ShapeType.values().length;
+		int[] counts = new int[numShapeTypes];
+		byte[] queue = new byte[70000];
+
+		new MemorylessGenerator(0).fill(queue, 0, queue.length);
+		for(byte ordinal : queue){
+			counts[ordinal]++;
+		}
+
+		for(int count : counts){
+			assertTrue(count > 9000 && count < 11000);
+		}
+	}
+}
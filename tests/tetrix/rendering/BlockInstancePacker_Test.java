@@ -0,0 +1,280 @@
+package tetrix.rendering;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import tetrix.entities.Playfield;
+import tetrix.entities.shapes.PackedShape;
+import tetrix.entities.shapes.ShapeType;
+
+public class BlockInstancePacker_Test {
+	private BlockInstancePacker packer;
+	private Playfield playfield;
+
+	@Before
+	public void setUp() throws Exception {
+		packer = new BlockInstancePacker(1);
+		playfield = new Playfield();
+	}
+
+	private static int getColumn(ByteBuffer buffer, int instance){
+		return buffer.get(instance * BlockInstancePacker.BYTES_PER_INSTANCE +
+				BlockInstancePacker.CELL_OFFSET);
+	}
+
+	private static int getRow(ByteBuffer buffer, int instance){
+		return buffer.get(instance * BlockInstancePacker.BYTES_PER_INSTANCE +
+				BlockInstancePacker.CELL_OFFSET + 1);
+	}
+
+	private static int getLayer(ByteBuffer buffer, int instance){
+		return buffer.get(instance * BlockInstancePacker.BYTES_PER_INSTANCE +
+				BlockInstancePacker.LAYER_OFFSET) & 0xFF;
+	}
+
+	private static int getTint(ByteBuffer buffer, int instance){
+		return buffer.getInt(instance * BlockInstancePacker.BYTES_PER_INSTANCE +
+				BlockInstancePacker.TINT_OFFSET);
+	}
+
+	@Test
+	public void test_put_block_record_layout(){
+		packer.putBlock(-3, 21, 6, 0x11223344);
+
+		ByteBuffer buffer = packer.getBuffer();
+		assertEquals(BlockInstancePacker.BYTES_PER_INSTANCE, buffer.remaining());
+		assertEquals(-3, getColumn(buffer, 0));
+		assertEquals(21, getRow(buffer, 0));
+		assertEquals(6, getLayer(buffer, 0));
+		assertEquals(0, buffer.get(3));
+
+		// Tint bytes are stored in RGBA order.
+		assertEquals(0x11, buffer.get(4));
+		assertEquals(0x22, buffer.get(5));
+		assertEquals(0x33, buffer.get(6));
+		assertEquals(0x44, buffer.get(7));
+	}
+
+	@Test
+	public void test_buffer_grows_and_keeps_records(){
+		for(int i = 0; i < 1000; i++){
+			packer.putBlock(i % 10, i / 10, i % 7, i);
+		}
+
+		ByteBuffer buffer = packer.getBuffer();
+		assertEquals(1000, packer.getInstanceCount());
+		assertEquals(1000 * BlockInstancePacker.BYTES_PER_INSTANCE, buffer.limit());
+		for(int i = 0; i < 1000; i++){
+			assertEquals(i % 10, getColumn(buffer, i));
+			assertEquals(i / 10, getRow(buffer, i));
+			assertEquals(i % 7, getLayer(buffer, i));
+			assertEquals(i, getTint(buffer, i));
+		}
+	}
+
+	@Test
+	public void test_clear_resets_instances(){
+		packer.putBlock(0, 0, 0, BlockInstancePacker.OPAQUE_WHITE);
+		packer.clear();
+
+		assertEquals(0, packer.getInstanceCount());
+		assertEquals(0, packer.getBuffer().remaining());
+	}
+
+	@Test
+	public void test_frame_can_pack_more_than_last_frame(){
+		packer.getBuffer();
+		packer.clear();
+		packer.putBlock(0, 0, 0, BlockInstancePacker.OPAQUE_WHITE);
+		packer.putBlock(1, 0, 0, BlockInstancePacker.OPAQUE_WHITE);
+
+		assertEquals(2 * BlockInstancePacker.BYTES_PER_INSTANCE,
+				packer.getBuffer().remaining());
+	}
+
+	@Test
+	public void test_put_shape_uses_shape_type_layer(){
+		for(ShapeType shapeType : ShapeType.values()){
+			packer.clear();
+			long shape = PackedShape.spawn(shapeType);
+			packer.putShape(shape, BlockInstancePacker.OPAQUE_WHITE);
+
+			ByteBuffer buffer = packer.getBuffer();
+			assertEquals(4, packer.getInstanceCount());
+			for(int i = 0; i < 4; i++){
+				assertEquals(PackedShape.getBlockColumn(shape, i), getColumn(buffer, i));
+				assertEquals(PackedShape.getBlockRow(shape, i), getRow(buffer, i));
+				assertEquals(BlockInstancePacker.getLayer(shapeType), getLayer(buffer, i));
+			}
+		}
+	}
+
+	@Test
+	public void test_each_shape_type_has_a_distinct_layer(){
+		int seen = 0;
+		for(ShapeType shapeType : ShapeType.values()){
+			int layer = BlockInstancePacker.getLayer(shapeType);
+			assertTrue(layer >= 0 && layer < BlockInstancePacker.NUM_LAYERS);
+			seen |= 1 << layer;
+		}
+
+		assertEquals((1 << BlockInstancePacker.NUM_LAYERS) - 1, seen);
+	}
+
+	@Test
+	public void test_put_playfield_packs_occupied_cells_in_row_order(){
+		playfield.setRowMask(0, 0x3FE);
+		playfield.setRowMask(2, 0x201);
+		playfield.setRowMask(30, 0x1);
+
+		packer.putPlayfield(playfield, 20, BlockInstancePacker.GREEN_LAYER, 0x808080FF);
+
+		ByteBuffer buffer = packer.getBuffer();
+		assertEquals(11, packer.getInstanceCount());
+		for(int i = 0; i < 9; i++){
+			assertEquals(i + 1, getColumn(buffer, i));
+			assertEquals(0, getRow(buffer, i));
+			assertEquals(BlockInstancePacker.GREEN_LAYER, getLayer(buffer, i));
+			assertEquals(0x808080FF, getTint(buffer, i));
+		}
+		assertEquals(0, getColumn(buffer, 9));
+		assertEquals(2, getRow(buffer, 9));
+		assertEquals(9, getColumn(buffer, 10));
+		assertEquals(2, getRow(buffer, 10));
+	}
+
+	@Test
+	public void test_put_playfield_with_cell_layers(){
+		byte[] cellLayers = new byte[playfield.getColumns() * playfield.getRows()];
+		cellLayers[1 * playfield.getColumns() + 4] = BlockInstancePacker.RED_LAYER;
+		playfield.setOccupied(4, 1, true);
+
+		packer.putPlayfield(playfield, 20, cellLayers, BlockInstancePacker.OPAQUE_WHITE);
+
+		assertEquals(1, packer.getInstanceCount());
+		assertEquals(BlockInstancePacker.RED_LAYER, getLayer(packer.getBuffer(), 0));
+	}
+
+	@Test
+	public void test_put_ghost_rests_on_stack(){
+		playfield.setRowMask(0, 0x3FF);
+		playfield.setRowMask(1, 0x3FF);
+
+		long shape = PackedShape.spawn(ShapeType.O);
+		packer.putGhost(playfield, shape, BlockInstancePacker.DEFAULT_GHOST_TINT);
+
+		ByteBuffer buffer = packer.getBuffer();
+		assertEquals(4, packer.getInstanceCount());
+
+		int lowestRow = Integer.MAX_VALUE;
+		for(int i = 0; i < 4; i++){
+			lowestRow = Math.min(lowestRow, getRow(buffer, i));
+			assertEquals(BlockInstancePacker.DEFAULT_GHOST_TINT, getTint(buffer, i));
+		}
+		assertEquals(2, lowestRow);
+	}
+
+	@Test
+	public void test_put_ghost_skips_colliding_shape(){
+		long shape = PackedShape.spawn(ShapeType.T);
+		playfield.lock(shape);
+
+		packer.putGhost(playfield, shape, BlockInstancePacker.DEFAULT_GHOST_TINT);
+
+		assertEquals(0, packer.getInstanceCount());
+	}
+
+	@Test
+	public void test_put_preview_stacks_shapes_downwards(){
+		ShapeType[] preview = {ShapeType.I, ShapeType.O, ShapeType.T};
+
+		packer.putPreview(preview, 2, 13, 18, 3, BlockInstancePacker.OPAQUE_WHITE);
+
+		ByteBuffer buffer = packer.getBuffer();
+		assertEquals(8, packer.getInstanceCount());
+		for(int n = 0; n < 2; n++){
+			long spawn = PackedShape.spawn(preview[n]);
+			for(int i = 0; i < 4; i++){
+				int instance = n * 4 + i;
+				assertEquals(13 + PackedShape.getBlockColumnOffset(spawn, i),
+						getColumn(buffer, instance));
+				assertEquals(18 - 3 * n + PackedShape.getBlockRowOffset(spawn, i),
+						getRow(buffer, instance));
+				assertEquals(BlockInstancePacker.getLayer(preview[n]),
+						getLayer(buffer, instance));
+			}
+		}
+	}
+
+	private static int getRowOffset(ByteBuffer buffer, int instance){
+		return buffer.get(instance * BlockInstancePacker.BYTES_PER_INSTANCE +
+				BlockInstancePacker.ROW_OFFSET_OFFSET);
+	}
+
+	@Test
+	public void test_interpolated_fall_is_offset_towards_previous_row(){
+		long previous = PackedShape.spawn(ShapeType.T);
+		long current = PackedShape.translate(previous, 0, -1);
+
+		packer.putInterpolatedShape(previous, current, 0.25f,
+				BlockInstancePacker.OPAQUE_WHITE);
+
+		ByteBuffer buffer = packer.getBuffer();
+		assertEquals(4, packer.getInstanceCount());
+		for(int i = 0; i < 4; i++){
+			assertEquals(PackedShape.getBlockRow(current, i), getRow(buffer, i));
+			assertEquals(96, getRowOffset(buffer, i));
+			assertEquals(BlockInstancePacker.getLayer(ShapeType.T), getLayer(buffer, i));
+		}
+	}
+
+	@Test
+	public void test_interpolated_fall_reaches_current_row(){
+		long previous = PackedShape.spawn(ShapeType.I);
+		long current = PackedShape.translate(previous, 0, -1);
+
+		packer.putInterpolatedShape(previous, current, 1f,
+				BlockInstancePacker.OPAQUE_WHITE);
+
+		assertEquals(0, getRowOffset(packer.getBuffer(), 0));
+	}
+
+	@Test
+	public void test_interpolated_offset_is_clamped(){
+		long previous = PackedShape.spawn(ShapeType.O);
+		long current = PackedShape.translate(previous, 0, -1);
+
+		packer.putInterpolatedShape(previous, current, 0f,
+				BlockInstancePacker.OPAQUE_WHITE);
+
+		assertEquals(BlockInstancePacker.ROW_OFFSET_SCALE - 1,
+				getRowOffset(packer.getBuffer(), 0));
+	}
+
+	@Test
+	public void test_other_changes_are_not_interpolated(){
+		long previous = PackedShape.spawn(ShapeType.L);
+		long[] changes = {
+				PackedShape.translate(previous, 1, -1),
+				PackedShape.translate(previous, 0, -5),
+				PackedShape.spawn(ShapeType.J),
+				previous };
+
+		for(long current : changes){
+			packer.clear();
+			packer.putInterpolatedShape(previous, current, 0.5f,
+					BlockInstancePacker.OPAQUE_WHITE);
+
+			ByteBuffer buffer = packer.getBuffer();
+			for(int i = 0; i < 4; i++){
+				assertEquals(PackedShape.getBlockColumn(current, i), getColumn(buffer, i));
+				assertEquals(PackedShape.getBlockRow(current, i), getRow(buffer, i));
+				assertEquals(0, getRowOffset(buffer, i));
+			}
+		}
+	}
+}
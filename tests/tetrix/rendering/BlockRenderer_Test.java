@@ -0,0 +1,150 @@
+package tetrix.rendering;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.security.InvalidParameterException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import tetrix.assets.AssetPack;
+import tetrix.assets.AssetPackBuilder;
+import tetrix.entities.Playfield;
+import tetrix.rendering.RecordingRenderBackend.Call;
+
+public class BlockRenderer_Test {
+	private static final int VISIBLE_ROWS = 20;
+	private static final int TINT = 0xC0C0C0FF;
+	
+	private RecordingRenderBackend backend;
+	private BlockRenderer renderer;
+	private Playfield playfield;
+	private PlayfieldRenderData board;
+	private BlockInstancePacker packer;
+	
+	@Before
+	public void setUp() throws Exception {
+		backend = new RecordingRenderBackend(new NullRenderBackend());
+		renderer = InMemoryBlockAssets.createBlockRenderer(backend);
+		playfield = new Playfield();
+		board = new PlayfieldRenderData(Playfield.DEFAULT_COLUMNS, VISIBLE_ROWS);
+		packer = new BlockInstancePacker();
+		
+		board.update(playfield, BlockInstancePacker.BLUE_LAYER, TINT);
+		backend.reset();
+	}
+	
+	@Test
+	public void test_setup_uploads_textures(){
+		RecordingRenderBackend setup = new RecordingRenderBackend(new NullRenderBackend());
+		InMemoryBlockAssets.createBlockRenderer(setup);
+		
+		assertEquals(BlockRenderer.BLOCK_TEXTURE_NAMES.length,
+				setup.getCount(Call.TEX_SUB_IMAGE_3D));
+		assertEquals(0, setup.getDrawCalls());
+	}
+	
+	@Test(expected = InvalidParameterException.class)
+	public void test_pack_without_block_textures(){
+		AssetPack pack = AssetPackBuilder.build(new String[] { "blue-block" },
+				new int[] { 1 }, new int[] { 1 },
+				new ByteBuffer[] { ByteBuffer.allocate(4) });
+		
+		new BlockRenderer(new NullRenderBackend(), pack,
+				InMemoryBlockAssets.SHADER_SOURCE, InMemoryBlockAssets.SHADER_SOURCE);
+	}
+	
+	@Test
+	public void test_frame_is_one_draw_call(){
+		packer.putBlock(0, 0, BlockInstancePacker.RED_LAYER,
+				BlockInstancePacker.OPAQUE_WHITE);
+		renderer.render(board, packer);
+		
+		assertEquals(1, backend.getDrawCalls());
+		assertEquals(board.getInstanceCount() + 1, backend.getInstancesDrawn());
+	}
+	
+	@Test
+	public void test_first_frame_uploads_board_and_instances(){
+		packer.putBlock(0, 0, BlockInstancePacker.RED_LAYER,
+				BlockInstancePacker.OPAQUE_WHITE);
+		renderer.render(board, packer);
+		
+		int expected = board.getByteCount() + BlockInstancePacker.BYTES_PER_INSTANCE;
+		assertEquals(expected, renderer.getBytesUploaded());
+		assertEquals(expected, backend.getBytesUploaded());
+	}
+	
+	@Test
+	public void test_unchanged_board_is_not_uploaded_again(){
+		packer.putBlock(0, 0, BlockInstancePacker.RED_LAYER,
+				BlockInstancePacker.OPAQUE_WHITE);
+		renderer.render(board, packer);
+		backend.reset();
+		
+		packer.clear();
+		packer.putBlock(1, 0, BlockInstancePacker.RED_LAYER,
+				BlockInstancePacker.OPAQUE_WHITE);
+		renderer.render(board, packer);
+		
+		assertEquals(BlockInstancePacker.BYTES_PER_INSTANCE, backend.getBytesUploaded());
+		assertEquals(0, backend.getCount(Call.BUFFER_DATA));
+		assertEquals(1, backend.getDrawCalls());
+	}
+	
+	@Test
+	public void test_cached_frames_make_no_redundant_state_changes(){
+		CachingRenderBackend cache = new CachingRenderBackend(backend);
+		BlockRenderer cached = InMemoryBlockAssets.createBlockRenderer(cache);
+		cached.render(board, packer);
+		backend.reset();
+		cache.reset();
+		
+		cached.render(board, packer);
+		
+		assertEquals(0, backend.getStateChanges());
+		assertEquals(0, cache.getIssued());
+		assertTrue(cache.getSkipped() > 0);
+		assertEquals(1, backend.getDrawCalls());
+	}
+	
+	@Test
+	public void test_alternating_boards_do_not_grow_buffer(){
+		final long[] largestAllocation = new long[1];
+		RecordingRenderBackend recorder = new RecordingRenderBackend(
+				new NullRenderBackend() {
+			@Override
+			public void bufferData(int target, long size, int usage){
+				largestAllocation[0] = Math.max(largestAllocation[0], size);
+			}
+		});
+		BlockRenderer alternating = InMemoryBlockAssets.createBlockRenderer(recorder);
+		
+		PlayfieldRenderData other = new PlayfieldRenderData(Playfield.DEFAULT_COLUMNS,
+				VISIBLE_ROWS);
+		other.update(playfield, BlockInstancePacker.RED_LAYER, TINT);
+		
+		for(int frame = 0; frame < 100; frame++){
+			PlayfieldRenderData drawn = frame % 2 == 0 ? board : other;
+			recorder.reset();
+			alternating.render(drawn, packer);
+			
+			// Each switch re-uploads the whole board, without reallocating.
+			assertEquals(drawn.getByteCount(), recorder.getBytesUploaded());
+			if (frame > 0){
+				assertEquals(0, recorder.getCount(Call.BUFFER_DATA));
+			}
+		}
+		
+		assertTrue(largestAllocation[0] <= 2 * board.getByteCount());
+	}
+	
+	@Test
+	public void test_empty_packer_draws_nothing(){
+		renderer.render(packer);
+		
+		assertEquals(0, backend.getDrawCalls());
+		assertEquals(0, backend.getCalls());
+	}
+}
@@ -0,0 +1,181 @@
+package tetrix.rendering;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL13;
+import org.lwjgl.opengl.GL15;
+import org.lwjgl.opengl.GL30;
+
+import tetrix.rendering.RecordingRenderBackend.Call;
+
+public class CachingRenderBackend_Test {
+	private RecordingRenderBackend recorder;
+	private CachingRenderBackend cache;
+	
+	@Before
+	public void setUp() throws Exception {
+		recorder = new RecordingRenderBackend(new NullRenderBackend());
+		cache = new CachingRenderBackend(recorder);
+	}
+	
+	@Test
+	public void test_first_bind_is_issued(){
+		cache.useProgram(0);
+		
+		assertEquals(1, recorder.getCount(Call.USE_PROGRAM));
+		assertEquals(1, cache.getIssued());
+		assertEquals(0, cache.getSkipped());
+	}
+	
+	@Test
+	public void test_repeated_binds_are_skipped(){
+		for(int i = 0; i < 3; i++){
+			cache.useProgram(1);
+			cache.bindVertexArray(2);
+			cache.bindBuffer(GL15.GL_ARRAY_BUFFER, 3);
+			cache.enable(GL11.GL_BLEND);
+			cache.blendFunc(GL11.GL_SRC_ALPHA, GL11.GL_ONE_MINUS_SRC_ALPHA);
+		}
+		
+		assertEquals(5, recorder.getStateChanges());
+		assertEquals(5, cache.getIssued());
+		assertEquals(10, cache.getSkipped());
+	}
+	
+	@Test
+	public void test_changed_binds_are_issued(){
+		cache.useProgram(1);
+		cache.useProgram(2);
+		cache.useProgram(1);
+		cache.enable(GL11.GL_BLEND);
+		cache.disable(GL11.GL_BLEND);
+		cache.blendFunc(GL11.GL_ONE, GL11.GL_ZERO);
+		cache.blendFunc(GL11.GL_ONE, GL11.GL_ONE);
+		
+		assertEquals(7, recorder.getStateChanges());
+		assertEquals(0, cache.getSkipped());
+	}
+	
+	@Test
+	public void test_buffer_targets_are_cached_separately(){
+		cache.bindBuffer(GL15.GL_ARRAY_BUFFER, 1);
+		cache.bindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, 1);
+		cache.bindBuffer(GL15.GL_ARRAY_BUFFER, 1);
+		
+		assertEquals(2, recorder.getCount(Call.BIND_BUFFER));
+		assertEquals(1, cache.getSkipped());
+	}
+	
+	@Test
+	public void test_vertex_array_change_forgets_element_array_buffer(){
+		cache.bindVertexArray(1);
+		cache.bindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, 5);
+		cache.bindVertexArray(2);
+		cache.bindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, 5);
+		
+		assertEquals(2, recorder.getCount(Call.BIND_BUFFER));
+		assertEquals(0, cache.getSkipped());
+	}
+	
+	@Test
+	public void test_textures_are_cached_per_unit(){
+		cache.activeTexture(GL13.GL_TEXTURE0);
+		cache.bindTexture(GL30.GL_TEXTURE_2D_ARRAY, 7);
+		cache.activeTexture(GL13.GL_TEXTURE1);
+		cache.bindTexture(GL30.GL_TEXTURE_2D_ARRAY, 7);
+		cache.activeTexture(GL13.GL_TEXTURE0);
+		cache.bindTexture(GL30.GL_TEXTURE_2D_ARRAY, 7);
+		cache.bindTexture(GL11.GL_TEXTURE_2D, 7);
+		
+		assertEquals(3, recorder.getCount(Call.ACTIVE_TEXTURE));
+		assertEquals(3, recorder.getCount(Call.BIND_TEXTURE));
+		assertEquals(1, cache.getSkipped());
+	}
+	
+	@Test
+	public void test_texture_bind_with_unknown_unit_is_issued(){
+		cache.bindTexture(GL30.GL_TEXTURE_2D_ARRAY, 7);
+		cache.bindTexture(GL30.GL_TEXTURE_2D_ARRAY, 7);
+		
+		assertEquals(2, recorder.getCount(Call.BIND_TEXTURE));
+		assertEquals(0, cache.getSkipped());
+	}
+	
+	@Test
+	public void test_uncached_targets_are_passed_on(){
+		cache.activeTexture(GL13.GL_TEXTURE0 + CachingRenderBackend.MAX_TEXTURE_UNITS);
+		cache.activeTexture(GL13.GL_TEXTURE0 + CachingRenderBackend.MAX_TEXTURE_UNITS);
+		cache.enable(GL11.GL_LINE_SMOOTH);
+		cache.enable(GL11.GL_LINE_SMOOTH);
+		
+		assertEquals(4, recorder.getStateChanges());
+		assertEquals(4, cache.getIssued());
+		assertEquals(0, cache.getSkipped());
+	}
+	
+	@Test
+	public void test_deleting_bound_objects_unbinds_them(){
+		cache.bindBuffer(GL15.GL_ARRAY_BUFFER, 1);
+		cache.bindVertexArray(2);
+		cache.activeTexture(GL13.GL_TEXTURE0);
+		cache.bindTexture(GL30.GL_TEXTURE_2D_ARRAY, 3);
+		
+		cache.deleteBuffer(1);
+		cache.deleteVertexArray(2);
+		cache.deleteTexture(3);
+		recorder.reset();
+		cache.reset();
+		
+		// Deleted names are unbound, so binding 0 is redundant.
+		cache.bindBuffer(GL15.GL_ARRAY_BUFFER, 0);
+		cache.bindVertexArray(0);
+		cache.bindTexture(GL30.GL_TEXTURE_2D_ARRAY, 0);
+		assertEquals(0, recorder.getStateChanges());
+		assertEquals(3, cache.getSkipped());
+		
+		// Names reused after deletion are bound again.
+		cache.bindBuffer(GL15.GL_ARRAY_BUFFER, 1);
+		cache.bindVertexArray(2);
+		cache.bindTexture(GL30.GL_TEXTURE_2D_ARRAY, 3);
+		assertEquals(3, recorder.getStateChanges());
+	}
+	
+	@Test
+	public void test_invalidate_forgets_state(){
+		cache.useProgram(1);
+		cache.enable(GL11.GL_BLEND);
+		cache.invalidate();
+		cache.useProgram(1);
+		cache.enable(GL11.GL_BLEND);
+		
+		assertEquals(4, recorder.getStateChanges());
+		assertEquals(0, cache.getSkipped());
+	}
+	
+	@Test
+	public void test_reset_keeps_state(){
+		cache.useProgram(1);
+		cache.reset();
+		
+		assertEquals(0, cache.getIssued());
+		assertEquals(0, cache.getSkipped());
+		
+		cache.useProgram(1);
+		assertEquals(1, cache.getSkipped());
+	}
+	
+	@Test
+	public void test_other_calls_are_passed_on_uncounted(){
+		cache.genBuffer();
+		cache.bufferData(GL15.GL_ARRAY_BUFFER, 64, GL15.GL_STREAM_DRAW);
+		cache.drawElementsInstanced(GL11.GL_TRIANGLES, 6, GL11.GL_UNSIGNED_BYTE, 0, 2);
+		
+		assertEquals(3, recorder.getCalls());
+		assertEquals(1, recorder.getDrawCalls());
+		assertEquals(0, cache.getIssued());
+		assertEquals(0, cache.getSkipped());
+	}
+}
@@ -0,0 +1,119 @@
+package tetrix.rendering;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.security.InvalidParameterException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import tetrix.entities.Playfield;
+import tetrix.entities.shapes.PackedShape;
+import tetrix.entities.shapes.ShapeType;
+
+public class CompactBlockGeometry_Test {
+	private CompactBlockGeometry geometry;
+
+	@Before
+	public void setUp() throws Exception {
+		geometry = new CompactBlockGeometry(1);
+	}
+
+	private static int getColumn(ByteBuffer buffer, int vertex){
+		return buffer.getShort(vertex * CompactBlockGeometry.BYTES_PER_VERTEX +
+				CompactBlockGeometry.POSITION_OFFSET);
+	}
+
+	private static int getRow(ByteBuffer buffer, int vertex){
+		return buffer.getShort(vertex * CompactBlockGeometry.BYTES_PER_VERTEX +
+				CompactBlockGeometry.POSITION_OFFSET + 2);
+	}
+
+	private static int getLayer(ByteBuffer buffer, int vertex){
+		return buffer.get(vertex * CompactBlockGeometry.BYTES_PER_VERTEX +
+				CompactBlockGeometry.LAYER_OFFSET) & 0xFF;
+	}
+
+	private static int getPaletteIndex(ByteBuffer buffer, int vertex){
+		return buffer.get(vertex * CompactBlockGeometry.BYTES_PER_VERTEX +
+				CompactBlockGeometry.PALETTE_OFFSET) & 0xFF;
+	}
+
+	@Test
+	public void test_every_corner_repeats_the_block_record(){
+		geometry.putBlock(-1200, 30000, 5, 9);
+
+		ByteBuffer buffer = geometry.getBuffer();
+		assertEquals(CompactBlockGeometry.BYTES_PER_BLOCK, buffer.remaining());
+		assertEquals(4, geometry.getVertexCount());
+		for(int vertex = 0; vertex < 4; vertex++){
+			assertEquals(-1200, getColumn(buffer, vertex));
+			assertEquals(30000, getRow(buffer, vertex));
+			assertEquals(5, getLayer(buffer, vertex));
+			assertEquals(9, getPaletteIndex(buffer, vertex));
+		}
+	}
+
+	@Test
+	public void test_block_is_a_fifth_of_textured_vertex_size(){
+		assertEquals(32, CompactBlockGeometry.BYTES_PER_BLOCK);
+		assertEquals(0, CompactBlockGeometry.BYTES_PER_VERTEX % 4);
+	}
+
+	@Test
+	public void test_buffer_is_native_order(){
+		assertEquals(ByteOrder.nativeOrder(), geometry.getBuffer().order());
+	}
+
+	@Test
+	public void test_put_shape_offsets_board(){
+		long shape = PackedShape.spawn(ShapeType.L);
+		geometry.putShape(shape, 100, 200, 2);
+
+		ByteBuffer buffer = geometry.getBuffer();
+		assertEquals(4, geometry.getBlockCount());
+		for(int i = 0; i < 4; i++){
+			int vertex = i * CompactBlockGeometry.VERTICES_PER_BLOCK;
+			assertEquals(100 + PackedShape.getBlockColumn(shape, i),
+					getColumn(buffer, vertex));
+			assertEquals(200 + PackedShape.getBlockRow(shape, i), getRow(buffer, vertex));
+			assertEquals(BlockInstancePacker.getLayer(ShapeType.L),
+					getLayer(buffer, vertex));
+		}
+	}
+
+	@Test
+	public void test_many_boards_grow_buffer(){
+		Playfield playfield = new Playfield();
+		playfield.setRowMask(0, 0x3FF);
+		playfield.setRowMask(1, 0x00F);
+
+		for(int board = 0; board < 100; board++){
+			geometry.putPlayfield(playfield, 20, board * 12, 0, 0, 0);
+		}
+
+		ByteBuffer buffer = geometry.getBuffer();
+		assertEquals(1400, geometry.getBlockCount());
+		int lastVertex = (1400 - 1) * CompactBlockGeometry.VERTICES_PER_BLOCK;
+		assertEquals(99 * 12 + 3, getColumn(buffer, lastVertex));
+		assertEquals(1, getRow(buffer, lastVertex));
+	}
+
+	@Test
+	public void test_indices_reference_each_blocks_corners(){
+		ByteBuffer indices = CompactBlockGeometry.createIndices(3);
+
+		assertEquals(3 * CompactBlockGeometry.INDICES_PER_BLOCK * 2, indices.remaining());
+		int[] expected = {8, 9, 10, 10, 11, 8};
+		for(int i = 0; i < expected.length; i++){
+			assertEquals(expected[i], indices.getShort(2 * (12 + i)));
+		}
+	}
+
+	@Test(expected = InvalidParameterException.class)
+	public void test_too_many_indexed_blocks_throws(){
+		CompactBlockGeometry.createIndices(CompactBlockGeometry.MAX_INDEXED_BLOCKS + 1);
+	}
+}
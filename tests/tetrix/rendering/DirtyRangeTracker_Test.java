@@ -0,0 +1,134 @@
+package tetrix.rendering;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.security.InvalidParameterException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class DirtyRangeTracker_Test {
+	private DirtyRangeTracker tracker;
+
+	@Before
+	public void setUp() throws Exception {
+		tracker = new DirtyRangeTracker();
+	}
+
+	private void assertRanges(int... bounds){
+		assertEquals(bounds.length / 2, tracker.getRangeCount());
+		for(int i = 0; i < bounds.length / 2; i++){
+			assertEquals(bounds[2 * i], tracker.getRangeStart(i));
+			assertEquals(bounds[2 * i + 1], tracker.getRangeEnd(i));
+		}
+	}
+
+	@Test
+	public void test_disjoint_ranges_are_sorted(){
+		tracker.markDirty(80, 160);
+		tracker.markDirty(0, 8);
+		tracker.markDirty(400, 480);
+
+		assertRanges(0, 8, 80, 160, 400, 480);
+		assertEquals(168, tracker.getDirtyBytes());
+	}
+
+	@Test
+	public void test_adjacent_ranges_merge(){
+		tracker.markDirty(0, 80);
+		tracker.markDirty(160, 240);
+		tracker.markDirty(80, 160);
+
+		assertRanges(0, 240);
+	}
+
+	@Test
+	public void test_overlapping_range_merges_several(){
+		tracker.markDirty(0, 10);
+		tracker.markDirty(20, 30);
+		tracker.markDirty(40, 50);
+		tracker.markDirty(60, 70);
+
+		tracker.markDirty(5, 45);
+
+		assertRanges(0, 50, 60, 70);
+	}
+
+	@Test
+	public void test_contained_range_changes_nothing(){
+		tracker.markDirty(0, 100);
+		tracker.markDirty(10, 20);
+
+		assertRanges(0, 100);
+	}
+
+	@Test
+	public void test_empty_range_is_ignored(){
+		tracker.markDirty(8, 8);
+
+		assertFalse(tracker.isDirty());
+	}
+
+	@Test(expected = InvalidParameterException.class)
+	public void test_reversed_range_throws(){
+		tracker.markDirty(10, 5);
+	}
+
+	@Test
+	public void test_many_ranges_grow_storage(){
+		for(int i = 99; i >= 0; i--){
+			tracker.markDirty(i * 16, i * 16 + 8);
+		}
+
+		assertEquals(100, tracker.getRangeCount());
+		for(int i = 0; i < 100; i++){
+			assertEquals(i * 16, tracker.getRangeStart(i));
+		}
+	}
+
+	@Test
+	public void test_upload_sends_only_dirty_ranges(){
+		ByteBuffer source = ByteBuffer.allocateDirect(256);
+		for(int i = 0; i < 256; i++){
+			source.put(i, (byte)i);
+		}
+		source.position(3);
+
+		RecordingUploader uploader = new RecordingUploader(256);
+		tracker.markDirty(16, 32);
+		tracker.markDirty(100, 104);
+
+		assertEquals(20, tracker.upload(source, uploader));
+
+		assertEquals(2, uploader.uploads);
+		assertEquals(16, uploader.offsets[0]);
+		assertEquals(16, uploader.sizes[0]);
+		assertEquals(100, uploader.offsets[1]);
+		assertEquals(4, uploader.sizes[1]);
+		assertEquals(31, uploader.destination[31]);
+		assertEquals(0, uploader.destination[32]);
+		assertEquals(103, uploader.destination[103]);
+
+		// The source buffer is left as it was, and every range is clean.
+		assertEquals(3, source.position());
+		assertEquals(256, source.limit());
+		assertFalse(tracker.isDirty());
+		assertEquals(20, tracker.getBytesUploaded());
+		assertEquals(2, tracker.getRangesUploaded());
+	}
+
+	@Test
+	public void test_upload_metrics_per_frame(){
+		ByteBuffer source = ByteBuffer.allocateDirect(64);
+		RecordingUploader uploader = new RecordingUploader(64);
+
+		tracker.markDirty(0, 64);
+		tracker.upload(source, uploader);
+		tracker.upload(source, uploader);
+
+		assertEquals(0, tracker.getBytesUploaded());
+		assertEquals(64, tracker.getTotalBytesUploaded());
+		assertEquals(1, uploader.uploads);
+	}
+}
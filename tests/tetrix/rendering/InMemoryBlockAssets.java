@@ -0,0 +1,38 @@
+package tetrix.rendering;
+
+import java.nio.ByteBuffer;
+
+import tetrix.assets.AssetPack;
+import tetrix.assets.AssetPackBuilder;
+
+/**
+ * Block textures and shader sources held in memory, so that renderers under test
+ * read no file.  Each block texture is a small square of one shade.
+ */
+public class InMemoryBlockAssets {
+	public static final int TEXTURE_SIZE = 2;
+	public static final String SHADER_SOURCE = "void main(){}\n";
+
+	public static AssetPack createPack(){
+		String[] names = BlockRenderer.BLOCK_TEXTURE_NAMES;
+		int[] sizes = new int[names.length];
+		ByteBuffer[] texels = new ByteBuffer[names.length];
+
+		for(int i = 0; i < names.length; i++){
+			sizes[i] = TEXTURE_SIZE;
+			texels[i] = ByteBuffer.allocate(TEXTURE_SIZE * TEXTURE_SIZE *
+					AssetPack.BYTES_PER_TEXEL);
+			while (texels[i].hasRemaining()){
+				texels[i].putInt(i << 24 | 0xFF);
+			}
+			texels[i].flip();
+		}
+
+		return AssetPackBuilder.build(names, sizes, sizes, texels);
+	}
+
+	public static BlockRenderer createBlockRenderer(RenderBackend backend){
+		return new BlockRenderer(backend, createPack(), SHADER_SOURCE, SHADER_SOURCE);
+	}
+
+}
@@ -0,0 +1,51 @@
+package tetrix.rendering;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL20;
+
+public class NullRenderBackend_Test {
+	private NullRenderBackend backend;
+	
+	@Before
+	public void setUp() throws Exception {
+		backend = new NullRenderBackend();
+	}
+	
+	@Test
+	public void test_names_are_distinct_and_nonzero(){
+		int[] names = {backend.genBuffer(), backend.genVertexArray(),
+				backend.genTexture(), backend.createShader(GL20.GL_VERTEX_SHADER),
+				backend.createProgram()};
+		
+		for(int i = 0; i < names.length; i++){
+			assertTrue(names[i] != 0);
+			for(int j = 0; j < i; j++){
+				assertTrue(names[i] != names[j]);
+			}
+		}
+	}
+	
+	@Test
+	public void test_shaders_compile_and_programs_link(){
+		int shader = backend.createShader(GL20.GL_FRAGMENT_SHADER);
+		backend.shaderSource(shader, "void main(){}");
+		backend.compileShader(shader);
+		assertEquals(GL11.GL_TRUE, backend.getShaderi(shader, GL20.GL_COMPILE_STATUS));
+		
+		int program = backend.createProgram();
+		backend.attachShader(program, shader);
+		backend.linkProgram(program);
+		assertEquals(GL11.GL_TRUE, backend.getProgrami(program, GL20.GL_LINK_STATUS));
+		assertEquals("", backend.getProgramInfoLog(program, 1024));
+	}
+	
+	@Test
+	public void test_no_error_is_reported(){
+		backend.bindBuffer(-1, -1);
+		assertEquals(GL11.GL_NO_ERROR, backend.getError());
+	}
+}
@@ -0,0 +1,139 @@
+package tetrix.rendering;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.security.InvalidParameterException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import tetrix.entities.Playfield;
+
+public class PlayfieldRenderData_Test {
+	private static final int VISIBLE_ROWS = 20;
+	private static final int ROW_BYTES = Playfield.DEFAULT_COLUMNS *
+			BlockInstancePacker.BYTES_PER_INSTANCE;
+	private static final int TINT = 0xC0C0C0FF;
+
+	private Playfield playfield;
+	private PlayfieldRenderData board;
+	private RecordingUploader uploader;
+
+	@Before
+	public void setUp() throws Exception {
+		playfield = new Playfield();
+		board = new PlayfieldRenderData(Playfield.DEFAULT_COLUMNS, VISIBLE_ROWS);
+		uploader = new RecordingUploader(board.getByteCount());
+
+		// The first upload sends every record.
+		board.update(playfield, BlockInstancePacker.BLUE_LAYER, TINT);
+		assertEquals(board.getByteCount(), board.upload(uploader));
+		uploader.reset();
+	}
+
+	private int getTint(int column, int row){
+		int offset = (row * Playfield.DEFAULT_COLUMNS + column) *
+				BlockInstancePacker.BYTES_PER_INSTANCE + BlockInstancePacker.TINT_OFFSET;
+		return ByteBuffer.wrap(uploader.destination).getInt(offset);
+	}
+
+	@Test
+	public void test_unchanged_playfield_uploads_nothing(){
+		board.update(playfield, BlockInstancePacker.BLUE_LAYER, TINT);
+
+		assertEquals(0, board.upload(uploader));
+		assertEquals(0, uploader.uploads);
+	}
+
+	@Test
+	public void test_locked_row_uploads_only_that_row(){
+		playfield.setOccupied(3, 5, true);
+		board.update(playfield, BlockInstancePacker.BLUE_LAYER, TINT);
+
+		assertEquals(ROW_BYTES, board.upload(uploader));
+		assertEquals(1, uploader.uploads);
+		assertEquals(5 * ROW_BYTES, uploader.offsets[0]);
+
+		assertEquals(TINT, getTint(3, 5));
+		assertEquals(PlayfieldRenderData.EMPTY_TINT, getTint(4, 5));
+	}
+
+	@Test
+	public void test_adjacent_changed_rows_upload_as_one_range(){
+		playfield.setRowMask(0, 0x0FF);
+		playfield.setRowMask(1, 0x1FF);
+		playfield.setRowMask(2, 0x3FF);
+		playfield.setRowMask(3, 0x001);
+		board.update(playfield, BlockInstancePacker.BLUE_LAYER, TINT);
+		board.upload(uploader);
+		uploader.reset();
+
+		// Clearing the full row shifts the row above it down.
+		assertEquals(1, playfield.clearFullRows());
+		board.update(playfield, BlockInstancePacker.BLUE_LAYER, TINT);
+
+		assertEquals(2 * ROW_BYTES, board.upload(uploader));
+		assertEquals(1, uploader.uploads);
+		assertEquals(2 * ROW_BYTES, uploader.offsets[0]);
+		assertEquals(TINT, getTint(0, 2));
+		assertEquals(PlayfieldRenderData.EMPTY_TINT, getTint(0, 3));
+	}
+
+	@Test
+	public void test_changed_cell_layer_uploads_row(){
+		byte[] cellLayers = new byte[playfield.getColumns() * playfield.getRows()];
+		playfield.setOccupied(0, 7, true);
+		board.update(playfield, cellLayers, TINT);
+		board.upload(uploader);
+		uploader.reset();
+
+		cellLayers[7 * playfield.getColumns()] = BlockInstancePacker.RED_LAYER;
+		board.update(playfield, cellLayers, TINT);
+
+		assertEquals(ROW_BYTES, board.upload(uploader));
+		assertEquals(BlockInstancePacker.RED_LAYER,
+				uploader.destination[7 * ROW_BYTES + BlockInstancePacker.LAYER_OFFSET]);
+	}
+
+	@Test
+	public void test_rows_above_visible_rows_are_ignored(){
+		playfield.setOccupied(0, VISIBLE_ROWS, true);
+		board.update(playfield, BlockInstancePacker.BLUE_LAYER, TINT);
+
+		assertEquals(0, board.upload(uploader));
+	}
+
+	@Test
+	public void test_changed_tint_uploads_everything(){
+		board.update(playfield, BlockInstancePacker.BLUE_LAYER, 0xFFFFFFFF);
+
+		assertEquals(board.getByteCount(), board.upload(uploader));
+		assertEquals(1, uploader.uploads);
+	}
+
+	@Test
+	public void test_row_masks_upload_only_changed_rows(){
+		int[] rowMasks = new int[Playfield.DEFAULT_ROWS];
+		board.update(rowMasks, BlockInstancePacker.BLUE_LAYER, TINT);
+		assertEquals(0, board.upload(uploader));
+
+		rowMasks[2] = 1 << 4;
+		board.update(rowMasks, BlockInstancePacker.BLUE_LAYER, TINT);
+
+		assertEquals(ROW_BYTES, board.upload(uploader));
+		assertEquals(2 * ROW_BYTES, uploader.offsets[0]);
+		assertEquals(TINT, getTint(4, 2));
+		assertEquals(PlayfieldRenderData.EMPTY_TINT, getTint(3, 2));
+	}
+
+	@Test(expected = InvalidParameterException.class)
+	public void test_mismatched_columns_throws(){
+		board.update(new Playfield(8, 20), BlockInstancePacker.BLUE_LAYER, TINT);
+	}
+
+	@Test(expected = InvalidParameterException.class)
+	public void test_too_many_visible_rows_throws(){
+		new PlayfieldRenderData(10, PlayfieldRenderData.MAX_VISIBLE_ROWS + 1);
+	}
+}
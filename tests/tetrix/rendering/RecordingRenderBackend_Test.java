@@ -0,0 +1,113 @@
+package tetrix.rendering;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL15;
+import org.lwjgl.opengl.GL30;
+
+import tetrix.rendering.RecordingRenderBackend.Call;
+
+public class RecordingRenderBackend_Test {
+	private RecordingRenderBackend backend;
+	
+	@Before
+	public void setUp() throws Exception {
+		backend = new RecordingRenderBackend(new NullRenderBackend());
+	}
+	
+	@Test
+	public void test_calls_are_counted_per_kind(){
+		backend.bindBuffer(GL15.GL_ARRAY_BUFFER, 1);
+		backend.bindBuffer(GL15.GL_ARRAY_BUFFER, 0);
+		backend.useProgram(2);
+		
+		assertEquals(2, backend.getCount(Call.BIND_BUFFER));
+		assertEquals(1, backend.getCount(Call.USE_PROGRAM));
+		assertEquals(0, backend.getCount(Call.BIND_TEXTURE));
+		assertEquals(3, backend.getCalls());
+	}
+	
+	@Test
+	public void test_names_come_from_wrapped_backend(){
+		int first = backend.genBuffer();
+		int second = backend.genBuffer();
+		
+		assertTrue(first != second);
+		assertEquals(2, backend.getCount(Call.GEN_BUFFER));
+	}
+	
+	@Test
+	public void test_state_changes_exclude_uploads_and_draws(){
+		backend.bindVertexArray(1);
+		backend.enable(GL11.GL_BLEND);
+		backend.blendFunc(GL11.GL_SRC_ALPHA, GL11.GL_ONE_MINUS_SRC_ALPHA);
+		backend.bufferSubData(GL15.GL_ARRAY_BUFFER, 0, ByteBuffer.allocate(16));
+		backend.drawElementsInstanced(GL11.GL_TRIANGLES, 6, GL11.GL_UNSIGNED_BYTE, 0, 10);
+		backend.getError();
+		
+		assertEquals(3, backend.getStateChanges());
+		assertEquals(6, backend.getCalls());
+	}
+	
+	@Test
+	public void test_draw_calls_and_instances(){
+		backend.drawElementsInstanced(GL11.GL_TRIANGLES, 6, GL11.GL_UNSIGNED_BYTE, 0, 10);
+		backend.drawElementsInstanced(GL11.GL_TRIANGLES, 6, GL11.GL_UNSIGNED_BYTE, 0, 5);
+		backend.drawElementsBaseVertex(GL11.GL_TRIANGLES, 60, GL11.GL_UNSIGNED_SHORT,
+				0, 40);
+		
+		assertEquals(3, backend.getDrawCalls());
+		assertEquals(16, backend.getInstancesDrawn());
+	}
+	
+	@Test
+	public void test_bytes_uploaded_count_remaining_bytes(){
+		ByteBuffer data = ByteBuffer.allocate(64);
+		data.position(16);
+		
+		backend.bufferData(GL15.GL_ARRAY_BUFFER, data, GL15.GL_STATIC_DRAW);
+		backend.bufferSubData(GL15.GL_ARRAY_BUFFER, 0, ByteBuffer.allocate(8));
+		
+		assertEquals(56, backend.getBytesUploaded());
+		assertEquals(16, data.position());
+	}
+	
+	@Test
+	public void test_allocating_storage_uploads_nothing(){
+		backend.bufferData(GL15.GL_ARRAY_BUFFER, 1024, GL15.GL_STREAM_DRAW);
+		backend.texImage3D(GL30.GL_TEXTURE_2D_ARRAY, 0, GL11.GL_RGBA8, 4, 4, 2,
+				GL11.GL_RGBA, GL11.GL_UNSIGNED_BYTE, null);
+		
+		assertEquals(0, backend.getBytesUploaded());
+		assertEquals(2, backend.getCalls());
+	}
+	
+	@Test
+	public void test_texture_uploads_are_counted(){
+		backend.texSubImage3D(GL30.GL_TEXTURE_2D_ARRAY, 0, 0, 0, 1, 4, 4, 1,
+				GL11.GL_RGBA, GL11.GL_UNSIGNED_BYTE, ByteBuffer.allocate(64));
+		
+		assertEquals(64, backend.getBytesUploaded());
+	}
+	
+	@Test
+	public void test_reset_clears_every_counter(){
+		backend.bindTexture(GL30.GL_TEXTURE_2D_ARRAY, 1);
+		backend.bufferSubData(GL15.GL_ARRAY_BUFFER, 0, ByteBuffer.allocate(8));
+		backend.drawElementsInstanced(GL11.GL_TRIANGLES, 6, GL11.GL_UNSIGNED_BYTE, 0, 3);
+		
+		backend.reset();
+		
+		assertEquals(0, backend.getCount(Call.BIND_TEXTURE));
+		assertEquals(0, backend.getCalls());
+		assertEquals(0, backend.getStateChanges());
+		assertEquals(0, backend.getDrawCalls());
+		assertEquals(0, backend.getInstancesDrawn());
+		assertEquals(0, backend.getBytesUploaded());
+	}
+}
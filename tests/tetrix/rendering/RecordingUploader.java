@@ -0,0 +1,35 @@
+package tetrix.rendering;
+
+import java.nio.ByteBuffer;
+
+/**
+ * BufferUploader that copies uploads into a byte array standing in for a GPU
+ * buffer, and records the offset and size of each upload, for tests that run
+ * without an OpenGL context.
+ */
+public class RecordingUploader implements BufferUploader {
+	public final byte[] destination;
+	public final long[] offsets = new long[1024];
+	public final int[] sizes = new int[1024];
+	public int uploads;
+
+	public RecordingUploader(int size){
+		destination = new byte[size];
+	}
+
+	@Override
+	public void upload(long offset, ByteBuffer data){
+		offsets[uploads] = offset;
+		sizes[uploads] = data.remaining();
+		uploads++;
+
+		// Absolute gets, so the position and limit of data are left unchanged.
+		for(int i = 0; i < data.remaining(); i++){
+			destination[(int)offset + i] = data.get(data.position() + i);
+		}
+	}
+
+	public void reset(){
+		uploads = 0;
+	}
+}
@@ -0,0 +1,141 @@
+package tetrix.replays;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.InvalidParameterException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import tetrix.entities.Playfield;
+import tetrix.entities.rotations.SuperRotationSystem;
+import tetrix.randomizers.BagGenerator;
+import tetrix.randomizers.HistoryGenerator;
+import tetrix.simulation.GameSimulator;
+import tetrix.simulation.RandomInputSource;
+
+public class ReplayReader_Test {
+	private static final long SEED = 2024;
+
+	private Path path;
+	private GameSimulator simulator;
+
+	@Before
+	public void setUp() throws Exception {
+		path = Files.createTempFile("replay", ".txr");
+		simulator = new GameSimulator(new Playfield(), new SuperRotationSystem(),
+				new BagGenerator(0));
+		simulator.setGravityFrames(20);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		Files.deleteIfExists(path);
+	}
+
+	/**
+	 * Plays a game with random inputs, recording it to path.
+	 */
+	private void record(int framesPerInput) throws IOException {
+		RandomInputSource inputSource = new RandomInputSource(SEED, framesPerInput);
+		ReplayWriter writer = new ReplayWriter(path, simulator, SEED);
+
+		simulator.reset(SEED);
+		while (!simulator.isGameOver() && simulator.getFrame() < 100000){
+			int inputs = inputSource.getInputs(simulator.getFrame());
+			writer.record(simulator.getFrame(), inputs);
+			simulator.step(inputs);
+		}
+
+		writer.finish(simulator);
+		writer.close();
+	}
+
+	@Test
+	public void test_replay_reproduces_game() throws IOException {
+		record(3);
+		String playfield = simulator.getPlayfield().toString();
+
+		ReplayReader reader = ReplayReader.open(path);
+		assertEquals(SEED, reader.getSeed());
+		assertEquals(simulator.getFrame(), reader.getFrames());
+		assertEquals(simulator.getScore(), reader.getScore());
+		assertEquals(simulator.getLinesCleared(), reader.getLinesCleared());
+		assertEquals(20, reader.getGravityFrames());
+
+		GameSimulator replayed = reader.createSimulator();
+		assertEquals(reader.getFrames(), reader.replay(replayed));
+		assertEquals(reader.getScore(), replayed.getScore());
+		assertEquals(reader.getLinesCleared(), replayed.getLinesCleared());
+		assertEquals(playfield, replayed.getPlayfield().toString());
+
+		// Replaying again on the same simulator gives the same result.
+		reader.replay(replayed);
+		assertEquals(reader.getScore(), replayed.getScore());
+	}
+
+	@Test
+	public void test_under_two_bytes_per_input() throws IOException {
+		record(4);
+		ReplayReader reader = ReplayReader.open(path);
+
+		double bytesPerInput = (Files.size(path) - ReplayFormat.HEADER_BYTES) /
+				(double)reader.getEvents();
+		assertTrue(reader.getEvents() > 100);
+		assertTrue(bytesPerInput < 2);
+	}
+
+	@Test
+	public void test_reads_from_heap_buffer() throws IOException {
+		record(3);
+
+		ReplayReader reader = new ReplayReader(ByteBuffer.wrap(Files.readAllBytes(path)));
+		GameSimulator replayed = reader.createSimulator();
+		reader.replay(replayed);
+
+		assertEquals(reader.getScore(), replayed.getScore());
+	}
+
+	@Test(expected = InvalidParameterException.class)
+	public void test_mismatched_simulator() throws IOException {
+		record(3);
+
+		GameSimulator other = new GameSimulator(new Playfield(), new SuperRotationSystem(),
+				new HistoryGenerator(0));
+		ReplayReader.open(path).replay(other);
+	}
+
+	@Test(expected = IOException.class)
+	public void test_not_a_replay() throws IOException {
+		Files.write(path, new byte[ReplayFormat.HEADER_BYTES]);
+		ReplayReader.open(path);
+	}
+
+	@Test
+	public void test_truncated_events(){
+		ByteBuffer data = ByteBuffer.allocate(ReplayFormat.HEADER_BYTES + 1);
+		data.putInt(0, ReplayFormat.MAGIC);
+		data.putShort(4, ReplayFormat.VERSION);
+		data.putShort(8, (short)10);
+		data.putShort(10, (short)22);
+		data.putInt(44, 5);
+
+		// Continuation bit set on the last byte.
+		data.put(ReplayFormat.HEADER_BYTES, (byte)0x81);
+
+		try {
+			ReplayReader reader = new ReplayReader(data);
+			for(int frame = 0; frame < 10; frame++){
+				assertEquals(0, reader.getInputs(frame));
+			}
+		}
+		catch (IOException e){
+			fail();
+		}
+	}
+}
@@ -0,0 +1,155 @@
+package tetrix.replays;
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import tetrix.entities.Playfield;
+import tetrix.entities.rotations.SuperRotationSystem;
+import tetrix.randomizers.GeneratorType;
+import tetrix.simulation.GameSimulator;
+import tetrix.simulation.RandomInputSource;
+
+public class ReplayVerifier_Test {
+	private static final int NUM_GAMES = 20;
+
+	private Path directory;
+	private ForkJoinPool pool;
+	private ReplayVerifier verifier;
+
+	@Before
+	public void setUp() throws Exception {
+		directory = Files.createTempDirectory("replays");
+		pool = new ForkJoinPool(4);
+		verifier = new ReplayVerifier(pool);
+
+		// Games with every randomizer, and two Playfield sizes.
+		GeneratorType[] generatorTypes = GeneratorType.values();
+		for(int i = 0; i < NUM_GAMES; i++){
+			Playfield playfield = i % 2 == 0 ? new Playfield() : new Playfield(8, 24);
+			GameSimulator simulator = new GameSimulator(playfield, new SuperRotationSystem(),
+					generatorTypes[i % generatorTypes.length].create(0));
+			record(simulator, getPath(i), i);
+		}
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		pool.shutdown();
+
+		for(Path path : Files.newDirectoryStream(directory)){
+			Files.delete(path);
+		}
+		Files.delete(directory);
+	}
+
+	private Path getPath(int game){
+		return directory.resolve(String.format("game%02d", game) +
+				ReplayFormat.FILE_EXTENSION);
+	}
+
+	private static void record(GameSimulator simulator, Path path, long seed)
+			throws IOException {
+		RandomInputSource inputSource = new RandomInputSource(seed, 3);
+		ReplayWriter writer = new ReplayWriter(path, simulator, seed);
+
+		simulator.reset(seed);
+		while (!simulator.isGameOver() && simulator.getFrame() < 50000){
+			int inputs = inputSource.getInputs(simulator.getFrame());
+			writer.record(simulator.getFrame(), inputs);
+			simulator.step(inputs);
+		}
+
+		writer.finish(simulator);
+		writer.close();
+	}
+
+	@Test
+	public void test_list_replays() throws IOException {
+		Files.write(directory.resolve("notes.txt"), new byte[1]);
+
+		List<Path> replays = ReplayVerifier.listReplays(directory);
+		assertEquals(NUM_GAMES, replays.size());
+		assertEquals(getPath(0), replays.get(0));
+		assertEquals(getPath(NUM_GAMES - 1), replays.get(NUM_GAMES - 1));
+	}
+
+	@Test
+	public void test_valid_replays() throws IOException {
+		StringWriter csv = new StringWriter();
+
+		assertEquals(0, verifier.verify(ReplayVerifier.listReplays(directory), csv));
+		assertEquals(ReplayVerifier.CSV_HEADER + "\n", csv.toString());
+		assertEquals(NUM_GAMES, verifier.getVerified());
+		assertTrue(verifier.getInputs() > 0);
+		assertTrue(verifier.getReplaysPerSecond() > 0);
+	}
+
+	@Test
+	public void test_reports_tampered_and_unreadable_replays() throws IOException {
+		// Claim 1000 more points in game 3.
+		FileChannel channel = FileChannel.open(getPath(3), StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		try {
+			ByteBuffer score = ByteBuffer.allocate(8);
+			channel.read(score, ReplayFormat.SCORE_OFFSET);
+			score.putLong(0, score.getLong(0) + 1000);
+			score.clear();
+			channel.write(score, ReplayFormat.SCORE_OFFSET);
+		}
+		finally {
+			channel.close();
+		}
+
+		Files.write(getPath(7), new byte[] { 1, 2, 3 });
+
+		StringWriter csv = new StringWriter();
+		assertEquals(2, verifier.verify(ReplayVerifier.listReplays(directory), csv));
+		assertEquals(1, verifier.getMismatches());
+		assertEquals(1, verifier.getErrors());
+		assertEquals(NUM_GAMES - 1, verifier.getVerified());
+
+		String[] lines = csv.toString().split("\n");
+		assertEquals(3, lines.length);
+
+		String report = csv.toString();
+		assertTrue(report.contains(getPath(3) + "," + ReplayVerifier.STATUS_MISMATCH));
+		assertTrue(report.contains(getPath(7) + "," + ReplayVerifier.STATUS_ERROR));
+	}
+
+	@Test
+	public void test_lines_are_flushed_as_found() throws IOException {
+		Files.write(getPath(5), new byte[] { 1, 2, 3 });
+
+		// The BufferedWriter is never flushed by the test, so the report only
+		// reaches the StringWriter through the verifier's flushes.
+		StringWriter report = new StringWriter();
+		BufferedWriter csv = new BufferedWriter(report, 1 << 16);
+		assertEquals(1, verifier.verify(ReplayVerifier.listReplays(directory), csv));
+
+		String[] lines = report.toString().split("\n");
+		assertEquals(2, lines.length);
+		assertEquals(ReplayVerifier.CSV_HEADER, lines[0]);
+		assertTrue(lines[1].startsWith(getPath(5) + "," + ReplayVerifier.STATUS_ERROR));
+	}
+
+	@Test
+	public void test_quote(){
+		assertEquals("plain", ReplayVerifier.quote("plain"));
+		assertEquals("\"a,b\"", ReplayVerifier.quote("a,b"));
+		assertEquals("\"say \"\"hi\"\"\"", ReplayVerifier.quote("say \"hi\""));
+	}
+}
@@ -0,0 +1,164 @@
+package tetrix.replays;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.InvalidParameterException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import tetrix.datastructures.ByteBufferPool;
+import tetrix.entities.Playfield;
+import tetrix.randomizers.BagGenerator;
+import tetrix.randomizers.GeneratorType;
+import tetrix.simulation.GameSimulator;
+import tetrix.simulation.Input;
+import tetrix.entities.rotations.SuperRotationSystem;
+
+public class ReplayWriter_Test {
+	private Path path;
+
+	@Before
+	public void setUp() throws Exception {
+		path = Files.createTempFile("replay", ".txr");
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		Files.deleteIfExists(path);
+	}
+
+	@Test
+	public void test_header() throws IOException {
+		ReplayWriter writer = new ReplayWriter(path, GeneratorType.HISTORY, 77L,
+				new Playfield(8, 24), 20, 15, ByteBufferPool.getShared());
+		writer.finish(500, 1234, 7);
+		writer.close();
+
+		ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(path));
+		assertEquals(ReplayFormat.HEADER_BYTES, data.limit());
+		assertEquals(ReplayFormat.MAGIC, data.getInt(0));
+		assertEquals(ReplayFormat.VERSION, data.getShort(4));
+		assertEquals(GeneratorType.HISTORY.ordinal(), data.get(6));
+		assertEquals(8, data.getShort(8));
+		assertEquals(24, data.getShort(10));
+		assertEquals(20, data.getShort(12));
+		assertEquals(15, data.getShort(14));
+		assertEquals(77L, data.getLong(16));
+		assertEquals(500L, data.getLong(24));
+		assertEquals(1234L, data.getLong(32));
+		assertEquals(7, data.getInt(40));
+		assertEquals(0, data.getInt(44));
+	}
+
+	@Test
+	public void test_header_is_big_endian_from_little_endian_pooled_buffer()
+			throws IOException {
+		ByteBufferPool pool = new ByteBufferPool();
+		pool.release(ByteBuffer.allocateDirect(ReplayWriter.BUFFER_BYTES)
+				.order(ByteOrder.LITTLE_ENDIAN));
+
+		ReplayWriter writer = new ReplayWriter(path, GeneratorType.BAG, 77L,
+				new Playfield(), 20, 15, pool);
+		writer.finish(500, 1234, 7);
+		writer.close();
+
+		ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(path));
+		assertEquals(1, pool.getReuses());
+		assertEquals(ReplayFormat.MAGIC, data.getInt(0));
+		assertEquals(77L, data.getLong(16));
+	}
+
+	@Test
+	public void test_event_encoding() throws IOException {
+		GameSimulator simulator = new GameSimulator(new Playfield(),
+				new SuperRotationSystem(), new BagGenerator(0));
+		ReplayWriter writer = new ReplayWriter(path, simulator, 3L);
+
+		writer.record(0, Input.MOVE_LEFT);
+		writer.record(1, Input.NONE);
+		writer.record(2, Input.ROTATE_RIGHT);
+		writer.record(200, Input.HARD_DROP);
+		assertEquals(3, writer.getEvents());
+		writer.close();
+
+		byte[] bytes = Files.readAllBytes(path);
+		int offset = ReplayFormat.HEADER_BYTES;
+
+		// Frame 0 is 1 frame after frame -1, frame 2 is 2 frames after frame 0.
+		assertEquals(Input.MOVE_LEFT, bytes[offset]);
+		assertEquals((1 << 6) | Input.ROTATE_RIGHT, bytes[offset + 1]);
+
+		// 197 << 6 | 8 takes 2 bytes.
+		int value = (197 << 6) | Input.HARD_DROP;
+		assertEquals((byte)((value & 0x7F) | 0x80), bytes[offset + 2]);
+		assertEquals((byte)(value >>> 7), bytes[offset + 3]);
+		assertEquals(offset + 4, bytes.length);
+
+		// Without finish, the game ends after the last event.
+		assertEquals(201L, ByteBuffer.wrap(bytes).getLong(24));
+	}
+
+	@Test
+	public void test_many_events_span_buffers() throws IOException {
+		ByteBufferPool pool = new ByteBufferPool();
+		int count = 3 * ReplayWriter.BUFFER_BYTES;
+		ReplayWriter writer = new ReplayWriter(path, GeneratorType.BAG, 0L,
+				new Playfield(), 60, 30, pool);
+
+		for(int frame = 0; frame < count; frame++){
+			writer.record(frame, Input.MOVE_RIGHT);
+		}
+		assertEquals(ReplayFormat.HEADER_BYTES + count, writer.getBytes());
+		writer.close();
+
+		assertEquals(ReplayFormat.HEADER_BYTES + count, Files.size(path));
+		ReplayReader reader = ReplayReader.open(path);
+		for(int frame = 0; frame < count; frame++){
+			assertEquals(Input.MOVE_RIGHT, reader.getInputs(frame));
+		}
+		assertEquals(Input.NONE, reader.getInputs(count));
+	}
+
+	@Test
+	public void test_close_returns_buffer_to_pool() throws IOException {
+		ByteBufferPool pool = new ByteBufferPool();
+
+		new ReplayWriter(path, GeneratorType.BAG, 0L, new Playfield(), 60, 30,
+				pool).close();
+		new ReplayWriter(path, GeneratorType.BAG, 0L, new Playfield(), 60, 30,
+				pool).close();
+
+		assertEquals(1, pool.getAllocations());
+		assertEquals(1, pool.getReuses());
+	}
+
+	@Test(expected = InvalidParameterException.class)
+	public void test_frames_out_of_order() throws IOException {
+		ReplayWriter writer = new ReplayWriter(path, GeneratorType.BAG, 0L,
+				new Playfield(), 60, 30, ByteBufferPool.getShared());
+
+		try {
+			writer.record(5, Input.MOVE_LEFT);
+			writer.record(5, Input.MOVE_RIGHT);
+		}
+		finally {
+			writer.close();
+		}
+	}
+
+	@Test
+	public void test_varint_length(){
+		assertEquals(1, ReplayFormat.getVarintLength(0));
+		assertEquals(1, ReplayFormat.getVarintLength(127));
+		assertEquals(2, ReplayFormat.getVarintLength(128));
+		assertEquals(3, ReplayFormat.getVarintLength(1 << 14));
+		assertEquals(10, ReplayFormat.getVarintLength(-1L));
+	}
+}
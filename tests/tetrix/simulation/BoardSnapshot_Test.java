@@ -0,0 +1,69 @@
+package tetrix.simulation;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import tetrix.entities.Playfield;
+import tetrix.entities.shapes.PackedShape;
+
+public class BoardSnapshot_Test {
+	private GameSimulator simulator;
+	private BoardSnapshot snapshot;
+
+	@Before
+	public void setUp() throws Exception {
+		simulator = new GameSimulator();
+		simulator.reset(42);
+		snapshot = new BoardSnapshot(Playfield.DEFAULT_COLUMNS, Playfield.DEFAULT_ROWS);
+	}
+
+	@Test
+	public void test_copies_simulator_state(){
+		simulator.step(Input.HARD_DROP);
+		long previous = simulator.getActiveShape();
+		simulator.step(Input.MOVE_LEFT);
+
+		snapshot.copyFrom(simulator, previous, 5, 1000);
+
+		Playfield playfield = simulator.getPlayfield();
+		for(int row = 0; row < playfield.getRows(); row++){
+			assertEquals(playfield.getRowMask(row), snapshot.getRowMask(row));
+		}
+		assertEquals(simulator.getActiveShape(), snapshot.getActiveShape());
+		assertEquals(previous, snapshot.getPreviousActiveShape());
+		assertEquals(5, snapshot.getTick());
+		assertEquals(1000, snapshot.getTickNanos());
+		assertEquals(simulator.getScore(), snapshot.getScore());
+		assertEquals(simulator.getLinesCleared(), snapshot.getLinesCleared());
+		assertEquals(simulator.getLevel(), snapshot.getLevel());
+		assertFalse(snapshot.isGameOver());
+	}
+
+	@Test
+	public void test_ghost_shape_is_active_shape_dropped(){
+		snapshot.copyFrom(simulator, simulator.getActiveShape(), 0, 0);
+
+		long active = snapshot.getActiveShape();
+		long ghost = snapshot.getGhostShape();
+		int dropDistance = simulator.getDropDistance();
+
+		assertTrue(dropDistance > 0);
+		for(int i = 0; i < 4; i++){
+			assertEquals(PackedShape.getBlockColumn(active, i),
+					PackedShape.getBlockColumn(ghost, i));
+			assertEquals(PackedShape.getBlockRow(active, i) - dropDistance,
+					PackedShape.getBlockRow(ghost, i));
+		}
+	}
+
+	@Test
+	public void test_copy_is_independent_of_simulator(){
+		snapshot.copyFrom(simulator, simulator.getActiveShape(), 0, 0);
+		simulator.step(Input.HARD_DROP);
+
+		assertEquals(0, snapshot.getRowMask(0));
+		assertNotEquals(simulator.getPlayfield().getRowMask(0), snapshot.getRowMask(0));
+	}
+}
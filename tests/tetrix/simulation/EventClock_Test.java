@@ -0,0 +1,56 @@
+package tetrix.simulation;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class EventClock_Test {
+	// Offset from the event clock to the local clock.
+	private static final long OFFSET = 1000000;
+
+	private EventClock clock;
+
+	@Before
+	public void setUp() throws Exception {
+		clock = new EventClock();
+	}
+
+	@Test
+	public void test_offset_is_smallest_delay_seen(){
+		clock.beginPoll(100);
+		clock.toLocalNanos(100 - OFFSET - 30);
+		assertEquals(OFFSET + 30, clock.getOffsetNanos());
+
+		clock.beginPoll(200);
+		clock.toLocalNanos(200 - OFFSET - 5);
+		assertEquals(OFFSET + 5, clock.getOffsetNanos());
+
+		clock.beginPoll(300);
+		clock.toLocalNanos(300 - OFFSET - 50);
+		assertEquals(OFFSET + 5, clock.getOffsetNanos());
+	}
+
+	@Test
+	public void test_converts_to_time_between_polls(){
+		clock.beginPoll(1000);
+		clock.toLocalNanos(1000 - OFFSET);
+
+		// Events read by the next poll keep their spacing.
+		clock.beginPoll(2000);
+		assertEquals(1200, clock.toLocalNanos(1200 - OFFSET));
+		assertEquals(1700, clock.toLocalNanos(1700 - OFFSET));
+	}
+
+	@Test
+	public void test_clamps_to_poll_interval(){
+		clock.beginPoll(1000);
+		clock.toLocalNanos(1000 - OFFSET);
+
+		clock.beginPoll(2000);
+		assertEquals(1000, clock.toLocalNanos(500 - OFFSET));
+
+		// A coarse event clock may stamp events after they are read.
+		assertEquals(2000, clock.toLocalNanos(2500 - OFFSET));
+	}
+}
@@ -0,0 +1,184 @@
+package tetrix.simulation;
+
+import static org.junit.Assert.*;
+
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class FixedTimestepLoop_Test {
+	// 100 ticks per second, so a tick lasts 10 ms.
+	private static final long TICK = 10000000L;
+
+	private FixedTimestepLoop loop;
+	private List<Long> ticks;
+	private Tickable recorder;
+
+	@Before
+	public void setUp() throws Exception {
+		loop = new FixedTimestepLoop(100, 5);
+		ticks = new ArrayList<Long>();
+		recorder = new Tickable() {
+			@Override
+			public void tick(long tick) {
+				ticks.add(tick);
+			}
+		};
+	}
+
+	@Test
+	public void test_first_advance_only_starts_timing(){
+		assertEquals(0, loop.advance(123456789L, recorder));
+		assertEquals(0f, loop.getAlpha(), 0f);
+	}
+
+	@Test
+	public void test_ticks_at_fixed_rate(){
+		loop.reset(0);
+
+		assertEquals(0, loop.advance(TICK / 2, recorder));
+		assertEquals(1, loop.advance(TICK, recorder));
+		assertEquals(2, loop.advance(3 * TICK, recorder));
+		assertEquals(0, loop.advance(3 * TICK + 1, recorder));
+
+		assertEquals(3, loop.getTick());
+		assertEquals(Long.valueOf(0), ticks.get(0));
+		assertEquals(Long.valueOf(2), ticks.get(2));
+	}
+
+	@Test
+	public void test_tick_start_times_are_exact(){
+		final List<Long> starts = new ArrayList<Long>();
+		loop.reset(500);
+
+		loop.advance(500 + 3 * TICK + TICK / 2, new Tickable() {
+			@Override
+			public void tick(long tick) {
+				starts.add(loop.getTickStartNanos());
+			}
+		});
+
+		assertEquals(3, starts.size());
+		for(int i = 0; i < starts.size(); i++){
+			assertEquals(500 + i * TICK, starts.get(i).longValue());
+		}
+		assertEquals(500 + 3 * TICK, loop.getTickStartNanos());
+	}
+
+	@Test
+	public void test_alpha_is_fraction_of_tick(){
+		loop.reset(0);
+
+		loop.advance(TICK + TICK / 4, recorder);
+		assertEquals(0.25f, loop.getAlpha(), 1e-6f);
+
+		loop.advance(2 * TICK + 3 * TICK / 4, recorder);
+		assertEquals(0.75f, loop.getAlpha(), 1e-6f);
+		assertEquals(2, loop.getTick());
+	}
+
+	@Test
+	public void test_tick_rate_does_not_depend_on_frame_rate(){
+		FixedTimestepLoop slow = new FixedTimestepLoop(100, 5);
+		slow.reset(0);
+		loop.reset(0);
+
+		// One second of 30 and of 144 frames per second.
+		for(int frame = 1; frame <= 30; frame++){
+			slow.advance(frame * 1000000000L / 30, recorder);
+		}
+		for(int frame = 1; frame <= 144; frame++){
+			loop.advance(frame * 1000000000L / 144, recorder);
+		}
+
+		assertEquals(100, slow.getTick());
+		assertEquals(100, loop.getTick());
+	}
+
+	@Test
+	public void test_game_speed_does_not_depend_on_render_cost(){
+		// Render costs per frame, in ms, as a base cost with random jitter.
+		double[][] renderCosts = { {2, 1}, {12, 4}, {20, 10}, {35, 20}, {60, 40} };
+		long duration = 10 * 1000000000L;
+
+		for(double[] cost : renderCosts){
+			FixedTimestepLoop game = new FixedTimestepLoop(240,
+					FixedTimestepLoop.DEFAULT_MAX_TICKS_PER_FRAME);
+			Random random = new Random(0);
+			game.reset(0);
+
+			long now = 0;
+			while (now < duration){
+				game.advance(now, recorder);
+				now += (long)((cost[0] + cost[1] * (2 * random.nextDouble() - 1)) * 1e6);
+			}
+
+			// Ten seconds of ticks, short of at most the last frame's.
+			long frameTicks = (long)Math.ceil((cost[0] + cost[1]) * 240 / 1000);
+			assertTrue(game.getTick() <= 2400);
+			assertTrue(game.getTick() >= 2400 - frameTicks);
+			assertEquals(0, game.getDroppedTicks());
+		}
+	}
+
+	@Test
+	public void test_stall_catch_up_is_bounded(){
+		loop.reset(0);
+
+		// A 1 second stall is worth 100 ticks, of which 5 are run.
+		assertEquals(5, loop.advance(1000000000L + TICK / 2, recorder));
+
+		assertEquals(95, loop.getDroppedTicks());
+		assertEquals(95 * TICK, loop.getDroppedNanos());
+		assertEquals(0.5f, loop.getAlpha(), 1e-6f);
+		assertEquals(5, loop.getMaxTicksInFrame());
+
+		// Timing continues normally after the stall.
+		assertEquals(1, loop.advance(1000000000L + 3 * TICK / 2, recorder));
+		assertEquals(95, loop.getDroppedTicks());
+	}
+
+	@Test
+	public void test_reset_discards_accumulated_time(){
+		loop.reset(0);
+		loop.advance(TICK / 2, recorder);
+
+		loop.reset(50 * TICK);
+
+		assertEquals(0, loop.advance(50 * TICK + TICK / 2, recorder));
+		assertEquals(0, loop.getDroppedTicks());
+	}
+
+	@Test
+	public void test_time_going_backwards_adds_nothing(){
+		loop.reset(10 * TICK);
+
+		assertEquals(0, loop.advance(5 * TICK, recorder));
+		assertEquals(1, loop.advance(6 * TICK, recorder));
+	}
+
+	@Test
+	public void test_interpolate(){
+		assertEquals(2f, FixedTimestepLoop.interpolate(2f, 6f, 0f), 0f);
+		assertEquals(3f, FixedTimestepLoop.interpolate(2f, 6f, 0.25f), 0f);
+	}
+
+	@Test
+	public void test_default_rate(){
+		FixedTimestepLoop defaults = new FixedTimestepLoop();
+
+		assertEquals(1000000000L / FixedTimestepLoop.DEFAULT_TICKS_PER_SECOND,
+				defaults.getTickNanos());
+		assertEquals(FixedTimestepLoop.DEFAULT_MAX_TICKS_PER_FRAME,
+				defaults.getMaxTicksPerFrame());
+	}
+
+	@Test(expected = InvalidParameterException.class)
+	public void test_zero_tick_rate(){
+		new FixedTimestepLoop(0, 1);
+	}
+}
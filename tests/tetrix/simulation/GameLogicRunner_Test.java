@@ -0,0 +1,188 @@
+package tetrix.simulation;
+
+import static org.junit.Assert.*;
+
+import java.security.InvalidParameterException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import tetrix.entities.shapes.PackedShape;
+
+public class GameLogicRunner_Test {
+	private static final int TICKS_PER_SECOND = 240;
+	private static final int TICKS_PER_FRAME = TICKS_PER_SECOND /
+			GameLogicRunner.SIMULATOR_FRAMES_PER_SECOND;
+
+	private GameSimulator simulator;
+	private GameLogicRunner runner;
+
+	@Before
+	public void setUp() throws Exception {
+		simulator = new GameSimulator();
+		simulator.reset(7);
+		runner = new GameLogicRunner(simulator, TICKS_PER_SECOND);
+	}
+
+	@Test(expected=InvalidParameterException.class)
+	public void test_tick_rate_must_be_multiple_of_simulator_rate(){
+		new GameLogicRunner(new GameSimulator(), 100);
+	}
+
+	@Test
+	public void test_scales_timings_to_tick_rate(){
+		assertEquals(GameSimulator.DEFAULT_GRAVITY_FRAMES * TICKS_PER_FRAME,
+				simulator.getGravityFrames());
+		assertEquals(GameSimulator.DEFAULT_LOCK_DELAY_FRAMES * TICKS_PER_FRAME,
+				simulator.getLockDelayFrames());
+	}
+
+	@Test
+	public void test_initial_snapshot_published(){
+		assertTrue(runner.getSnapshots().hasNewValue());
+
+		BoardSnapshot snapshot = runner.getSnapshots().acquire();
+		assertEquals(simulator.getActiveShape(), snapshot.getActiveShape());
+		assertEquals(0, snapshot.getTick());
+	}
+
+	@Test
+	public void test_tick_publishes_snapshot(){
+		long spawn = simulator.getActiveShape();
+		runner.postInputs(Input.MOVE_LEFT);
+		runner.tick(1);
+
+		BoardSnapshot snapshot = runner.getSnapshots().acquire();
+		assertEquals(1, snapshot.getTick());
+		assertEquals(spawn, snapshot.getPreviousActiveShape());
+		assertEquals(simulator.getActiveShape(), snapshot.getActiveShape());
+		assertEquals(PackedShape.getBlockColumn(spawn, 0) - 1,
+				PackedShape.getBlockColumn(snapshot.getActiveShape(), 0));
+	}
+
+	@Test
+	public void test_posted_inputs_applied_once(){
+		runner.postInputs(Input.MOVE_LEFT);
+		runner.postInputs(Input.MOVE_LEFT);
+		runner.tick(1);
+		long afterFirst = simulator.getActiveShape();
+		runner.tick(2);
+
+		assertEquals(afterFirst, simulator.getActiveShape());
+	}
+
+	@Test
+	public void test_key_event_applied_by_tick_it_happened_in(){
+		FixedTimestepLoop loop = runner.getLoop();
+		loop.reset(0);
+		long spawn = simulator.getActiveShape();
+
+		// Pressed during the third tick, and released before the fourth.
+		long pressNanos = 2 * loop.getTickNanos() + 1;
+		runner.postKeyEvent(pressNanos, InputEvent.pressed(Input.MOVE_RIGHT));
+		runner.postKeyEvent(pressNanos + 1, InputEvent.released(Input.MOVE_RIGHT));
+
+		loop.advance(2 * loop.getTickNanos(), runner);
+		assertEquals(spawn, simulator.getActiveShape());
+
+		loop.advance(3 * loop.getTickNanos(), runner);
+		assertEquals(PackedShape.getBlockColumn(spawn, 0) + 1,
+				PackedShape.getBlockColumn(simulator.getActiveShape(), 0));
+	}
+
+	@Test
+	public void test_key_event_queued_after_its_tick_is_late(){
+		FixedTimestepLoop loop = runner.getLoop();
+		loop.reset(0);
+
+		loop.advance(3 * loop.getTickNanos(), runner);
+		runner.postKeyEvent(2 * loop.getTickNanos() + 1,
+				InputEvent.pressed(Input.MOVE_RIGHT));
+		loop.advance(4 * loop.getTickNanos(), runner);
+
+		assertEquals(1, runner.getLateKeyEvents());
+	}
+
+	@Test
+	public void test_input_delay_applies_key_event_polled_after_its_tick(){
+		long tickNanos = runner.getLoop().getTickNanos();
+		long delayNanos = TICKS_PER_FRAME * tickNanos;
+		simulator = new GameSimulator();
+		simulator.reset(7);
+		runner = new GameLogicRunner(simulator, TICKS_PER_SECOND,
+				new InputEventProcessor(), delayNanos);
+		FixedTimestepLoop loop = runner.getLoop();
+		loop.reset(0);
+		long spawn = simulator.getActiveShape();
+
+		// Pressed during the third tick, but only polled after it ran.
+		loop.advance(3 * tickNanos, runner);
+		runner.postKeyEvent(2 * tickNanos + 1, InputEvent.pressed(Input.MOVE_RIGHT));
+
+		loop.advance(2 * tickNanos + delayNanos, runner);
+		assertEquals(PackedShape.getBlockColumn(spawn, 0),
+				PackedShape.getBlockColumn(simulator.getActiveShape(), 0));
+
+		loop.advance(3 * tickNanos + delayNanos, runner);
+		assertEquals(PackedShape.getBlockColumn(spawn, 0) + 1,
+				PackedShape.getBlockColumn(simulator.getActiveShape(), 0));
+		assertEquals(0, runner.getLateKeyEvents());
+	}
+
+	@Test(expected=InvalidParameterException.class)
+	public void test_negative_input_delay(){
+		new GameLogicRunner(new GameSimulator(), TICKS_PER_SECOND,
+				new InputEventProcessor(), -1);
+	}
+
+	@Test
+	public void test_held_soft_drop_repeats_once_per_simulator_frame(){
+		FixedTimestepLoop loop = runner.getLoop();
+		loop.reset(0);
+		long spawn = simulator.getActiveShape();
+
+		runner.postKeyEvent(0, InputEvent.pressed(Input.SOFT_DROP));
+		loop.advance(3 * TICKS_PER_FRAME * loop.getTickNanos(), runner);
+
+		assertEquals(3 * TICKS_PER_FRAME, loop.getTick());
+		assertEquals(PackedShape.getBlockRow(spawn, 0) - 3,
+				PackedShape.getBlockRow(simulator.getActiveShape(), 0));
+	}
+
+	@Test
+	public void test_reset_request(){
+		runner.postInputs(Input.HARD_DROP);
+		runner.tick(1);
+		assertEquals(1, simulator.getShapesLocked());
+
+		runner.requestReset(7);
+		runner.tick(2);
+
+		assertEquals(0, simulator.getShapesLocked());
+		assertTrue(simulator.getPlayfield().isRowEmpty(0));
+	}
+
+	@Test
+	public void test_run_until_stopped() throws Exception {
+		Thread thread = new Thread(runner);
+		thread.start();
+
+		while (runner.getSnapshots().getPublished() < 10){
+			Thread.sleep(1);
+		}
+		runner.stop();
+		thread.join(1000);
+
+		assertFalse(thread.isAlive());
+	}
+
+	@Test
+	public void test_stop_before_run_is_not_lost() throws Exception {
+		Thread thread = new Thread(runner);
+		runner.stop();
+		thread.start();
+		thread.join(1000);
+
+		assertFalse(thread.isAlive());
+	}
+}
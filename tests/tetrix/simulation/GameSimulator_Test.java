@@ -0,0 +1,165 @@
+package tetrix.simulation;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import tetrix.entities.Playfield;
+import tetrix.entities.rotations.SuperRotationSystem;
+import tetrix.entities.shapes.PackedShape;
+import tetrix.entities.shapes.ShapeType;
+import tetrix.randomizers.PieceGenerator;
+
+public class GameSimulator_Test {
+	private Playfield playfield;
+	private GameSimulator simulator;
+
+	/**
+	 * PieceGenerator that only generates one ShapeType.
+	 */
+	private static class SingleTypeGenerator implements PieceGenerator {
+		private final ShapeType shapeType;
+
+		public SingleTypeGenerator(ShapeType shapeType){
+			this.shapeType = shapeType;
+		}
+
+		@Override
+		public void reset(long seed) {
+
+		}
+
+		@Override
+		public ShapeType next() {
+			return shapeType;
+		}
+
+		@Override
+		public void fill(byte[] queue, int offset, int length) {
+			Arrays.fill(queue, offset, offset + length, (byte)shapeType.ordinal());
+		}
+	}
+
+	@Before
+	public void setUp() throws Exception {
+		playfield = new Playfield();
+		simulator = new GameSimulator(playfield, new SuperRotationSystem(),
+				new SingleTypeGenerator(ShapeType.I));
+	}
+
+	@Test
+	public void test_reset(){
+		simulator.step(Input.HARD_DROP);
+		simulator.reset(0);
+
+		assertEquals(0, simulator.getFrame());
+		assertEquals(0, simulator.getScore());
+		assertEquals(0, simulator.getShapesLocked());
+		assertTrue(playfield.isRowEmpty(0));
+		assertEquals(PackedShape.spawn(ShapeType.I), simulator.getActiveShape());
+	}
+
+	@Test
+	public void test_deterministic(){
+		GameSimulator first = new GameSimulator();
+		GameSimulator second = new GameSimulator();
+		first.reset(1234);
+		second.reset(1234);
+
+		first.run(new RandomInputSource(99, 4), 20000);
+		second.run(new RandomInputSource(99, 4), 20000);
+
+		assertEquals(first.getFrame(), second.getFrame());
+		assertEquals(first.getScore(), second.getScore());
+		assertEquals(first.getLinesCleared(), second.getLinesCleared());
+		assertEquals(first.getShapesLocked(), second.getShapesLocked());
+		assertEquals(first.getActiveShape(), second.getActiveShape());
+		assertEquals(first.getPlayfield().toString(), second.getPlayfield().toString());
+		assertTrue(first.getShapesLocked() > 0);
+	}
+
+	@Test
+	public void test_hard_drop(){
+		simulator.step(Input.HARD_DROP);
+
+		assertEquals(1, simulator.getShapesLocked());
+		assertEquals(0x78, playfield.getRowMask(0));
+		assertEquals(2 * 20, simulator.getScore());
+		assertEquals(PackedShape.spawn(ShapeType.I), simulator.getActiveShape());
+	}
+
+	@Test
+	public void test_soft_drop(){
+		simulator.step(Input.SOFT_DROP);
+
+		assertEquals(1, simulator.getScore());
+		assertEquals(19, PackedShape.getBlockRow(simulator.getActiveShape(), 0));
+	}
+
+	@Test
+	public void test_gravity(){
+		simulator.setGravityFrames(10);
+
+		for(int i = 0; i < 9; i++){
+			simulator.step(Input.NONE);
+		}
+		assertEquals(20, PackedShape.getBlockRow(simulator.getActiveShape(), 0));
+
+		simulator.step(Input.NONE);
+		assertEquals(19, PackedShape.getBlockRow(simulator.getActiveShape(), 0));
+	}
+
+	@Test
+	public void test_lock_delay(){
+		simulator.setGravityFrames(1);
+		simulator.setLockDelayFrames(5);
+
+		// Falls 20 rows, then waits out lock delay.
+		simulator.run(new InputSource() {
+			@Override
+			public int getInputs(long frame) {
+				return Input.NONE;
+			}
+		}, 23);
+		assertEquals(0, simulator.getShapesLocked());
+
+		simulator.step(Input.NONE);
+		assertEquals(1, simulator.getShapesLocked());
+	}
+
+	@Test
+	public void test_move_blocked_by_wall(){
+		for(int i = 0; i < 10; i++){
+			simulator.step(Input.MOVE_LEFT);
+		}
+
+		assertEquals(0, PackedShape.getBlockColumn(simulator.getActiveShape(), 0));
+	}
+
+	@Test
+	public void test_line_clear(){
+		// Row 0 is full except for the four columns the I Shape lands in.
+		playfield.setRowMask(0, playfield.getFullRowMask() & ~0x78);
+
+		simulator.step(Input.HARD_DROP);
+
+		assertEquals(1, simulator.getLinesCleared());
+		assertEquals(100 + 2 * 20, simulator.getScore());
+		assertTrue(playfield.isRowEmpty(0));
+	}
+
+	@Test
+	public void test_game_over(){
+		playfield.setOccupied(4, 19, true);
+		simulator.step(Input.HARD_DROP);
+
+		assertTrue(simulator.isGameOver());
+
+		long frame = simulator.getFrame();
+		simulator.step(Input.NONE);
+		assertEquals(frame, simulator.getFrame());
+	}
+}
@@ -0,0 +1,174 @@
+package tetrix.simulation;
+
+import static org.junit.Assert.*;
+
+import java.security.InvalidParameterException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import tetrix.datastructures.EventRingBuffer;
+
+public class InputEventProcessor_Test {
+	private static final long TICK = 1000;
+	private static final long DAS = 10 * TICK;
+	private static final long ARR = 2 * TICK;
+	private static final long SOFT_DROP = 4 * TICK;
+
+	private EventRingBuffer events;
+	private InputEventProcessor processor;
+
+	@Before
+	public void setUp() throws Exception {
+		events = new EventRingBuffer();
+		processor = new InputEventProcessor(DAS, ARR, SOFT_DROP);
+	}
+
+	/**
+	 * @return inputs of the tick starting at <code>tick * TICK</code>.
+	 */
+	private int update(long tick){
+		return processor.update(events, tick * TICK, (tick + 1) * TICK);
+	}
+
+	private void press(long nanos, int input){
+		events.offer(nanos, InputEvent.pressed(input));
+	}
+
+	private void release(long nanos, int input){
+		events.offer(nanos, InputEvent.released(input));
+	}
+
+	@Test(expected=InvalidParameterException.class)
+	public void test_negative_times_throw(){
+		new InputEventProcessor(-1, 0, 0);
+	}
+
+	@Test
+	public void test_event_applied_in_tick_it_happened_in(){
+		press(3 * TICK + 10, Input.ROTATE_LEFT);
+
+		assertEquals(Input.NONE, update(2));
+		assertEquals(Input.ROTATE_LEFT, update(3));
+		assertEquals(Input.NONE, update(4));
+		assertEquals(1, processor.getEventsConsumed());
+	}
+
+	@Test
+	public void test_tap_within_one_tick_is_not_lost(){
+		press(10, Input.MOVE_LEFT);
+		release(20, Input.MOVE_LEFT);
+		press(30, Input.HARD_DROP);
+		release(40, Input.HARD_DROP);
+
+		assertEquals(Input.MOVE_LEFT | Input.HARD_DROP, update(0));
+		assertEquals(Input.NONE, update(1));
+	}
+
+	@Test
+	public void test_auto_shift_after_das_then_every_arr(){
+		long pressNanos = 500;
+		press(pressNanos, Input.MOVE_RIGHT);
+
+		int moves = 0;
+		for(long tick = 0; tick < 20; tick++){
+			int inputs = update(tick);
+			if (inputs == Input.MOVE_RIGHT){
+				moves++;
+
+				// Press, then repeats from pressNanos + DAS every ARR.
+				long due = moves == 1 ? pressNanos : pressNanos + DAS + (moves - 2) * ARR;
+				assertEquals(due / TICK, tick);
+			}
+			else {
+				assertEquals(Input.NONE, inputs);
+			}
+		}
+
+		// Press at tick 0, repeats at ticks 10, 12, 14, 16 and 18.
+		assertEquals(6, moves);
+	}
+
+	@Test
+	public void test_release_stops_auto_shift_at_release_time(){
+		press(0, Input.MOVE_LEFT);
+		release(DAS + ARR + 500, Input.MOVE_LEFT);
+
+		for(long tick = 0; tick < 12; tick++){
+			update(tick);
+		}
+
+		// Repeat due at DAS + ARR lands in the tick of the release.
+		assertEquals(Input.MOVE_LEFT, update(12));
+		assertEquals(Input.NONE, update(13));
+		assertEquals(Input.NONE, update(14));
+	}
+
+	@Test
+	public void test_repeated_press_does_not_restart_das(){
+		press(0, Input.MOVE_LEFT);
+		assertEquals(Input.MOVE_LEFT, update(0));
+
+		// Operating system key repeat.
+		press(5 * TICK, Input.MOVE_LEFT);
+		for(long tick = 1; tick < 10; tick++){
+			assertEquals(Input.NONE, update(tick));
+		}
+
+		assertEquals(Input.MOVE_LEFT, update(10));
+	}
+
+	@Test
+	public void test_last_pressed_direction_wins(){
+		press(0, Input.MOVE_LEFT);
+		update(0);
+
+		press(2 * TICK, Input.MOVE_RIGHT);
+		assertEquals(Input.MOVE_RIGHT, update(2));
+
+		// Releasing right recharges DAS towards the still held left.
+		release(4 * TICK, Input.MOVE_RIGHT);
+		for(long tick = 3; tick < 14; tick++){
+			assertEquals(Input.NONE, update(tick));
+		}
+		assertEquals(Input.MOVE_LEFT, update(14));
+	}
+
+	@Test
+	public void test_soft_drop_repeats_every_interval(){
+		press(0, Input.SOFT_DROP);
+
+		int drops = 0;
+		for(long tick = 0; tick < 12; tick++){
+			if ((update(tick) & Input.SOFT_DROP) != 0) drops++;
+		}
+
+		// At 0, 4 and 8 ticks.
+		assertEquals(3, drops);
+	}
+
+	@Test
+	public void test_zero_arr_repeats_every_tick(){
+		processor = new InputEventProcessor(DAS, 0, SOFT_DROP);
+		press(0, Input.MOVE_RIGHT);
+
+		for(long tick = 0; tick < 10; tick++){
+			update(tick);
+		}
+
+		for(long tick = 10; tick < 15; tick++){
+			assertEquals(Input.MOVE_RIGHT, update(tick));
+		}
+	}
+
+	@Test
+	public void test_late_events_counted(){
+		update(0);
+		update(1);
+		press(500, Input.ROTATE_RIGHT);
+
+		assertEquals(Input.ROTATE_RIGHT, update(2));
+		assertEquals(1, processor.getLateEvents());
+		assertEquals(2 * TICK - 500, processor.getMaxLatenessNanos());
+	}
+}
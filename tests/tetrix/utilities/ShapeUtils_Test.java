@@ -2,14 +2,19 @@ package tetrix.utilities;
 
 import static org.junit.Assert.*;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.FloatBuffer;
+import java.security.InvalidParameterException;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.lwjgl.BufferUtils;
 import org.lwjgl.util.vector.Vector3f;
 
 import tetrix.entities.shapes.IShape;
 import tetrix.entities.shapes.JShape;
+import tetrix.entities.shapes.PackedShape;
 import tetrix.entities.shapes.Shape;
 
 public class ShapeUtils_Test {
@@ -181,4 +186,111 @@ public class ShapeUtils_Test {
 		
 		assertArrayEquals(expected_coords_JShape, vertexArray);
 	}
+	
+	/////////////////////////////////////////////////////////////////////////////////////
+	// Test putVertices()
+	/////////////////////////////////////////////////////////////////////////////////////
+	
+	private void assertBufferRegionEquals(FloatBuffer expected, FloatBuffer actual,
+			int offset){
+		for(int i = 0; i < expected.capacity(); i++){
+			assertEquals(expected.get(i), actual.get(offset + i), 0f);
+		}
+	}
+	
+	@Test
+	public void test_putVertices_matches_createVertexFloatBuffer() {
+		shape = new JShape();
+		shape.translate(2, -5);
+		float blockHalfWidth = 1.5f;
+		FloatBuffer buffer = BufferUtils.createFloatBuffer(ShapeUtils.FLOATS_PER_SHAPE);
+		
+		int end = ShapeUtils.putVertices(shape, blockHalfWidth, buffer, 0);
+		
+		assertEquals(ShapeUtils.FLOATS_PER_SHAPE, end);
+		assertEquals(0, buffer.position());
+		assertBufferRegionEquals(
+				ShapeUtils.createVertexFloatBuffer(shape, blockHalfWidth), buffer, 0);
+	}
+	
+	@Test
+	public void test_putVertices_at_offset() {
+		shape = new IShape();
+		FloatBuffer buffer = BufferUtils.createFloatBuffer(10 + ShapeUtils.FLOATS_PER_SHAPE);
+		
+		int end = ShapeUtils.putVertices(shape, 1f, buffer, 10);
+		
+		assertEquals(10 + ShapeUtils.FLOATS_PER_SHAPE, end);
+		assertEquals(0f, buffer.get(9), 0f);
+		assertBufferRegionEquals(ShapeUtils.createVertexFloatBuffer(shape, 1f),
+				buffer, 10);
+	}
+	
+	@Test
+	public void test_putVertices_packedShape() {
+		shape = new JShape();
+		FloatBuffer buffer = BufferUtils.createFloatBuffer(ShapeUtils.FLOATS_PER_SHAPE);
+		
+		ShapeUtils.putVertices(shape.getPackedShape(), 2f, buffer, 0);
+		
+		assertBufferRegionEquals(ShapeUtils.createVertexFloatBuffer(shape, 2f),
+				buffer, 0);
+	}
+	
+	@Test
+	public void test_putVertices_many_shapes() {
+		Shape[] shapes = { new IShape(), new JShape() };
+		long[] packedShapes = { shapes[0].getPackedShape(), shapes[1].getPackedShape(),
+				PackedShape.INVALID };
+		FloatBuffer buffer = BufferUtils.createFloatBuffer(2 * ShapeUtils.FLOATS_PER_SHAPE);
+		FloatBuffer packedBuffer =
+				BufferUtils.createFloatBuffer(2 * ShapeUtils.FLOATS_PER_SHAPE);
+		
+		int end = ShapeUtils.putVertices(shapes, 1f, buffer, 0);
+		int packedEnd = ShapeUtils.putVertices(packedShapes, 2, 1f, packedBuffer, 0);
+		
+		assertEquals(2 * ShapeUtils.FLOATS_PER_SHAPE, end);
+		assertEquals(end, packedEnd);
+		for(int i = 0; i < shapes.length; i++){
+			FloatBuffer expected = ShapeUtils.createVertexFloatBuffer(shapes[i], 1f);
+			int offset = i * ShapeUtils.FLOATS_PER_SHAPE;
+			
+			assertBufferRegionEquals(expected, buffer, offset);
+			assertBufferRegionEquals(expected, packedBuffer, offset);
+		}
+	}
+	
+	@Test
+	public void test_putVertices_ByteBuffer() {
+		Shape[] shapes = { new IShape(), new JShape() };
+		int byteOffset = 8;
+		ByteBuffer buffer = BufferUtils.createByteBuffer(byteOffset +
+				2 * ShapeUtils.BYTES_PER_SHAPE);
+		
+		int end = ShapeUtils.putVertices(shapes, 1f, buffer, byteOffset);
+		
+		assertEquals(byteOffset + 2 * ShapeUtils.BYTES_PER_SHAPE, end);
+		assertEquals(ByteOrder.nativeOrder(), buffer.order());
+		
+		buffer.position(byteOffset);
+		FloatBuffer floats = buffer.asFloatBuffer();
+		for(int i = 0; i < shapes.length; i++){
+			assertBufferRegionEquals(ShapeUtils.createVertexFloatBuffer(shapes[i], 1f),
+					floats, i * ShapeUtils.FLOATS_PER_SHAPE);
+		}
+	}
+	
+	@Test(expected=InvalidParameterException.class)
+	public void test_putVertices_overflow() {
+		FloatBuffer buffer = BufferUtils.createFloatBuffer(ShapeUtils.FLOATS_PER_SHAPE);
+		
+		ShapeUtils.putVertices(new IShape(), 1f, buffer, 1);
+	}
+	
+	@Test(expected=InvalidParameterException.class)
+	public void test_putVertices_ByteBuffer_overflow() {
+		ByteBuffer buffer = BufferUtils.createByteBuffer(ShapeUtils.BYTES_PER_SHAPE - 1);
+		
+		ShapeUtils.putVertices(new IShape().getPackedShape(), 1f, buffer, 0);
+	}
 }